@@ -1,11 +1,27 @@
 package org.overbaard.jira.api.adapter.jira9;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
 
 import org.overbaard.jira.api.adapter.spi.SearchResultsAdapter;
 
+import com.atlassian.jira.component.ComponentAccessor;
 import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.index.DocumentConstants;
+import com.atlassian.jira.issue.search.DocumentWithId;
+import com.atlassian.jira.issue.search.SearchException;
+import com.atlassian.jira.issue.search.SearchProvider;
+import com.atlassian.jira.issue.search.SearchQuery;
 import com.atlassian.jira.issue.search.SearchResults;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.web.bean.PagerFilter;
+import com.atlassian.query.Query;
 
 /**
  * @author <a href="mailto:kabir.khan@jboss.com">Kabir Khan</a>
@@ -15,4 +31,37 @@ public class SearchResultsAdapterImpl implements SearchResultsAdapter {
     public List<Issue> getIssueResults(SearchResults searchResults) {
         return (List<Issue>)searchResults.getResults();
     }
+
+    @Override
+    public List<Long> getIssueIds(ApplicationUser user, Query query) throws SearchException {
+        final SearchProvider searchProvider = ComponentAccessor.getComponent(SearchProvider.class);
+        final SearchResults<DocumentWithId> searchResults = searchProvider.search(
+                SearchQuery.create(query, user),
+                PagerFilter.getUnlimitedFilter(),
+                Collections.singleton(DocumentConstants.ISSUE_ID));
+        final List<Long> ids = new ArrayList<>(searchResults.getResults().size());
+        for (DocumentWithId document : searchResults.getResults()) {
+            ids.add(Long.valueOf(document.getDocument().get(DocumentConstants.ISSUE_ID)));
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Map<String, String[]>> getIssueFieldValues(ApplicationUser user, Query query, Set<String> fieldNames) throws SearchException {
+        final SearchProvider searchProvider = ComponentAccessor.getComponent(SearchProvider.class);
+        final SearchResults<DocumentWithId> searchResults = searchProvider.search(
+                SearchQuery.create(query, user),
+                PagerFilter.getUnlimitedFilter(),
+                fieldNames);
+        final List<Map<String, String[]>> issues = new ArrayList<>(searchResults.getResults().size());
+        for (DocumentWithId documentWithId : searchResults.getResults()) {
+            final Document document = documentWithId.getDocument();
+            final Map<String, String[]> values = new HashMap<>(fieldNames.size());
+            for (String fieldName : fieldNames) {
+                values.put(fieldName, document.getValues(fieldName));
+            }
+            issues.add(values);
+        }
+        return issues;
+    }
 }
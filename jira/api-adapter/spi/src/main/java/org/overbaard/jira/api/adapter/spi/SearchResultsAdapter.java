@@ -1,13 +1,41 @@
 package org.overbaard.jira.api.adapter.spi;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.search.SearchException;
 import com.atlassian.jira.issue.search.SearchResults;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.query.Query;
 
 /**
  * @author <a href="mailto:kabir.khan@jboss.com">Kabir Khan</a>
  */
 public interface SearchResultsAdapter {
     List<Issue> getIssueResults(SearchResults searchResults);
+
+    /**
+     * Runs a query, only reading the ids of the matching issues from the index rather than creating the issues.
+     *
+     * @param user the user to run the query as
+     * @param query the query
+     * @return the ids of the matching issues, in the order specified by the query
+     * @throws SearchException if the search failed
+     */
+    List<Long> getIssueIds(ApplicationUser user, Query query) throws SearchException;
+
+    /**
+     * Runs a query, only reading the requested stored fields of the matching issues from the index rather than
+     * creating the issues.
+     *
+     * @param user the user to run the query as
+     * @param query the query
+     * @param fieldNames the names of the index fields to read
+     * @return the values of the requested fields keyed by field name, for each matching issue in the order specified
+     * by the query. A field which is not stored for an issue has an empty array
+     * @throws SearchException if the search failed
+     */
+    List<Map<String, String[]>> getIssueFieldValues(ApplicationUser user, Query query, Set<String> fieldNames) throws SearchException;
 }
@@ -101,6 +101,14 @@ public interface BoardConfigurationManager {
      */
     List<String> getBoardCodesForProjectCode(String projectCode);
 
+    /**
+     * Gets all the boards which have a given project as one of their linked projects
+     *
+     * @param projectCode the project code
+     * @return the board codes
+     */
+    List<String> getBoardCodesForLinkedProjectCode(String projectCode);
+
     /**
      * Saves the id of the custom field that Jira Agile uses for its 'Rank'.
      *
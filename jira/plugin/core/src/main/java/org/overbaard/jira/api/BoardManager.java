@@ -39,6 +39,48 @@ public interface BoardManager {
      */
     String getBoardJson(ApplicationUser user, boolean backlog, String code) throws SearchException;
 
+    /**
+     * Starts loading a board in the background, if it is not already loaded or being loaded. Once the load status
+     * reports that the board is loaded, {@link #getBoardJson(ApplicationUser, boolean, String)} will return it
+     * without having to wait for it to be loaded. If the board can be served from its snapshot in the meantime, the
+     * status is {@code snapshot}, and the board can be got straight away.
+     *
+     * @param user the logged in user
+     * @param code the code of the board
+     * @return the load status of the board in json format
+     */
+    String startBoardLoad(ApplicationUser user, String code);
+
+    /**
+     * Gets the status of the loading of a board. If the board is being loaded, this includes the number of issues
+     * loaded so far, and an estimate of the total number of issues.
+     *
+     * @param user the logged in user
+     * @param code the code of the board
+     * @return the load status of the board in json format
+     */
+    String getBoardLoadStatus(ApplicationUser user, String code);
+
+    /**
+     * Loads a board as its owner if it is not already loaded or being loaded, so that its next users don't have to
+     * wait for it to be loaded. This blocks until the board has been loaded. The board is not loaded if the loaded
+     * boards already use up the memory budget, or if it was recently unloaded to stay within it.
+     *
+     * @param code the code of the board
+     * @throws SearchException if the board could not be loaded
+     */
+    void warmBoard(String code) throws SearchException;
+
+    /**
+     * Gets the metrics of the full loads of the boards, i.e. how many are running and queued, and how long they had to
+     * wait before they were started. Only Jira Administrators may view these.
+     *
+     * @param user the logged in user
+     * @return the metrics in json format
+     * @throws org.overbaard.jira.OverbaardPermissionException if the user is not a Jira Administrator
+     */
+    String getLoadMetricsJson(ApplicationUser user);
+
     /**
      * Get the name of a board from its code
      * @param user the user
@@ -62,6 +104,14 @@ public interface BoardManager {
      */
     boolean hasBoardsForProjectCode(String projectCode);
 
+    /**
+     * Checks whether there are any boards which has the passed in {@code projectCode} as one of the linked projects.
+     *
+     * @param projectCode the project code
+     * @return {@code true} if there are boards
+     */
+    boolean hasBoardsForLinkedProjectCode(String projectCode);
+
     /**
      * Handles an event from the underlying Jira instance to create, delete, update issues on the affected boards
      *
@@ -69,6 +119,15 @@ public interface BoardManager {
      */
     void handleEvent(OverbaardIssueEvent event, NextRankedIssueUtil nextRankedIssueUtil);
 
+    /**
+     * Handles a change to an issue in one of the linked projects, by reloading the linked issues of the board issues
+     * linking to it.
+     *
+     * @param linkedIssueKey the key of the changed issue
+     * @param projectCode the project code of the changed issue
+     */
+    void handleLinkedIssueEvent(String linkedIssueKey, String projectCode);
+
     /**
      * Gets the changes for a board. The client passes in their view id, and the delta is passed back to the client in
      * json format so they can apply it to their own model.
@@ -81,6 +140,18 @@ public interface BoardManager {
      */
     String getChangesJson(ApplicationUser user, boolean backlog, String code, int viewId) throws SearchException;
 
+    /**
+     * Called when a user is updated or deleted in Jira, so that any cached data for the user is dropped.
+     *
+     * @param userName the name of the user
+     */
+    void onUserChanged(String userName);
+
+    /**
+     * Called when a custom field is updated or deleted in Jira, so that any cached options for the fields are dropped.
+     */
+    void onCustomFieldChanged();
+
     /**
      * If one or more boards for the project is set up to use the custom field, we return the custom field configs.
      * If none of the projects are configured to use the custom field, we return an empty set.
@@ -62,6 +62,22 @@ public interface JiraFacade {
      */
     String getBoardJson(ApplicationUser user, boolean backlog, String code) throws SearchException;
 
+    /**
+     * Starts loading a board in the background
+     * @param user the user
+     * @param code the board code
+     * @return the board's load status json
+     */
+    String startBoardLoad(ApplicationUser user, String code);
+
+    /**
+     * Gets the status of the loading of a board
+     * @param user the user
+     * @param code the board code
+     * @return the board's load status json
+     */
+    String getBoardLoadStatus(ApplicationUser user, String code);
+
     /**
      * Get the name of a board from its code
      * @param user the user
@@ -131,6 +147,14 @@ public interface JiraFacade {
      */
     String getUserAccessJson(ApplicationUser user);
 
+    /**
+     * Gets the metrics of the full loads of the boards. Only Jira Administrators may view these.
+     *
+     * @param user the currently logged in user
+     * @return json of the metrics
+     */
+    String getLoadMetricsJson(ApplicationUser user);
+
     /**
      * Updates an issue's parallel task value
      * @param user the currently logged in used
@@ -46,4 +46,9 @@ public interface ProjectCustomFieldOptionsLoader {
      * @return the options or {@code null}
      */
     CustomFieldOptions loadCustomFieldOptions(JiraInjectables jiraInjectables, BoardConfig boardConfig, BoardProjectConfig projectConfig);
+
+    /**
+     * Clears any cached options, so that they are read from Jira again the next time they are needed.
+     */
+    void clearCache();
 }
@@ -16,6 +16,9 @@
 
 package org.overbaard.jira.api;
 
+import java.util.Date;
+import java.util.Map;
+
 import com.atlassian.jira.user.ApplicationUser;
 
 /**
@@ -25,4 +28,14 @@ public interface UserAccessManager {
     void logUserAccess(ApplicationUser user, String boardCode, String userAgent);
 
     String getUserAccessJson(ApplicationUser user);
+
+    /**
+     * Gets the last time each board was opened by the users within a time range, to work out which boards are likely
+     * to be used soon.
+     *
+     * @param fromMillis the start of the time range
+     * @param toMillis the end of the time range, exclusive
+     * @return the last access time for each board code opened in the time range
+     */
+    Map<String, Date> getLastBoardAccessTimes(long fromMillis, long toMillis);
 }
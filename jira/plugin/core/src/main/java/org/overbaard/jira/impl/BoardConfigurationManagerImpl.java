@@ -333,6 +333,18 @@ public class BoardConfigurationManagerImpl implements BoardConfigurationManager
         return boardCodes;
     }
 
+    @Override
+    public List<String> getBoardCodesForLinkedProjectCode(String projectCode) {
+        //For now just iterate
+        List<String> boardCodes = new ArrayList<>();
+        for (Map.Entry<String, BoardConfig> entry : boardConfigs.entrySet()) {
+            if (entry.getValue().getLinkedProjectConfig(projectCode) != null) {
+                boardCodes.add(entry.getKey());
+            }
+        }
+        return boardCodes;
+    }
+
     @Override
     public void saveCustomFieldIds(ApplicationUser user, ModelNode idsNode) {
         if (!canEditCustomFields(user)) {
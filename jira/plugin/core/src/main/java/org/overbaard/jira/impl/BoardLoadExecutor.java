@@ -0,0 +1,255 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.dmr.ModelNode;
+import org.overbaard.jira.OverbaardLogger;
+import org.overbaard.jira.impl.board.LoadProgress;
+
+/**
+ * <p>Runs the full loads of the boards, so that only {@code overbaard.board.load.max.concurrent} of them hit the Jira
+ * database at the same time. The loads waiting to run are ordered by their {@link Priority}, so that the loads users
+ * are waiting for go before the background refreshes and the pre-warming of boards.</p>
+ * <p>A load which takes longer than {@code overbaard.board.load.timeout.minutes} minutes is cancelled, so that a
+ * stuck load does not keep a slot forever. The time the loads spend waiting for a slot is tracked for each priority,
+ * see {@link #getMetrics()}.</p>
+ *
+ * @author Kabir Khan
+ */
+class BoardLoadExecutor {
+
+    private static final int MAX_CONCURRENT = Math.max(1, Integer.getInteger("overbaard.board.load.max.concurrent", 2));
+
+    private static final long TIMEOUT_MINUTES = Long.getLong("overbaard.board.load.timeout.minutes", 30);
+
+    /**
+     * The priority of a load, in the order they are run.
+     */
+    enum Priority {
+        /** A user is waiting for the board */
+        INTERACTIVE,
+        /** A background load of a loaded board */
+        REFRESH,
+        /** A load ahead of the board being used */
+        WARMUP
+    }
+
+    private final int maxConcurrent;
+
+    private final long timeoutMillis;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicLong timedOut = new AtomicLong();
+
+    private final Map<Priority, Stats> stats = new EnumMap<>(Priority.class);
+
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledExecutorService timeoutExecutor;
+
+    BoardLoadExecutor() {
+        this(MAX_CONCURRENT, TimeUnit.MINUTES.toMillis(TIMEOUT_MINUTES));
+    }
+
+    /**
+     * For the tests.
+     *
+     * @param maxConcurrent the number of loads which may run at the same time
+     * @param timeoutMillis how long a load may run for before it is cancelled
+     */
+    BoardLoadExecutor(int maxConcurrent, long timeoutMillis) {
+        this.maxConcurrent = maxConcurrent;
+        this.timeoutMillis = timeoutMillis;
+        for (Priority priority : Priority.values()) {
+            stats.put(priority, new Stats());
+        }
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), BoardManagerImpl.createDaemonThreadFactory("overbaard-board-load-"));
+        executor.allowCoreThreadTimeOut(true);
+        final ScheduledThreadPoolExecutor timeoutExecutor =
+                new ScheduledThreadPoolExecutor(1, BoardManagerImpl.createDaemonThreadFactory("overbaard-board-load-timeout-"));
+        //Most loads complete before they time out
+        timeoutExecutor.setRemoveOnCancelPolicy(true);
+        this.timeoutExecutor = timeoutExecutor;
+    }
+
+    /**
+     * Queues a load.
+     *
+     * @param priority the priority of the load
+     * @param boardCode the code of the board being loaded
+     * @param progress the progress of the load, used to cancel it if it takes too long
+     * @param load the load
+     * @return the queued load, to be passed in to {@link #prioritize(Task, Priority)}
+     * @throws java.util.concurrent.RejectedExecutionException if the plugin is being stopped
+     */
+    Task execute(Priority priority, String boardCode, LoadProgress progress, FutureTask<?> load) {
+        final Task task = new Task(priority, boardCode, progress, load);
+        stats.get(priority).queued.incrementAndGet();
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            stats.get(priority).queued.decrementAndGet();
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * Moves a queued load ahead of the loads with a lower priority, e.g. because a user is now waiting for a board
+     * which was being pre-warmed. Does nothing if the load has already started.
+     *
+     * @param task the queued load
+     * @param priority the new priority
+     */
+    void prioritize(Task task, Priority priority) {
+        synchronized (task) {
+            if (priority.compareTo(task.priority) >= 0 || !executor.remove(task)) {
+                return;
+            }
+            stats.get(task.priority).queued.decrementAndGet();
+            task.priority = priority;
+            stats.get(priority).queued.incrementAndGet();
+        }
+        //Keeps its place amongst the loads which were queued with the new priority
+        executor.execute(task);
+    }
+
+    /**
+     * Gets the metrics of the loads.
+     *
+     * @return the metrics
+     */
+    ModelNode getMetrics() {
+        final ModelNode metrics = new ModelNode();
+        metrics.get("max-concurrent").set(maxConcurrent);
+        metrics.get("timeout-minutes").set(TimeUnit.MILLISECONDS.toMinutes(timeoutMillis));
+        metrics.get("running").set(running.get());
+        metrics.get("timed-out").set(timedOut.get());
+        for (Priority priority : Priority.values()) {
+            stats.get(priority).serialize(metrics.get("priorities", priority.name().toLowerCase()));
+        }
+        return metrics;
+    }
+
+    void shutdownNow() {
+        timeoutExecutor.shutdownNow();
+        for (Runnable runnable : executor.shutdownNow()) {
+            //Don't leave anyone waiting for a load which will never run
+            ((Task) runnable).load.cancel(false);
+        }
+    }
+
+    /**
+     * A queued load.
+     */
+    class Task implements Runnable, Comparable<Task> {
+        private final long sequence = BoardLoadExecutor.this.sequence.incrementAndGet();
+        private final long queuedTime = System.currentTimeMillis();
+        private final String boardCode;
+        private final LoadProgress progress;
+        private final FutureTask<?> load;
+        //Only changed while the task is not in the queue, so that the order of the queue stays valid
+        private volatile Priority priority;
+
+        private Task(Priority priority, String boardCode, LoadProgress progress, FutureTask<?> load) {
+            this.priority = priority;
+            this.boardCode = boardCode;
+            this.progress = progress;
+            this.load = load;
+        }
+
+        @Override
+        public void run() {
+            final long waited = System.currentTimeMillis() - queuedTime;
+            stats.get(priority).started(waited);
+            OverbaardLogger.LOGGER.debug("BoardLoadExecutor - Starting {} load of board {} after waiting {}ms",
+                    priority, boardCode, waited);
+
+            ScheduledFuture<?> timeout = null;
+            try {
+                timeout = timeoutExecutor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        OverbaardLogger.LOGGER.warn("BoardLoadExecutor - Cancelling the load of board {} which took longer than {}ms",
+                                boardCode, timeoutMillis);
+                        timedOut.incrementAndGet();
+                        //The load checks the progress between the pages and batches of issues, and fails at the next
+                        //check. The thread is not interrupted, since the load might be in the middle of a database
+                        //call which does not expect it and would leave the connection in a bad state.
+                        progress.cancel("The load of board " + boardCode + " took longer than " + timeoutMillis + "ms");
+                    }
+                }, timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                //We are being stopped, still run the load so that nobody is left waiting for it
+            }
+            running.incrementAndGet();
+            try {
+                load.run();
+            } finally {
+                running.decrementAndGet();
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            final int result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static class Stats {
+        private final AtomicInteger queued = new AtomicInteger();
+        //Guarded by this
+        private long started;
+        private long totalWaitMillis;
+        private long maxWaitMillis;
+
+        synchronized void started(long waitMillis) {
+            queued.decrementAndGet();
+            started++;
+            totalWaitMillis += waitMillis;
+            maxWaitMillis = Math.max(maxWaitMillis, waitMillis);
+        }
+
+        synchronized void serialize(ModelNode node) {
+            node.get("queued").set(queued.get());
+            node.get("started").set(started);
+            node.get("average-wait-ms").set(started == 0 ? 0 : totalWaitMillis / started);
+            node.get("max-wait-ms").set(maxWaitMillis);
+        }
+    }
+}
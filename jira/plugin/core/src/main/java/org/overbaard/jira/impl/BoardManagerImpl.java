@@ -15,17 +15,31 @@
  */
 package org.overbaard.jira.impl;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import javax.inject.Inject;
@@ -33,15 +47,21 @@ import javax.inject.Named;
 
 import org.jboss.dmr.ModelNode;
 import org.overbaard.jira.OverbaardLogger;
+import org.overbaard.jira.OverbaardPermissionException;
 import org.overbaard.jira.OverbaardValidationException;
 import org.overbaard.jira.api.BoardConfigurationManager;
 import org.overbaard.jira.api.BoardManager;
 import org.overbaard.jira.api.NextRankedIssueUtil;
 import org.overbaard.jira.api.ProjectCustomFieldOptionsLoader;
+import org.overbaard.jira.impl.board.AssigneeCache;
 import org.overbaard.jira.impl.board.Board;
 import org.overbaard.jira.impl.board.BoardChangeRegistry;
+import org.overbaard.jira.impl.board.BoardDiff;
 import org.overbaard.jira.impl.board.BoardProject;
+import org.overbaard.jira.impl.board.BoardReconciler;
 import org.overbaard.jira.impl.board.CustomFieldValue;
+import org.overbaard.jira.impl.board.Issue;
+import org.overbaard.jira.impl.board.LoadProgress;
 import org.overbaard.jira.impl.board.SortedFieldOptions;
 import org.overbaard.jira.impl.config.BoardConfig;
 import org.overbaard.jira.impl.config.BoardProjectConfig;
@@ -58,6 +78,7 @@ import com.atlassian.jira.issue.MutableIssue;
 import com.atlassian.jira.issue.customfields.view.CustomFieldParams;
 import com.atlassian.jira.issue.fields.CustomField;
 import com.atlassian.jira.issue.search.SearchException;
+import com.atlassian.jira.permission.GlobalPermissionKey;
 import com.atlassian.jira.user.ApplicationUser;
 
 /**
@@ -68,12 +89,98 @@ import com.atlassian.jira.user.ApplicationUser;
 @Named("overbaardBoardManager")
 public class BoardManagerImpl implements BoardManager, InitializingBean, DisposableBean {
 
-    private static final int REFRESH_TIMEOUT_SECONDS = 5 * 60;
+    /**
+     * How often the loaded boards are reconciled with Jira, to pick up the changes for which no events were received
+     * (e.g. changes to linked issues).
+     */
+    static final long RECONCILE_INTERVAL_MILLIS =
+            TimeUnit.SECONDS.toMillis(Long.getLong("overbaard.reconcile.interval.seconds", 60));
+
+    /**
+     * How often a board is reconciled after a reconciliation found changes which the events had missed.
+     */
+    static final long MIN_RECONCILE_INTERVAL_MILLIS = Math.min(RECONCILE_INTERVAL_MILLIS,
+            TimeUnit.SECONDS.toMillis(Long.getLong("overbaard.reconcile.min.interval.seconds", 15)));
+
+    /**
+     * The longest time between the reconciliations of a quiet board. The interval doubles each time a board is
+     * reconciled without any changes or events, up to this value.
+     */
+    static final long MAX_RECONCILE_INTERVAL_MILLIS = Math.max(RECONCILE_INTERVAL_MILLIS,
+            TimeUnit.SECONDS.toMillis(Long.getLong("overbaard.reconcile.max.interval.seconds", 600)));
+
+    /**
+     * The percentage by which the reconcile and full refresh times are randomly moved, so that the boards which were
+     * loaded at the same time (e.g. following a restart) don't all hit Jira at the same time.
+     */
+    static final int REFRESH_JITTER_PERCENT = Integer.getInteger("overbaard.refresh.jitter.percent", 20);
+
+    /**
+     * Boards which nobody has read or polled for changes for this long are unloaded, a value of {@code 0} or less
+     * keeps them loaded. The next read loads the board again (or serves it from its snapshot).
+     */
+    static final long IDLE_BOARD_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("overbaard.board.idle.minutes", 60));
+
+    /**
+     * The estimated heap the loaded boards may use before the least recently used ones are unloaded. The default is a
+     * quarter of the maximum heap, a value of {@code 0} or less means that there is no limit.
+     */
+    private static final long BOARD_MEMORY_BUDGET_BYTES = Long.getLong("overbaard.board.memory.budget.mb",
+            Runtime.getRuntime().maxMemory() / 4 / (1024 * 1024)) * 1024 * 1024;
+
+    /**
+     * How long a board which was unloaded to stay within the memory budget is not pre-warmed for. Otherwise the
+     * pre-warming would keep loading boards which then get unloaded again, or which unload the boards in use.
+     */
+    private static final long WARM_AFTER_BUDGET_UNLOAD_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("overbaard.prewarm.after.unload.minutes", 60));
+
+    /**
+     * How often the loaded boards are fully loaded again in the background, as a safety net for anything which the
+     * reconciliation misses.
+     */
+    static final long FULL_REFRESH_INTERVAL_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("overbaard.full.refresh.minutes", 24 * 60));
+
+    /**
+     * The maximum number of projects loaded at the same time, across all the boards being loaded. A value of
+     * {@code 1} or less means that the projects of a board are loaded one after another.
+     */
+    private static final int PROJECT_LOAD_PARALLELISM = Integer.getInteger("overbaard.project.load.parallelism", 4);
+
+    /**
+     * How many times the differences between a loaded board and its rebuilt instance are worked out again, when
+     * events change the loaded board while they are being worked out.
+     */
+    private static final int MAX_DIFF_ATTEMPTS = 3;
+
+    /**
+     * How long a read of a board waits for the board to be loaded, before failing so that the request does not hold
+     * on to its thread. The clients can use the load status to wait for a board which takes longer.
+     */
+    private static final long BOARD_LOAD_WAIT_MILLIS =
+            TimeUnit.SECONDS.toMillis(Long.getLong("overbaard.board.load.wait.seconds", 300));
+
+    /**
+     * How long the Jira event thread waits for a running load of a board to complete. Events for boards whose load
+     * has not completed by then, or is still queued, are applied once the board has been loaded.
+     */
+    private static final long EVENT_LOAD_WAIT_MILLIS =
+            TimeUnit.SECONDS.toMillis(Long.getLong("overbaard.event.load.wait.seconds", 10));
 
     private final JiraInjectables jiraInjectables;
 
-    //Guarded by this
-    private Map<String, Board> boards = new HashMap<>();
+    //Writes guarded by this, so that it is kept in sync with the other maps. Reads don't need the lock
+    private final ConcurrentMap<String, Board> boards = new ConcurrentHashMap<>();
+    //The boards currently being loaded
+    private final ConcurrentMap<String, BoardLoad> boardLoads = new ConcurrentHashMap<>();
+    //The boards being loaded again in the background, while the loaded instance keeps being used
+    private final ConcurrentMap<String, BoardRebuild> boardRebuilds = new ConcurrentHashMap<>();
+    //The errors from the last background load of boards which failed to load
+    private final ConcurrentMap<String, String> boardLoadFailures = new ConcurrentHashMap<>();
+    //When boards were last unloaded to stay within the memory budget
+    private final ConcurrentMap<String, Long> budgetUnloadTimes = new ConcurrentHashMap<>();
     //Guarded by this
     private Map<String, BoardChangeRegistry> boardChangeRegistries = new HashMap<>();
 
@@ -81,12 +188,29 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
 
     private final ProjectCustomFieldOptionsLoader projectCustomFieldOptionsLoader;
 
-    private final ExecutorService boardRefreshExecutor = Executors.newSingleThreadExecutor();
+    private final AssigneeCache assigneeCache = new AssigneeCache();
 
-    private final Queue<RefreshEntry> boardRefreshQueue = new LinkedBlockingQueue<>();
+    //Each loaded board has its own reconcile task scheduled, see RefreshEntry
+    private final ScheduledExecutorService boardRefreshExecutor = createBoardRefreshExecutor();
 
-    //Guarded by this
-    private final Map<String, RefreshEntry> refreshEntries = new HashMap<>();
+    private final ExecutorService projectLoadExecutor = createProjectLoadExecutor();
+
+    //Runs the full loads of the boards, a limited number at a time
+    private final BoardLoadExecutor boardLoadExecutor = new BoardLoadExecutor();
+
+    private final ScheduledExecutorService boardSnapshotExecutor = Executors.newSingleThreadScheduledExecutor(
+            createDaemonThreadFactory("overbaard-board-snapshot-"));
+
+    private final BoardSnapshots boardSnapshots;
+
+    //Writes guarded by this. Reads don't need the lock
+    private final ConcurrentMap<String, RefreshEntry> refreshEntries = new ConcurrentHashMap<>();
+
+    //Only used by the refresh thread
+    private NextRankedIssueUtil refreshNextRankedIssueUtil;
+
+    //Serializes the updates of the boards by events and by the reconciliation of the boards
+    private final Object boardUpdateLock = new Object();
 
     @Inject
     public BoardManagerImpl(JiraInjectables jiraInjectables,
@@ -95,6 +219,7 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
         this.jiraInjectables = jiraInjectables;
         this.boardConfigurationManager = boardConfigurationManager;
         this.projectCustomFieldOptionsLoader = projectCustomFieldOptionsLoader;
+        this.boardSnapshots = new BoardSnapshots(jiraInjectables);
     }
 
     @Override
@@ -187,42 +312,464 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
 
     @Override
     public String getBoardJson(ApplicationUser user, boolean backlog, String code) throws SearchException {
+        if (boardSnapshots.isEnabled() && !boards.containsKey(code)) {
+            //Following a restart, serve the board from its snapshot if there is one, while it is loaded in the background
+            final BoardConfig boardConfig = boardConfigurationManager.getBoardConfigForBoardDisplay(user, code);
+            final String snapshotJson = boardSnapshots.getBoardJson(user, backlog, boardConfig);
+            if (snapshotJson != null) {
+                startBoardLoad(user, code);
+                return snapshotJson;
+            }
+        }
         Board board = getBoard(user, code);
+        boardPolled(code);
         return board.serialize(jiraInjectables, backlog, user).toJSONString(true);
     }
 
+    private void boardPolled(String code) {
+        final RefreshEntry refreshEntry = refreshEntries.get(code);
+        if (refreshEntry != null) {
+            refreshEntry.polled();
+        }
+    }
+
     private Board getBoard(ApplicationUser user, String code) throws SearchException {
+        return getBoard(user, code, BoardLoadExecutor.Priority.INTERACTIVE);
+    }
+
+    private Board getBoard(ApplicationUser user, String code, BoardLoadExecutor.Priority priority) throws SearchException {
         Board board = boards.get(code);
-        if (board == null) {
-            synchronized (this) {
-                board = boards.get(code);
+        if (board != null) {
+            return board;
+        }
+
+        //Only one load of a given board happens at a time, anyone else asking for it while it is being loaded waits for
+        //that load. Loads of different boards happen in parallel, and do not block access to the boards which are
+        //already loaded.
+        final BoardLoad load = new BoardLoad(user, code);
+        final BoardLoad existing = boardLoads.putIfAbsent(code, load);
+        if (existing != null) {
+            existing.prioritize(priority);
+            return waitForLoad(existing);
+        }
+        load.start(priority);
+        return waitForLoad(load);
+    }
+
+    @Override
+    public String startBoardLoad(ApplicationUser user, String code) {
+        //Check we are allowed to view the board
+        final BoardConfig boardConfig = boardConfigurationManager.getBoardConfigForBoardDisplay(user, code);
+
+        if (!boards.containsKey(code)) {
+            final BoardLoad load = new BoardLoad(user, code);
+            final BoardLoad existing = boardLoads.putIfAbsent(code, load);
+            if (existing == null) {
+                boardLoadFailures.remove(code);
+                load.start(BoardLoadExecutor.Priority.INTERACTIVE);
+            } else {
+                //The user is now waiting for a load which might have been started in the background
+                existing.prioritize(BoardLoadExecutor.Priority.INTERACTIVE);
+            }
+            if (boardSnapshots.hasSnapshot(boardConfig)) {
+                //getBoardJson() serves the snapshot while the board is loaded, so the client does not need to wait
+                final ModelNode statusNode = new ModelNode();
+                statusNode.get(Constants.STATUS).set(Constants.SNAPSHOT);
+                return statusNode.toJSONString(true);
+            }
+        }
+        return getBoardLoadStatus(code);
+    }
+
+    @Override
+    public void warmBoard(String code) throws SearchException {
+        if (isBoardActive(code)) {
+            return;
+        }
+        final Long unloadTime = budgetUnloadTimes.get(code);
+        if (unloadTime != null && System.currentTimeMillis() - unloadTime < WARM_AFTER_BUDGET_UNLOAD_MILLIS) {
+            OverbaardLogger.LOGGER.debug("BoardManagerImpl.warmBoard - Not loading board {} which was unloaded to stay within the memory budget", code);
+            return;
+        }
+        if (BOARD_MEMORY_BUDGET_BYTES > 0 &&
+                getEstimatedSize(new HashMap<>(), new HashMap<>(), new HashMap<>()) >= BOARD_MEMORY_BUDGET_BYTES) {
+            //Loading the board would unload one which is in use
+            OverbaardLogger.LOGGER.debug("BoardManagerImpl.warmBoard - Not loading board {} since the memory budget is used up", code);
+            return;
+        }
+        final BoardConfig boardConfig = boardConfigurationManager.getBoardConfig(code);
+        if (boardConfig == null) {
+            //The board was deleted
+            return;
+        }
+        final ApplicationUser boardOwner = jiraInjectables.getJiraUserManager().getUserByKey(boardConfig.getOwningUserKey());
+        OverbaardLogger.LOGGER.debug("BoardManagerImpl.warmBoard - Loading board {}", code);
+        getBoard(boardOwner, code, BoardLoadExecutor.Priority.WARMUP);
+    }
+
+    @Override
+    public String getLoadMetricsJson(ApplicationUser user) {
+        if (!jiraInjectables.getGlobalPermissionManager().hasPermission(GlobalPermissionKey.ADMINISTER, user)) {
+            throw new OverbaardPermissionException("Only Jira Administrators can view the board load metrics");
+        }
+        return boardLoadExecutor.getMetrics().toJSONString(true);
+    }
+
+    @Override
+    public String getBoardLoadStatus(ApplicationUser user, String code) {
+        //Check we are allowed to view the board
+        boardConfigurationManager.getBoardConfigForBoardDisplay(user, code);
+        return getBoardLoadStatus(code);
+    }
+
+    private String getBoardLoadStatus(String code) {
+        final ModelNode statusNode = new ModelNode();
+        final BoardLoad load = boardLoads.get(code);
+        if (boards.containsKey(code)) {
+            statusNode.get(Constants.STATUS).set(Constants.LOADED);
+        } else if (load != null) {
+            statusNode.get(Constants.STATUS).set(Constants.LOADING);
+            statusNode.get(Constants.LOADED).set(load.progress.getLoaded());
+            statusNode.get(Constants.TOTAL).set(load.progress.getEstimatedTotal());
+        } else if (boardLoadFailures.containsKey(code)) {
+            statusNode.get(Constants.STATUS).set(Constants.FAILED);
+            statusNode.get(Constants.ERROR).set(boardLoadFailures.get(code));
+        } else {
+            statusNode.get(Constants.STATUS).set(Constants.NOT_LOADED);
+        }
+        return statusNode.toJSONString(true);
+    }
+
+    private Board loadBoard(ApplicationUser user, String code, LoadProgress progress) throws SearchException {
+        Board board = boards.get(code);
+        if (board != null) {
+            //Another thread finished loading it just before we registered our load
+            return board;
+        }
+        return buildBoard(user, code, progress);
+    }
+
+    private Board buildBoard(ApplicationUser user, String code, LoadProgress progress) throws SearchException {
+        //Use the logged in user to check if we are allowed to view the board
+        //Also, we force a refresh of the board config since we're doing a full load of the board
+        //(either as a first load, or following a refresh)
+        final BoardConfig boardConfig = boardConfigurationManager.getBoardConfigForBoardDisplay(user, code, true);
+        /*
+        Use the board owner to load the board data. The board is only loaded once, and shared amongst all
+        users.
+        Since I was not 100% sure which permission to use to determine if a user can view the board in the
+        check done by getBoardConfigForBoardDisplay(), it feels less error-prone to use the user who created
+        the board (who needs the project admin permission) to load this data.
+        This user is only used to load board data; all changes will be done using the logged in user.
+        */
+
+        final ApplicationUser boardOwner = jiraInjectables.getJiraUserManager().getUserByKey(boardConfig.getOwningUserKey());
+        final Board board = Board.builder(jiraInjectables, projectCustomFieldOptionsLoader, boardConfig, assigneeCache, boardOwner)
+                .setLoadProgress(progress)
+                .load(projectLoadExecutor)
+                .build();
+        OverbaardLogger.LOGGER.debug("Full refresh of board {}", code);
+        return board;
+    }
+
+    private synchronized void publishBoard(String code, BoardLoad load, Board board) {
+        if (boards.get(code) == board) {
+            //loadBoard() found it already loaded
+            return;
+        }
+        if (boardLoads.get(code) != load) {
+            //The board was deleted while we were loading it, so don't publish what we loaded. The next attempt
+            //to read the board will load it again
+            return;
+        }
+        boards.put(code, board);
+        boardSnapshots.boardLoaded(code);
+        boardChangeRegistries.put(code, new BoardChangeRegistry(this, board));
+        scheduleRefresh(code, load.startTime);
+    }
+
+    private synchronized void scheduleRefresh(String code, long loadStartTime) {
+        //Changes made in Jira after the load started might be missing from the loaded board
+        final RefreshEntry refreshEntry = new RefreshEntry(code, loadStartTime);
+        final RefreshEntry old = refreshEntries.put(code, refreshEntry);
+        if (old != null) {
+            old.invalidate();
+            //A rebuild of the board does not count as someone using it
+            refreshEntry.lastPolledTime = old.lastPolledTime;
+        }
+        scheduleReconcile(refreshEntry, refreshEntry.nextDelay(System.currentTimeMillis()));
+        if (BOARD_MEMORY_BUDGET_BYTES > 0 && !boardRefreshExecutor.isShutdown()) {
+            //Unloading boards writes their snapshots, so do it on the refresh thread
+            boardRefreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    checkMemoryBudget();
+                }
+            });
+        }
+    }
+
+    private synchronized void scheduleReconcile(RefreshEntry entry, long delayMillis) {
+        if (!entry.isValid() || boardRefreshExecutor.isShutdown()) {
+            return;
+        }
+        entry.future = boardRefreshExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                refreshBoard(entry);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs on the refresh thread when the next reconciliation of a board is due. Boards which nobody is using are
+     * unloaded, and boards which could not be reconciled, or are due their full refresh, are rebuilt.
+     *
+     * @param entry the refresh entry of the board
+     */
+    private void refreshBoard(RefreshEntry entry) {
+        if (!entry.isValid()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (entry.isIdle(now)) {
+            OverbaardLogger.LOGGER.debug("BoardManagerImpl - Unloading board {} which has not been used since {}",
+                    entry.boardCode, entry.lastPolledTime);
+            expireBoard(entry);
+            return;
+        }
+        if (now >= entry.fullRefreshTime || !reconcileBoard(entry, now)) {
+            //When the rebuild completes a new refresh entry is scheduled
+            rebuildBoard(entry);
+            return;
+        }
+        scheduleReconcile(entry, entry.nextDelay(System.currentTimeMillis()));
+        //The board might have grown
+        checkMemoryBudget();
+    }
+
+    /**
+     * Unloads the least recently used boards if the estimated size of the loaded boards and of the snapshots read into
+     * memory is over the memory budget. The snapshots are dropped first. Runs on the refresh thread.
+     */
+    private void checkMemoryBudget() {
+        checkMemoryBudget(BOARD_MEMORY_BUDGET_BYTES);
+    }
+
+    /**
+     * Package-private for the tests, which use a different budget.
+     *
+     * @param budget the memory budget in bytes. A value of {@code 0} or less means that there is no limit
+     */
+    void checkMemoryBudget(long budget) {
+        if (budget <= 0) {
+            return;
+        }
+        final Map<String, RefreshEntry> entries = new HashMap<>();
+        final Map<String, Long> sizes = new HashMap<>();
+        //The poll times might change while the boards are being chosen, so use a copy of them
+        final Map<String, Long> polledTimes = new HashMap<>();
+        long total = getEstimatedSize(entries, sizes, polledTimes);
+        if (total <= budget) {
+            return;
+        }
+        //The snapshots read into memory are the cheapest to get back, since they are still on disk
+        total -= boardSnapshots.evict();
+        for (String code : getBoardsToUnload(sizes, polledTimes, total, budget)) {
+            OverbaardLogger.LOGGER.debug("BoardManagerImpl - Unloading board {} (about {} bytes) since the boards use about {} bytes",
+                    code, sizes.get(code), total);
+            expireBoard(entries.get(code));
+            budgetUnloadTimes.put(code, System.currentTimeMillis());
+            total -= sizes.get(code);
+        }
+    }
+
+    /**
+     * Gets the estimated size of the loaded boards and of the snapshots read into memory.
+     *
+     * @param entries populated with the refresh entries of the loaded boards
+     * @param sizes populated with the estimated sizes of the loaded boards
+     * @param polledTimes populated with the last time each loaded board was used
+     * @return the estimated size in bytes
+     */
+    private long getEstimatedSize(Map<String, RefreshEntry> entries, Map<String, Long> sizes, Map<String, Long> polledTimes) {
+        long total = 0;
+        synchronized (this) {
+            for (RefreshEntry entry : refreshEntries.values()) {
+                final Board board = boards.get(entry.boardCode);
                 if (board == null) {
+                    continue;
+                }
+                long size = board.getEstimatedSize();
+                final BoardChangeRegistry registry = boardChangeRegistries.get(entry.boardCode);
+                if (registry != null) {
+                    size += registry.getEstimatedSize();
+                }
+                entries.put(entry.boardCode, entry);
+                sizes.put(entry.boardCode, size);
+                polledTimes.put(entry.boardCode, entry.lastPolledTime);
+                total += size;
+            }
+        }
+        return total + boardSnapshots.getEstimatedSize();
+    }
 
-                    //Use the logged in user to check if we are allowed to view the board
-                    //Also, we force a refresh of the board config since we're doing a full load of the board
-                    //(either as a first load, or following a refresh)
-                    final BoardConfig boardConfig = boardConfigurationManager.getBoardConfigForBoardDisplay(user, code, true);
-                    /*
-                    Use the board owner to load the board data. The board is only loaded once, and shared amongst all
-                    users.
-                    Since I was not 100% sure which permission to use to determine if a user can view the board in the
-                    check done by getBoardConfigForBoardDisplay(), it feels less error-prone to use the user who created
-                    the board (who needs the project admin permission) to load this data.
-                    This user is only used to load board data; all changes will be done using the logged in user.
-                    */
-
-                    final ApplicationUser boardOwner = jiraInjectables.getJiraUserManager().getUserByKey(boardConfig.getOwningUserKey());
-                    board = Board.builder(jiraInjectables, projectCustomFieldOptionsLoader, boardConfig, boardOwner).load().build();
-                    OverbaardLogger.LOGGER.debug("Full refresh of board {}", code);
-                    boards.put(code, board);
-                    boardChangeRegistries.put(code, new BoardChangeRegistry(this, board));
-                    final RefreshEntry refreshEntry = new RefreshEntry(code, REFRESH_TIMEOUT_SECONDS);
-                    boardRefreshQueue.add(refreshEntry);
-                    refreshEntries.put(code, refreshEntry);
+    /**
+     * Chooses the boards to unload to get the estimated size of the loaded boards within the budget, the least
+     * recently used first. The most recently used board is kept even if it is over the budget on its own.
+     *
+     * @param sizes the estimated sizes of the loaded boards
+     * @param polledTimes the last time each loaded board was used
+     * @param total the estimated size of everything which counts towards the budget
+     * @param budget the memory budget in bytes
+     * @return the codes of the boards to unload
+     */
+    static List<String> getBoardsToUnload(Map<String, Long> sizes, Map<String, Long> polledTimes, long total, long budget) {
+        final List<String> codes = new ArrayList<>(sizes.keySet());
+        Collections.sort(codes, new Comparator<String>() {
+            @Override
+            public int compare(String code1, String code2) {
+                return Long.compare(polledTimes.get(code1), polledTimes.get(code2));
+            }
+        });
+        final List<String> unload = new ArrayList<>();
+        for (int i = 0; i < codes.size() - 1 && total > budget; i++) {
+            final String code = codes.get(i);
+            unload.add(code);
+            total -= sizes.get(code);
+        }
+        return unload;
+    }
+
+    private boolean reconcileBoard(RefreshEntry entry, long now) {
+        final Board board = boards.get(entry.boardCode);
+        if (board == null) {
+            return true;
+        }
+        final BoardReconciler.Result result;
+        try {
+            final ApplicationUser boardOwner =
+                    jiraInjectables.getJiraUserManager().getUserByKey(board.getConfig().getOwningUserKey());
+            result = BoardReconciler.reconcile(jiraInjectables, board, boardOwner, entry.lastReconcileTime);
+        } catch (Exception e) {
+            OverbaardLogger.LOGGER.error("BoardManagerImpl - Error reconciling board {} - {}", entry.boardCode, e.getMessage());
+            //Last parameter is the exception (it does not match a {} entry)
+            OverbaardLogger.LOGGER.debug("BoardManagerImpl - Error reconciling board {}", entry.boardCode, e);
+            return false;
+        }
+        if (result.isFullRefreshNeeded()) {
+            return false;
+        }
+        if (result.getEvents().size() > 0) {
+            if (refreshNextRankedIssueUtil == null) {
+                refreshNextRankedIssueUtil = new NextRankedIssueUtilImpl(jiraInjectables, boardConfigurationManager);
+            }
+            for (OverbaardIssueEvent event : result.getEvents()) {
+                applyEvent(entry.boardCode, event, refreshNextRankedIssueUtil);
+            }
+        }
+        entry.reconciled(now, result.getEvents().size() > 0);
+        return true;
+    }
+
+    /**
+     * Loads a board again in the background, while the loaded instance keeps being used and updated by events. The
+     * differences are then applied to the loaded instance as events, so that the clients only get the changes. If
+     * that is not possible, the new instance replaces the loaded one.
+     *
+     * @param entry the refresh entry of the board
+     */
+    private void rebuildBoard(RefreshEntry entry) {
+        final BoardRebuild rebuild = new BoardRebuild(entry);
+        synchronized (this) {
+            if (!entry.isValid() || !boards.containsKey(entry.boardCode) ||
+                    boardRebuilds.putIfAbsent(entry.boardCode, rebuild) != null) {
+                return;
+            }
+        }
+        final FutureTask<Void> task = new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    rebuild.run();
+                } catch (Exception e) {
+                    OverbaardLogger.LOGGER.error("BoardManagerImpl.rebuildBoard - Error rebuilding board {} - {}", entry.boardCode, e.getMessage());
+                    //Last parameter is the exception (it does not match a {} entry)
+                    OverbaardLogger.LOGGER.debug("BoardManagerImpl.rebuildBoard - Error rebuilding board {}", entry.boardCode, e);
+                    expireBoard(entry);
+                } finally {
+                    boardRebuilds.remove(entry.boardCode, rebuild);
                 }
             }
+        }, null);
+        try {
+            boardLoadExecutor.execute(BoardLoadExecutor.Priority.REFRESH, entry.boardCode, rebuild.progress, task);
+        } catch (RejectedExecutionException e) {
+            //We are being stopped
+            boardRebuilds.remove(entry.boardCode, rebuild);
+        }
+    }
+
+    private void expireBoard(RefreshEntry entry) {
+        final Board board;
+        synchronized (this) {
+            if (!entry.isValid()) {
+                return;
+            }
+            OverbaardLogger.LOGGER.debug("Periodic task deleting board " + entry.boardCode);
+            //Remove the board, an attempt to read it will result in a new instance being fully loaded
+            //and created
+            refreshEntries.remove(entry.boardCode, entry);
+            entry.invalidate();
+            final BoardChangeRegistry registry = boardChangeRegistries.remove(entry.boardCode);
+            if (registry != null) {
+                registry.invalidate();
+            }
+            board = boards.remove(entry.boardCode);
+            //When an attempt is made to get the board again, a new entry will be scheduled
+        }
+        if (board != null) {
+            boardSnapshots.boardUnloaded(entry.boardCode, board);
+        }
+    }
+
+    private synchronized void replaceBoard(String code, Board board, long loadStartTime) {
+        boards.put(code, board);
+        final BoardChangeRegistry registry = boardChangeRegistries.put(code, new BoardChangeRegistry(this, board));
+        if (registry != null) {
+            registry.invalidate();
+        }
+        scheduleRefresh(code, loadStartTime);
+    }
+
+    private Board waitForLoad(BoardLoad load) throws SearchException {
+        try {
+            return waitForLoad(load, BOARD_LOAD_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for board " + load.code + " to load");
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Board " + load.code + " is still loading, please try again later");
+        }
+    }
+
+    private Board waitForLoad(BoardLoad load, long timeoutMillis)
+            throws SearchException, InterruptedException, TimeoutException {
+        try {
+            return load.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SearchException) {
+                throw (SearchException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
         }
-        return board;
     }
 
     @Override
@@ -236,6 +783,8 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
     @Override
     public void deleteBoard(ApplicationUser user, String code) {
         deleteBoard(code);
+        //The board config was changed or deleted
+        boardSnapshots.discard(code);
     }
 
     public void forceRefresh(String code) {
@@ -244,6 +793,10 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
 
     private void deleteBoard(String code) {
         synchronized (this) {
+            //If the board is being loaded, make sure that what is loaded does not get published
+            boardLoads.remove(code);
+            boardRebuilds.remove(code);
+            boardLoadFailures.remove(code);
             boards.remove(code);
             BoardChangeRegistry registry = boardChangeRegistries.remove(code);
             if (registry != null) {
@@ -262,17 +815,20 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
         if (boardCodes.size() == 0) {
             return false;
         }
-        synchronized (this) {
-            for (String boardCode : boardCodes) {
-                //There might be a config, but no board. So check if there is a board first.
-                if (boards.get(boardCode) != null) {
-                    return true;
-                }
+        for (String boardCode : boardCodes) {
+            //There might be a config, but no board. So check if there is a board first.
+            if (isBoardActive(boardCode)) {
+                return true;
             }
         }
         return false;
     }
 
+    private boolean isBoardActive(String boardCode) {
+        //A board which is being loaded counts, since handleEvent() will wait for the load to complete
+        return boards.containsKey(boardCode) || boardLoads.containsKey(boardCode);
+    }
+
     @Override
     public Set<CustomFieldConfig> getCustomFieldsForUpdateEvent(String projectCode, String jiraCustomFieldName) {
         return processBoardConfigs(
@@ -352,14 +908,12 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
             return Collections.emptySet();
         }
         Set<String> activeBoards = new HashSet<>();
-        synchronized (this) {
-            for (String boardCode : boardCodes) {
-                //There might be a config, but no board. So check if there is a board first.
-                //There is a slight chance that a new board might pop up so we will miss this update, but it isn't a big
-                //deal. It will come in during the next periodic full refresh.
-                if (boards.get(boardCode) != null) {
-                    activeBoards.add(boardCode);
-                }
+        for (String boardCode : boardCodes) {
+            //There might be a config, but no board. So check if there is a board first.
+            //There is a slight chance that a new board might pop up so we will miss this update, but it isn't a big
+            //deal. It will come in during the next periodic full refresh.
+            if (isBoardActive(boardCode)) {
+                activeBoards.add(boardCode);
             }
         }
         Set<T> result = null;
@@ -379,17 +933,123 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
     }
 
     @Override
-    public void handleEvent(OverbaardIssueEvent event, NextRankedIssueUtil nextRankedIssueUtil) {
+    public boolean hasBoardsForLinkedProjectCode(String projectCode) {
+        for (String boardCode : boardConfigurationManager.getBoardCodesForLinkedProjectCode(projectCode)) {
+            //There might be a config, but no board. So check if there is a board first.
+            if (isBoardActive(boardCode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void handleEvent(final OverbaardIssueEvent event, final NextRankedIssueUtil nextRankedIssueUtil) {
         //Jira seems to only handle one event at a time, which is good
 
         List<String> boardCodes = boardConfigurationManager.getBoardCodesForProjectCode(event.getProjectCode());
-        for (String boardCode : boardCodes) {
+        for (final String boardCode : boardCodes) {
+            final boolean applyNow = waitForBoardLoad(boardCode, new Runnable() {
+                @Override
+                public void run() {
+                    applyEvent(boardCode, event, nextRankedIssueUtil);
+                }
+            });
+            if (!applyNow) {
+                continue;
+            }
+            if (!applyEvent(boardCode, event, nextRankedIssueUtil) && event.getType() != OverbaardIssueEvent.Type.LINKS) {
+                //The changes in the issue were not relevant. The linked issues are filtered differently by each board,
+                //so a links event which did not change one board might still change the others
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void handleLinkedIssueEvent(final String linkedIssueKey, String projectCode) {
+        List<String> boardCodes = boardConfigurationManager.getBoardCodesForLinkedProjectCode(projectCode);
+        for (final String boardCode : boardCodes) {
+            final boolean applyNow = waitForBoardLoad(boardCode, new Runnable() {
+                @Override
+                public void run() {
+                    applyLinkedIssueEvent(boardCode, linkedIssueKey);
+                }
+            });
+            if (applyNow) {
+                applyLinkedIssueEvent(boardCode, linkedIssueKey);
+            }
+        }
+    }
+
+    private void applyLinkedIssueEvent(String boardCode, String linkedIssueKey) {
+        final Board board;
+        synchronized (this) {
+            board = boards.get(boardCode);
+        }
+        if (board == null) {
+            return;
+        }
+        for (String issueKey : board.getLinkingIssueKeys(linkedIssueKey)) {
+            final Issue issue = board.getIssue(issueKey);
+            if (issue != null) {
+                OverbaardLogger.LOGGER.debug("BoardManagerImpl.handleLinkedIssueEvent - {} links to {} in board {}",
+                        issueKey, linkedIssueKey, boardCode);
+                applyEvent(boardCode, OverbaardIssueEvent.createLinksEvent(issueKey, issue.getProjectCode()), null);
+            }
+        }
+    }
+
+    /**
+     * Called before applying an event to a board. The load of a board might have happened before the change was made,
+     * so the change must be applied to what was loaded. If the board's load is running this waits for it for a while,
+     * but the Jira event thread is not held up by a load which is queued or takes longer. Instead the event is
+     * buffered and applied once the board has been loaded.
+     *
+     * @param boardCode the board code
+     * @param event applies the event to the board, if it needs to be buffered
+     * @return {@code true} if the caller should apply the event now, {@code false} if the event was buffered or the
+     * load failed so there is no board to update
+     */
+    private boolean waitForBoardLoad(String boardCode, Runnable event) {
+        final BoardLoad load = boardLoads.get(boardCode);
+        if (load == null) {
+            return true;
+        }
+        if (load.isRunning()) {
+            try {
+                waitForLoad(load, EVENT_LOAD_WAIT_MILLIS);
+            } catch (TimeoutException e) {
+                OverbaardLogger.LOGGER.debug("BoardManagerImpl.waitForBoardLoad - Board {} is still loading, buffering the event", boardCode);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                //The next load of the board will pick up the change
+                return false;
+            }
+        }
+        //The events buffered while the board was loading must be applied first, so that they are applied in order
+        return !load.addPendingEvent(event);
+    }
+
+    /**
+     * Applies an event to a loaded board.
+     *
+     * @param boardCode the board code
+     * @param event the event
+     * @param nextRankedIssueUtil the next ranked issue util
+     * @return {@code false} if the changes in the issue were not relevant to the board
+     */
+    private boolean applyEvent(String boardCode, OverbaardIssueEvent event, NextRankedIssueUtil nextRankedIssueUtil) {
+        //Both the Jira events and the reconciliation of the boards update the boards, so make sure that one does not
+        //overwrite the board updated by the other
+        synchronized (boardUpdateLock) {
             final Board board;
             final BoardChangeRegistry changeRegistry;
             synchronized (this) {
                 board = boards.get(boardCode);
                 if (board == null) {
-                    continue;
+                    return true;
                 }
                 changeRegistry = boardChangeRegistries.get(boardCode);
             }
@@ -398,8 +1058,7 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
                 OverbaardLogger.LOGGER.debug("BoardManagerImpl.handleEvent - Handling event on board {}", board.getConfig().getCode());
                 Board newBoard = board.handleEvent(jiraInjectables, nextRankedIssueUtil, boardOwner, event, changeRegistry);
                 if (newBoard == null) {
-                    //The changes in the issue were not relevant
-                    return;
+                    return false;
                 }
                 synchronized (this) {
                     //An event ending up in forceRefresh() might have deleted the board and the change registry
@@ -408,6 +1067,15 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
                     if (changeRegistry.isValid()) {
                         changeRegistry.setBoard(newBoard);
                         boards.put(boardCode, newBoard);
+                        final RefreshEntry refreshEntry = refreshEntries.get(boardCode);
+                        if (refreshEntry != null) {
+                            refreshEntry.eventApplied();
+                        }
+                        final BoardRebuild rebuild = boardRebuilds.get(boardCode);
+                        if (rebuild != null) {
+                            //The board being rebuilt might not have this change
+                            rebuild.changedIssueKeys.add(event.getIssueKey());
+                        }
                     }
                 }
             } catch (Exception e) {
@@ -418,6 +1086,7 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
                 //Last parameter is the exception (it does not match a {} entry)
                 OverbaardLogger.LOGGER.debug("BoardManagerImpl.handleEvent - Error handling event {}", event.getIssueKey(), e);
             }
+            return true;
         }
     }
 
@@ -442,81 +1111,330 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
         } catch (BoardChangeRegistry.FullRefreshNeededException e) {
             return getBoardJson(user, backlog, code);
         }
+        boardPolled(code);
 
         return changes.toJSONString(true);
     }
 
+    @Override
+    public void onUserChanged(String userName) {
+        assigneeCache.invalidate(userName);
+    }
+
+    @Override
+    public void onCustomFieldChanged() {
+        projectCustomFieldOptionsLoader.clearCache();
+    }
+
     @Override
     public void afterPropertiesSet() throws Exception {
-        boardRefreshExecutor.execute(new Runnable() {
-            @Override
-            public void run() {
-                while (true) {
-                    try {
-                        Thread.sleep(10000);
-
-                        //Throw out all the 'expired' boards so that they are refreshed again
-                        synchronized (BoardManagerImpl.this) {
-                            RefreshEntry entry = boardRefreshQueue.peek();
-                            while (entry != null && System.currentTimeMillis() > entry.endTime) {
-                                //Remove the entry we peeked at
-                                entry = boardRefreshQueue.poll();
-
-                                if (entry.isValid()) {
-                                    OverbaardLogger.LOGGER.debug("Periodic task deleting board " + entry.boardCode);
-                                    //Remove the board, an attempt to read it will result in a new instance being fully loaded
-                                    //and created
-                                    boardChangeRegistries.remove(entry.boardCode);
-                                    boards.remove(entry.boardCode);
-                                    //When an attempt is made to get the board again, a new entry will be added to the  queue
-                                }
-                                entry = boardRefreshQueue.peek();
-                            }
-                        }
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+        if (boardSnapshots.isEnabled()) {
+            boardSnapshotExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    boardSnapshots.write(boards);
                 }
-            }
-        });
+            }, BoardSnapshots.INTERVAL_MILLIS, BoardSnapshots.INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public void destroy() throws Exception {
+        boardSnapshotExecutor.shutdownNow();
+        boardSnapshotExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        //Write the latest state of the boards so that they can be served straight away after a restart
+        boardSnapshots.write(boards);
         boardRefreshExecutor.shutdownNow();
+        boardLoadExecutor.shutdownNow();
+        if (projectLoadExecutor != null) {
+            projectLoadExecutor.shutdownNow();
+        }
         boardRefreshExecutor.awaitTermination(10, TimeUnit.SECONDS);
     }
 
-    private static class RefreshEntry {
+    private static ExecutorService createProjectLoadExecutor() {
+        if (PROJECT_LOAD_PARALLELISM <= 1) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(PROJECT_LOAD_PARALLELISM, createDaemonThreadFactory("overbaard-project-load-"));
+    }
+
+    private static ScheduledExecutorService createBoardRefreshExecutor() {
+        final ScheduledThreadPoolExecutor executor =
+                new ScheduledThreadPoolExecutor(1, createDaemonThreadFactory("overbaard-board-refresh-"));
+        //Don't keep the tasks of the unloaded boards around until they are due
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    static ThreadFactory createDaemonThreadFactory(String namePrefix) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * A full load of a board. The loaded board is published before the load completes, so that anyone who waited
+     * for it will find it in the boards map.
+     */
+    private class BoardLoad implements Callable<Board> {
+        private final ApplicationUser user;
+        private final String code;
+        private final FutureTask<Board> future = new FutureTask<Board>(this) {
+            @Override
+            protected void done() {
+                loadDone();
+            }
+        };
+        private final LoadProgress progress = new LoadProgress();
+        private final long startTime = System.currentTimeMillis();
+        private volatile BoardLoadExecutor.Task task;
+        private volatile boolean running;
+        //The events received while the board was loading, guarded by pendingEvents
+        private final List<Runnable> pendingEvents = new ArrayList<>();
+        private boolean pendingEventsApplied;
+
+        BoardLoad(ApplicationUser user, String code) {
+            this.user = user;
+            this.code = code;
+        }
+
+        void start(BoardLoadExecutor.Priority priority) {
+            try {
+                task = boardLoadExecutor.execute(priority, code, progress, future);
+            } catch (RejectedExecutionException e) {
+                //We are being stopped
+                future.cancel(false);
+                throw e;
+            }
+        }
+
+        void prioritize(BoardLoadExecutor.Priority priority) {
+            final BoardLoadExecutor.Task task = this.task;
+            if (task != null) {
+                boardLoadExecutor.prioritize(task, priority);
+            }
+        }
+
+        boolean isRunning() {
+            return running;
+        }
+
+        /**
+         * Buffers an event received while the board is loading.
+         *
+         * @param event applies the event to the board
+         * @return {@code false} if the buffered events have already been applied, in which case the caller should
+         * apply the event
+         */
+        boolean addPendingEvent(Runnable event) {
+            synchronized (pendingEvents) {
+                if (pendingEventsApplied) {
+                    return false;
+                }
+                pendingEvents.add(event);
+                return true;
+            }
+        }
+
+        private void loadDone() {
+            boolean loaded = false;
+            if (!future.isCancelled()) {
+                try {
+                    future.get();
+                    loaded = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    OverbaardLogger.LOGGER.error("BoardManagerImpl - Error loading board {} - {}", code, cause.getMessage());
+                    //Last parameter is the exception (it does not match a {} entry)
+                    OverbaardLogger.LOGGER.debug("BoardManagerImpl - Error loading board {}", code, cause);
+                    //Reported by the load status, for the clients which started the load in the background
+                    boardLoadFailures.put(code, cause.getMessage() == null ? cause.getClass().getName() : cause.getMessage());
+                }
+            }
+            //Apply the buffered events before the load is removed, so that the events which arrive in the meantime
+            //are buffered behind them rather than applied first
+            applyPendingEvents(loaded);
+            boardLoads.remove(code, this);
+        }
+
+        private void applyPendingEvents(boolean loaded) {
+            while (true) {
+                final List<Runnable> events;
+                synchronized (pendingEvents) {
+                    if (pendingEvents.isEmpty()) {
+                        pendingEventsApplied = true;
+                        return;
+                    }
+                    events = new ArrayList<>(pendingEvents);
+                    pendingEvents.clear();
+                }
+                if (!loaded) {
+                    //There is no board to apply them to, the next load of the board will pick up the changes
+                    continue;
+                }
+                for (Runnable event : events) {
+                    try {
+                        event.run();
+                    } catch (RuntimeException e) {
+                        OverbaardLogger.LOGGER.error("BoardManagerImpl - Error applying a buffered event to board {} - {}", code, e.getMessage());
+                        //Last parameter is the exception (it does not match a {} entry)
+                        OverbaardLogger.LOGGER.debug("BoardManagerImpl - Error applying a buffered event to board {}", code, e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Board call() throws Exception {
+            running = true;
+            Board board = loadBoard(user, code, progress);
+            publishBoard(code, this, board);
+            return board;
+        }
+    }
+
+    /**
+     * A load of a board in the background, see {@link #rebuildBoard(RefreshEntry)}.
+     */
+    private class BoardRebuild {
+        private final RefreshEntry entry;
+        private final String code;
+        private final long startTime = System.currentTimeMillis();
+        private final LoadProgress progress = new LoadProgress();
+        //The issues changed by events while the board is being rebuilt
+        private final Set<String> changedIssueKeys = ConcurrentHashMap.newKeySet();
+
+        BoardRebuild(RefreshEntry entry) {
+            this.entry = entry;
+            this.code = entry.boardCode;
+        }
+
+        void run() throws SearchException {
+            Board current = boards.get(code);
+            if (current == null) {
+                return;
+            }
+            final ApplicationUser boardOwner = jiraInjectables.getJiraUserManager().getUserByKey(current.getConfig().getOwningUserKey());
+            final Board rebuilt = buildBoard(boardOwner, code, progress);
+
+            for (int attempt = 0; attempt < MAX_DIFF_ATTEMPTS; attempt++) {
+                //Working out the differences searches Jira, so do it without holding up the events. If an event
+                //changes the board in the meantime, the differences are worked out again against the updated board
+                final BoardDiff diff = BoardDiff.create(jiraInjectables, current, rebuilt, boardOwner, changedIssueKeys);
+                synchronized (boardUpdateLock) {
+                    final Board latest;
+                    synchronized (BoardManagerImpl.this) {
+                        latest = boards.get(code);
+                        if (latest == null || boardRebuilds.get(code) != this) {
+                            //The board was deleted while we were rebuilding it
+                            return;
+                        }
+                    }
+                    if (latest == current) {
+                        if (diff.isFullRefreshNeeded()) {
+                            OverbaardLogger.LOGGER.debug("BoardManagerImpl - Replacing board {} with the rebuilt one", code);
+                            replaceBoard(code, rebuilt, startTime);
+                            return;
+                        }
+                        for (OverbaardIssueEvent event : diff.getEvents()) {
+                            applyEvent(code, event, diff.getNextRankedIssueUtil());
+                        }
+                        scheduleRefresh(code, startTime);
+                        return;
+                    }
+                    current = latest;
+                }
+            }
+            //The board is too busy, so try again when its next refresh is due
+            OverbaardLogger.LOGGER.debug("BoardManagerImpl - Board {} kept changing while applying the rebuilt one", code);
+            scheduleReconcile(entry, entry.nextDelay(System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * The refresh policy of a loaded board. Each board has its own reconcile task, whose interval adapts to how busy
+     * the board is: it is shortened when a reconciliation finds changes which the events missed, reset when events
+     * are received for the board, and doubled each time a quiet board is reconciled. The times are jittered, and a
+     * board which nobody has used for a while is unloaded when its next task runs. Package-private for the tests.
+     */
+    static class RefreshEntry {
         private final String boardCode;
-        private final long endTime;
+        private final long fullRefreshTime;
+        //Only used by the refresh thread
+        private long lastReconcileTime;
+        private long reconcileInterval = RECONCILE_INTERVAL_MILLIS;
+        private final AtomicBoolean eventsApplied = new AtomicBoolean();
+        private volatile long lastPolledTime = System.currentTimeMillis();
+        //Guarded by BoardManagerImpl.this
+        private ScheduledFuture<?> future;
         private volatile boolean valid = true;
 
-        public RefreshEntry(String boardCode, int timeoutSeconds) {
+        RefreshEntry(String boardCode, long loadStartTime) {
             this.boardCode = boardCode;
-            this.endTime = System.currentTimeMillis() + timeoutSeconds *1000;
+            this.fullRefreshTime = loadStartTime + jitter(FULL_REFRESH_INTERVAL_MILLIS);
+            this.lastReconcileTime = loadStartTime;
+        }
+
+        void reconciled(long reconcileStartTime, boolean missedChanges) {
+            lastReconcileTime = reconcileStartTime;
+            final boolean active = eventsApplied.getAndSet(false);
+            if (missedChanges) {
+                reconcileInterval = MIN_RECONCILE_INTERVAL_MILLIS;
+            } else if (active) {
+                reconcileInterval = RECONCILE_INTERVAL_MILLIS;
+            } else {
+                reconcileInterval = Math.min(reconcileInterval * 2, MAX_RECONCILE_INTERVAL_MILLIS);
+            }
+        }
+
+        void eventApplied() {
+            eventsApplied.set(true);
+        }
+
+        void polled() {
+            lastPolledTime = System.currentTimeMillis();
+        }
+
+        boolean isIdle(long now) {
+            return IDLE_BOARD_MILLIS > 0 && now - lastPolledTime >= IDLE_BOARD_MILLIS;
+        }
+
+        long nextDelay(long now) {
+            long delay = jitter(reconcileInterval);
+            if (IDLE_BOARD_MILLIS > 0) {
+                //Don't keep an unused board loaded until its next reconcile
+                delay = Math.min(delay, lastPolledTime + IDLE_BOARD_MILLIS - now);
+            }
+            delay = Math.min(delay, fullRefreshTime - now);
+            return Math.max(delay, 0);
         }
 
         void invalidate() {
             valid = false;
+            if (future != null) {
+                future.cancel(false);
+            }
         }
 
         boolean isValid() {
             return valid;
         }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            RefreshEntry that = (RefreshEntry) o;
-            return boardCode == that.boardCode;
-        }
-
-        @Override
-        public int hashCode() {
-            return boardCode.hashCode();
+        private static long jitter(long millis) {
+            final long jitter = millis * REFRESH_JITTER_PERCENT / 100;
+            if (jitter <= 0) {
+                return millis;
+            }
+            return millis + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
         }
     }
 }
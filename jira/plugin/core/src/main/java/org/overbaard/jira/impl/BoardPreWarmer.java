@@ -0,0 +1,249 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.overbaard.jira.OverbaardLogger;
+import org.overbaard.jira.api.BoardManager;
+import org.overbaard.jira.api.UserAccessManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * <p>Loads the boards which are likely to be used soon in the background, so that their first users don't have to
+ * wait for the full load. Which boards to load is worked out from the history of the boards opened by the users,
+ * which is recorded by the {@link UserAccessManager}:</p>
+ * <ul>
+ *     <li>After the plugin is started, the {@code overbaard.prewarm.startup.boards} most used boards are loaded.</li>
+ *     <li>Boards which were opened around the same time of day on at least {@code overbaard.prewarm.min.days} days
+ *     (e.g. for a daily stand-up) are loaded {@code overbaard.prewarm.lead.minutes} minutes before that time. The
+ *     check is done every {@code overbaard.prewarm.interval.minutes} minutes, so this also loads those boards again
+ *     if they were unloaded as idle in the meantime.</li>
+ * </ul>
+ * <p>Boards are not loaded if the loaded boards already use up the memory budget, or if they were recently
+ * unloaded to stay within it, since loading them would only unload other boards, see
+ * {@link BoardManager#warmBoard(String)}.</p>
+ * <p>The history covers the last {@code overbaard.prewarm.history.days} days. At most
+ * {@code overbaard.prewarm.max.concurrent} boards are loaded at the same time, and a value of {@code 0} or less
+ * disables the pre-warming.</p>
+ *
+ * @author Kabir Khan
+ */
+@Named("overbaardBoardPreWarmer")
+public class BoardPreWarmer implements InitializingBean, DisposableBean {
+
+    private static final int MAX_CONCURRENT = Integer.getInteger("overbaard.prewarm.max.concurrent", 2);
+
+    private static final int STARTUP_BOARDS = Integer.getInteger("overbaard.prewarm.startup.boards", 5);
+
+    private static final int HISTORY_DAYS = Integer.getInteger("overbaard.prewarm.history.days", 14);
+
+    private static final int MIN_DAYS = Integer.getInteger("overbaard.prewarm.min.days", 3);
+
+    private static final long LEAD_MINUTES = Long.getLong("overbaard.prewarm.lead.minutes", 15);
+
+    private static final long INTERVAL_MINUTES = Long.getLong("overbaard.prewarm.interval.minutes", 5);
+
+    //Give Jira time to finish starting before loading anything
+    private static final long STARTUP_DELAY_SECONDS = 60;
+
+    private final BoardManager boardManager;
+
+    private final UserAccessManager userAccessManager;
+
+    private final ScheduledExecutorService checkExecutor = Executors.newSingleThreadScheduledExecutor(
+            BoardManagerImpl.createDaemonThreadFactory("overbaard-prewarm-check-"));
+
+    private final ExecutorService warmExecutor = MAX_CONCURRENT > 0 ?
+            Executors.newFixedThreadPool(MAX_CONCURRENT, BoardManagerImpl.createDaemonThreadFactory("overbaard-prewarm-")) :
+            null;
+
+    //The boards queued or being loaded, so that a board is not queued again while waiting
+    private final Set<String> warming = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    public BoardPreWarmer(BoardManager boardManager, UserAccessManager userAccessManager) {
+        this.boardManager = boardManager;
+        this.userAccessManager = userAccessManager;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (warmExecutor == null) {
+            return;
+        }
+        checkExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    warmBoards(getMostUsedBoards(STARTUP_BOARDS, System.currentTimeMillis()));
+                } catch (Exception e) {
+                    OverbaardLogger.LOGGER.error("BoardPreWarmer - Error working out the most used boards - {}", e.getMessage());
+                    //Last parameter is the exception (it does not match a {} entry)
+                    OverbaardLogger.LOGGER.debug("BoardPreWarmer - Error working out the most used boards", e);
+                }
+            }
+        }, STARTUP_DELAY_SECONDS, TimeUnit.SECONDS);
+
+        checkExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    warmBoards(getBoardsUsedSoon(System.currentTimeMillis()));
+                } catch (Exception e) {
+                    OverbaardLogger.LOGGER.error("BoardPreWarmer - Error working out the boards used soon - {}", e.getMessage());
+                    //Last parameter is the exception (it does not match a {} entry)
+                    OverbaardLogger.LOGGER.debug("BoardPreWarmer - Error working out the boards used soon", e);
+                }
+            }
+        }, TimeUnit.SECONDS.toMinutes(STARTUP_DELAY_SECONDS) + INTERVAL_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        checkExecutor.shutdownNow();
+        if (warmExecutor != null) {
+            warmExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the boards which were opened on the most days, the most recently used first if they were opened on the
+     * same number of days.
+     */
+    List<String> getMostUsedBoards(int max, long now) {
+        final ZonedDateTime today =
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()).truncatedTo(ChronoUnit.DAYS);
+        final Map<String, Integer> dayCounts = new HashMap<>();
+        final Map<String, Date> lastAccessTimes = new HashMap<>();
+        for (int day = 0; day < HISTORY_DAYS; day++) {
+            final ZonedDateTime start = today.minusDays(day);
+            final Map<String, Date> accessTimes =
+                    userAccessManager.getLastBoardAccessTimes(toMillis(start), toMillis(start.plusDays(1)));
+            countDays(dayCounts, accessTimes);
+            for (Map.Entry<String, Date> entry : accessTimes.entrySet()) {
+                //The days are checked from the latest, so the first time found for a board is its last access
+                if (!lastAccessTimes.containsKey(entry.getKey())) {
+                    lastAccessTimes.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        final List<String> boardCodes = new ArrayList<>(dayCounts.keySet());
+        Collections.sort(boardCodes, new Comparator<String>() {
+            @Override
+            public int compare(String code1, String code2) {
+                final int result = Integer.compare(dayCounts.get(code2), dayCounts.get(code1));
+                if (result != 0) {
+                    return result;
+                }
+                return lastAccessTimes.get(code2).compareTo(lastAccessTimes.get(code1));
+            }
+        });
+        return boardCodes.size() > max ? boardCodes.subList(0, max) : boardCodes;
+    }
+
+    /**
+     * Gets the boards which were opened in the next {@code overbaard.prewarm.lead.minutes} minutes of the day on
+     * enough days to make it likely that they will be opened again today, most used first. Only the last access of
+     * each board is read for each day, rather than all the accesses.
+     */
+    List<String> getBoardsUsedSoon(long now) {
+        final ZonedDateTime windowStart = ZonedDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault());
+        final Map<String, Integer> dayCounts = new HashMap<>();
+        for (int day = 1; day <= HISTORY_DAYS; day++) {
+            final ZonedDateTime start = windowStart.minusDays(day);
+            countDays(dayCounts,
+                    userAccessManager.getLastBoardAccessTimes(toMillis(start), toMillis(start.plusMinutes(LEAD_MINUTES))));
+        }
+
+        final List<String> boardCodes = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : dayCounts.entrySet()) {
+            if (entry.getValue() >= MIN_DAYS) {
+                boardCodes.add(entry.getKey());
+            }
+        }
+        Collections.sort(boardCodes, new Comparator<String>() {
+            @Override
+            public int compare(String code1, String code2) {
+                return Integer.compare(dayCounts.get(code2), dayCounts.get(code1));
+            }
+        });
+        return boardCodes;
+    }
+
+    private static void countDays(Map<String, Integer> dayCounts, Map<String, Date> accessTimes) {
+        for (String code : accessTimes.keySet()) {
+            final Integer count = dayCounts.get(code);
+            dayCounts.put(code, count == null ? 1 : count + 1);
+        }
+    }
+
+    private static long toMillis(ZonedDateTime time) {
+        return time.toInstant().toEpochMilli();
+    }
+
+    private void warmBoards(List<String> boardCodes) {
+        for (String code : new LinkedHashSet<>(boardCodes)) {
+            if (!warming.add(code)) {
+                continue;
+            }
+            try {
+                warmExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            boardManager.warmBoard(code);
+                        } catch (Exception e) {
+                            OverbaardLogger.LOGGER.error("BoardPreWarmer - Error loading board {} - {}", code, e.getMessage());
+                            //Last parameter is the exception (it does not match a {} entry)
+                            OverbaardLogger.LOGGER.debug("BoardPreWarmer - Error loading board {}", code, e);
+                        } finally {
+                            warming.remove(code);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                //We are being shut down
+                warming.remove(code);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.jboss.dmr.ModelNode;
+import org.overbaard.jira.OverbaardLogger;
+import org.overbaard.jira.api.adapter.spi.JiraApiAdapter;
+import org.overbaard.jira.impl.board.Board;
+import org.overbaard.jira.impl.config.BoardConfig;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.config.util.JiraHome;
+import com.atlassian.jira.permission.ProjectPermissions;
+import com.atlassian.jira.project.Project;
+import com.atlassian.jira.user.ApplicationUser;
+
+/**
+ * <p>Writes the loaded boards to disk under the Jira home directory, so that after a restart or an upgrade of the
+ * plugin the first users of a board can be given the board as it was when it was written, rather than having to wait
+ * for it to be fully loaded. The full load is started in the background when a snapshot is served.</p>
+ * <p>A snapshot is the data sent to the clients for a full refresh of the board, both with and without the backlog,
+ * written in the compact binary {@link ModelNode} format and compressed. It is serialized as the board owner, so the
+ * user specific parts are patched for each user it is served to. Snapshots are only used if the board config has not
+ * changed since they were written, and are ignored if they are older than {@code overbaard.snapshot.max.age.hours}.</p>
+ * <p>The snapshots of boards which have changed are written every {@code overbaard.snapshot.interval.minutes}
+ * minutes, and when the plugin is stopped. A value of {@code 0} or less disables the snapshots.</p>
+ *
+ * @author Kabir Khan
+ */
+class BoardSnapshots {
+
+    static final long INTERVAL_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("overbaard.snapshot.interval.minutes", 10));
+
+    private static final long MAX_AGE_MILLIS =
+            TimeUnit.HOURS.toMillis(Long.getLong("overbaard.snapshot.max.age.hours", 24));
+
+    //Bump this if the format of the file changes, older files will then be ignored
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".snapshot";
+
+    private static final String TEMP_PREFIX = "snapshot";
+
+    //Rough heap usage of the serialized form of an issue in a snapshot read into memory, for getEstimatedSize()
+    private static final long ESTIMATED_ISSUE_BYTES = 1024;
+
+    private final JiraInjectables jiraInjectables;
+
+    //The board instance last written for each board code. Since the boards are immutable, a different instance means
+    //that the board has changed
+    private final Map<String, Board> written = new ConcurrentHashMap<>();
+
+    //Snapshots read from disk which have not been replaced by a loaded board yet. They are dropped when the board is
+    //deleted or unloaded, or to stay within the memory budget, and read again from disk when needed
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private volatile File directory;
+
+    BoardSnapshots(JiraInjectables jiraInjectables) {
+        this.jiraInjectables = jiraInjectables;
+    }
+
+    boolean isEnabled() {
+        return INTERVAL_MILLIS > 0 && JiraApiAdapter.Factory.get().getJiraEnvironmentAdapter().isRunningInJira();
+    }
+
+    /**
+     * Writes the snapshots of the boards which have changed since their snapshot was last written.
+     *
+     * @param boards the currently loaded boards
+     */
+    void write(Map<String, Board> boards) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, Board> entry : boards.entrySet()) {
+            final Board board = entry.getValue();
+            if (written.get(entry.getKey()) == board) {
+                continue;
+            }
+            try {
+                write(entry.getKey(), board);
+                written.put(entry.getKey(), board);
+            } catch (Exception e) {
+                //Last parameter is the exception (it does not match a {} entry)
+                OverbaardLogger.LOGGER.warn("BoardSnapshots.write - Error writing snapshot of board {}", entry.getKey(), e);
+            }
+        }
+        //Don't hang on to the boards which were unloaded while writing
+        written.keySet().retainAll(boards.keySet());
+    }
+
+    private void write(String code, Board board) throws IOException {
+        final BoardConfig boardConfig = board.getConfig();
+        final ApplicationUser boardOwner =
+                jiraInjectables.getJiraUserManager().getUserByKey(boardConfig.getOwningUserKey());
+        final ModelNode withBacklog = board.serialize(jiraInjectables, true, boardOwner);
+        final ModelNode withoutBacklog = board.serialize(jiraInjectables, false, boardOwner);
+
+        final File dir = getDirectory();
+        final File tmp = createTempFile(dir);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmp))))) {
+                out.writeInt(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                final byte[] configFingerprint = getConfigFingerprint(boardConfig).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(configFingerprint.length);
+                out.write(configFingerprint);
+                withBacklog.writeExternal(out);
+                withoutBacklog.writeExternal(out);
+            }
+            //Rename so a reader never sees a partially written file
+            Files.move(tmp.toPath(), getFile(dir, code).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+        OverbaardLogger.LOGGER.debug("Wrote snapshot of board {}", code);
+    }
+
+    /**
+     * Gets the json of a board from its snapshot.
+     *
+     * @param user the user the json is for
+     * @param backlog whether to include the backlog
+     * @param boardConfig the current config of the board
+     * @return the json or {@code null} if there is no usable snapshot
+     */
+    String getBoardJson(ApplicationUser user, boolean backlog, BoardConfig boardConfig) {
+        final Snapshot snapshot = getSnapshot(boardConfig);
+        if (snapshot == null) {
+            return null;
+        }
+
+        final ModelNode boardNode = (backlog ? snapshot.withBacklog : snapshot.withoutBacklog).clone();
+        //The loaded board will start its view ids again from zero, so make sure that the client does a full refresh
+        //when it asks for changes after the board has been loaded
+        boardNode.get(Constants.VIEW).set(-1);
+        boardNode.get(Constants.CURRENT_USER).set(user.getKey());
+        final ModelNode mainProjects = boardNode.get(Constants.PROJECTS, Constants.MAIN);
+        if (mainProjects.isDefined()) {
+            for (ModelNode project : mainProjects.asList()) {
+                project.get(Constants.RANK).set(hasRankPermission(user, project.get(Constants.CODE).asString()));
+            }
+        }
+        return boardNode.toJSONString(true);
+    }
+
+    /**
+     * Checks whether a board can be served from its snapshot.
+     *
+     * @param boardConfig the current config of the board
+     * @return {@code true} if there is a usable snapshot
+     */
+    boolean hasSnapshot(BoardConfig boardConfig) {
+        return getSnapshot(boardConfig) != null;
+    }
+
+    private Snapshot getSnapshot(BoardConfig boardConfig) {
+        if (!isEnabled()) {
+            return null;
+        }
+        final String code = boardConfig.getCode();
+        Snapshot snapshot = snapshots.get(code);
+        if (snapshot == null) {
+            snapshot = read(code);
+            if (snapshot == null) {
+                return null;
+            }
+            snapshots.put(code, snapshot);
+        }
+        if (!snapshot.configFingerprint.equals(getConfigFingerprint(boardConfig))) {
+            //The config was changed since the snapshot was taken
+            discard(code);
+            return null;
+        }
+        return snapshot;
+    }
+
+    private Snapshot read(String code) {
+        final File file = getFile(getDirectory(), code);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+            final long time = in.readLong();
+            if (System.currentTimeMillis() - time > MAX_AGE_MILLIS) {
+                return null;
+            }
+            final byte[] configFingerprintBytes = new byte[in.readInt()];
+            in.readFully(configFingerprintBytes);
+            final String configFingerprint = new String(configFingerprintBytes, StandardCharsets.UTF_8);
+            final ModelNode withBacklog = new ModelNode();
+            withBacklog.readExternal(in);
+            final ModelNode withoutBacklog = new ModelNode();
+            withoutBacklog.readExternal(in);
+            OverbaardLogger.LOGGER.debug("Read snapshot of board {} taken at {}", code, time);
+            return new Snapshot(configFingerprint, withBacklog, withoutBacklog);
+        } catch (Exception e) {
+            //Last parameter is the exception (it does not match a {} entry)
+            OverbaardLogger.LOGGER.warn("BoardSnapshots.read - Error reading snapshot of board {}", code, e);
+            return null;
+        }
+    }
+
+    /**
+     * Called when a board has been loaded, so the in memory copy of the snapshot is no longer needed.
+     *
+     * @param code the board code
+     */
+    void boardLoaded(String code) {
+        snapshots.remove(code);
+    }
+
+    /**
+     * Called when a board which nobody is using has been unloaded. Its snapshot is brought up to date, so that the
+     * next user of the board can be served from it, and the board instance is no longer referenced.
+     *
+     * @param code the board code
+     * @param board the unloaded board
+     */
+    void boardUnloaded(String code, Board board) {
+        snapshots.remove(code);
+        if (isEnabled() && written.get(code) != board) {
+            try {
+                write(code, board);
+            } catch (Exception e) {
+                //Last parameter is the exception (it does not match a {} entry)
+                OverbaardLogger.LOGGER.warn("BoardSnapshots.boardUnloaded - Error writing snapshot of board {}", code, e);
+            }
+        }
+        written.remove(code);
+    }
+
+    /**
+     * Discards the snapshot of a board, e.g. because the board was deleted or its config changed.
+     *
+     * @param code the board code
+     */
+    void discard(String code) {
+        snapshots.remove(code);
+        written.remove(code);
+        if (isEnabled()) {
+            try {
+                Files.deleteIfExists(getFile(getDirectory(), code).toPath());
+            } catch (IOException e) {
+                OverbaardLogger.LOGGER.warn("BoardSnapshots.discard - Could not delete snapshot of board {} - {}", code, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets a rough estimate of the heap used by the snapshots read into memory, which counts towards the memory budget
+     * of the boards.
+     *
+     * @return the estimated size in bytes
+     */
+    long getEstimatedSize() {
+        long size = 0;
+        for (Snapshot snapshot : snapshots.values()) {
+            size += snapshot.estimatedSize;
+        }
+        return size;
+    }
+
+    /**
+     * Drops the snapshots read into memory, to free memory when the boards are over their memory budget. The snapshots
+     * are still on disk, so they are read again the next time one is needed.
+     *
+     * @return the estimated size in bytes of the dropped snapshots
+     */
+    long evict() {
+        long size = 0;
+        for (String code : snapshots.keySet()) {
+            final Snapshot snapshot = snapshots.remove(code);
+            if (snapshot != null) {
+                size += snapshot.estimatedSize;
+            }
+        }
+        return size;
+    }
+
+    private boolean hasRankPermission(ApplicationUser user, String projectCode) {
+        final Project project = jiraInjectables.getProjectManager().getProjectByCurrentKey(projectCode);
+        return project != null &&
+                jiraInjectables.getPermissionManager().hasPermission(ProjectPermissions.SCHEDULE_ISSUES, project, user);
+    }
+
+    /**
+     * Creates the file a snapshot is written to before it is renamed. The prefix is fixed, since
+     * {@link File#createTempFile(String, String, File)} needs at least three characters and the board code may be
+     * shorter.
+     *
+     * @param dir the snapshot directory
+     * @return the temporary file
+     * @throws IOException if the file could not be created
+     */
+    static File createTempFile(File dir) throws IOException {
+        return File.createTempFile(TEMP_PREFIX, ".tmp", dir);
+    }
+
+    /**
+     * Gets the snapshot file of a board. The board code is entered by the board admins, so it is hex encoded to keep
+     * the file in the snapshot directory whatever characters it contains, and to keep codes which only differ in case
+     * apart on case insensitive file systems.
+     *
+     * @param dir the snapshot directory
+     * @param code the board code
+     * @return the snapshot file
+     */
+    static File getFile(File dir, String code) {
+        final StringBuilder name = new StringBuilder();
+        for (byte b : code.getBytes(StandardCharsets.UTF_8)) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16));
+            name.append(Character.forDigit(b & 0xF, 16));
+        }
+        return new File(dir, name.append(SUFFIX).toString());
+    }
+
+    private File getDirectory() {
+        File dir = directory;
+        if (dir == null) {
+            final JiraHome jiraHome = ComponentAccessor.getComponent(JiraHome.class);
+            dir = new File(jiraHome.getLocalHome(), "overbaard" + File.separator + "snapshots");
+            if (!dir.exists() && !dir.mkdirs()) {
+                OverbaardLogger.LOGGER.warn("BoardSnapshots - Could not create snapshot directory {}", dir);
+            }
+            directory = dir;
+        }
+        return dir;
+    }
+
+    private static String getConfigFingerprint(BoardConfig boardConfig) {
+        return boardConfig.serializeModelNodeForConfig().toJSONString(true);
+    }
+
+    private static class Snapshot {
+        private final String configFingerprint;
+        private final ModelNode withBacklog;
+        private final ModelNode withoutBacklog;
+        private final long estimatedSize;
+
+        Snapshot(String configFingerprint, ModelNode withBacklog, ModelNode withoutBacklog) {
+            this.configFingerprint = configFingerprint;
+            this.withBacklog = withBacklog;
+            this.withoutBacklog = withoutBacklog;
+            this.estimatedSize = (countIssues(withBacklog) + countIssues(withoutBacklog)) * ESTIMATED_ISSUE_BYTES;
+        }
+
+        private static long countIssues(ModelNode boardNode) {
+            final ModelNode issues = boardNode.get(Constants.ISSUES);
+            return issues.isDefined() ? issues.keys().size() : 0;
+        }
+    }
+}
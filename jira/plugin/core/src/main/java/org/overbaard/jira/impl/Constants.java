@@ -54,6 +54,8 @@ public class Constants {
     public static final String EPIC_LINK_CUSTOM_FIELD_ID = "epic-link-custom-field-id";
     public static final String EPIC_NAME_CUSTOM_FIELD_ID = "epic-name-custom-field-id";
     public static final String EPICS = "epics";
+    public static final String ERROR = "error";
+    public static final String FAILED = "failed";
     public static final String FIELDS = "fields";
     public static final String FIELD_ID = "field-id";
     public static final String FILTER = "filter";
@@ -74,10 +76,15 @@ public class Constants {
     public static final String LINKED_ISSUES = "linked-issues";
     public static final String LINK_NAMES = "link-names";
     public static final String LINKED_PROJECTS = "linked-projects";
+    public static final String LOAD = "load";
+    public static final String LOADED = "loaded";
+    public static final String LOADING = "loading";
+    public static final String LOAD_STRATEGY = "load-strategy";
     public static final String MAIN = "main";
     public static final String MANUAL_SWIMLANES = "manual-swimlanes";
     public static final String NAME = "name";
     public static final String NEW = "new";
+    public static final String NOT_LOADED = "not-loaded";
     public static final String OPTIONS = "options";
     public static final String OVERBAARD_VERSION = "overbaard-version";
     public static final String OVERRIDES = "overrides";
@@ -93,11 +100,14 @@ public class Constants {
     public static final String RANKED = "ranked";
     public static final String RANK_CUSTOM_FIELD_ID = "rank-custom-field-id";
     public static final String REMOVED_ISSUES = "removed-issues";
+    public static final String SNAPSHOT = "snapshot";
+    public static final String STATUS = "status";
     public static final String STATE = "state";
     public static final String STATE_LINKS = "state-links";
     public static final String STATES = "states";
     public static final String SUMMARY = "summary";
     public static final String TIME = "time";
+    public static final String TOTAL = "total";
     public static final String TYPE = "type";
     public static final String TYPE_STATES = "type-states";
     public static final String UPDATE = "update";
@@ -108,6 +108,16 @@ public class OverbaardFacadeImpl implements JiraFacade, InitializingBean, Dispos
         }
     }
 
+    @Override
+    public String startBoardLoad(ApplicationUser user, String code) {
+        return boardManager.startBoardLoad(user, code);
+    }
+
+    @Override
+    public String getBoardLoadStatus(ApplicationUser user, String code) {
+        return boardManager.getBoardLoadStatus(user, code);
+    }
+
     @Override
     public String getBoardName(ApplicationUser user, String code) throws SearchException {
         try {
@@ -158,6 +168,11 @@ public class OverbaardFacadeImpl implements JiraFacade, InitializingBean, Dispos
         return userAccessManager.getUserAccessJson(user);
     }
 
+    @Override
+    public String getLoadMetricsJson(ApplicationUser user) {
+        return boardManager.getLoadMetricsJson(user);
+    }
+
     @Override
     public void updateParallelTaskForIssue(ApplicationUser user, String boardCode, String issueKey, int groupIndex, int taskIndex, int optionIndex) throws SearchException{
         try {
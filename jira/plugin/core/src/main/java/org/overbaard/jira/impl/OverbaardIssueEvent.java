@@ -66,7 +66,7 @@ public class OverbaardIssueEvent {
     }
 
     /**
-     * If {@link #getType()} is {@link Type#DELETE}, {@code null} is returned. Otherwise a {@code Detail} object is
+     * If {@link #getType()} is {@link Type#DELETE} or {@link Type#LINKS}, {@code null} is returned. Otherwise a {@code Detail} object is
      * returned. For a {@link Type#DELETE} the {@code Detail} object is populated with all the fields set on the issue
      * when it was created. For a {@link Type#DELETE} the {@code Detail} object is populated with the fields that were
      * actually changed.
@@ -81,6 +81,10 @@ public class OverbaardIssueEvent {
         return new OverbaardIssueEvent(Type.DELETE, issueKey, projectCode, null);
     }
 
+    public static OverbaardIssueEvent createLinksEvent(String issueKey, String projectCode) {
+        return new OverbaardIssueEvent(Type.LINKS, issueKey, projectCode, null);
+    }
+
     public static OverbaardIssueEvent createCreateEvent(String issueKey, String projectCode, String issueType, String priority,
                                                         String summary, ApplicationUser assignee, Collection<ProjectComponent> components,
                                                         Collection<Label> labels, Collection<Version> fixVersions,
@@ -224,7 +228,9 @@ public class OverbaardIssueEvent {
         /** The issue was updated */
         UPDATE,
         /** The issue was deleted */
-        DELETE
+        DELETE,
+        /** The links of the issue, or the issues it links to, have changed. The linked issues are reloaded from Jira */
+        LINKS
     }
 
     /**
@@ -42,16 +42,24 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.atlassian.core.util.map.EasyMap;
+import com.atlassian.crowd.event.user.UserDeletedEvent;
+import com.atlassian.crowd.event.user.UserUpdatedEvent;
 import com.atlassian.event.api.EventListener;
 import com.atlassian.event.api.EventPublisher;
 import com.atlassian.greenhopper.service.lexorank.balance.LexoRankChangeEvent;
 import com.atlassian.jira.bc.project.component.ProjectComponent;
 import com.atlassian.jira.event.issue.IssueEvent;
+import com.atlassian.jira.event.issue.field.CustomFieldDeletedEvent;
+import com.atlassian.jira.event.issue.field.CustomFieldUpdatedEvent;
+import com.atlassian.jira.event.issue.link.IssueLinkCreatedEvent;
+import com.atlassian.jira.event.issue.link.IssueLinkDeletedEvent;
 import com.atlassian.jira.event.type.EventType;
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.index.IndexException;
 import com.atlassian.jira.issue.index.ReindexIssuesCompletedEvent;
 import com.atlassian.jira.issue.label.Label;
+import com.atlassian.jira.issue.link.IssueLink;
+import com.atlassian.jira.issue.link.IssueLinkManager;
 import com.atlassian.jira.project.Project;
 import com.atlassian.jira.project.ProjectManager;
 import com.atlassian.jira.project.version.Version;
@@ -116,6 +124,9 @@ public class OverbaardIssueEventListener implements InitializingBean, Disposable
     @ComponentImport
     private final ProjectManager projectManager;
 
+    @ComponentImport
+    private final IssueLinkManager issueLinkManager;
+
     private final BoardManager boardManager;
 
     private final NextRankedIssueUtil nextRankedIssueUtil;
@@ -127,13 +138,16 @@ public class OverbaardIssueEventListener implements InitializingBean, Disposable
      * Constructor.
      * @param eventPublisher injected {@code EventPublisher} implementation.
      * @param projectManager injected {@code ProjectManager} implementation.
+     * @param issueLinkManager injected {@code IssueLinkManager} implementation.
      * @param boardManager injected {@code BoardManager} implementation.
      */
     @Autowired
-    public OverbaardIssueEventListener(EventPublisher eventPublisher,
-                                       ProjectManager projectManager, BoardManager boardManager, NextRankedIssueUtil nextRankedIssueUtil) {
+    public OverbaardIssueEventListener(EventPublisher eventPublisher, ProjectManager projectManager,
+                                       IssueLinkManager issueLinkManager, BoardManager boardManager,
+                                       NextRankedIssueUtil nextRankedIssueUtil) {
         this.eventPublisher = eventPublisher;
         this.projectManager = projectManager;
+        this.issueLinkManager = issueLinkManager;
         this.boardManager = boardManager;
         this.nextRankedIssueUtil = nextRankedIssueUtil;
 
@@ -175,6 +189,72 @@ public class OverbaardIssueEventListener implements InitializingBean, Disposable
 
     }
 
+    /**
+     * Receives any {@code UserUpdatedEvent}s sent by JIRA, so that the cached assignee of the user is refreshed.
+     *
+     * @param event the event passed to us
+     */
+    @EventListener
+    public void onUserUpdatedEvent(UserUpdatedEvent event) {
+        OverbaardLogger.LOGGER.debug("UserUpdatedEvent for {}", event.getUser().getName());
+        boardManager.onUserChanged(event.getUser().getName());
+    }
+
+    /**
+     * Receives any {@code UserDeletedEvent}s sent by JIRA, so that the cached assignee of the user is dropped.
+     *
+     * @param event the event passed to us
+     */
+    @EventListener
+    public void onUserDeletedEvent(UserDeletedEvent event) {
+        OverbaardLogger.LOGGER.debug("UserDeletedEvent for {}", event.getUsername());
+        boardManager.onUserChanged(event.getUsername());
+    }
+
+    /**
+     * Receives any {@code CustomFieldUpdatedEvent}s sent by JIRA, so that the cached field options are loaded again.
+     *
+     * @param event the event passed to us
+     */
+    @EventListener
+    public void onCustomFieldUpdatedEvent(CustomFieldUpdatedEvent event) {
+        OverbaardLogger.LOGGER.debug("CustomFieldUpdatedEvent");
+        boardManager.onCustomFieldChanged();
+    }
+
+    /**
+     * Receives any {@code CustomFieldDeletedEvent}s sent by JIRA, so that the cached field options are dropped.
+     *
+     * @param event the event passed to us
+     */
+    @EventListener
+    public void onCustomFieldDeletedEvent(CustomFieldDeletedEvent event) {
+        OverbaardLogger.LOGGER.debug("CustomFieldDeletedEvent");
+        boardManager.onCustomFieldChanged();
+    }
+
+    /**
+     * Receives any {@code IssueLinkCreatedEvent}s sent by JIRA, to update the linked issues of the linking issues.
+     *
+     * @param event the event passed to us
+     */
+    @EventListener
+    public void onIssueLinkCreatedEvent(IssueLinkCreatedEvent event) {
+        OverbaardLogger.LOGGER.debug("IssueLinkCreatedEvent on thread {}", Thread.currentThread().getName());
+        onIssueLinkEvent(event.getIssueLink());
+    }
+
+    /**
+     * Receives any {@code IssueLinkDeletedEvent}s sent by JIRA, to update the linked issues of the linking issues.
+     *
+     * @param event the event passed to us
+     */
+    @EventListener
+    public void onIssueLinkDeletedEvent(IssueLinkDeletedEvent event) {
+        OverbaardLogger.LOGGER.debug("IssueLinkDeletedEvent on thread {}", Thread.currentThread().getName());
+        onIssueLinkEvent(event.getIssueLink());
+    }
+
     /**
      * Receives any {@code ReindexIssuesCompletedEvent}s sent by JIRA.
      *
@@ -210,8 +290,8 @@ public class OverbaardIssueEventListener implements InitializingBean, Disposable
         // if it's an event we're interested in, log it
 
 
-        //There are no events for when updating linked issues. Instead we invalidate the boards every five minutes in
-        //BoardManagerImpl which forces a full refresh of the board which will bring in linked issues
+        //Changes to the links themselves come in as IssueLinkCreatedEvent and IssueLinkDeletedEvent. Here we also
+        //look for changes to the issues in the linked projects, to update the board issues linking to them
 
         //CREATED, DELETED and MOVED do not have a worklog
         if (eventTypeId == EventType.ISSUE_CREATED_ID) {
@@ -223,6 +303,7 @@ public class OverbaardIssueEventListener implements InitializingBean, Disposable
         } else if (eventTypeId == EventType.ISSUE_DELETED_ID) {
             //Does not have a worklog
             onDeleteEvent(issueEvent);
+            onLinkedProjectIssueEvent(issueEvent);
 
             //Only relevant for updates (of state/rank)
             delayedEvents.remove();
@@ -230,6 +311,7 @@ public class OverbaardIssueEventListener implements InitializingBean, Disposable
             //Has a worklog. We need to take into account the old values to delete the issue from the old project boards,
             //while we use the issue in the event to create the issue in the new project boards.
             onMoveEvent(issueEvent);
+            onMovedIssueLinks(issueEvent);
 
             //Only relevant for updates (of state/rank)
             delayedEvents.remove();
@@ -249,7 +331,45 @@ public class OverbaardIssueEventListener implements InitializingBean, Disposable
             //change several fields (including the assignee) you get an event with ISSUE_UPDATED_ID and all the fields
             //affected in the worklog
             onWorklogEvent(issueEvent);
+            onLinkedProjectIssueEvent(issueEvent);
+        }
+    }
+
+    private void onIssueLinkEvent(IssueLink issueLink) {
+        //Only the board issues hold their linked issues, so reload the links of whichever end of the link is on a board
+        passLinksEventToBoardManager(issueLink.getSourceObject());
+        passLinksEventToBoardManager(issueLink.getDestinationObject());
+    }
+
+    private void onLinkedProjectIssueEvent(IssueEvent issueEvent) {
+        final Issue issue = issueEvent.getIssue();
+        final String projectCode = issue.getProjectObject().getKey();
+        if (!boardManager.hasBoardsForLinkedProjectCode(projectCode)) {
+            return;
+        }
+        boardManager.handleLinkedIssueEvent(issue.getKey(), projectCode);
+    }
+
+    private void onMovedIssueLinks(IssueEvent issueEvent) {
+        //The key of a moved issue changes, and it might have been moved into or out of a linked project. The links stay
+        //with the issue, so reload the links of the board issues at the other end of them
+        final Issue issue = issueEvent.getIssue();
+        for (IssueLink link : issueLinkManager.getOutwardLinks(issue.getId())) {
+            passLinksEventToBoardManager(link.getDestinationObject());
+        }
+        for (IssueLink link : issueLinkManager.getInwardLinks(issue.getId())) {
+            passLinksEventToBoardManager(link.getSourceObject());
+        }
+    }
+
+    private void passLinksEventToBoardManager(Issue issue) {
+        final String projectCode = issue.getProjectObject().getKey();
+        if (!isAffectedProject(projectCode)) {
+            return;
         }
+        final OverbaardIssueEvent event = OverbaardIssueEvent.createLinksEvent(issue.getKey(), projectCode);
+        OverbaardLogger.LOGGER.debug("Handling links event {}", event);
+        boardManager.handleEvent(event, nextRankedIssueUtil);
     }
 
     private void onCreateEvent(IssueEvent issueEvent) throws IndexException {
@@ -18,6 +18,8 @@ package org.overbaard.jira.impl;
 
 import java.sql.Date;
 import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -95,4 +97,23 @@ public class UserAccessManagerImpl implements UserAccessManager {
         }
         return list.toJSONString(true);
     }
+
+    @Override
+    public Map<String, java.util.Date> getLastBoardAccessTimes(long fromMillis, long toMillis) {
+        return activeObjects.executeInTransaction(new TransactionCallback<Map<String, java.util.Date>>() {
+            @Override
+            public Map<String, java.util.Date> doInTransaction() {
+                //The ids increase with the time of the accesses, so the last entry of each board is its last access.
+                //Only select the columns we need, so the entities don't need to load anything else
+                UserAccess[] accesses = activeObjects.find(UserAccess.class, Query.select("ID, BOARD_CODE, TIME")
+                        .where("TIME >= ? AND TIME < ?", new Date(fromMillis), new Date(toMillis))
+                        .order("ID"));
+                Map<String, java.util.Date> accessTimes = new HashMap<>();
+                for (UserAccess access : accesses) {
+                    accessTimes.put(access.getBoardCode(), access.getTime());
+                }
+                return accessTimes;
+            }
+        });
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.board;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.overbaard.jira.impl.JiraInjectables;
+
+import com.atlassian.jira.avatar.Avatar;
+import com.atlassian.jira.user.ApplicationUser;
+
+/**
+ * <p>Caches the {@link Assignee}s for all the boards, so that the avatar url of a user is not looked up again for
+ * every board the user is an assignee in, and every time a board is reloaded.</p>
+ * <p>The cache holds at most {@code overbaard.assignee.cache.size} entries, dropping the least recently used ones
+ * when full. Entries expire after {@code overbaard.assignee.cache.ttl.minutes} minutes so that changes which Jira does
+ * not send an event for, such as a new avatar, are picked up. Changed and deleted users are removed straight away via
+ * {@link #invalidate(String)}.</p>
+ *
+ * @author Kabir Khan
+ */
+public class AssigneeCache {
+
+    private static final int MAX_SIZE = Integer.getInteger("overbaard.assignee.cache.size", 5000);
+
+    private static final long TTL_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("overbaard.assignee.cache.ttl.minutes", 60));
+
+    //Guarded by this. Access ordered so that the eldest entry is the least recently used one
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    /**
+     * Gets the assignee for a user, creating it if it is not cached or has expired.
+     *
+     * @param jiraInjectables the jira injectables
+     * @param boardOwner the owner of the board. The avatar url is looked up as this user
+     * @param assigneeUser the user
+     * @return the assignee
+     */
+    Assignee getAssignee(JiraInjectables jiraInjectables, ApplicationUser boardOwner, ApplicationUser assigneeUser) {
+        final Key key = new Key(boardOwner == null ? null : boardOwner.getName(), assigneeUser.getName());
+        final long now = System.currentTimeMillis();
+        synchronized (this) {
+            final Entry entry = entries.get(key);
+            if (entry != null && entry.expiry > now) {
+                return entry.assignee;
+            }
+        }
+        //Don't hold the lock while calling out to Jira. If two threads create the same assignee, the last one wins
+        final URI avatarUrl = jiraInjectables.getAvatarService().getAvatarURL(boardOwner, assigneeUser, Avatar.Size.MEDIUM);
+        final Assignee assignee = Assignee.create(assigneeUser, avatarUrl.toString());
+        synchronized (this) {
+            entries.put(key, new Entry(assignee, now + TTL_MILLIS));
+        }
+        return assignee;
+    }
+
+    /**
+     * Removes a user from the cache, so that the next board to need it will look it up again.
+     *
+     * @param userName the name of the user
+     */
+    public synchronized void invalidate(String userName) {
+        for (Iterator<Key> it = entries.keySet().iterator(); it.hasNext(); ) {
+            if (it.next().userName.equals(userName)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static class Key {
+        //The avatar url is looked up as the board owner, who might not see the same avatars as everyone else
+        private final String boardOwnerName;
+        private final String userName;
+
+        Key(String boardOwnerName, String userName) {
+            this.boardOwnerName = boardOwnerName;
+            this.userName = userName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(boardOwnerName, key.boardOwnerName) && userName.equals(key.userName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(boardOwnerName, userName);
+        }
+    }
+
+    private static class Entry {
+        private final Assignee assignee;
+        private final long expiry;
+
+        Entry(Assignee assignee, long expiry) {
+            this.assignee = assignee;
+            this.expiry = expiry;
+        }
+    }
+}
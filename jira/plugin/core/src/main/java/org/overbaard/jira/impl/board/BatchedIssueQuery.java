@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.board;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.overbaard.jira.OverbaardLogger;
+
+/**
+ * <p>A query which is run for consecutive batches of issue ids, e.g. to load the custom field values of all the
+ * issues in a project. The sql must end with an {@code IN} clause for the issue ids, which is added by this class.</p>
+ * <p>The statement is prepared once with a placeholder for each id in a full batch, and then reused for all the
+ * batches. The last batch will normally not be full, so the remaining placeholders are bound to its last id, which
+ * does not change the result. The rows are handed to a {@link RowConsumer} as they are read, rather than being
+ * collected up front.</p>
+ *
+ * @author Kabir Khan
+ */
+class BatchedIssueQuery implements AutoCloseable {
+    private final PreparedStatement statement;
+    private final int firstIdParameter;
+    private final int batchSize;
+
+    /**
+     * Prepares the query.
+     *
+     * @param connection the connection to use
+     * @param sql the sql, ending with the column to match the issue ids against, e.g. {@code "... AND J.ID"}
+     * @param batchSize the number of ids in a full batch
+     * @param parameters values to bind to any placeholders in {@code sql}
+     * @throws SQLException if the statement could not be prepared
+     */
+    BatchedIssueQuery(Connection connection, String sql, int batchSize, Object... parameters) throws SQLException {
+        final StringBuilder sb = new StringBuilder(sql).append(" IN (");
+        for (int i = 0; i < batchSize; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        sb.append(")");
+        final String preparedSql = sb.toString();
+        OverbaardLogger.LOGGER.debug("SQL query: {}", preparedSql);
+
+        this.statement = connection.prepareStatement(preparedSql);
+        this.firstIdParameter = parameters.length + 1;
+        this.batchSize = batchSize;
+        try {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.setFetchSize(batchSize);
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the query for a batch of issue ids.
+     *
+     * @param idBatch the ids. There must be at least one, and no more than the batch size
+     * @param consumer called for each row in the result
+     * @throws SQLException if there was an error running the query or reading the results
+     */
+    void execute(List<Long> idBatch, RowConsumer consumer) throws SQLException {
+        if (idBatch.isEmpty() || idBatch.size() > batchSize) {
+            throw new IllegalArgumentException("Bad batch size " + idBatch.size());
+        }
+        final long lastId = idBatch.get(idBatch.size() - 1);
+        for (int i = 0; i < batchSize; i++) {
+            statement.setLong(firstIdParameter + i, i < idBatch.size() ? idBatch.get(i) : lastId);
+        }
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                consumer.accept(rs);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            statement.close();
+        } catch (SQLException ignore) {
+        }
+    }
+
+    /**
+     * Handles a row of a query result.
+     */
+    interface RowConsumer {
+        void accept(ResultSet rs) throws SQLException;
+    }
+}
@@ -15,13 +15,12 @@
  */
 package org.overbaard.jira.impl.board;
 
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
 import org.jboss.dmr.ModelNode;
 import org.overbaard.jira.impl.Constants;
+import org.overbaard.jira.impl.util.PersistentHashSet;
 
 /**
  * Keeps track of states, issue types and priorities that affected issues belong to, but have not been
@@ -34,24 +33,25 @@ public class Blacklist {
     /**
      * The missing states from the configuration
      */
-    private final Set<String> missingStates;
+    private final PersistentHashSet<String> missingStates;
 
     /**
      * The missing issueTypes from the configuration
      */
-    private final Set<String> missingIssueTypes;
+    private final PersistentHashSet<String> missingIssueTypes;
 
     /**
      * The missing priorities from the configuration
      */
-    private final Set<String> missingPriorities;
+    private final PersistentHashSet<String> missingPriorities;
 
     /**
      * The issues that have been blacklisted
      */
-    private final Set<String> issues;
+    private final PersistentHashSet<String> issues;
 
-    private Blacklist(Set<String> missingStates, Set<String> missingIssueTypes, Set<String> missingPriorities, Set<String> issues) {
+    private Blacklist(PersistentHashSet<String> missingStates, PersistentHashSet<String> missingIssueTypes,
+                      PersistentHashSet<String> missingPriorities, PersistentHashSet<String> issues) {
         this.missingStates = missingStates;
         this.missingIssueTypes = missingIssueTypes;
         this.missingPriorities = missingPriorities;
@@ -73,7 +73,8 @@ public class Blacklist {
         if (set.isEmpty()) {
             return;
         }
-        set.forEach(value -> blacklist.get(key).add(value));
+        //The persistent sets are not sorted, so sort them here to get a stable output
+        new TreeSet<>(set).forEach(value -> blacklist.get(key).add(value));
     }
 
     public boolean isBlacklisted(String issueKey) {
@@ -91,50 +92,38 @@ public class Blacklist {
     }
 
     static class Builder extends Accessor {
-        private Set<String> missingStates;
-        private Set<String> missingIssueTypes;
-        private Set<String> missingPriorities;
-        private Set<String> issues;
+        private PersistentHashSet<String> missingStates = PersistentHashSet.empty();
+        private PersistentHashSet<String> missingIssueTypes = PersistentHashSet.empty();
+        private PersistentHashSet<String> missingPriorities = PersistentHashSet.empty();
+        private PersistentHashSet<String> issues = PersistentHashSet.empty();
 
 
         @Override
         void addMissingState(String issueKey, String state) {
-            if (missingStates == null) {
-                missingStates = new TreeSet<>();
-            }
-            missingStates.add(state);
+            missingStates = missingStates.plus(state);
             blacklistIssue(issueKey);
         }
 
         @Override
         void addMissingIssueType(String issueKey, String issueType) {
-            if (missingIssueTypes == null) {
-                missingIssueTypes = new TreeSet<>();
-            }
-            missingIssueTypes.add(issueType);
+            missingIssueTypes = missingIssueTypes.plus(issueType);
             blacklistIssue(issueKey);
         }
 
         @Override
         void addMissingPriority(String issueKey, String priority) {
-            if (missingPriorities == null) {
-                missingPriorities = new TreeSet<>();
-            }
-            missingPriorities.add(priority);
+            missingPriorities = missingPriorities.plus(priority);
             blacklistIssue(issueKey);
         }
 
         @Override
         public boolean isBlackListed(String issueKey) {
-            if (issues == null) {
-                return false;
-            }
             return issues.contains(issueKey);
         }
 
         @Override
         boolean isUpdated() {
-            return issues != null;
+            return !issues.isEmpty();
         }
 
         @Override
@@ -144,69 +133,75 @@ public class Blacklist {
         }
 
         private void blacklistIssue(String issueKey) {
-            if (issues == null) {
-                issues = new TreeSet<>();
-            }
-            issues.add(issueKey);
+            issues = issues.plus(issueKey);
+        }
+
+        void merge(Builder other) {
+            other.missingStates.forEach(state -> missingStates = missingStates.plus(state));
+            other.missingIssueTypes.forEach(issueType -> missingIssueTypes = missingIssueTypes.plus(issueType));
+            other.missingPriorities.forEach(priority -> missingPriorities = missingPriorities.plus(priority));
+            other.issues.forEach(this::blacklistIssue);
         }
 
         Blacklist build() {
-            return new Blacklist(
-                missingStates == null ? Collections.emptySet() : Collections.unmodifiableSet(missingStates),
-                missingIssueTypes == null ? Collections.emptySet() : Collections.unmodifiableSet(missingIssueTypes),
-                missingPriorities == null ? Collections.emptySet() : Collections.unmodifiableSet(missingPriorities),
-                issues == null ? Collections.emptySet() : Collections.unmodifiableSet(issues));
+            return new Blacklist(missingStates, missingIssueTypes, missingPriorities, issues);
         }
     }
 
     static class Updater extends Accessor {
         private final Blacklist original;
         private boolean updated;
-        private Set<String> missingStates;
-        private Set<String> missingIssueTypes;
-        private Set<String> missingPriorities;
-        private Set<String> issues;
+        private PersistentHashSet<String> missingStates;
+        private PersistentHashSet<String> missingIssueTypes;
+        private PersistentHashSet<String> missingPriorities;
+        private PersistentHashSet<String> issues;
+        //Only one of each can be added atm
+        private String addedState;
+        private String addedIssueType;
+        private String addedPriority;
+        private String addedIssue;
         private String deletedIssue;
 
         public Updater(Blacklist original) {
             this.original = original;
+            this.missingStates = original.missingStates;
+            this.missingIssueTypes = original.missingIssueTypes;
+            this.missingPriorities = original.missingPriorities;
+            this.issues = original.issues;
         }
 
         @Override
         void addMissingState(String issueKey, String state) {
-            if (missingStates == null) {
-                missingStates = new TreeSet<>(original.missingStates);
+            if (!missingStates.contains(state)) {
+                missingStates = missingStates.plus(state);
+                addedState = state;
             }
-            missingStates.add(state);
             blacklistIssue(issueKey);
             updated = true;
         }
 
         @Override
         void addMissingIssueType(String issueKey, String issueType) {
-            if (missingIssueTypes == null) {
-                missingIssueTypes = new TreeSet<>(original.missingIssueTypes);
+            if (!missingIssueTypes.contains(issueType)) {
+                missingIssueTypes = missingIssueTypes.plus(issueType);
+                addedIssueType = issueType;
             }
-            missingIssueTypes.add(issueType);
             blacklistIssue(issueKey);
             updated = true;
         }
 
         @Override
         void addMissingPriority(String issueKey, String priority) {
-            if (missingPriorities == null) {
-                missingPriorities = new TreeSet<>(original.missingPriorities);
+            if (!missingPriorities.contains(priority)) {
+                missingPriorities = missingPriorities.plus(priority);
+                addedPriority = priority;
             }
-            missingPriorities.add(priority);
             blacklistIssue(issueKey);
             updated = true;
         }
 
         @Override
         public boolean isBlackListed(String issueKey) {
-            if (issues == null) {
-                return original.isBlacklisted(issueKey);
-            }
             return issues.contains(issueKey);
         }
 
@@ -217,10 +212,7 @@ public class Blacklist {
 
         @Override
         public void deleteIssue(String issueKey) {
-            if (issues == null) {
-                issues = new TreeSet<>(original.issues);
-            }
-            issues.remove(issueKey);
+            issues = issues.minus(issueKey);
             deletedIssue = issueKey;
             updated = true;
         }
@@ -230,10 +222,10 @@ public class Blacklist {
         }
 
         private void blacklistIssue(String issueKey) {
-            if (issues == null) {
-                issues = new TreeSet<>(original.issues);
+            if (!issues.contains(issueKey)) {
+                issues = issues.plus(issueKey);
+                addedIssue = issueKey;
             }
-            issues.add(issueKey);
         }
 
         Blacklist build() {
@@ -241,42 +233,23 @@ public class Blacklist {
                 return original;
             }
 
-            return new Blacklist(
-                missingStates == null ? original.missingStates : Collections.unmodifiableSet(missingStates),
-                missingIssueTypes == null ? original.missingIssueTypes : Collections.unmodifiableSet(missingIssueTypes),
-                missingPriorities == null ? original.missingPriorities : Collections.unmodifiableSet(missingPriorities),
-                issues == null ? original.issues : Collections.unmodifiableSet(issues));
+            return new Blacklist(missingStates, missingIssueTypes, missingPriorities, issues);
         }
 
         String getAddedState() {
-            return getAddition(original.missingStates, missingStates);
+            return addedState;
         }
 
         String getAddedIssueType() {
-            return getAddition(original.missingIssueTypes, missingIssueTypes);
+            return addedIssueType;
         }
 
         String getAddedPriority() {
-            return getAddition(original.missingPriorities, missingPriorities);
+            return addedPriority;
         }
 
         String getAddedIssue() {
-            return getAddition(original.issues, issues);
-
-        }
-
-        private String getAddition(Set<String> original, Set<String> current) {
-            if (current == null) {
-                return null;
-            }
-            Set<String> tmp = new HashSet<>(current);
-            tmp.removeAll(original);
-            if (tmp.size() == 0) {
-                //Should not really be the case, but just in case
-                return null;
-            }
-            //Can only be one atm
-            return tmp.iterator().next();
+            return addedIssue;
         }
     }
 }
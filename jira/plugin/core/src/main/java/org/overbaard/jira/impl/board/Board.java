@@ -17,18 +17,20 @@ package org.overbaard.jira.impl.board;
 
 import static org.overbaard.jira.impl.Constants.EPICS;
 
-import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -47,9 +49,10 @@ import org.overbaard.jira.impl.config.BoardProjectConfig;
 import org.overbaard.jira.impl.config.CustomFieldConfig;
 import org.overbaard.jira.impl.config.LinkedProjectConfig;
 import org.overbaard.jira.impl.config.ParallelTaskGroupPosition;
-import org.overbaard.jira.impl.util.IndexedMap;
+import org.overbaard.jira.impl.util.ArraySet;
+import org.overbaard.jira.impl.util.PersistentHashMap;
+import org.overbaard.jira.impl.util.SortedIndexedMap;
 
-import com.atlassian.jira.avatar.Avatar;
 import com.atlassian.jira.bc.project.component.ProjectComponent;
 import com.atlassian.jira.issue.link.IssueLinkManager;
 import com.atlassian.jira.issue.search.SearchException;
@@ -62,33 +65,47 @@ import com.atlassian.jira.user.ApplicationUser;
  * @author Kabir Khan
  */
 public class Board {
+
+    //Rough heap usage of an issue including its custom fields, parallel tasks and linked issues, and of the other
+    //entries in the board such as assignees, for getEstimatedSize()
+    private static final long ESTIMATED_ISSUE_BYTES = Long.getLong("overbaard.board.issue.bytes", 2048);
+    private static final long ESTIMATED_REFERENCE_BYTES = 256;
+
     //This is incremented every time a change is made to the board
     final int currentView;
 
     private final BoardConfig boardConfig;
 
+    private final AssigneeCache assigneeCache;
+
     //Map of assignees sorted by their display name
-    private final IndexedMap<String, Assignee> sortedAssignees;
-    private final IndexedMap<String, Component> sortedComponents;
-    private final IndexedMap<String, Label> sortedLabels;
-    private final IndexedMap<String, FixVersion> sortedFixVersions;
-    private final Map<String, Issue> allIssues;
-    private final Map<String, BoardProject> projects;
+    private final SortedIndexedMap<String, Assignee> sortedAssignees;
+    private final SortedIndexedMap<String, Component> sortedComponents;
+    private final SortedIndexedMap<String, Label> sortedLabels;
+    private final SortedIndexedMap<String, FixVersion> sortedFixVersions;
+    //Persistent maps so that updating the board for an event does not need to copy all the entries
+    private final PersistentHashMap<String, Issue> allIssues;
+    private final PersistentHashMap<String, BoardProject> projects;
     private final Map<String, SortedCustomFieldValues> sortedCustomFieldValues;
+    //The keys of the board issues linking to each linked issue, so that a change to a linked issue only needs to
+    //look at the issues linking to it
+    private final PersistentHashMap<String, ArraySet<String>> linkingIssueKeys;
 
     private final Blacklist blacklist;
 
-    private Board(Board old, BoardConfig boardConfig,
-                    IndexedMap<String, Assignee> sortedAssignees,
-                    IndexedMap<String, Component> sortedComponents,
-                    IndexedMap<String, Label> sortedLabels,
-                    IndexedMap<String, FixVersion> sortedFixVersions,
-                    Map<String, Issue> allIssues,
-                    Map<String, BoardProject> projects,
+    private Board(Board old, BoardConfig boardConfig, AssigneeCache assigneeCache,
+                    SortedIndexedMap<String, Assignee> sortedAssignees,
+                    SortedIndexedMap<String, Component> sortedComponents,
+                    SortedIndexedMap<String, Label> sortedLabels,
+                    SortedIndexedMap<String, FixVersion> sortedFixVersions,
+                    PersistentHashMap<String, Issue> allIssues,
+                    PersistentHashMap<String, BoardProject> projects,
                     Map<String, SortedCustomFieldValues> sortedCustomFieldValues,
+                    PersistentHashMap<String, ArraySet<String>> linkingIssueKeys,
                     Blacklist blacklist) {
         this.currentView = old == null ? 0 : old.currentView + 1;
         this.boardConfig = boardConfig;
+        this.assigneeCache = assigneeCache;
 
         this.sortedAssignees = sortedAssignees;
 
@@ -99,14 +116,16 @@ public class Board {
         this.allIssues = allIssues;
         this.projects = projects;
         this.sortedCustomFieldValues = sortedCustomFieldValues;
+        this.linkingIssueKeys = linkingIssueKeys;
         this.blacklist = blacklist;
     }
 
     public static Builder builder(JiraInjectables jiraInjectables,
                                   ProjectCustomFieldOptionsLoader projectCustomFieldOptionsLoader,
                                   BoardConfig boardConfig,
+                                  AssigneeCache assigneeCache,
                                   ApplicationUser boardOwner) {
-        return new Builder(jiraInjectables, projectCustomFieldOptionsLoader, boardConfig, boardOwner);
+        return new Builder(jiraInjectables, projectCustomFieldOptionsLoader, boardConfig, assigneeCache, boardOwner);
     }
 
     public Board handleEvent(JiraInjectables jiraInjectables, NextRankedIssueUtil nextRankedIssueUtil, ApplicationUser boardOwner, OverbaardIssueEvent event,
@@ -190,6 +209,45 @@ public class Board {
         return boardConfig;
     }
 
+    /**
+     * Gets a rough estimate of the heap used by this board, to decide which boards to unload when too much memory is
+     * used. Each board holds its own copy of the issues of its projects, so they are counted for each board.
+     *
+     * @return the estimated size in bytes
+     */
+    public long getEstimatedSize() {
+        final long referenceCount = sortedAssignees.size() + sortedComponents.size() + sortedLabels.size() +
+                sortedFixVersions.size() + linkingIssueKeys.size();
+        return allIssues.size() * ESTIMATED_ISSUE_BYTES + referenceCount * ESTIMATED_REFERENCE_BYTES;
+    }
+
+    Collection<Issue> getIssues() {
+        return allIssues.values();
+    }
+
+    /**
+     * Gets the keys of the board issues which link to an issue in one of the linked projects.
+     *
+     * @param linkedIssueKey the key of the linked issue
+     * @return the keys of the issues linking to it
+     */
+    public Collection<String> getLinkingIssueKeys(String linkedIssueKey) {
+        final ArraySet<String> issueKeys = linkingIssueKeys.get(linkedIssueKey);
+        return issueKeys == null ? Collections.emptySet() : issueKeys;
+    }
+
+    boolean isBlacklisted(String issueKey) {
+        return blacklist.isBlacklisted(issueKey);
+    }
+
+    boolean hasSameBlacklist(Board other) {
+        final ModelNode blacklistNode = new ModelNode();
+        blacklist.serialize(blacklistNode);
+        final ModelNode otherBlacklistNode = new ModelNode();
+        other.blacklist.serialize(otherBlacklistNode);
+        return blacklistNode.equals(otherBlacklistNode);
+    }
+
     public int getProjectCode() {
         return boardConfig.getId();
     }
@@ -222,16 +280,68 @@ public class Board {
         projects.values().forEach(project -> project.setBoard(this));
     }
 
-    private static Assignee createAssignee(JiraInjectables jiraInjectables, ApplicationUser boardOwner, ApplicationUser assigneeUser) {
-        URI avatarUrl = jiraInjectables.getAvatarService().getAvatarURL(boardOwner, assigneeUser, Avatar.Size.MEDIUM);
-        Assignee assignee = Assignee.create(assigneeUser, avatarUrl.toString());
-        return assignee;
-    }
-
     public int getCurrentView() {
         return currentView;
     }
 
+    private static PersistentHashMap<String, ArraySet<String>> indexLinkingIssueKeys(Collection<Issue> issues) {
+        final Map<String, Set<String>> index = new HashMap<>();
+        for (Issue issue : issues) {
+            for (Issue linkedIssue : issue.getLinkedIssues()) {
+                index.computeIfAbsent(linkedIssue.getKey(), k -> new LinkedHashSet<>()).add(issue.getKey());
+            }
+        }
+        final PersistentHashMap.Builder<String, ArraySet<String>> builder = PersistentHashMap.builder();
+        index.forEach((linkedIssueKey, issueKeys) -> builder.put(linkedIssueKey, ArraySet.copyOf(issueKeys)));
+        return builder.build();
+    }
+
+    /**
+     * Updates the index of the issues linking to each linked issue for an issue which was added, updated or removed.
+     *
+     * @param index the index
+     * @param oldIssue the issue before the change, or {@code null} if it was added
+     * @param newIssue the issue after the change, or {@code null} if it was removed
+     * @return the updated index
+     */
+    private static PersistentHashMap<String, ArraySet<String>> updateLinkingIssueKeys(
+            PersistentHashMap<String, ArraySet<String>> index, Issue oldIssue, Issue newIssue) {
+        final Set<String> oldLinkedKeys = getLinkedIssueKeys(oldIssue);
+        final Set<String> newLinkedKeys = getLinkedIssueKeys(newIssue);
+        if (oldLinkedKeys.equals(newLinkedKeys)) {
+            return index;
+        }
+        final String issueKey = oldIssue != null ? oldIssue.getKey() : newIssue.getKey();
+        for (String linkedIssueKey : oldLinkedKeys) {
+            if (!newLinkedKeys.contains(linkedIssueKey)) {
+                final List<String> issueKeys = new ArrayList<>(index.get(linkedIssueKey));
+                issueKeys.remove(issueKey);
+                index = issueKeys.isEmpty() ?
+                        index.minus(linkedIssueKey) : index.plus(linkedIssueKey, ArraySet.copyOf(issueKeys));
+            }
+        }
+        for (String linkedIssueKey : newLinkedKeys) {
+            if (!oldLinkedKeys.contains(linkedIssueKey)) {
+                final ArraySet<String> existing = index.get(linkedIssueKey);
+                final List<String> issueKeys = existing == null ? new ArrayList<>() : new ArrayList<>(existing);
+                issueKeys.add(issueKey);
+                index = index.plus(linkedIssueKey, ArraySet.copyOf(issueKeys));
+            }
+        }
+        return index;
+    }
+
+    private static Set<String> getLinkedIssueKeys(Issue issue) {
+        if (issue == null || !issue.hasLinkedIssues()) {
+            return Collections.emptySet();
+        }
+        final Set<String> keys = new HashSet<>();
+        for (Issue linkedIssue : issue.getLinkedIssues()) {
+            keys.add(linkedIssue.getKey());
+        }
+        return keys;
+    }
+
     BoardChangeRegistry.IssueChange createCreateIssueChange(BoardChangeRegistry registry, String issueKey) {
         Issue issue = allIssues.get(issueKey);
         return issue.convertToCreateIssueChange(registry, getConfig());
@@ -240,12 +350,15 @@ public class Board {
     abstract static class Accessor {
         protected final JiraInjectables jiraInjectables;
         protected final BoardConfig boardConfig;
+        protected final AssigneeCache assigneeCache;
         protected final ApplicationUser boardOwner;
 
 
-        Accessor(JiraInjectables jiraInjectables, BoardConfig boardConfig, ApplicationUser boardOwner) {
+        Accessor(JiraInjectables jiraInjectables, BoardConfig boardConfig, AssigneeCache assigneeCache,
+                 ApplicationUser boardOwner) {
             this.jiraInjectables = jiraInjectables;
             this.boardConfig = boardConfig;
+            this.assigneeCache = assigneeCache;
             this.boardOwner = boardOwner;
         }
 
@@ -301,6 +414,12 @@ public class Board {
 
         abstract Set<FixVersion> getFixVersions(Collection<Version> fixVersions);
 
+        abstract Set<Component> getComponentsForNames(Collection<String> componentNames);
+
+        abstract Set<Label> getLabelsForNames(Collection<String> labelNames);
+
+        abstract Set<FixVersion> getFixVersionsForNames(Collection<String> fixVersionNames);
+
         public List<String> getStateNames() {
             return boardConfig.getStateNames();
         }
@@ -313,24 +432,21 @@ public class Board {
 
     }
 
-    private static Map<String, Assignee> sortAssignees(Map<String, Assignee> assignees) {
-        return sortMapValues(
-                assignees,
-                Assignee::getDisplayName,
-                Assignee::getKey);
+    private static SortedIndexedMap<String, Assignee> sortAssignees(Map<String, Assignee> assignees) {
+        return SortedIndexedMap.copyOf(
+                sortComparator(Assignee::getDisplayName, Assignee::getKey),
+                assignees);
     }
 
-    private static <T extends MultiSelectNameOnlyValue> Map<String, T> sortMultiSelectNameOnlyValueMap(Map<String, T> values) {
-        return sortMapValues(values, MultiSelectNameOnlyValue::getName, MultiSelectNameOnlyValue::getName);
+    private static <T extends MultiSelectNameOnlyValue> SortedIndexedMap<String, T> sortMultiSelectNameOnlyValueMap(Map<String, T> values) {
+        return SortedIndexedMap.copyOf(
+                sortComparator(MultiSelectNameOnlyValue::getName, MultiSelectNameOnlyValue::getName),
+                values);
     }
 
-    private static <T> Map<String, T> sortMapValues(Map<String, T> unsorted, Function<T, String> displayNameExtractor, Function<T, String> keyExtractor) {
-        List<T> values = new ArrayList<T>(unsorted.values());
-        Comparator<T> comparator = Comparator.comparing(displayNameExtractor, String.CASE_INSENSITIVE_ORDER);
-        Collections.sort(values, comparator);
-        LinkedHashMap<String, T> result = new LinkedHashMap<>();
-        values.forEach(value -> result.put(keyExtractor.apply(value), value));
-        return result;
+    private static <T> Comparator<T> sortComparator(Function<T, String> displayNameExtractor, Function<T, String> keyExtractor) {
+        //Fall back to the key for values with the same display name, since SortedIndexedMap needs a total ordering
+        return Comparator.comparing(displayNameExtractor, String.CASE_INSENSITIVE_ORDER).thenComparing(keyExtractor);
     }
 
     /**
@@ -342,28 +458,133 @@ public class Board {
         private final Map<String, Component> components = new HashMap<>();
         private final Map<String, Label> labels = new HashMap<>();
         private final Map<String, FixVersion> fixVersions = new HashMap<>();
-        private final Map<String, Issue> allIssues = new HashMap<>();
+        private final PersistentHashMap.Builder<String, Issue> allIssues = PersistentHashMap.builder();
         private final Map<String, BoardProject.Builder> projects = new HashMap<>();
         private final Blacklist.Builder blacklist = new Blacklist.Builder();
         private final Map<Long, SortedCustomFieldValues.Builder> customFieldBuilders = new HashMap();
+        private LoadProgress loadProgress = new LoadProgress();
 
         public Builder(JiraInjectables jiraInjectables,
                        ProjectCustomFieldOptionsLoader projectCustomFieldOptionsLoader,
-                       BoardConfig boardConfig, ApplicationUser boardOwner) {
-            super(jiraInjectables, boardConfig, boardOwner);
+                       BoardConfig boardConfig, AssigneeCache assigneeCache, ApplicationUser boardOwner) {
+            super(jiraInjectables, boardConfig, assigneeCache, boardOwner);
             this.projectCustomFieldOptionsLoader = projectCustomFieldOptionsLoader;
         }
 
+        /**
+         * Sets the progress to be updated as the board's issues are loaded.
+         *
+         * @param loadProgress the progress
+         * @return this builder
+         */
+        public Builder setLoadProgress(LoadProgress loadProgress) {
+            this.loadProgress = loadProgress;
+            return this;
+        }
+
+        LoadProgress getLoadProgress() {
+            return loadProgress;
+        }
+
         public Builder load() throws SearchException {
-            for (BoardProjectConfig boardProjectConfig : boardConfig.getBoardProjects()) {
-                BoardProjectConfig project = boardConfig.getBoardProject(boardProjectConfig.getCode());
-                BoardProject.Builder projectBuilder = BoardProject.builder(jiraInjectables, projectCustomFieldOptionsLoader, this, project, boardOwner);
-                projectBuilder.load();
-                projects.put(projectBuilder.getCode(), projectBuilder);
+            return load(null);
+        }
+
+        /**
+         * Loads the board's projects. If an executor is passed in, and there is more than one project, the projects
+         * are loaded concurrently using the executor. Each project is then loaded into its own builder, which is
+         * only used by the thread loading it. Once all the projects are loaded, the registries from those builders
+         * are merged into this one in the configured project order, so the result does not depend on which project
+         * finished loading first.
+         *
+         * @param executor the executor to load the projects with. If {@code null} they are loaded one after another
+         *                 in the calling thread
+         * @return this builder
+         * @throws SearchException if the search for a project's issues failed
+         */
+        public Builder load(Executor executor) throws SearchException {
+            final List<BoardProjectConfig> projectConfigs = new ArrayList<>(boardConfig.getBoardProjects());
+            if (executor == null || projectConfigs.size() < 2) {
+                for (BoardProjectConfig boardProjectConfig : projectConfigs) {
+                    loadProject(boardProjectConfig);
+                }
+                return this;
+            }
+
+            final List<Builder> projectLoaders = new ArrayList<>();
+            final List<FutureTask<BoardProject.Builder>> projectLoads = new ArrayList<>();
+            for (BoardProjectConfig boardProjectConfig : projectConfigs) {
+                final Builder projectLoader =
+                        new Builder(jiraInjectables, projectCustomFieldOptionsLoader, boardConfig, assigneeCache, boardOwner)
+                                .setLoadProgress(loadProgress);
+                final FutureTask<BoardProject.Builder> projectLoad =
+                        new FutureTask<>(() -> projectLoader.loadProject(boardProjectConfig));
+                projectLoaders.add(projectLoader);
+                projectLoads.add(projectLoad);
+                executor.execute(projectLoad);
+            }
+            boolean loaded = false;
+            try {
+                for (int i = 0; i < projectLoads.size(); i++) {
+                    final BoardProject.Builder projectBuilder = waitForProjectLoad(projectLoads.get(i));
+                    merge(projectLoaders.get(i));
+                    projects.put(projectBuilder.getCode(), projectBuilder);
+                }
+                loaded = true;
+            } finally {
+                if (!loaded) {
+                    //Don't leave the remaining projects loading if one failed. Interrupting them could close the
+                    //Lucene and database channels they are reading from, so the ones which have started are stopped
+                    //at their next page of issues instead
+                    loadProgress.cancel("Another project of board " + boardConfig.getCode() + " failed to load");
+                    projectLoads.forEach(projectLoad -> projectLoad.cancel(false));
+                }
             }
             return this;
         }
 
+        private BoardProject.Builder loadProject(BoardProjectConfig boardProjectConfig) throws SearchException {
+            BoardProjectConfig project = boardConfig.getBoardProject(boardProjectConfig.getCode());
+            BoardProject.Builder projectBuilder = BoardProject.builder(jiraInjectables, projectCustomFieldOptionsLoader, this, project, boardOwner);
+            projectBuilder.load();
+            projects.put(projectBuilder.getCode(), projectBuilder);
+            return projectBuilder;
+        }
+
+        private static BoardProject.Builder waitForProjectLoad(FutureTask<BoardProject.Builder> projectLoad) throws SearchException {
+            try {
+                return projectLoad.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SearchException) {
+                    throw (SearchException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+
+        private void merge(Builder projectLoader) {
+            //If several projects have the same value, keep the first one, as a sequential load would
+            projectLoader.assignees.forEach(assignees::putIfAbsent);
+            projectLoader.components.forEach(components::putIfAbsent);
+            projectLoader.labels.forEach(labels::putIfAbsent);
+            projectLoader.fixVersions.forEach(fixVersions::putIfAbsent);
+            projectLoader.allIssues.build().forEach(allIssues::put);
+            projectLoader.customFieldBuilders.forEach((id, customFieldBuilder) ->
+                    customFieldBuilders.computeIfAbsent(id, i -> new SortedCustomFieldValues.Builder(customFieldBuilder.config))
+                            .merge(customFieldBuilder));
+            blacklist.merge(projectLoader.blacklist);
+        }
+
         @Override
         public Accessor addIssue(Issue issue) {
             allIssues.put(issue.getKey(), issue);
@@ -380,7 +601,7 @@ public class Board {
             if (assignee != null) {
                 return assignee;
             }
-            assignee = createAssignee(jiraInjectables, boardOwner, assigneeUser);
+            assignee = assigneeCache.getAssignee(jiraInjectables, boardOwner, assigneeUser);
             assignees.put(assigneeUser.getName(), assignee);
             return assignee;
         }
@@ -406,6 +627,21 @@ public class Board {
                     name -> new FixVersion(name));
         }
 
+        @Override
+        Set<Component> getComponentsForNames(Collection<String> componentNames) {
+            return getIssueMultiSelectNameValues(components, componentNames, name -> name, name -> new Component(name));
+        }
+
+        @Override
+        Set<Label> getLabelsForNames(Collection<String> labelNames) {
+            return getIssueMultiSelectNameValues(labels, labelNames, name -> name, name -> new Label(name));
+        }
+
+        @Override
+        Set<FixVersion> getFixVersionsForNames(Collection<String> fixVersionNames) {
+            return getIssueMultiSelectNameValues(fixVersions, fixVersionNames, name -> name, name -> new FixVersion(name));
+        }
+
         private <T, R extends MultiSelectNameOnlyValue> Set<R> getIssueMultiSelectNameValues (
                 Map<String, R> builderMap,
                 Collection<T> issueJiraObjects,
@@ -461,13 +697,14 @@ public class Board {
         }
 
         public Board build() {
-            Map<String, BoardProject> projects = new LinkedHashMap<>();
+            PersistentHashMap.Builder<String, BoardProject> projectsBuilder = PersistentHashMap.builder();
 
             this.projects.forEach((name, projectBuilder) -> {
                 if (boardConfig.getBoardProject(name) != null) {
-                    projects.put(name, projectBuilder.build());
+                    projectsBuilder.put(name, projectBuilder.build());
                 }
             });
+            PersistentHashMap<String, BoardProject> projects = projectsBuilder.build();
 
             Map<String, SortedCustomFieldValues> sortedCustomFieldValues = new HashMap<>();
             this.customFieldBuilders.values().forEach(scfBuilder -> {
@@ -475,15 +712,18 @@ public class Board {
                 sortedCustomFieldValues.put(fieldValues.getFieldName(), fieldValues);
             });
 
+            PersistentHashMap<String, Issue> allIssues = this.allIssues.build();
+
             Board board = new Board(
-                    null, boardConfig,
-                    new IndexedMap<>(sortAssignees(assignees)),
-                    new IndexedMap<>(sortMultiSelectNameOnlyValueMap(components)),
-                    new IndexedMap<>(sortMultiSelectNameOnlyValueMap(labels)),
-                    new IndexedMap<>(sortMultiSelectNameOnlyValueMap(fixVersions)),
-                    Collections.unmodifiableMap(allIssues),
-                    Collections.unmodifiableMap(projects),
+                    null, boardConfig, assigneeCache,
+                    sortAssignees(assignees),
+                    sortMultiSelectNameOnlyValueMap(components),
+                    sortMultiSelectNameOnlyValueMap(labels),
+                    sortMultiSelectNameOnlyValueMap(fixVersions),
+                    allIssues,
+                    projects,
                     Collections.unmodifiableMap(sortedCustomFieldValues),
+                    indexLinkingIssueKeys(allIssues.values()),
                     blacklist.build());
             projects.values().forEach(project -> project.setBoard(board));
             return board;
@@ -499,15 +739,15 @@ public class Board {
         private final Blacklist.Updater blacklist;
 
         //Will only be populated if a new assignee is brought in
-        private Map<String, Assignee> assigneesCopy;
+        private SortedIndexedMap<String, Assignee> assigneesCopy;
         //Will only be populated if new components are brought in
-        private Map<String, Component> componentsCopy;
+        private SortedIndexedMap<String, Component> componentsCopy;
         //Will only be populated if new labels are brought in
-        private Map<String, Label> labelsCopy;
+        private SortedIndexedMap<String, Label> labelsCopy;
         //Will only be populated if new fixVersions are brought in
-        private Map<String, FixVersion> fixVersionsCopy;
+        private SortedIndexedMap<String, FixVersion> fixVersionsCopy;
 
-        Map<String, Issue> allIssuesCopy;
+        PersistentHashMap<String, Issue> allIssuesCopy;
 
         private Assignee newAssignee;
         private Set<Component> newComponents;
@@ -516,7 +756,7 @@ public class Board {
         private final Map<Long, SortedCustomFieldValues.Updater> customFieldUpdaters = new HashMap();
 
         Updater(JiraInjectables jiraInjectables, Board board, ApplicationUser boardOwner, BoardChangeRegistry changeRegistry) {
-            super(jiraInjectables, board.getConfig(), boardOwner);
+            super(jiraInjectables, board.getConfig(), board.assigneeCache, boardOwner);
             this.board = board;
             this.changeRegistry = changeRegistry;
             this.blacklist = new Blacklist.Updater(board.blacklist);
@@ -531,6 +771,8 @@ public class Board {
                     return handleCreateOrUpdateIssue(event, nextRankedIssueUtil, true);
                 case UPDATE:
                     return handleCreateOrUpdateIssue(event, nextRankedIssueUtil, false);
+                case LINKS:
+                    return handleLinksEvent(event);
                 default:
                     throw new IllegalArgumentException("Unknown event type " + event.getType());
             }
@@ -544,14 +786,16 @@ public class Board {
                         " in board " + board.boardConfig.getId());
             }
 
-            final Map<String, BoardProject> projectsCopy;
-            final Map<String, Issue> allIssuesCopy;
+            final PersistentHashMap<String, BoardProject> projectsCopy;
+            final PersistentHashMap<String, Issue> allIssuesCopy;
+            final PersistentHashMap<String, ArraySet<String>> linkingIssueKeysCopy;
             if (board.blacklist.isBlacklisted(event.getIssueKey())) {
                 OverbaardLogger.LOGGER.debug("Board.Updater.handleDeleteEvent - Handling delete event for blacklisted issue {}", event.getIssueKey());
                 //For a delete of an issue that has been blacklisted we simply remove the issue from the blacklist.
                 //It is not part of any of the issue tables so just use the old projects
                 projectsCopy = board.projects;
                 allIssuesCopy = board.allIssues;
+                linkingIssueKeysCopy = board.linkingIssueKeys;
 
                 //We still need to update the board somewhat though to include the new blacklist (we only remove the
                 // issue and not the bad state/issue-type/priority)
@@ -564,21 +808,20 @@ public class Board {
                             " in board " + board.boardConfig.getId());
                 }
                 final BoardProject projectCopy = project.copyAndDeleteIssue(issue);
-                projectsCopy = copyAndPut(board.projects, event.getProjectCode(), projectCopy, HashMap::new);
-
-                Map<String, Issue> allIssues = new HashMap<>(board.allIssues);
-                allIssues.remove(issue.getKey());
-                allIssuesCopy = Collections.unmodifiableMap(allIssues);
+                projectsCopy = board.projects.plus(event.getProjectCode(), projectCopy);
+                allIssuesCopy = board.allIssues.minus(issue.getKey());
+                linkingIssueKeysCopy = updateLinkingIssueKeys(board.linkingIssueKeys, issue, null);
             }
 
-            Board boardCopy = new Board(board, board.boardConfig,
+            Board boardCopy = new Board(board, board.boardConfig, board.assigneeCache,
                     board.sortedAssignees,
                     board.sortedComponents,
                     board.sortedLabels,
                     board.sortedFixVersions,
-                    Collections.unmodifiableMap(allIssuesCopy),
+                    allIssuesCopy,
                     projectsCopy,
                     SortedCustomFieldValues.Updater.merge(customFieldUpdaters, board.sortedCustomFieldValues),
+                    linkingIssueKeysCopy,
                     blacklist.build());
             boardCopy.updateBoardInProjects();
 
@@ -701,7 +944,7 @@ public class Board {
 
             //This will replace the old issue
             allIssuesCopy = newIssue != null ?
-                    copyAndPut(board.allIssues, event.getIssueKey(), newIssue, HashMap::new) :
+                    board.allIssues.plus(event.getIssueKey(), newIssue) :
                     board.allIssues;
 
             OverbaardLogger.LOGGER.debug("Board.Updater.handleCreateOrUpdateIssue - newIssue {}; updatedBlacklist {}; changedRankOrState {}",
@@ -711,17 +954,19 @@ public class Board {
                 //The project's issue tables will be updated if needed
                 OverbaardLogger.LOGGER.debug("Board.Updater.handleCreateOrUpdateIssue - Copying project {}", project.getCode());
                 final BoardProject projectCopy = projectUpdater.build();
-                final Map<String, BoardProject> projectsCopy = new HashMap<>(board.projects);
-                projectsCopy.put(event.getProjectCode(), projectCopy);
-
-                final Board boardCopy = new Board(board, board.boardConfig,
-                        assigneesCopy == null ? board.sortedAssignees : new IndexedMap<>(sortAssignees(assigneesCopy)),
-                        componentsCopy == null ? board.sortedComponents : new IndexedMap<>(sortMultiSelectNameOnlyValueMap(componentsCopy)),
-                        labelsCopy == null ? board.sortedLabels : new IndexedMap<>(sortMultiSelectNameOnlyValueMap(labelsCopy)),
-                        fixVersionsCopy == null ? board.sortedFixVersions : new IndexedMap<>(sortMultiSelectNameOnlyValueMap(fixVersionsCopy)),
+                final PersistentHashMap<String, BoardProject> projectsCopy = board.projects.plus(event.getProjectCode(), projectCopy);
+
+                final Board boardCopy = new Board(board, board.boardConfig, board.assigneeCache,
+                        assigneesCopy == null ? board.sortedAssignees : assigneesCopy,
+                        componentsCopy == null ? board.sortedComponents : componentsCopy,
+                        labelsCopy == null ? board.sortedLabels : labelsCopy,
+                        fixVersionsCopy == null ? board.sortedFixVersions : fixVersionsCopy,
                         allIssuesCopy,
-                        Collections.unmodifiableMap(projectsCopy),
+                        projectsCopy,
                         SortedCustomFieldValues.Updater.merge(customFieldUpdaters, board.sortedCustomFieldValues),
+                        newIssue != null ?
+                                updateLinkingIssueKeys(board.linkingIssueKeys, existingIssue, newIssue) :
+                                board.linkingIssueKeys,
                         blacklist.build());
 
                 //Register the event
@@ -787,6 +1032,63 @@ public class Board {
             return null;
         }
 
+        private Board handleLinksEvent(OverbaardIssueEvent event) {
+            OverbaardLogger.LOGGER.debug("Board.Updater.handleLinksEvent - Handling links event for {}", event.getIssueKey());
+            final Issue existingIssue = board.allIssues.get(event.getIssueKey());
+            if (existingIssue == null) {
+                //The issue is not on the board, e.g. because it is in a done state or blacklisted
+                OverbaardLogger.LOGGER.debug("Board.Updater.handleLinksEvent - {} is not on the board", event.getIssueKey());
+                return null;
+            }
+            final BoardProject project = board.projects.get(event.getProjectCode());
+            if (project == null) {
+                throw new IllegalArgumentException("Can't find project " + event.getProjectCode()
+                        + " in board " + board.boardConfig.getId());
+            }
+            final com.atlassian.jira.issue.Issue jiraIssue =
+                    jiraInjectables.getIssueService().getIssue(boardOwner, event.getIssueKey()).getIssue();
+            if (jiraIssue == null) {
+                //It was deleted in the meantime, the delete event will take care of it
+                return null;
+            }
+
+            final BoardProject.Updater projectUpdater = project.updater(jiraInjectables, null, this, boardOwner);
+            final Issue newIssue = Issue.copyForLinksEvent(projectUpdater, existingIssue, jiraIssue);
+            if (newIssue == null) {
+                OverbaardLogger.LOGGER.debug("Board.Updater.handleLinksEvent - The linked issues of {} did not change", event.getIssueKey());
+                return null;
+            }
+            allIssuesCopy = board.allIssues.plus(event.getIssueKey(), newIssue);
+
+            final Board boardCopy = new Board(board, board.boardConfig, board.assigneeCache,
+                    board.sortedAssignees,
+                    board.sortedComponents,
+                    board.sortedLabels,
+                    board.sortedFixVersions,
+                    allIssuesCopy,
+                    board.projects,
+                    board.sortedCustomFieldValues,
+                    updateLinkingIssueKeys(board.linkingIssueKeys, existingIssue, newIssue),
+                    blacklist.build());
+            boardCopy.updateBoardInProjects();
+
+            //The clients see this as an update of the issue which only contains the linked issues
+            final OverbaardIssueEvent updateEvent = OverbaardIssueEvent.createUpdateEvent(
+                    event.getIssueKey(), event.getProjectCode(), null, null, null, null, null, null, null,
+                    existingIssue.getState(), null, false, null);
+            final boolean backlogState = project.isBacklogState(existingIssue.getIssueTypeName(), existingIssue.getState());
+            final BoardChange.Builder changeBuilder = changeRegistry.addChange(boardCopy.currentView, updateEvent);
+            changeBuilder.setFromBacklogState(backlogState);
+            changeBuilder.setBacklogState(backlogState);
+            changeBuilder.setLinkedIssues(newIssue.getLinkedIssuesModelNode(boardCopy));
+            if (blacklist.isUpdated()) {
+                changeBuilder.addBlacklist(blacklist.getAddedState(), blacklist.getAddedIssueType(),
+                        blacklist.getAddedPriority(), blacklist.getAddedIssue());
+            }
+            changeBuilder.buildAndRegister();
+            return boardCopy;
+        }
+
         @Override
         Assignee getAssignee(ApplicationUser assigneeUser) {
             return getOrCreateIssueAssignee(assigneeUser);
@@ -807,6 +1109,24 @@ public class Board {
             return getOrCreateIssueFixVersions(fixVersions);
         }
 
+        @Override
+        Set<Component> getComponentsForNames(Collection<String> componentNames) {
+            //Should not get called for this code path
+            throw new IllegalStateException();
+        }
+
+        @Override
+        Set<Label> getLabelsForNames(Collection<String> labelNames) {
+            //Should not get called for this code path
+            throw new IllegalStateException();
+        }
+
+        @Override
+        Set<FixVersion> getFixVersionsForNames(Collection<String> fixVersionNames) {
+            //Should not get called for this code path
+            throw new IllegalStateException();
+        }
+
         @Override
         CustomFieldValue getCustomFieldValue(CustomFieldConfig customFieldConfig, Object fieldValue) {
             //Should not get called for this code path
@@ -866,9 +1186,11 @@ public class Board {
             } else {
                 Assignee assignee = board.sortedAssignees.get(evtAssignee.getName());
                 if (assignee == null) {
-                    assignee = Board.createAssignee(jiraInjectables, boardOwner, evtAssignee);
+                    assignee = assigneeCache.getAssignee(jiraInjectables, boardOwner, evtAssignee);
                     newAssignee = assignee;
-                    assigneesCopy = copyAndPut(board.sortedAssignees.map(), evtAssignee.getName(), assignee, HashMap::new);
+                    assigneesCopy = board.sortedAssignees.plus(evtAssignee.getName(), assignee);
+                    OverbaardLogger.LOGGER.debug("Board.Updater - Added assignee {} at index {}",
+                            evtAssignee.getName(), assigneesCopy.getIndex(evtAssignee.getName()));
                 }
                 return assignee;
             }
@@ -883,13 +1205,8 @@ public class Board {
                     evtComponents,
                     ProjectComponent::getName,
                     name -> new Component(name),
-                    () -> componentsCopy == null ? board.sortedComponents.map() : componentsCopy,
-                    () -> {
-                        if (componentsCopy == null) {
-                            componentsCopy = new HashMap<String, Component>(board.sortedComponents.map());
-                        }
-                        return componentsCopy;
-                    },
+                    () -> componentsCopy == null ? board.sortedComponents : componentsCopy,
+                    copy -> componentsCopy = copy,
                     () -> {
                         if (newComponents == null) {
                             newComponents = new HashSet<Component>();
@@ -907,13 +1224,8 @@ public class Board {
                     evtLabels,
                     com.atlassian.jira.issue.label.Label::getLabel,
                     name -> new Label(name),
-                    () -> labelsCopy == null ? board.sortedLabels.map() : labelsCopy,
-                    () -> {
-                        if (labelsCopy == null) {
-                            labelsCopy = new HashMap<String, Label>(board.sortedLabels.map());
-                        }
-                        return labelsCopy;
-                    },
+                    () -> labelsCopy == null ? board.sortedLabels : labelsCopy,
+                    copy -> labelsCopy = copy,
                     () -> {
                         if (newLabels == null) {
                             newLabels = new HashSet<Label>();
@@ -931,13 +1243,8 @@ public class Board {
                     evtFixVersions,
                     com.atlassian.jira.project.version.Version::getName,
                     name -> new FixVersion(name),
-                    () -> fixVersionsCopy == null ? board.sortedFixVersions.map() : fixVersionsCopy,
-                    () -> {
-                        if (fixVersionsCopy == null) {
-                            fixVersionsCopy = new HashMap<String, FixVersion>(board.sortedFixVersions.map());
-                        }
-                        return fixVersionsCopy;
-                    },
+                    () -> fixVersionsCopy == null ? board.sortedFixVersions : fixVersionsCopy,
+                    copy -> fixVersionsCopy = copy,
                     () -> {
                         if (newFixVersions == null) {
                             newFixVersions = new HashSet<FixVersion>();
@@ -950,8 +1257,8 @@ public class Board {
                 Collection<T> jiraEventValues,
                 Function<T, String> nameExtractor,
                 Function<String, R> newValueCreator,
-                Supplier<Map<String, R>> valueMapSupplier,
-                Supplier<Map<String, R>> copyMapSupplier,
+                Supplier<SortedIndexedMap<String, R>> valueMapSupplier,
+                Consumer<SortedIndexedMap<String, R>> copyMapConsumer,
                 Supplier<Set<R>> newSetSupplier) {
             if (jiraEventValues == null) {
                 return null;
@@ -960,13 +1267,12 @@ public class Board {
             } else {
                 Set<R> values = new HashSet<>();
                 for (T jiraEventValue : jiraEventValues) {
-                    Map<String, R> valueMap = valueMapSupplier.get();
+                    SortedIndexedMap<String, R> valueMap = valueMapSupplier.get();
                     final String name = nameExtractor.apply(jiraEventValue);
                     R value = valueMap.get(name);
                     if (value == null) {
                         value = newValueCreator.apply(name);
-                        Map<String, R> copyMap = copyMapSupplier.get();
-                        copyMap.put(name, value);
+                        copyMapConsumer.accept(valueMap.plus(name, value));
                         newSetSupplier.get().add(value);
                     }
                     values.add(value);
@@ -974,13 +1280,5 @@ public class Board {
                 return values;
             }
         }
-
-        private <K, V> Map<K, V> copyAndPut(Map<K, V> map, K key, V value, Supplier<Map<K, V>> supplier) {
-            OverbaardLogger.LOGGER.debug("Board.Updater.copyAndPut - Overwrite {}", key);
-            Map<K, V> copy = supplier.get();
-            copy.putAll(map);
-            copy.put(key, value);
-            return Collections.unmodifiableMap(copy);
-        }
     }
 }
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import org.jboss.dmr.ModelNode;
 import org.overbaard.jira.impl.OverbaardIssueEvent;
 import org.overbaard.jira.impl.board.MultiSelectNameOnlyValue.Component;
 import org.overbaard.jira.impl.board.MultiSelectNameOnlyValue.FixVersion;
@@ -67,6 +68,9 @@ public class BoardChange {
     private final boolean clearParallelTaskGroupValues;
     private final Boolean fromBacklogState;
 
+    //The linked issues of the issue, if they were changed
+    private final ModelNode linkedIssues;
+
 
     private BoardChange(int view, OverbaardIssueEvent event, Assignee newAssignee,
                         Set<Component> newComponents, Set<Label> newLabels,
@@ -76,7 +80,8 @@ public class BoardChange {
                         Boolean fromBacklogState, Boolean backlogState,
                         Map<String, CustomFieldValue> customFieldValues,
                         Map<String, CustomFieldValue> newCustomFieldValues,
-                        Map<ParallelTaskGroupPosition, Integer> parallelTaskGroupValues, boolean clearParallelTaskGroupValues) {
+                        Map<ParallelTaskGroupPosition, Integer> parallelTaskGroupValues, boolean clearParallelTaskGroupValues,
+                        ModelNode linkedIssues) {
         this.view = view;
         this.event = event;
         this.newAssignee = newAssignee;
@@ -94,6 +99,7 @@ public class BoardChange {
         this.newCustomFieldValues = newCustomFieldValues;
         this.parallelTaskGroupValues = parallelTaskGroupValues;
         this.clearParallelTaskGroupValues = clearParallelTaskGroupValues;
+        this.linkedIssues = linkedIssues;
     }
 
     long getTime() {
@@ -172,6 +178,10 @@ public class BoardChange {
         return clearParallelTaskGroupValues;
     }
 
+    public ModelNode getLinkedIssues() {
+        return linkedIssues;
+    }
+
     public static class Builder {
         private final BoardChangeRegistry registry;
         private final int view;
@@ -200,6 +210,7 @@ public class BoardChange {
         private Map<String, CustomFieldValue> customFieldValues;
         private Map<ParallelTaskGroupPosition, Integer> parallelTaskGroupValues;
         private boolean clearParallelTaskGroupValues;
+        private ModelNode linkedIssues;
 
         Builder(BoardChangeRegistry registry, int view, OverbaardIssueEvent event) {
             this.registry = registry;
@@ -281,13 +292,18 @@ public class BoardChange {
             clearParallelTaskGroupValues = true;
         }
 
+        public Builder setLinkedIssues(ModelNode linkedIssues) {
+            this.linkedIssues = linkedIssues;
+            return this;
+        }
+
 
         public void buildAndRegister() {
             BoardChange change = new BoardChange(
                     view, event, newAssignee, newComponents, newLabels, newFixVersions, addedBlacklistState,
                     addedBlacklistPriority, addedBlacklistIssueType, addedBlacklistIssue, deletedBlacklistIssue,
                     fromBacklogState, backlogState, customFieldValues, newCustomFieldValues,
-                    parallelTaskGroupValues, clearParallelTaskGroupValues);
+                    parallelTaskGroupValues, clearParallelTaskGroupValues, linkedIssues);
             registry.registerChange(change);
         }
 
@@ -16,7 +16,6 @@
 package org.overbaard.jira.impl.board;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -52,6 +51,9 @@ public class BoardChangeRegistry {
     //Delete items older than 90 seconds
     private static final int CLEANUP_AGE_SECONDS = 90000;
 
+    //Rough heap usage of a change, for getEstimatedSize()
+    private static final long ESTIMATED_CHANGE_BYTES = 512;
+
     private final BoardManagerImpl boardManager;
     private volatile Board board;
     private volatile boolean valid = true;
@@ -178,9 +180,21 @@ public class BoardChangeRegistry {
             change.fixVersions = new HashSet<>();
             fixVersions.forEach(fixVersion -> change.fixVersions.add(fixVersion.getName()));
         }
+        if (issue.hasLinkedIssues()) {
+            change.linkedIssues = issue.getLinkedIssuesModelNode(board);
+        }
         return change;
     }
 
+    /**
+     * Gets a rough estimate of the heap used by the changes kept for the clients polling the board.
+     *
+     * @return the estimated size in bytes
+     */
+    public long getEstimatedSize() {
+        return changes.size() * ESTIMATED_CHANGE_BYTES;
+    }
+
     public void forceRefresh() {
         OverbaardLogger.LOGGER.debug("Forcing refresh");
         boardManager.forceRefresh(board.getConfig().getCode());
@@ -312,19 +326,23 @@ public class BoardChangeRegistry {
 
                     final Set<String> rerankedIssues = projectEntry.getValue();
                     final BoardProject project = board.getBoardProject(projectEntry.getKey());
-                    final List<String> rankedIssueKeys = project.getRankedIssueKeys();
 
-                    for (int i = 0; i < rankedIssueKeys.size() ; i++) {
-                        final String issueKey = rankedIssueKeys.get(i);
+                    //Look up the reranked issues' indices rather than scanning the whole ranked list
+                    final Map<Integer, String> rerankedByIndex = new TreeMap<>();
+                    for (String issueKey : rerankedIssues) {
+                        final int index = project.getRankIndex(issueKey);
+                        if (index >= 0) {
+                            rerankedByIndex.put(index, issueKey);
+                        }
+                    }
 
-                        if (rerankedIssues.contains(issueKey)) {
-                            final ModelNode ranked = changes.get(Constants.RANK, projectEntry.getKey());
+                    for (Map.Entry<Integer, String> entry : rerankedByIndex.entrySet()) {
+                        final ModelNode ranked = changes.get(Constants.RANK, projectEntry.getKey());
 
-                            ModelNode rankEntry = new ModelNode();
-                            rankEntry.get(Constants.INDEX).set(i);
-                            rankEntry.get(Constants.KEY).set(issueKey);
-                            ranked.add(rankEntry);
-                        }
+                        ModelNode rankEntry = new ModelNode();
+                        rankEntry.get(Constants.INDEX).set(entry.getKey());
+                        rankEntry.get(Constants.KEY).set(entry.getValue());
+                        ranked.add(rankEntry);
                     }
                 }
             }
@@ -443,6 +461,7 @@ public class BoardChangeRegistry {
         private Map<String, CustomFieldValue> customFieldValues;
         private Map<ParallelTaskGroupPosition, Integer> parallelTaskGroupValues;
         private Boolean clearedParallelTaskValues;
+        private ModelNode linkedIssues;
 
         private IssueChange(String projectCode, String issueKey, Boolean backlogState) {
             this.projectCode = projectCode;
@@ -599,6 +618,10 @@ public class BoardChangeRegistry {
                 }
                 parallelTaskGroupValues = null;
             }
+            if (boardChange.getLinkedIssues() != null) {
+                //This is the full list of linked issues, so it replaces any earlier one
+                linkedIssues = boardChange.getLinkedIssues();
+            }
         }
 
         void mergeType(OverbaardIssueEvent event) {
@@ -650,6 +673,9 @@ public class BoardChangeRegistry {
                     if (parallelTaskGroupValues != null) {
                         output.get(Constants.PARALLEL_TASKS).set(populateParallelTaskGroupsForCreate());
                     }
+                    if (linkedIssues != null) {
+                        output.get(Constants.LINKED_ISSUES).set(linkedIssues);
+                    }
                     output.get(Constants.STATE).set(state);
                     break;
                 case UPDATE:
@@ -693,6 +719,9 @@ public class BoardChangeRegistry {
                     if (state != null) {
                         output.get(Constants.STATE).set(state);
                     }
+                    if (linkedIssues != null) {
+                        output.get(Constants.LINKED_ISSUES).set(linkedIssues);
+                    }
                     if (unassigned) {
                         output.get(Constants.UNASSIGNED).set(true);
                     }
@@ -716,34 +745,32 @@ public class BoardChangeRegistry {
         }
 
         private ModelNode populateParallelTaskGroupsForCreate() {
-            TreeMap<ParallelTaskGroupPosition, Integer> sortedValues = new TreeMap<>(new Comparator<ParallelTaskGroupPosition>() {
-                @Override
-                public int compare(ParallelTaskGroupPosition o1, ParallelTaskGroupPosition o2) {
-                    if (o1.getGroupIndex() == o2.getGroupIndex()) {
-                        return o1.getTaskIndex() < o2.getTaskIndex() ? -1 : 1;
-                    }
-                    return o1.getGroupIndex() < o2.getGroupIndex() ? -1 : 1;
-                }
-            });
-            sortedValues.putAll(parallelTaskGroupValues);
+            // A create has values for all the positions, so lay them out in a table rather than sorting them
+            int groupCount = 0;
+            for (ParallelTaskGroupPosition position : parallelTaskGroupValues.keySet()) {
+                groupCount = Math.max(groupCount, position.getGroupIndex() + 1);
+            }
+            final int[] groupSizes = new int[groupCount];
+            for (ParallelTaskGroupPosition position : parallelTaskGroupValues.keySet()) {
+                groupSizes[position.getGroupIndex()] =
+                        Math.max(groupSizes[position.getGroupIndex()], position.getTaskIndex() + 1);
+            }
+            final int[][] table = new int[groupCount][];
+            for (int i = 0; i < groupCount; i++) {
+                table[i] = new int[groupSizes[i]];
+            }
+            parallelTaskGroupValues.forEach((position, value) -> table[position.getGroupIndex()][position.getTaskIndex()] = value);
 
             ModelNode groupsTable = new ModelNode().setEmptyList();
-            ModelNode currentGroup = null;
-            int lastGroupIndex = -1;
-            for (Map.Entry<ParallelTaskGroupPosition, Integer> entry : sortedValues.entrySet()) {
-                ParallelTaskGroupPosition position = entry.getKey();
-                if (position.getGroupIndex() != lastGroupIndex) {
-                    if (currentGroup != null) {
-                        groupsTable.add(currentGroup);
-                    }
-                    lastGroupIndex = position.getGroupIndex();
-                    currentGroup = new ModelNode().setEmptyList();
-
+            for (int[] group : table) {
+                if (group.length == 0) {
+                    continue;
                 }
-                currentGroup.add(entry.getValue());
-            }
-            if (currentGroup != null) {
-                groupsTable.add(currentGroup);
+                ModelNode groupNode = new ModelNode().setEmptyList();
+                for (int value : group) {
+                    groupNode.add(value);
+                }
+                groupsTable.add(groupNode);
             }
             return groupsTable;
         }
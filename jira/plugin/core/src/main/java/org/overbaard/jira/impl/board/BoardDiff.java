@@ -0,0 +1,353 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.board;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.overbaard.jira.OverbaardLogger;
+import org.overbaard.jira.api.NextRankedIssueUtil;
+import org.overbaard.jira.api.adapter.spi.JiraApiAdapter;
+import org.overbaard.jira.api.adapter.spi.SearchResultsAdapter;
+import org.overbaard.jira.impl.JiraInjectables;
+import org.overbaard.jira.impl.OverbaardIssueEvent;
+import org.overbaard.jira.impl.config.BoardConfig;
+import org.overbaard.jira.impl.config.BoardProjectConfig;
+
+import com.atlassian.jira.issue.search.SearchException;
+import com.atlassian.jira.issue.search.SearchResults;
+import com.atlassian.jira.jql.builder.JqlQueryBuilder;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.web.bean.PagerFilter;
+
+/**
+ * <p>Works out the differences between a loaded board and a new instance of it which was loaded in the background,
+ * as the {@link OverbaardIssueEvent}s which bring the loaded board up to date. When these go through the normal event
+ * path, the loaded board keeps its view sequence, so the clients only get the changes rather than having to do a full
+ * refresh of the board.</p>
+ * <p>The issues which were changed by events while the new instance was being loaded are left alone, since the loaded
+ * board has a more recent state of them. For the issues which differ the current state is read from Jira. Issues
+ * whose position in the rank differs are reranked, and the {@link NextRankedIssueUtil} returned by
+ * {@link #getNextRankedIssueUtil()} uses the rank from the new instance for that.</p>
+ * <p>Issues whose linked issues differ get a {@link OverbaardIssueEvent.Type#LINKS} event. Differences in the board
+ * config, the blacklist, the epics, the parallel task options or the parents of the issues cannot be expressed as
+ * events, so they need a full refresh. This is also the case if there are more than
+ * {@code overbaard.rebuild.max.changes} changes.</p>
+ *
+ * @author Kabir Khan
+ */
+public class BoardDiff {
+
+    private static final int MAX_CHANGES = Integer.getInteger("overbaard.rebuild.max.changes", 500);
+
+    private static final SearchResultsAdapter SEARCH_RESULTS_ADAPTER = JiraApiAdapter.Factory.get().getSearchResultsAdapter();
+
+    private static final BoardDiff FULL_REFRESH = new BoardDiff(null, null);
+
+    private final List<OverbaardIssueEvent> events;
+    private final NextRankedIssueUtil nextRankedIssueUtil;
+
+    private BoardDiff(List<OverbaardIssueEvent> events, NextRankedIssueUtil nextRankedIssueUtil) {
+        this.events = events;
+        this.nextRankedIssueUtil = nextRankedIssueUtil;
+    }
+
+    /**
+     * Works out the differences between a loaded board and a new instance of it.
+     *
+     * @param jiraInjectables the jira injectables
+     * @param current the loaded board
+     * @param rebuilt the new instance of the board
+     * @param boardOwner the board owner, used to search for the issues
+     * @param changedIssueKeys the keys of the issues changed by events since the new instance started loading
+     * @return the differences
+     * @throws SearchException if a search failed
+     */
+    public static BoardDiff create(JiraInjectables jiraInjectables, Board current, Board rebuilt,
+                                   ApplicationUser boardOwner, Set<String> changedIssueKeys) throws SearchException {
+        final BoardConfig boardConfig = current.getConfig();
+        if (!boardConfig.serializeModelNodeForConfig().equals(rebuilt.getConfig().serializeModelNodeForConfig())) {
+            OverbaardLogger.LOGGER.debug("BoardDiff - The config of board {} has changed", boardConfig.getCode());
+            return FULL_REFRESH;
+        }
+        if (!current.hasSameBlacklist(rebuilt)) {
+            OverbaardLogger.LOGGER.debug("BoardDiff - The blacklist of board {} has changed", boardConfig.getCode());
+            return FULL_REFRESH;
+        }
+
+        final List<OverbaardIssueEvent> events = new ArrayList<>();
+        final Map<String, List<String>> rankedIssueKeys = new HashMap<>();
+        for (BoardProjectConfig projectConfig : boardConfig.getBoardProjects()) {
+            final BoardProject currentProject = current.getBoardProject(projectConfig.getCode());
+            final BoardProject rebuiltProject = rebuilt.getBoardProject(projectConfig.getCode());
+            if (!currentProject.hasSameEpicsAndOptions(rebuiltProject)) {
+                OverbaardLogger.LOGGER.debug("BoardDiff - The epics or options of {} in board {} have changed",
+                        projectConfig.getCode(), boardConfig.getCode());
+                return FULL_REFRESH;
+            }
+            final ProjectDiff projectDiff = new ProjectDiff(current, rebuilt, projectConfig, changedIssueKeys);
+            if (!projectDiff.diff(jiraInjectables, boardOwner, events)) {
+                return FULL_REFRESH;
+            }
+            rankedIssueKeys.put(projectConfig.getCode(), projectDiff.getRankedIssueKeys());
+            if (events.size() > MAX_CHANGES) {
+                OverbaardLogger.LOGGER.debug("BoardDiff - More than {} changes in board {}", MAX_CHANGES, boardConfig.getCode());
+                return FULL_REFRESH;
+            }
+        }
+        OverbaardLogger.LOGGER.debug("BoardDiff - {} changes for board {}", events.size(), boardConfig.getCode());
+        return new BoardDiff(events, new RebuiltRankUtil(rankedIssueKeys));
+    }
+
+    /**
+     * Whether the differences cannot be expressed as events, so the new instance of the board should replace the
+     * loaded one.
+     *
+     * @return {@code true} if a full refresh is needed
+     */
+    public boolean isFullRefreshNeeded() {
+        return events == null;
+    }
+
+    /**
+     * Gets the events which bring the loaded board up to date. They must be applied in order.
+     *
+     * @return the events
+     */
+    public List<OverbaardIssueEvent> getEvents() {
+        return events == null ? Collections.emptyList() : events;
+    }
+
+    /**
+     * Gets the util to use when applying the events, which ranks the issues as in the new instance of the board.
+     *
+     * @return the next ranked issue util
+     */
+    public NextRankedIssueUtil getNextRankedIssueUtil() {
+        return nextRankedIssueUtil;
+    }
+
+    private static class ProjectDiff {
+        private final Board current;
+        private final Board rebuilt;
+        private final BoardProjectConfig projectConfig;
+        private final Set<String> changedIssueKeys;
+        //The rank of the rebuilt board, of the issues which will be on the loaded board once the events are applied
+        private final List<String> rankedIssueKeys = new ArrayList<>();
+
+        ProjectDiff(Board current, Board rebuilt, BoardProjectConfig projectConfig, Set<String> changedIssueKeys) {
+            this.current = current;
+            this.rebuilt = rebuilt;
+            this.projectConfig = projectConfig;
+            this.changedIssueKeys = changedIssueKeys;
+        }
+
+        boolean diff(JiraInjectables jiraInjectables, ApplicationUser boardOwner, List<OverbaardIssueEvent> events) throws SearchException {
+            final String projectCode = projectConfig.getCode();
+            final List<String> currentRank = current.getBoardProject(projectCode).getRankedIssueKeys();
+            final List<String> rebuiltRank = rebuilt.getBoardProject(projectCode).getRankedIssueKeys();
+
+            //Issues which are no longer on the board
+            for (String issueKey : currentRank) {
+                if (rebuilt.getIssue(issueKey) == null && !changedIssueKeys.contains(issueKey)) {
+                    events.add(OverbaardIssueEvent.createDeleteEvent(issueKey, projectCode));
+                }
+            }
+
+            //Issues which are new or have changed, and the position in the current rank of the ones on both boards
+            final Set<String> created = new HashSet<>();
+            final Set<String> updated = new HashSet<>();
+            final List<String> linked = new ArrayList<>();
+            final List<String> common = new ArrayList<>();
+            final Map<String, Integer> currentIndices = new HashMap<>();
+            for (int i = 0; i < currentRank.size(); i++) {
+                currentIndices.put(currentRank.get(i), i);
+            }
+            for (String issueKey : rebuiltRank) {
+                if (changedIssueKeys.contains(issueKey)) {
+                    if (current.getIssue(issueKey) != null) {
+                        rankedIssueKeys.add(issueKey);
+                    }
+                    continue;
+                }
+                final Issue currentIssue = current.getIssue(issueKey);
+                if (currentIssue == null) {
+                    created.add(issueKey);
+                } else {
+                    final Issue rebuiltIssue = rebuilt.getIssue(issueKey);
+                    if (currentIssue.parentOrEpicDiffer(rebuiltIssue)) {
+                        OverbaardLogger.LOGGER.debug("BoardDiff - The parent or epic of {} have changed", issueKey);
+                        return false;
+                    }
+                    if (currentIssue.linkedIssuesDiffer(rebuiltIssue)) {
+                        linked.add(issueKey);
+                    }
+                    if (currentIssue.fieldsDiffer(rebuiltIssue)) {
+                        updated.add(issueKey);
+                    }
+                    common.add(issueKey);
+                }
+                rankedIssueKeys.add(issueKey);
+            }
+            final Set<String> reranked = getRerankedIssueKeys(common, currentIndices);
+            if (created.size() + updated.size() + reranked.size() + linked.size() > MAX_CHANGES) {
+                return false;
+            }
+
+            final Set<String> load = new HashSet<>(created);
+            load.addAll(updated);
+            final Map<String, com.atlassian.jira.issue.Issue> jiraIssues = loadIssues(jiraInjectables, boardOwner, load);
+
+            //Go backwards through the rank so that the issue following a created or reranked one is already in place
+            //when it is inserted
+            final BoardConfig boardConfig = current.getConfig();
+            final BoardProject project = current.getBoardProject(projectCode);
+            for (int i = rankedIssueKeys.size() - 1; i >= 0; i--) {
+                final String issueKey = rankedIssueKeys.get(i);
+                final com.atlassian.jira.issue.Issue jiraIssue = jiraIssues.get(issueKey);
+                if (created.contains(issueKey)) {
+                    if (jiraIssue != null) {
+                        events.add(BoardReconciler.createCreateEvent(boardConfig, projectConfig, jiraIssue));
+                    } else {
+                        //It was deleted in the meantime
+                        rankedIssueKeys.remove(i);
+                    }
+                } else if (updated.contains(issueKey) || reranked.contains(issueKey)) {
+                    final Issue currentIssue = current.getIssue(issueKey);
+                    final OverbaardIssueEvent event;
+                    if (jiraIssue != null) {
+                        event = currentIssue.createReconcileEvent(boardConfig, project, jiraIssue, reranked.contains(issueKey));
+                    } else {
+                        event = reranked.contains(issueKey) ? createRerankEvent(currentIssue) : null;
+                    }
+                    if (event != null) {
+                        events.add(event);
+                    }
+                }
+            }
+            //The linked issues are reloaded from Jira, so these do not depend on the rank
+            for (String issueKey : linked) {
+                events.add(OverbaardIssueEvent.createLinksEvent(issueKey, projectCode));
+            }
+            return true;
+        }
+
+        List<String> getRankedIssueKeys() {
+            return rankedIssueKeys;
+        }
+
+        private Map<String, com.atlassian.jira.issue.Issue> loadIssues(JiraInjectables jiraInjectables,
+                                                                      ApplicationUser boardOwner, Set<String> issueKeys) throws SearchException {
+            if (issueKeys.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            final JqlQueryBuilder queryBuilder = JqlQueryBuilder.newBuilder();
+            queryBuilder.where().issue(issueKeys.toArray(new String[issueKeys.size()]));
+            final SearchResults searchResults = jiraInjectables.getSearchService().search(
+                    boardOwner, queryBuilder.buildQuery(), PagerFilter.getUnlimitedFilter());
+            final Map<String, com.atlassian.jira.issue.Issue> issues = new HashMap<>();
+            for (com.atlassian.jira.issue.Issue jiraIssue : SEARCH_RESULTS_ADAPTER.getIssueResults(searchResults)) {
+                issues.put(jiraIssue.getKey(), jiraIssue);
+            }
+            return issues;
+        }
+
+        private static OverbaardIssueEvent createRerankEvent(Issue issue) {
+            return OverbaardIssueEvent.createUpdateEvent(issue.getKey(), issue.getProjectCode(), null, null, null,
+                    null, null, null, null, issue.getState(), null, true, null);
+        }
+
+        /**
+         * Finds the smallest set of issues to move to get the current rank into the same order as the rebuilt one.
+         * The issues which don't need moving are the longest increasing subsequence of the current indices, taken in
+         * the order of the rebuilt rank.
+         *
+         * @param common the keys of the issues on both boards, in the order of the rebuilt rank
+         * @param currentIndices the index of each issue in the current rank
+         * @return the keys of the issues which need to be reranked
+         */
+        private static Set<String> getRerankedIssueKeys(List<String> common, Map<String, Integer> currentIndices) {
+            final int size = common.size();
+            //tails[l] is the position in common of the smallest tail of an increasing subsequence of length l + 1
+            final int[] tails = new int[size];
+            final int[] previous = new int[size];
+            int length = 0;
+            for (int i = 0; i < size; i++) {
+                final int index = currentIndices.get(common.get(i));
+                int low = 0;
+                int high = length;
+                while (low < high) {
+                    final int mid = (low + high) >>> 1;
+                    if (currentIndices.get(common.get(tails[mid])) < index) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                previous[i] = low > 0 ? tails[low - 1] : -1;
+                tails[low] = i;
+                if (low == length) {
+                    length++;
+                }
+            }
+            final boolean[] inOrder = new boolean[size];
+            for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+                inOrder[i] = true;
+            }
+            final Set<String> reranked = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                if (!inOrder[i]) {
+                    reranked.add(common.get(i));
+                }
+            }
+            return reranked;
+        }
+    }
+
+    /**
+     * Ranks the issues as in the rebuilt board, rather than looking up the rank in Jira
+     */
+    private static class RebuiltRankUtil implements NextRankedIssueUtil {
+        private final Map<String, List<String>> rankedIssueKeys;
+        //The index of each issue in the rank of its project, since an event is applied for each changed issue
+        private final Map<String, Integer> rankIndices = new HashMap<>();
+
+        RebuiltRankUtil(Map<String, List<String>> rankedIssueKeys) {
+            this.rankedIssueKeys = rankedIssueKeys;
+            for (List<String> ranked : rankedIssueKeys.values()) {
+                for (int i = 0; i < ranked.size(); i++) {
+                    rankIndices.put(ranked.get(i), i);
+                }
+            }
+        }
+
+        @Override
+        public String findNextRankedIssue(BoardProjectConfig projectConfig, ApplicationUser boardOwner, String issueKey) {
+            final List<String> ranked = rankedIssueKeys.get(projectConfig.getCode());
+            final Integer index = ranked == null ? null : rankIndices.get(issueKey);
+            if (index == null || index == ranked.size() - 1) {
+                return null;
+            }
+            return ranked.get(index + 1);
+        }
+    }
+}
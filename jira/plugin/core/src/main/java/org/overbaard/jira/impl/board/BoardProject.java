@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import org.jboss.dmr.ModelNode;
@@ -45,6 +46,7 @@ import org.overbaard.jira.impl.config.ParallelTaskCustomFieldConfig;
 import org.overbaard.jira.impl.config.ParallelTaskGroupPosition;
 import org.overbaard.jira.impl.config.ProjectParallelTaskConfig;
 import org.overbaard.jira.impl.util.IndexedMap;
+import org.overbaard.jira.impl.util.PersistentRankedList;
 
 import com.atlassian.jira.bc.issue.search.SearchService;
 import com.atlassian.jira.bc.project.component.ProjectComponent;
@@ -76,10 +78,10 @@ public class BoardProject {
     private volatile Board board;
     private final BoardProjectConfig projectConfig;
     private final IndexedMap<String, Epic> epics;
-    private final List<String> rankedIssueKeys;
+    private final PersistentRankedList<String> rankedIssueKeys;
     private final ParallelTaskOptions parallelTaskOptions;
 
-    private BoardProject(BoardProjectConfig projectConfig, IndexedMap<String, Epic> epics, List<String> rankedIssueKeys, ParallelTaskOptions parallelTaskOptions) {
+    private BoardProject(BoardProjectConfig projectConfig, IndexedMap<String, Epic> epics, PersistentRankedList<String> rankedIssueKeys, ParallelTaskOptions parallelTaskOptions) {
         this.projectConfig = projectConfig;
         this.epics = epics != null ? epics : new IndexedMap<>(Collections.emptyMap());
         this.rankedIssueKeys = rankedIssueKeys;
@@ -114,6 +116,16 @@ public class BoardProject {
         return rankedIssueKeys;
     }
 
+    /**
+     * Gets the index of an issue in the ranked issue list
+     *
+     * @param issueKey the issue key
+     * @return the index, or {@code -1} if the issue is not ranked on the board
+     */
+    public int getRankIndex(String issueKey) {
+        return rankedIssueKeys.indexOf(issueKey);
+    }
+
     void serialize(JiraInjectables jiraInjectables, Board board, ModelNode parent, ApplicationUser user, boolean backlog) {
         //Whether the user can rank issues or not
         parent.get(Constants.RANK).set(hasRankPermission(user, jiraInjectables.getProjectManager(), jiraInjectables.getPermissionManager()));
@@ -125,6 +137,10 @@ public class BoardProject {
         }
         parent.get(Constants.RANKED).set(ranked);
 
+        serializeParallelTasks(parent);
+    }
+
+    private void serializeParallelTasks(ModelNode parent) {
         if (parallelTaskOptions.getInternalAdvanced().getOptionsForProject().size() > 0) {
             ModelNode parallelTasks = parent.get(Constants.PARALLEL_TASKS).setEmptyList();
             for (ProjectParallelTaskConfig group : this.projectConfig.getInternalAdvanced().getParallelTaskGroupsConfig().getGroups()) {
@@ -145,6 +161,25 @@ public class BoardProject {
         }
     }
 
+    /**
+     * Checks whether the epics and the parallel task options of this project are the same as in the same project in
+     * another instance of the board. These are not updated by events, so a difference needs a full refresh of the
+     * board.
+     *
+     * @param other the project in the other board
+     * @return {@code true} if they are the same
+     */
+    boolean hasSameEpicsAndOptions(BoardProject other) {
+        if (!Objects.equals(serializeEpics(), other.serializeEpics())) {
+            return false;
+        }
+        final ModelNode parallelTasks = new ModelNode();
+        serializeParallelTasks(parallelTasks);
+        final ModelNode otherParallelTasks = new ModelNode();
+        other.serializeParallelTasks(otherParallelTasks);
+        return parallelTasks.equals(otherParallelTasks);
+    }
+
     ModelNode serializeEpics() {
         if (epics.size() > 0) {
             ModelNode epicsNode = new ModelNode();
@@ -167,7 +202,8 @@ public class BoardProject {
         CustomFieldOptions customFieldOptions =
                 projectCustomFieldOptionsLoader.loadCustomFieldOptions(jiraInjectables, builder.getConfig(), projectConfig);
 
-        return new Builder(jiraInjectables, builder, projectConfig, boardOwner, parallelTaskOptions, customFieldOptions);
+        return new Builder(jiraInjectables, builder, projectConfig, boardOwner, parallelTaskOptions, customFieldOptions,
+                builder.getLoadProgress());
     }
 
     static LinkedProjectContext linkedProjectContext(Board.Accessor board, LinkedProjectConfig linkedProjectConfig) {
@@ -380,6 +416,18 @@ public class BoardProject {
             return board.getFixVersions(fixVersions);
         }
 
+        Set<MultiSelectNameOnlyValue.Component> getComponentsForNames(Collection<String> componentNames) {
+            return board.getComponentsForNames(componentNames);
+        }
+
+        Set<MultiSelectNameOnlyValue.Label> getLabelsForNames(Collection<String> labelNames) {
+            return board.getLabelsForNames(labelNames);
+        }
+
+        Set<MultiSelectNameOnlyValue.FixVersion> getFixVersionsForNames(Collection<String> fixVersionNames) {
+            return board.getFixVersionsForNames(fixVersionNames);
+        }
+
         public Board.Accessor getBoard() {
             return board;
         }
@@ -417,14 +465,21 @@ public class BoardProject {
         private final Map<String, List<String>> issueKeysByState = new HashMap<>();
         private final ParallelTaskOptions parallelTaskOptions;
         private final CustomFieldOptions customFieldOptions;
+        private final LoadProgress loadProgress;
         private IndexedMap<String, Epic> orderedEpics;
 
 
         private Builder(JiraInjectables jiraInjectables, Board.Accessor board, BoardProjectConfig projectConfig,
-                        ApplicationUser boardOwner, ParallelTaskOptions parallelTaskOptions, CustomFieldOptions customFieldOptions) {
+                        ApplicationUser boardOwner, ParallelTaskOptions parallelTaskOptions, CustomFieldOptions customFieldOptions,
+                        LoadProgress loadProgress) {
             super(jiraInjectables, board, projectConfig, boardOwner);
             this.parallelTaskOptions = parallelTaskOptions;
             this.customFieldOptions = customFieldOptions;
+            this.loadProgress = loadProgress;
+        }
+
+        LoadProgress getLoadProgress() {
+            return loadProgress;
         }
 
         Builder addIssue(String state, Issue issue) {
@@ -477,21 +532,14 @@ public class BoardProject {
             final SearchService searchService = jiraInjectables.getSearchService();
             final Query query = initialiseQuery(projectConfig, boardOwner, searchService, null);
 
-            SearchResults searchResults =
-                        searchService.search(boardOwner, query, PagerFilter.getUnlimitedFilter());
-
-
             /*System.out.println("Hardcoding lazy load - REMOVE THIS");
             IssueLoadStrategy issueLoadStrategy = new Issue.LazyLoadStrategy(this);*/
             final IssueLoadStrategy issueLoadStrategy = IssueLoadStrategy.Factory.create(this);
 
-            List<Issue.Builder> issueBuilders = new ArrayList<>();
-            for (com.atlassian.jira.issue.Issue jiraIssue : SEARCH_RESULTS_ADAPTER.getIssueResults(searchResults)) {
-                Issue.Builder issueBuilder = Issue.builder(this, issueLoadStrategy);
-                issueBuilder.load(jiraIssue);
-                issueBuilders.add(issueBuilder);
-                if (!board.getBlacklist().isBlackListed(jiraIssue.getKey())) {
-                    rankedIssueKeys.add(jiraIssue.getKey());
+            final List<Issue.Builder> issueBuilders = issueLoadStrategy.loadIssues(this, query);
+            for (Issue.Builder issueBuilder : issueBuilders) {
+                if (!board.getBlacklist().isBlackListed(issueBuilder.getIssueKey())) {
+                    rankedIssueKeys.add(issueBuilder.getIssueKey());
                 }
             }
             issueBuilders.forEach(issueBuilder -> {
@@ -499,20 +547,21 @@ public class BoardProject {
                 if (issue != null) {
                     addIssue(issue.getState(), issue);
                 }});
-        }
 
-        BoardProject build() {
-            //Add all the pre-determined custom field options to the list in the board
+            //Add all the pre-determined custom field options to the list in the board. This is done here rather than
+            //in build() so that everything gets added to the board builder while the project is being loaded
             for (SortedFieldOptions.CustomFields fieldOptions : customFieldOptions.getCustomFieldsOptions().values()) {
                 for (CustomFieldValue value : fieldOptions.sortedFields.values()) {
                     board.addBulkLoadedCustomFieldValue(fieldOptions.getConfig(), value);
 
                 }
             }
+        }
 
+        BoardProject build() {
             return new BoardProject(
                     projectConfig,
-                    orderedEpics, Collections.unmodifiableList(rankedIssueKeys),
+                    orderedEpics, PersistentRankedList.copyOf(rankedIssueKeys),
                     parallelTaskOptions);
         }
 
@@ -528,7 +577,7 @@ public class BoardProject {
         private final BoardProject project;
         private final NextRankedIssueUtil nextRankedIssueUtil;
         private Issue newIssue;
-        private List<String> rankedIssueKeys;
+        private PersistentRankedList<String> rankedIssueKeys;
         private IndexedMap<String, Epic> orderedEpics;
 
 
@@ -624,8 +673,7 @@ public class BoardProject {
         }
 
         void deleteIssue(Issue issue) {
-            rankedIssueKeys = new ArrayList<>(project.rankedIssueKeys);
-            rankedIssueKeys.remove(issue.getKey());
+            rankedIssueKeys = project.rankedIssueKeys.minus(issue.getKey());
         }
 
         public ParallelTaskOptions getParallelTaskOptions() {
@@ -633,35 +681,22 @@ public class BoardProject {
         }
 
 
-        List<String> rankIssues(String issueKey) throws SearchException {
+        PersistentRankedList<String> rankIssues(String issueKey) throws SearchException {
             String nextIssueKey = nextRankedIssueUtil.findNextRankedIssue(this.projectConfig, boardOwner, issueKey);
             //If the next issue is blacklisted, keep searching until we find the next valid one
             while (nextIssueKey != null && board.getBlacklist().isBlackListed(nextIssueKey)) {
                 nextIssueKey = nextRankedIssueUtil.findNextRankedIssue(this.projectConfig, boardOwner, nextIssueKey);
             }
-            final List<String> newRankedKeys = new ArrayList<>();
             if (nextIssueKey == null) {
                 //Add it at the end
-                project.rankedIssueKeys.forEach(key -> {
-                    if (!key.equals(issueKey)) {
-                        //Don't copy the one we are moving to the end
-                        newRankedKeys.add(key);
-                    }
-                });
-                newRankedKeys.add(issueKey);
-            } else {
-                final String nextKey = nextIssueKey;
-                //Remove it from the middle and add it at the end
-                project.rankedIssueKeys.forEach(key -> {
-                    if (key.equals(nextKey)) {
-                        newRankedKeys.add(issueKey);
-                    }
-                    if (!key.equals(issueKey)) {
-                        newRankedKeys.add(key);
-                    }
-                });
+                return project.rankedIssueKeys.append(issueKey);
+            }
+            if (!project.rankedIssueKeys.contains(nextIssueKey)) {
+                //The next issue is not on the board, so there is nowhere to put this one
+                return project.rankedIssueKeys.minus(issueKey);
             }
-            return new ArrayList<>(newRankedKeys);
+            //Move it in front of the next issue
+            return project.rankedIssueKeys.insertBefore(issueKey, nextIssueKey);
         }
 
         Issue loadSingleIssue(String issueKey) throws SearchException {
@@ -690,9 +725,8 @@ public class BoardProject {
         BoardProject build() throws SearchException {
 
             //Update the ranked issue list if a rerank was done
-            List<String> rankedIssueKeys =
-                    this.rankedIssueKeys != null ?
-                            Collections.unmodifiableList(this.rankedIssueKeys) : project.rankedIssueKeys;
+            PersistentRankedList<String> rankedIssueKeys =
+                    this.rankedIssueKeys != null ? this.rankedIssueKeys : project.rankedIssueKeys;
             IndexedMap<String, Epic> epics = orderedEpics != null ? orderedEpics : project.epics;
             return new BoardProject(projectConfig, project.epics, rankedIssueKeys, project.parallelTaskOptions);
         }
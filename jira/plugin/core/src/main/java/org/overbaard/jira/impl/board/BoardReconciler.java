@@ -0,0 +1,270 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.board;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.overbaard.jira.OverbaardLogger;
+import org.overbaard.jira.api.adapter.spi.JiraApiAdapter;
+import org.overbaard.jira.api.adapter.spi.SearchResultsAdapter;
+import org.overbaard.jira.impl.JiraInjectables;
+import org.overbaard.jira.impl.OverbaardIssueEvent;
+import org.overbaard.jira.impl.config.BoardConfig;
+import org.overbaard.jira.impl.config.BoardProjectConfig;
+import org.overbaard.jira.impl.config.CustomFieldConfig;
+import org.overbaard.jira.impl.config.LinkedProjectConfig;
+import org.overbaard.jira.impl.config.ParallelTaskCustomFieldConfig;
+import org.overbaard.jira.impl.config.ProjectParallelTaskGroupsConfig;
+
+import com.atlassian.jira.bc.issue.search.SearchService;
+import com.atlassian.jira.issue.search.SearchException;
+import com.atlassian.jira.issue.search.SearchResults;
+import com.atlassian.jira.jql.builder.JqlQueryBuilder;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.web.bean.PagerFilter;
+import com.atlassian.query.Query;
+
+/**
+ * <p>Brings a loaded board up to date with Jira by searching for the issues which were updated since the board was
+ * last reconciled, and creating the {@link OverbaardIssueEvent}s needed to get the board to the current state of
+ * those issues. The events go through the same path as the events received from Jira, so the clients only get the
+ * changes rather than having to do a full refresh of the board.</p>
+ * <p>If the links of an issue, or an issue in a linked project, were changed a {@link OverbaardIssueEvent.Type#LINKS}
+ * event reloads the linked issues of the board issues involved. If there are more than
+ * {@code overbaard.reconcile.max.changes} changes the board needs a full refresh instead.</p>
+ *
+ * @author Kabir Khan
+ */
+public class BoardReconciler {
+
+    private static final int MAX_CHANGES = Integer.getInteger("overbaard.reconcile.max.changes", 500);
+
+    //The 'updated' JQL clause only has minute precision, so look back a bit further than the last reconcile.
+    //Issues which were already reconciled don't produce any events
+    private static final long MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private static final SearchResultsAdapter SEARCH_RESULTS_ADAPTER = JiraApiAdapter.Factory.get().getSearchResultsAdapter();
+
+    private final JiraInjectables jiraInjectables;
+    private final Board board;
+    private final BoardConfig boardConfig;
+    private final ApplicationUser boardOwner;
+    private final Date since;
+    private final List<OverbaardIssueEvent> events = new ArrayList<>();
+    //The issues which already have a links event, since it reloads all the linked issues
+    private final Set<String> linksEventIssueKeys = new HashSet<>();
+
+    private BoardReconciler(JiraInjectables jiraInjectables, Board board, ApplicationUser boardOwner, long sinceMillis) {
+        this.jiraInjectables = jiraInjectables;
+        this.board = board;
+        this.boardConfig = board.getConfig();
+        this.boardOwner = boardOwner;
+        this.since = new Date(sinceMillis - MARGIN_MILLIS);
+    }
+
+    /**
+     * Works out the changes needed to bring a board up to date with Jira.
+     *
+     * @param jiraInjectables the jira injectables
+     * @param board the board
+     * @param boardOwner the board owner, used to search for the issues
+     * @param sinceMillis the time the board was last up to date with Jira
+     * @return the result
+     * @throws SearchException if a search failed
+     */
+    public static Result reconcile(JiraInjectables jiraInjectables, Board board, ApplicationUser boardOwner,
+                                   long sinceMillis) throws SearchException {
+        return new BoardReconciler(jiraInjectables, board, boardOwner, sinceMillis).reconcile();
+    }
+
+    private Result reconcile() throws SearchException {
+        for (BoardProjectConfig projectConfig : boardConfig.getBoardProjects()) {
+            if (!reconcileBoardProject(projectConfig)) {
+                return Result.FULL_REFRESH;
+            }
+        }
+        for (LinkedProjectConfig linkedProjectConfig : boardConfig.getLinkedProjects()) {
+            if (!reconcileLinkedProject(linkedProjectConfig)) {
+                return Result.FULL_REFRESH;
+            }
+        }
+        if (events.size() > MAX_CHANGES) {
+            return Result.FULL_REFRESH;
+        }
+        OverbaardLogger.LOGGER.debug("BoardReconciler - {} changes for board {}", events.size(), boardConfig.getCode());
+        return new Result(events);
+    }
+
+    private boolean reconcileBoardProject(BoardProjectConfig projectConfig) throws SearchException {
+        final List<com.atlassian.jira.issue.Issue> updatedIssues = searchUpdatedIssues(projectConfig.getCode());
+        if (updatedIssues == null) {
+            return false;
+        }
+        if (updatedIssues.isEmpty()) {
+            return true;
+        }
+
+        //The updated issues which should be on the board, i.e. which match the board's query
+        final Query query = BoardProject.initialiseQuery(projectConfig, boardOwner, jiraInjectables.getSearchService(),
+                queryBuilder -> queryBuilder.where().and().updatedAfter(since));
+        final Set<String> boardIssueKeys = new HashSet<>();
+        for (com.atlassian.jira.issue.Issue jiraIssue : search(query, updatedIssues.size())) {
+            boardIssueKeys.add(jiraIssue.getKey());
+        }
+
+        final BoardProject project = board.getBoardProject(projectConfig.getCode());
+        for (com.atlassian.jira.issue.Issue jiraIssue : updatedIssues) {
+            final String issueKey = jiraIssue.getKey();
+            final Issue existing = board.getIssue(issueKey);
+            if (boardIssueKeys.contains(issueKey)) {
+                if (existing != null) {
+                    final OverbaardIssueEvent event = existing.createReconcileEvent(boardConfig, project, jiraIssue, false);
+                    if (event != null) {
+                        events.add(event);
+                    }
+                    if (existing.linkedIssuesDiffer(jiraInjectables, boardConfig, jiraIssue)) {
+                        OverbaardLogger.LOGGER.debug("BoardReconciler - The links of {} have changed", issueKey);
+                        addLinksEvent(issueKey, projectConfig.getCode());
+                    }
+                } else if (!board.isBlacklisted(issueKey)) {
+                    events.add(createCreateEvent(boardConfig, projectConfig, jiraIssue));
+                }
+            } else if (existing != null) {
+                //The issue was moved to a done state, or no longer matches the query filter
+                events.add(OverbaardIssueEvent.createDeleteEvent(issueKey, projectConfig.getCode()));
+            }
+        }
+        return true;
+    }
+
+    private boolean reconcileLinkedProject(LinkedProjectConfig linkedProjectConfig) throws SearchException {
+        final List<com.atlassian.jira.issue.Issue> updatedIssues = searchUpdatedIssues(linkedProjectConfig.getCode());
+        if (updatedIssues == null) {
+            return false;
+        }
+        for (com.atlassian.jira.issue.Issue jiraLinkedIssue : updatedIssues) {
+            for (String issueKey : board.getLinkingIssueKeys(jiraLinkedIssue.getKey())) {
+                final Issue issue = board.getIssue(issueKey);
+                if (issue != null && issue.isLinkedIssueOutdated(jiraLinkedIssue)) {
+                    OverbaardLogger.LOGGER.debug("BoardReconciler - The linked issue {} of {} has changed",
+                            jiraLinkedIssue.getKey(), issueKey);
+                    addLinksEvent(issueKey, issue.getProjectCode());
+                }
+            }
+        }
+        return true;
+    }
+
+    private void addLinksEvent(String issueKey, String projectCode) {
+        if (linksEventIssueKeys.add(issueKey)) {
+            events.add(OverbaardIssueEvent.createLinksEvent(issueKey, projectCode));
+        }
+    }
+
+    /**
+     * Creates the same event as {@code OverbaardIssueEventListener} does when an issue is created.
+     *
+     * @param boardConfig the board config
+     * @param projectConfig the config of the project containing the issue
+     * @param jiraIssue the issue
+     * @return the create event
+     */
+    static OverbaardIssueEvent createCreateEvent(BoardConfig boardConfig, BoardProjectConfig projectConfig,
+                                                 com.atlassian.jira.issue.Issue jiraIssue) {
+        final String issueType = jiraIssue.getIssueTypeObject().getName();
+        final Map<Long, String> customFieldValues = new HashMap<>();
+        for (CustomFieldConfig cfg : boardConfig.getCustomFieldConfigs()) {
+            final Object value = jiraIssue.getCustomFieldValue(cfg.getJiraCustomField());
+            customFieldValues.put(cfg.getId(), value == null ? null : CustomFieldUtil.getUtil(cfg).getCreateEventValue(value));
+        }
+        final ProjectParallelTaskGroupsConfig parallelTaskGroupsConfig = projectConfig.getParallelTaskGroupsConfig(issueType);
+        if (parallelTaskGroupsConfig != null) {
+            for (ParallelTaskCustomFieldConfig cfg : parallelTaskGroupsConfig.getFieldConfigs()) {
+                final String value = CustomFieldValue.getParallelTaskCustomFieldValue(jiraIssue, cfg.getJiraCustomField(), cfg.getId().toString());
+                if (value != null) {
+                    customFieldValues.put(cfg.getId(), value);
+                }
+            }
+        }
+        return OverbaardIssueEvent.createCreateEvent(jiraIssue.getKey(), projectConfig.getCode(),
+                issueType, jiraIssue.getPriorityObject().getName(), jiraIssue.getSummary(),
+                jiraIssue.getAssignee(), jiraIssue.getComponentObjects(), jiraIssue.getLabels(), jiraIssue.getFixVersions(),
+                jiraIssue.getStatusObject().getName(), customFieldValues.size() > 0 ? customFieldValues : null);
+    }
+
+    /**
+     * Searches for the issues in a project which were updated since the last reconcile.
+     *
+     * @param projectCode the project code
+     * @return the issues, or {@code null} if there are too many of them
+     */
+    private List<com.atlassian.jira.issue.Issue> searchUpdatedIssues(String projectCode) throws SearchException {
+        final JqlQueryBuilder queryBuilder = JqlQueryBuilder.newBuilder();
+        queryBuilder.where().project(projectCode).and().updatedAfter(since);
+        final List<com.atlassian.jira.issue.Issue> issues = search(queryBuilder.buildQuery(), MAX_CHANGES + 1);
+        if (issues.size() > MAX_CHANGES) {
+            OverbaardLogger.LOGGER.debug("BoardReconciler - More than {} issues updated in {}", MAX_CHANGES, projectCode);
+            return null;
+        }
+        return issues;
+    }
+
+    private List<com.atlassian.jira.issue.Issue> search(Query query, int max) throws SearchException {
+        final SearchService searchService = jiraInjectables.getSearchService();
+        final SearchResults searchResults = searchService.search(boardOwner, query, new PagerFilter(0, max));
+        return SEARCH_RESULTS_ADAPTER.getIssueResults(searchResults);
+    }
+
+    /**
+     * The result of reconciling a board
+     */
+    public static class Result {
+        private static final Result FULL_REFRESH = new Result(null);
+
+        private final List<OverbaardIssueEvent> events;
+
+        private Result(List<OverbaardIssueEvent> events) {
+            this.events = events;
+        }
+
+        /**
+         * Whether the changes could not be worked out, so the board needs to be fully loaded again.
+         *
+         * @return {@code true} if a full refresh is needed
+         */
+        public boolean isFullRefreshNeeded() {
+            return events == null;
+        }
+
+        /**
+         * Gets the events to bring the board up to date.
+         *
+         * @return the events
+         */
+        public List<OverbaardIssueEvent> getEvents() {
+            return events == null ? Collections.emptyList() : events;
+        }
+    }
+}
@@ -16,20 +16,31 @@
 
 package org.overbaard.jira.impl.board;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.ofbiz.core.entity.jdbc.SQLProcessor;
 import org.overbaard.jira.OverbaardLogger;
 import org.overbaard.jira.api.ParallelTaskOptions;
 import org.overbaard.jira.impl.config.CustomFieldConfig;
+import org.overbaard.jira.impl.config.LinkedProjectConfig;
 import org.overbaard.jira.impl.config.ParallelTaskCustomFieldConfig;
 import org.overbaard.jira.impl.config.ParallelTaskGroupPosition;
 import org.overbaard.jira.impl.config.ProjectParallelTaskGroupsConfig;
 import org.overbaard.jira.impl.util.IndexedMap;
+import org.overbaard.jira.impl.util.IssueKey;
+import org.overbaard.jira.impl.util.LongObjectHashMap;
 
 /**
  * <p>Bulk loads up things like custom fields using a direct sql query.</p>
@@ -46,20 +57,28 @@ import org.overbaard.jira.impl.util.IndexedMap;
 class BulkIssueLoadStrategy implements IssueLoadStrategy {
 
     //The size of the batch of issues to do a bulk load for
-    private static final int BATCH_SIZE = 100;
+    static final int BATCH_SIZE = Integer.getInteger("overbaard.bulk.load.batch.size", 500);
 
-    private static final String dataSourceName = "defaultDS";
-    private final BoardProject.Builder project;
+    static final String dataSourceName = "defaultDS";
+    protected final BoardProject.Builder project;
     private final boolean customFieldsOrParallelTasks;
     private final Map<Long, BulkLoadContext<?>> customFieldContexts = new HashMap<>();
     private final Map<Long, ParallelTaskCustomFieldConfig> parallelTaskFields;
     private final List<Long> ids = new ArrayList<>();
-    private final Map<Long, String> issues = new HashMap<>();
-    private final Map<Long, Issue.Builder> builders = new HashMap<>();
-    private final Map<String, Issue.Builder> buildersByKey = new HashMap<>();
-    private final Map<String, String> childToParentIssueKeys = new HashMap<>();
-    private final Map<String, String> issuesToEpics = new HashMap<>();
+    //Keyed by issue id
+    private final LongObjectHashMap<Issue.Builder> builders = new LongObjectHashMap<>();
+    //The rest of these are keyed by the packed IssueKey
+    private final LongObjectHashMap<Issue.Builder> buildersByKey = new LongObjectHashMap<>();
+    private final LongObjectHashMap<String> childToParentIssueKeys = new LongObjectHashMap<>();
+    private final LongObjectHashMap<String> issuesToEpics = new LongObjectHashMap<>();
     private final Map<String, Epic> unsortedEpics = new HashMap<>();
+    private final Map<String, Long> epicIds = new HashMap<>();
+    private final List<String> linkedProjectCodes = new ArrayList<>();
+    //The number of entries at the start of ids whose data has been bulk loaded
+    private int bulkLoadedIds = 0;
+    private long subtaskLinkId = -1;
+    private long epicLinkId = -1;
+    private boolean linkTypesLoaded = false;
     private boolean finished = false;
 
     public BulkIssueLoadStrategy(
@@ -80,14 +99,46 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
         }
 
         parallelTaskFields = project.getConfig().getAllParallelTaskCustomFieldConfigs();
+
+        for (LinkedProjectConfig linkedProjectConfig : project.getBoard().getConfig().getLinkedProjects()) {
+            linkedProjectCodes.add(linkedProjectConfig.getCode());
+        }
     }
 
     @Override
     public void handle(com.atlassian.jira.issue.Issue issue, Issue.Builder builder) {
-        ids.add(issue.getId());
-        issues.put(issue.getId(), issue.getKey());
-        builders.put(issue.getId(), builder);
-        buildersByKey.put(issue.getKey(), builder);
+        handle(issue.getId(), issue.getKey(), builder);
+    }
+
+    /**
+     * Registers an issue for having its custom fields, epics, parents and linked issues bulk loaded in
+     * {@link #pageLoaded()} or {@link #finish()}.
+     *
+     * @param id the issue id
+     * @param key the issue key
+     * @param builder the builder for the issue
+     */
+    void handle(long id, String key, Issue.Builder builder) {
+        ids.add(id);
+        builders.put(id, builder);
+        buildersByKey.put(IssueKey.pack(key), builder);
+    }
+
+    @Override
+    public void pageLoaded() {
+        if (bulkLoadedIds == ids.size()) {
+            return;
+        }
+        final SQLProcessor sqlProcessor = new SQLProcessor(dataSourceName);
+        try {
+            bulkLoadData(sqlProcessor);
+        } finally {
+            try {
+                sqlProcessor.close();
+            } catch (Exception ignore) {
+
+            }
+        }
     }
 
     @Override
@@ -97,8 +148,10 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
         }
         finished = true;
         final SQLProcessor sqlProcessor = new SQLProcessor(dataSourceName);
+        final Map<String, String> epicRanks;
         try {
             bulkLoadData(sqlProcessor);
+            epicRanks = loadEpicRanks(sqlProcessor);
         } finally {
             try {
                 sqlProcessor.close();
@@ -106,17 +159,91 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
 
             }
         }
+
+        processParentTasksAndEpics();
+
+        IndexedMap<String, Epic> orderedEpics = epicRanks == null ? null : sortEpicsByRank(unsortedEpics, epicRanks);
+        if (orderedEpics == null) {
+            orderedEpics =
+                    getEpicsInRankOrder(
+                            project.getJiraInjectables().getSearchService(),
+                            project.getBoard().getBoardOwner(),
+                            unsortedEpics);
+        }
+        project.setOrderedEpics(orderedEpics);
     }
 
-    private void bulkLoadData(SQLProcessor sqlProcessor) {
+    /**
+     * Reads the rank of each of the epics from the Jira Agile 'Rank' custom field. This avoids the JQL search with
+     * an {@code issue in (...)} clause for all the epics in {@link IssueLoadStrategy#getEpicsInRankOrder},
+     * which is slow and can exceed the JQL limits for projects with lots of epics.
+     *
+     * @param sqlProcessor the sql processor
+     * @return the ranks keyed by epic key, or {@code null} if the id of the rank field is not known
+     */
+    private Map<String, String> loadEpicRanks(SQLProcessor sqlProcessor) {
+        final long rankCustomFieldId = project.getBoard().getConfig().getRankCustomFieldId();
+        if (rankCustomFieldId <= 0) {
+            return null;
+        }
+        final Map<String, String> ranks = new HashMap<>();
+        if (epicIds.isEmpty()) {
+            return ranks;
+        }
+        final Map<Long, String> epicKeysById = new HashMap<>();
+        epicIds.forEach((key, id) -> epicKeysById.put(id, key));
+        final List<Long> ids = new ArrayList<>(epicKeysById.keySet());
+        try (BatchedIssueQuery query = new BatchedIssueQuery(sqlProcessor.getConnection(),
+                "SELECT ISSUE, STRINGVALUE FROM CUSTOMFIELDVALUE WHERE CUSTOMFIELD = ? AND ISSUE",
+                BATCH_SIZE, rankCustomFieldId)) {
+            for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+                project.getLoadProgress().checkCancelled();
+                query.execute(ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())),
+                        rs -> ranks.put(epicKeysById.get(rs.getLong(1)), rs.getString(2)));
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return ranks;
+    }
+
+    /**
+     * Sorts the epics by their rank. The ranks are lexorank values, which sort lexicographically in the same way
+     * as a search ordered by 'Rank'. The order of epics without a rank, or with the same rank, is up to the search,
+     * so in those cases the epics are not sorted here and the search must be used instead.
+     *
+     * @param unsortedEpics the epics keyed by epic key
+     * @param ranks the ranks keyed by epic key
+     * @return the sorted epics, or {@code null} if an epic has no rank or shares its rank with another epic
+     */
+    static IndexedMap<String, Epic> sortEpicsByRank(Map<String, Epic> unsortedEpics, Map<String, String> ranks) {
+        final List<Epic> epics = new ArrayList<>(unsortedEpics.values());
+        for (Epic epic : epics) {
+            if (ranks.get(epic.getKey()) == null) {
+                return null;
+            }
+        }
+        epics.sort(Comparator.comparing((Epic epic) -> ranks.get(epic.getKey())));
+        final Map<String, Epic> result = new LinkedHashMap<>();
+        String previousRank = null;
+        for (Epic epic : epics) {
+            final String rank = ranks.get(epic.getKey());
+            if (rank.equals(previousRank)) {
+                return null;
+            }
+            previousRank = rank;
+            result.put(epic.getKey(), epic);
+        }
+        return new IndexedMap<>(result);
+    }
+
+    private void loadLinkTypeIds(SQLProcessor sqlProcessor) {
         // Load up the ids of the link types, we'll need those for figuring out the sub-tasks and the epic links
         String loadIdsSql = "SELECT ID, LINKNAME " +
                 "FROM ISSUELINKTYPE " +
                 "WHERE LINKNAME = 'jira_subtask_link' " +
                 "OR LINKNAME = 'Epic-Story Link' " +
                 "ORDER BY LINKNAME";
-        long subtaskLinkId = -1;
-        long epicLinkId = -1;
         try (ResultSet rs = sqlProcessor.executeQuery(loadIdsSql)){
             while (rs.next()) {
                 Long id = rs.getLong(1);
@@ -130,58 +257,100 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        linkTypesLoaded = true;
+    }
 
-
-        final List<Long> idBatch = new ArrayList<>();
-        for (int i = 0 ; i < ids.size() ; i++) {
-            idBatch.add(ids.get(i));
-            if (idBatch.size() == BATCH_SIZE) {
-                loadBatch(sqlProcessor, idBatch, subtaskLinkId, epicLinkId);
-                idBatch.clear();
-            }
-        }
-        if (idBatch.size() > 0) {
-            loadBatch(sqlProcessor, idBatch, subtaskLinkId, epicLinkId);
+    /**
+     * Bulk loads the data for the issues which have been handled since the last time this was called.
+     */
+    private void bulkLoadData(SQLProcessor sqlProcessor) {
+        if (!linkTypesLoaded) {
+            loadLinkTypeIds(sqlProcessor);
         }
 
-        processParentTasksAndEpics();
-
-        IndexedMap<String, Epic> orderedEpics =
-                getEpicsInRankOrder(
-                        project.getJiraInjectables().getSearchService(),
-                        project.getBoard().getBoardOwner(),
-                        unsortedEpics);
-        project.setOrderedEpics(orderedEpics);
-    }
+        final List<Long> pendingIds = ids.subList(bulkLoadedIds, ids.size());
+        if (pendingIds.size() > 0) {
+            final List<BatchedIssueQuery> queries = new ArrayList<>();
+            try {
+                final Connection connection = sqlProcessor.getConnection();
+                final BatchedIssueQuery customFieldsQuery = createLoadCustomFieldsQuery(connection);
+                final BatchedIssueQuery parentTasksQuery = createLoadParentTasksQuery(connection, subtaskLinkId);
+                final BatchedIssueQuery epicsQuery = createLoadEpicsQuery(connection, epicLinkId);
+                final BatchedIssueQuery outwardLinksQuery = createLoadLinkedIssuesQuery(connection, true);
+                final BatchedIssueQuery inwardLinksQuery = createLoadLinkedIssuesQuery(connection, false);
+                final BatchedIssueQuery linkedIssueLabelsQuery = createLoadLinkedIssueLabelsQuery(connection);
+                for (BatchedIssueQuery query : new BatchedIssueQuery[]{customFieldsQuery, parentTasksQuery, epicsQuery,
+                        outwardLinksQuery, inwardLinksQuery, linkedIssueLabelsQuery}) {
+                    if (query != null) {
+                        queries.add(query);
+                    }
+                }
 
-    private void loadBatch(SQLProcessor sqlProcessor, List<Long> idBatch, long subtaskLinkId, long epicLinkId) {
-        loadCustomFieldDataForBatch(sqlProcessor, idBatch);
-        loadParentTasks(sqlProcessor, idBatch, subtaskLinkId);
-        loadEpics(sqlProcessor, idBatch, epicLinkId);
+                for (int i = 0; i < pendingIds.size(); i += BATCH_SIZE) {
+                    project.getLoadProgress().checkCancelled();
+                    final List<Long> idBatch = pendingIds.subList(i, Math.min(i + BATCH_SIZE, pendingIds.size()));
+                    if (customFieldsQuery != null) {
+                        customFieldsQuery.execute(idBatch, this::processCustomFieldRow);
+                    }
+                    parentTasksQuery.execute(idBatch, this::processParentTaskRow);
+                    if (epicsQuery != null) {
+                        epicsQuery.execute(idBatch, this::processEpicRow);
+                    }
+                    if (outwardLinksQuery != null) {
+                        final List<LinkedIssueRow> linkedIssueRows = new ArrayList<>();
+                        outwardLinksQuery.execute(idBatch, rs -> linkedIssueRows.add(new LinkedIssueRow(rs)));
+                        inwardLinksQuery.execute(idBatch, rs -> linkedIssueRows.add(new LinkedIssueRow(rs)));
+                        processLinkedIssueRows(linkedIssueRows, linkedIssueLabelsQuery);
+                    }
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            } finally {
+                queries.forEach(BatchedIssueQuery::close);
+            }
+        }
+        bulkLoadedIds = ids.size();
     }
 
-    private void loadCustomFieldDataForBatch(SQLProcessor sqlProcessor, List<Long> idBatch) {
+    private BatchedIssueQuery createLoadCustomFieldsQuery(Connection connection) throws SQLException {
         if (!customFieldsOrParallelTasks) {
-            return;
+            return null;
+        }
+        final List<Object> parameters = new ArrayList<>();
+        parameters.add(project.getCode());
+        parameters.addAll(customFieldContexts.keySet());
+        parameters.addAll(parallelTaskFields.keySet());
+        if (parameters.size() == 1) {
+            return null;
         }
-        final String sql = createLoadCustomFieldsSql(idBatch);
 
-        try (ResultSet rs = sqlProcessor.executeQuery(sql)){
-            while (rs.next()) {
-                Long issueId = rs.getLong(1);
-                Long customFieldId = rs.getLong(2);
-                String stringValue = rs.getString(3);
-                Long numValue = rs.getLong(4);
-                String issueType = rs.getString(5);
-                if (rs.wasNull()) {
-                    numValue = null;
-                }
+        StringBuilder sb = new StringBuilder()
+                .append("SELECT J.ID, CV.CUSTOMFIELD, CV.STRINGVALUE, CV.NUMBERVALUE, IT.PNAME AS TYPE ")
+                .append("FROM PROJECT P, JIRAISSUE J, CUSTOMFIELDVALUE CV, ISSUETYPE IT ")
+                .append("WHERE ")
+                .append("P.ID=J.PROJECT AND J.ID=CV.ISSUE AND ")
+                .append("J.ISSUETYPE=IT.ID AND ")
+                .append("P.PKEY=? AND ")
+                .append("CUSTOMFIELD IN (");
+        for (int i = 1; i < parameters.size(); i++) {
+            sb.append(i == 1 ? "?" : ", ?");
+        }
+        sb.append(") AND J.ID");
 
-                processCustomFieldValue(issueId, customFieldId, stringValue, numValue, issueType);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        return new BatchedIssueQuery(connection, sb.toString(), BATCH_SIZE, parameters.toArray());
+    }
+
+    private void processCustomFieldRow(ResultSet rs) throws SQLException {
+        Long issueId = rs.getLong(1);
+        Long customFieldId = rs.getLong(2);
+        String stringValue = rs.getString(3);
+        Long numValue = rs.getLong(4);
+        if (rs.wasNull()) {
+            numValue = null;
         }
+        String issueType = rs.getString(5);
+
+        processCustomFieldValue(issueId, customFieldId, stringValue, numValue, issueType);
     }
 
     private void processCustomFieldValue(Long issueId, Long customFieldId, String stringValue, Long numValue, String issueType) {
@@ -224,44 +393,7 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
         }
     }
 
-    private String createLoadCustomFieldsSql(List<Long> idBatch) {
-        StringBuilder sb = new StringBuilder()
-                .append("SELECT J.ID, CV.CUSTOMFIELD, CV.STRINGVALUE, CV.NUMBERVALUE, IT.PNAME AS TYPE ")
-                .append("FROM PROJECT P, JIRAISSUE J, CUSTOMFIELDVALUE CV, ISSUETYPE IT ")
-                .append("WHERE ")
-                .append("P.ID=J.PROJECT AND J.ID=CV.ISSUE AND ")
-                .append("J.ISSUETYPE=IT.ID AND ")
-                .append("P.PKEY='" + project.getCode() + "' AND ")
-                .append("CUSTOMFIELD IN (");
-
-        boolean first = true;
-        for (Long cfId : customFieldContexts.keySet()) {
-            if (first) {
-                first = false;
-            } else {
-                sb.append(", ");
-            }
-            sb.append(cfId.toString());
-        }
-        if (parallelTaskFields.size() > 0) {
-            for (Long cfId : parallelTaskFields.keySet()) {
-                if (first) {
-                    first = false;
-                } else {
-                    sb.append(", ");
-                }
-                sb.append(cfId.toString());
-            }
-        }
-        sb.append(") AND ");
-        sb.append("J.ID IN " + createInIdsClause(idBatch));
-
-        final String sql = sb.toString();
-        OverbaardLogger.LOGGER.debug("SQL query: {}", sql);
-        return sql;
-    }
-
-    private void loadParentTasks(SQLProcessor sqlProcessor, List<Long> idBatch, long subTaskLinkId) {
+    private BatchedIssueQuery createLoadParentTasksQuery(Connection connection, long subTaskLinkId) throws SQLException {
         StringBuilder sb = new StringBuilder()
                 .append("SELECT ")
                 .append("CHILD.ISSUENUM AS ISSUENUM, PARENTPROJECT.PKEY AS PARENTPROJECTCODE, PARENT.ISSUENUM AS PARENTNUM ")
@@ -270,100 +402,201 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
                 .append("WHERE ")
                 .append("CHILD.PROJECT = CHILDPROJECT.ID AND CHILD.ID = IL.DESTINATION AND ")
                 .append("PARENT.ID = IL.SOURCE AND PARENT.PROJECT = PARENTPROJECT.ID AND ")
-                .append("CHILDPROJECT.PKEY = '" + project.getCode() + "' AND ")
-                .append("IL.LINKTYPE = " + subTaskLinkId + " AND ")
-                .append("IL.DESTINATION IN " + createInIdsClause(idBatch));
+                .append("CHILDPROJECT.PKEY = ? AND ")
+                .append("IL.LINKTYPE = ? AND ")
+                .append("IL.DESTINATION");
 
-        try (ResultSet rs = sqlProcessor.executeQuery(sb.toString())){
-            while (rs.next()) {
-                String childKey = project.getCode() + "-" + rs.getLong(1);
-                String parentKey = rs.getString(2) + "-" + rs.getLong(3);
-                childToParentIssueKeys.put(childKey, parentKey);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return new BatchedIssueQuery(connection, sb.toString(), BATCH_SIZE, project.getCode(), subTaskLinkId);
+    }
+
+    private void processParentTaskRow(ResultSet rs) throws SQLException {
+        long childKey = IssueKey.pack(project.getCode(), rs.getLong(1));
+        String parentKey = rs.getString(2) + "-" + rs.getLong(3);
+        childToParentIssueKeys.put(childKey, parentKey);
     }
 
-    private void loadEpics(SQLProcessor sqlProcessor, List<Long> idBatch, long epicLinkId) {
+    private BatchedIssueQuery createLoadEpicsQuery(Connection connection, long epicLinkId) throws SQLException {
         if (!project.getConfig().isEnableEpics()) {
-            return;
+            return null;
         }
 
         StringBuilder sb = new StringBuilder()
                 .append("SELECT ")
                 .append("ISSUE.ISSUENUM AS ISSUENUM, EPICPROJECT.PKEY AS EPICPROJECTCODE, ")
-                .append("EPIC.ISSUENUM AS EPICNUM, CFV.STRINGVALUE AS SUMMARY ")
+                .append("EPIC.ISSUENUM AS EPICNUM, CFV.STRINGVALUE AS SUMMARY, EPIC.ID AS EPICID ")
                 .append("FROM ")
                 .append("JIRAISSUE ISSUE, JIRAISSUE EPIC, PROJECT ISSUEPROJECT, ")
                 .append("PROJECT EPICPROJECT, ISSUELINK IL, CUSTOMFIELDVALUE CFV ")
                 .append("WHERE ")
                 .append("ISSUE.PROJECT = ISSUEPROJECT.ID AND ISSUE.ID = IL.DESTINATION AND ")
-                .append("EPIC.ID = IL.SOURCE AND\tEPIC.PROJECT = EPICPROJECT.ID AND CFV.ISSUE = EPIC.ID AND ")
-                .append("EPICPROJECT.PKEY = '" + project.getCode() + "' AND ")
-                .append("IL.LINKTYPE = " + epicLinkId + " AND ")
-                .append("CFV.CUSTOMFIELD = " + project.getBoard().getConfig().getEpicSummaryCustomFieldId() + " AND ")
-                .append("IL.DESTINATION IN " + createInIdsClause(idBatch));
+                .append("EPIC.ID = IL.SOURCE AND EPIC.PROJECT = EPICPROJECT.ID AND CFV.ISSUE = EPIC.ID AND ")
+                .append("EPICPROJECT.PKEY = ? AND ")
+                .append("IL.LINKTYPE = ? AND ")
+                .append("CFV.CUSTOMFIELD = ? AND ")
+                .append("IL.DESTINATION");
+
+        return new BatchedIssueQuery(connection, sb.toString(), BATCH_SIZE,
+                project.getCode(), epicLinkId, project.getBoard().getConfig().getEpicSummaryCustomFieldId());
+    }
 
-        try (ResultSet rs = sqlProcessor.executeQuery(sb.toString())){
-            while (rs.next()) {
-                String issueKey = project.getCode() + "-" + rs.getLong(1);
-                String epicKey = rs.getString(2) + "-" + rs.getLong(3);
-                String epicSummary = rs.getString(4);
-                issuesToEpics.put(issueKey, epicKey);
-                unsortedEpics.put(epicKey, new Epic(epicKey, epicSummary));
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    private void processEpicRow(ResultSet rs) throws SQLException {
+        long issueKey = IssueKey.pack(project.getCode(), rs.getLong(1));
+        String epicKey = rs.getString(2) + "-" + rs.getLong(3);
+        String epicSummary = rs.getString(4);
+        issuesToEpics.put(issueKey, epicKey);
+        unsortedEpics.put(epicKey, new Epic(epicKey, epicSummary));
+        epicIds.put(epicKey, rs.getLong(5));
+    }
+
+    private BatchedIssueQuery createLoadLinkedIssuesQuery(Connection connection, boolean outward) throws SQLException {
+        if (linkedProjectCodes.isEmpty()) {
+            return null;
+        }
+        // For outward links our issues are the source of the link, for inward ones they are the destination
+        final String owningIssue = outward ? "IL.SOURCE" : "IL.DESTINATION";
+        final String linkedIssue = outward ? "IL.DESTINATION" : "IL.SOURCE";
+        StringBuilder sb = new StringBuilder()
+                .append("SELECT ")
+                .append(owningIssue).append(" AS OWNINGID, ")
+                .append(outward ? "ILT.OUTWARD" : "ILT.INWARD").append(" AS LINKNAME, ")
+                .append("P.PKEY AS PROJECTCODE, J.ID AS LINKEDID, J.ISSUENUM AS ISSUENUM, J.SUMMARY AS SUMMARY, ")
+                .append("S.PNAME AS STATE, IT.PNAME AS TYPE, PR.PNAME AS PRIORITY ")
+                .append("FROM ISSUELINK IL ")
+                .append("JOIN ISSUELINKTYPE ILT ON IL.LINKTYPE = ILT.ID ")
+                .append("JOIN JIRAISSUE J ON J.ID = ").append(linkedIssue).append(" ")
+                .append("JOIN PROJECT P ON P.ID = J.PROJECT ")
+                .append("JOIN ISSUESTATUS S ON S.ID = J.ISSUESTATUS ")
+                .append("JOIN ISSUETYPE IT ON IT.ID = J.ISSUETYPE ")
+                .append("LEFT OUTER JOIN PRIORITY PR ON PR.ID = J.PRIORITY ")
+                .append("WHERE ")
+                .append("P.PKEY IN (");
+        for (int i = 0; i < linkedProjectCodes.size(); i++) {
+            sb.append(i == 0 ? "?" : ", ?");
         }
+        sb.append(") AND ").append(owningIssue);
+
+        return new BatchedIssueQuery(connection, sb.toString(), BATCH_SIZE, linkedProjectCodes.toArray());
+    }
 
+    private BatchedIssueQuery createLoadLinkedIssueLabelsQuery(Connection connection) throws SQLException {
+        if (linkedProjectCodes.isEmpty()) {
+            return null;
+        }
+        // Labels set via custom fields have a FIELDID, we only want the system labels
+        return new BatchedIssueQuery(connection,
+                "SELECT ISSUE, LABEL FROM LABEL WHERE FIELDID IS NULL AND ISSUE", BATCH_SIZE);
     }
 
-    private String createInIdsClause(List<Long> idBatch) {
-        StringBuilder sb = new StringBuilder("(");
-        boolean first = true;
-        for (Long issueId : ids) {
-            if (first) {
-                first = false;
-            } else {
-                sb.append(", ");
+    private void processLinkedIssueRows(List<LinkedIssueRow> rows, BatchedIssueQuery labelsQuery) {
+        //The labels are only needed if a linked issue filter uses them, so only load them on demand
+        final LinkedIssueLabels labels = new LinkedIssueLabels(rows, labelsQuery);
+        for (LinkedIssueRow row : rows) {
+            Issue.Builder builder = builders.get(row.owningIssueId);
+            if (builder == null) {
+                continue;
             }
-            sb.append(issueId.toString());
+            builder.addLinkedIssue(row.projectCode, row.projectCode + "-" + row.issueNumber, row.linkName,
+                    row.state, row.issueType, row.priority, row.summary, () -> labels.get(row.linkedIssueId));
         }
-        sb.append(")");
-        return sb.toString();
     }
 
     private void processParentTasksAndEpics() {
         final boolean epics = project.getConfig().isEnableEpics();
         if (epics) {
-            for (Map.Entry<String, String> issueToEpic : issuesToEpics.entrySet()) {
-                Issue.Builder builder = buildersByKey.get(issueToEpic.getKey());
+            issuesToEpics.forEach((issueKey, epicKey) -> {
+                Issue.Builder builder = buildersByKey.get(issueKey);
                 if (builder == null) {
-                    OverbaardLogger.LOGGER.warn("Could not find a builder for " + issueToEpic.getKey() + " to set epic");
-                    continue;
+                    OverbaardLogger.LOGGER.warn("Could not find a builder for " + IssueKey.toString(issueKey) + " to set epic");
+                    return;
                 }
 
-                builder.setEpicKey(issueToEpic.getValue());
-            }
+                builder.setEpicKey(epicKey);
+            });
         }
 
-        for (Map.Entry<String, String> childToParent : childToParentIssueKeys.entrySet()) {
-            final String childKey = childToParent.getKey();
-            final String parentKey = childToParent.getValue();
-            Issue.Builder builder = buildersByKey.get(childToParent.getKey());
+        childToParentIssueKeys.forEach((childKey, parentKey) -> {
+            Issue.Builder builder = buildersByKey.get(childKey);
             if (builder == null) {
-                OverbaardLogger.LOGGER.warn("Could not find a builder for " + childKey + " to set parent");
-                continue;
+                OverbaardLogger.LOGGER.warn("Could not find a builder for " + IssueKey.toString(childKey) + " to set parent");
+                return;
             }
 
             builder.setParentIssueKey(parentKey);
             if (epics) {
-                final String epic = issuesToEpics.get(parentKey);
+                final String epic = issuesToEpics.get(IssueKey.pack(parentKey));
                 if (epic != null) {
                     builder.setEpicKey(epic);
                 }
             }
+        });
+    }
+
+    private static class LinkedIssueRow {
+        private final long owningIssueId;
+        private final String linkName;
+        private final String projectCode;
+        private final long linkedIssueId;
+        private final long issueNumber;
+        private final String summary;
+        private final String state;
+        private final String issueType;
+        private final String priority;
+
+        LinkedIssueRow(ResultSet rs) throws SQLException {
+            this.owningIssueId = rs.getLong(1);
+            this.linkName = rs.getString(2);
+            this.projectCode = rs.getString(3);
+            this.linkedIssueId = rs.getLong(4);
+            this.issueNumber = rs.getLong(5);
+            this.summary = rs.getString(6);
+            this.state = rs.getString(7);
+            this.issueType = rs.getString(8);
+            this.priority = rs.getString(9);
+        }
+    }
+
+    /**
+     * Loads the labels of all the linked issues in a batch the first time the labels of one of them are needed.
+     */
+    private static class LinkedIssueLabels {
+        private final List<LinkedIssueRow> rows;
+        private final BatchedIssueQuery labelsQuery;
+        private LongObjectHashMap<List<String>> labels;
+
+        LinkedIssueLabels(List<LinkedIssueRow> rows, BatchedIssueQuery labelsQuery) {
+            this.rows = rows;
+            this.labelsQuery = labelsQuery;
+        }
+
+        Collection<String> get(long linkedIssueId) {
+            if (labels == null) {
+                labels = load();
+            }
+            List<String> issueLabels = labels.get(linkedIssueId);
+            return issueLabels == null ? Collections.emptyList() : issueLabels;
+        }
+
+        private LongObjectHashMap<List<String>> load() {
+            final LongObjectHashMap<List<String>> labels = new LongObjectHashMap<>();
+            final Set<Long> linkedIssueIds = new LinkedHashSet<>();
+            rows.forEach(row -> linkedIssueIds.add(row.linkedIssueId));
+            final List<Long> ids = new ArrayList<>(linkedIssueIds);
+            try {
+                for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+                    labelsQuery.execute(ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())), rs -> {
+                        long issueId = rs.getLong(1);
+                        List<String> issueLabels = labels.get(issueId);
+                        if (issueLabels == null) {
+                            issueLabels = new ArrayList<>();
+                            labels.put(issueId, issueLabels);
+                        }
+                        issueLabels.add(rs.getString(2));
+                    });
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            return labels;
         }
     }
 }
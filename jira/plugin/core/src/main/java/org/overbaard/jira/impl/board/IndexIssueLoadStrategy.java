@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.overbaard.jira.api.adapter.spi.JiraApiAdapter;
+import org.overbaard.jira.impl.JiraInjectables;
+
+import com.atlassian.jira.bc.project.component.ProjectComponent;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.issue.index.DocumentConstants;
+import com.atlassian.jira.issue.index.indexers.FieldIndexer;
+import com.atlassian.jira.issue.issuetype.IssueType;
+import com.atlassian.jira.issue.priority.Priority;
+import com.atlassian.jira.issue.search.SearchException;
+import com.atlassian.jira.issue.status.Status;
+import com.atlassian.jira.project.version.Version;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.query.Query;
+
+/**
+ * <p>Loads the issues without creating the Jira issues or reading their core fields from the database. The query is
+ * run against the index only reading the stored fields needed for the board (id, key, summary, state, issue type,
+ * priority, assignee, components, labels and fix versions). The ids stored in the index are mapped to names via the
+ * Jira managers, which cache them. The rank is given by the order of the query. The rest of the data is bulk loaded
+ * as in {@link BulkIssueLoadStrategy}.</p>
+ * <p>Since this relies on the index being up to date, it is only used for boards which are configured to use it.</p>
+ *
+ * @author Kabir Khan
+ */
+class IndexIssueLoadStrategy extends BulkIssueLoadStrategy {
+
+    private static final Set<String> FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            DocumentConstants.ISSUE_ID,
+            DocumentConstants.ISSUE_KEY,
+            DocumentConstants.ISSUE_SUMMARY,
+            DocumentConstants.ISSUE_STATUS,
+            DocumentConstants.ISSUE_TYPE,
+            DocumentConstants.ISSUE_PRIORITY,
+            DocumentConstants.ISSUE_ASSIGNEE,
+            DocumentConstants.ISSUE_COMPONENT,
+            DocumentConstants.ISSUE_LABELS,
+            DocumentConstants.ISSUE_FIXVERSION)));
+
+    //The index stores ids, and the same few values are used by a lot of issues
+    private final Map<String, String> issueTypeNames = new HashMap<>();
+    private final Map<String, String> priorityNames = new HashMap<>();
+    private final Map<String, String> stateNames = new HashMap<>();
+    private final Map<String, String> componentNames = new HashMap<>();
+    private final Map<String, String> fixVersionNames = new HashMap<>();
+    private final Map<String, ApplicationUser> assigneeUsers = new HashMap<>();
+
+    IndexIssueLoadStrategy(BoardProject.Builder project, boolean customFieldsOrParallelTasks) {
+        super(project, customFieldsOrParallelTasks);
+    }
+
+    @Override
+    public List<Issue.Builder> loadIssues(BoardProject.Builder project, Query query) throws SearchException {
+        final List<Map<String, String[]>> documents = JiraApiAdapter.Factory.get().getSearchResultsAdapter()
+                .getIssueFieldValues(project.getBoard().getBoardOwner(), query, FIELDS);
+        final JiraInjectables jiraInjectables = project.getJiraInjectables();
+        final List<Issue.Builder> issueBuilders = new ArrayList<>(documents.size());
+        project.getLoadProgress().addEstimatedTotal(documents.size());
+        for (Map<String, String[]> document : documents) {
+            project.getLoadProgress().checkCancelled();
+            final long id = Long.parseLong(getValue(document, DocumentConstants.ISSUE_ID));
+            final String issueKey = getValue(document, DocumentConstants.ISSUE_KEY);
+
+            final String issueType = getName(issueTypeNames, getValue(document, DocumentConstants.ISSUE_TYPE),
+                    typeId -> {
+                        IssueType type = jiraInjectables.getIssueTypeManager().getIssueType(typeId);
+                        return type == null ? null : type.getName();
+                    });
+            final String priority = getName(priorityNames, getValue(document, DocumentConstants.ISSUE_PRIORITY),
+                    priorityId -> {
+                        Priority p = jiraInjectables.getPriorityManager().getPriority(priorityId);
+                        return p == null ? null : p.getName();
+                    });
+            final String state = getName(stateNames, getValue(document, DocumentConstants.ISSUE_STATUS),
+                    statusId -> {
+                        Status status = ComponentAccessor.getConstantsManager().getStatus(statusId);
+                        return status == null ? null : status.getName();
+                    });
+            final List<String> components = getNames(componentNames, document.get(DocumentConstants.ISSUE_COMPONENT),
+                    componentId -> {
+                        ProjectComponent component =
+                                ComponentAccessor.getProjectComponentManager().getProjectComponent(Long.valueOf(componentId));
+                        return component == null ? null : component.getName();
+                    });
+            final List<String> fixVersions = getNames(fixVersionNames, document.get(DocumentConstants.ISSUE_FIXVERSION),
+                    versionId -> {
+                        Version version = jiraInjectables.getVersionManager().getVersion(Long.valueOf(versionId));
+                        return version == null ? null : version.getName();
+                    });
+            final List<String> labels = getLabels(document.get(DocumentConstants.ISSUE_LABELS));
+
+            final Issue.Builder issueBuilder = Issue.builder(project, this);
+            issueBuilder.load(issueKey, getValue(document, DocumentConstants.ISSUE_SUMMARY),
+                    getAssigneeUser(getValue(document, DocumentConstants.ISSUE_ASSIGNEE)),
+                    components, labels, fixVersions,
+                    issueType, priority, state);
+            handle(id, issueKey, issueBuilder);
+            issueBuilders.add(issueBuilder);
+            project.getLoadProgress().addLoaded(1);
+        }
+        return issueBuilders;
+    }
+
+    private ApplicationUser getAssigneeUser(String assigneeKey) {
+        if (assigneeKey == null) {
+            return null;
+        }
+        if (assigneeUsers.containsKey(assigneeKey)) {
+            return assigneeUsers.get(assigneeKey);
+        }
+        //Unassigned issues have a marker value which will not resolve to a user
+        ApplicationUser user = project.getJiraInjectables().getJiraUserManager().getUserByKey(assigneeKey);
+        assigneeUsers.put(assigneeKey, user);
+        return user;
+    }
+
+    private static String getValue(Map<String, String[]> document, String field) {
+        final String[] values = document.get(field);
+        if (values == null || values.length == 0 || FieldIndexer.NO_VALUE_INDEX_VALUE.equals(values[0])) {
+            return null;
+        }
+        return values[0];
+    }
+
+    private static String getName(Map<String, String> names, String id, Function<String, String> lookup) {
+        if (id == null) {
+            return null;
+        }
+        return names.computeIfAbsent(id, lookup);
+    }
+
+    private static List<String> getNames(Map<String, String> names, String[] ids, Function<String, String> lookup) {
+        if (ids == null || ids.length == 0) {
+            return Collections.emptyList();
+        }
+        final List<String> result = new ArrayList<>(ids.length);
+        for (String id : ids) {
+            if (FieldIndexer.NO_VALUE_INDEX_VALUE.equals(id)) {
+                continue;
+            }
+            String name = names.computeIfAbsent(id, lookup);
+            if (name != null) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> getLabels(String[] values) {
+        if (values == null || values.length == 0) {
+            return Collections.emptyList();
+        }
+        final List<String> labels = new ArrayList<>(values.length);
+        for (String value : values) {
+            if (!FieldIndexer.LABELS_NO_VALUE_INDEX_VALUE.equals(value)) {
+                labels.add(value);
+            }
+        }
+        return labels;
+    }
+}
@@ -17,30 +17,43 @@
 package org.overbaard.jira.impl.board;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.jboss.dmr.ModelNode;
 import org.overbaard.jira.OverbaardLogger;
 import org.overbaard.jira.impl.Constants;
+import org.overbaard.jira.impl.JiraInjectables;
+import org.overbaard.jira.impl.OverbaardIssueEvent;
 import org.overbaard.jira.impl.config.BoardConfig;
 import org.overbaard.jira.impl.config.BoardProjectConfig;
+import org.overbaard.jira.impl.config.CustomFieldConfig;
 import org.overbaard.jira.impl.config.LinkedProjectConfig;
+import org.overbaard.jira.impl.config.ParallelTaskCustomFieldConfig;
 import org.overbaard.jira.impl.config.ParallelTaskGroupPosition;
 import org.overbaard.jira.impl.config.ProjectConfig;
-import org.overbaard.jira.impl.config.ProjectParallelTaskConfig;
 import org.overbaard.jira.impl.config.ProjectParallelTaskGroupsConfig;
+import org.overbaard.jira.impl.util.ArraySet;
 import org.overbaard.jira.impl.util.IndexedMap;
 
+import com.atlassian.jira.bc.project.component.ProjectComponent;
 import com.atlassian.jira.issue.CustomFieldManager;
 import com.atlassian.jira.issue.fields.CustomField;
+import com.atlassian.jira.issue.label.Label;
 import com.atlassian.jira.issue.link.IssueLink;
 import com.atlassian.jira.issue.link.IssueLinkManager;
+import com.atlassian.jira.project.version.Version;
+import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.jira.util.Consumer;
 
 /**
@@ -53,11 +66,11 @@ public abstract class Issue {
     private final ProjectConfig project;
     private final String key;
     private final String state;
-    private final Integer stateIndex;
+    private final int stateIndex;
     private final String summary;
     private final String issueTypeName;
 
-    Issue(ProjectConfig project, String key, String state, Integer stateIndex, String issueTypeName, String summary) {
+    Issue(ProjectConfig project, String key, String state, int stateIndex, String issueTypeName, String summary) {
         this.project = project;
         this.key = key;
         this.state = state;
@@ -82,7 +95,7 @@ public abstract class Issue {
         return project.getCode();
     }
 
-    Integer getStateIndex() {
+    int getStateIndex() {
         return stateIndex;
     }
 
@@ -107,6 +120,109 @@ public abstract class Issue {
         return issueNode;
     }
 
+    /**
+     * Gets the linked issues in the same format as for the full refresh, for when the links of the issue change.
+     *
+     * @param board the board
+     * @return the linked issues. This is an empty list if the issue has no linked issues
+     */
+    ModelNode getLinkedIssuesModelNode(Board board) {
+        final ModelNode linkedIssuesNode = new ModelNode().setEmptyList();
+        getLinkedIssues().forEach(linkedIssue -> linkedIssuesNode.add(linkedIssue.getModelNodeForFullRefresh(board)));
+        return linkedIssuesNode;
+    }
+
+    /**
+     * Compares the issue with the current state of the issue in Jira, for when a board is reconciled with Jira
+     * rather than being updated by an event.
+     *
+     * @param boardConfig the board config
+     * @param project the board project containing the issue
+     * @param jiraIssue the current state of the issue in Jira
+     * @param reranked whether the issue should be reranked
+     * @return an update event containing the fields which differ, or {@code null} if nothing differs and the issue
+     * should not be reranked
+     */
+    OverbaardIssueEvent createReconcileEvent(BoardConfig boardConfig, BoardProject project,
+                                             com.atlassian.jira.issue.Issue jiraIssue, boolean reranked) {
+        return null;
+    }
+
+    /**
+     * Checks whether the linked issues of this issue differ from the links of the issue in Jira.
+     *
+     * @param jiraInjectables the jira injectables
+     * @param boardConfig the board config
+     * @param jiraIssue the current state of the issue in Jira
+     * @return {@code true} if the linked issues differ
+     */
+    boolean linkedIssuesDiffer(JiraInjectables jiraInjectables, BoardConfig boardConfig,
+                               com.atlassian.jira.issue.Issue jiraIssue) {
+        return false;
+    }
+
+    /**
+     * Checks whether this issue links to an issue, and the fields held for the linked issue differ from the
+     * linked issue in Jira.
+     *
+     * @param jiraLinkedIssue the current state of an issue in a linked project
+     * @return {@code true} if the linked issue is outdated
+     */
+    boolean isLinkedIssueOutdated(com.atlassian.jira.issue.Issue jiraLinkedIssue) {
+        for (LinkedIssue linkedIssue : getLinkedIssues()) {
+            if (linkedIssue.getKey().equals(jiraLinkedIssue.getKey())) {
+                return linkedIssue.differsFrom(jiraLinkedIssue);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the fields of this issue differ from the fields of the same issue in another instance of the
+     * board, e.g. one which was loaded again in the background.
+     *
+     * @param other the issue in the other board
+     * @return {@code true} if they differ
+     */
+    boolean fieldsDiffer(Issue other) {
+        return !state.equals(other.state) || !Objects.equals(summary, other.summary) ||
+                !issueTypeName.equals(other.issueTypeName);
+    }
+
+    /**
+     * Checks whether the parent or epic of this issue differ from those of the same issue in another instance of the
+     * board. These are not updated by events, so a difference needs a full refresh of the board.
+     *
+     * @param other the issue in the other board
+     * @return {@code true} if they differ
+     */
+    boolean parentOrEpicDiffer(Issue other) {
+        return false;
+    }
+
+    /**
+     * Checks whether the linked issues of this issue differ from those of the same issue in another instance of the
+     * board.
+     *
+     * @param other the issue in the other board
+     * @return {@code true} if they differ
+     */
+    boolean linkedIssuesDiffer(Issue other) {
+        return false;
+    }
+
+    /**
+     * Checks whether the fields held for this issue differ from the issue in Jira.
+     *
+     * @param jiraIssue the current state of the issue in Jira
+     * @return {@code true} if they differ
+     */
+    boolean differsFrom(com.atlassian.jira.issue.Issue jiraIssue) {
+        return !state.equals(jiraIssue.getStatusObject().getName()) ||
+                !Objects.equals(summary, jiraIssue.getSummary()) ||
+                !issueTypeName.equals(jiraIssue.getIssueTypeObject().getName());
+    }
+
     private ModelNode getBaseModelNode() {
         ModelNode issueNode = new ModelNode();
         issueNode.get(Constants.KEY).set(key);
@@ -286,41 +402,73 @@ public abstract class Issue {
         return null;
     }
 
+    /**
+     * Creates a copy of an issue with its linked issues loaded again from Jira, when the links of the issue, or the
+     * issues it links to, have changed.
+     *
+     * @param project the project the issue belongs to
+     * @param existing the issue on the board
+     * @param jiraIssue the current state of the issue in Jira
+     * @return the copy, or {@code null} if the linked issues did not change
+     */
+    static Issue copyForLinksEvent(BoardProject.Accessor project, Issue existing, com.atlassian.jira.issue.Issue jiraIssue) {
+        if (existing instanceof BoardIssue == false) {
+            return null;
+        }
+        Builder builder = new Builder(project, (BoardIssue) existing);
+        builder.linkedIssues = null;
+        builder.loadLinkedIssues(jiraIssue);
+        Issue issue = builder.build();
+        if (issue == null || !issue.linkedIssuesDiffer(existing)) {
+            return null;
+        }
+        return issue;
+    }
+
     abstract BoardChangeRegistry.IssueChange convertToCreateIssueChange(BoardChangeRegistry registry, BoardConfig boardConfig);
 
+    /**
+     * An issue in one of the board projects. Since a board may hold a very large number of these, the fields are kept
+     * compact: indices are primitives, and the multi-select values are held in {@link ArraySet}s, which are empty
+     * rather than {@code null} if the issue has no values.
+     */
     static class BoardIssue extends Issue {
+        /** Used for {@code epicIndex} when the issue has no epic */
+        private static final int NO_EPIC = -1;
+
         private final Assignee assignee;
-        private final Set<MultiSelectNameOnlyValue.Component> components;
-        private final Set<MultiSelectNameOnlyValue.Label> labels;
-        private final Set<MultiSelectNameOnlyValue.FixVersion> fixVersions;
+        private final ArraySet<MultiSelectNameOnlyValue.Component> components;
+        private final ArraySet<MultiSelectNameOnlyValue.Label> labels;
+        private final ArraySet<MultiSelectNameOnlyValue.FixVersion> fixVersions;
         /** The index of the issue type in the owning board config */
-        private final Integer issueTypeIndex;
+        private final int issueTypeIndex;
         /** The index of the priority in the owning board config */
-        private final Integer priorityIndex;
+        private final int priorityIndex;
         private final String parentIssueKey;
         private final String epicKey;
-        private final Integer epicIndex;
+        private final int epicIndex;
         private final List<LinkedIssue> linkedIssues;
         private final Map<String, CustomFieldValue> customFieldValues;
-        private final List<List<Integer>> parallelTaskFieldGroupValues;
+        /** The packed parallel task values, see {@link ParallelTaskValues} */
+        private final byte[] parallelTaskFieldGroupValues;
 
-        public BoardIssue(BoardProjectConfig project, String key, String state, Integer stateIndex, String summary,
-                          Integer issueTypeIndex, String issueTypeName, Integer priorityIndex, Assignee assignee,
+        public BoardIssue(BoardProjectConfig project, String key, String state, int stateIndex, String summary,
+                          int issueTypeIndex, String issueTypeName, int priorityIndex, Assignee assignee,
                           Set<MultiSelectNameOnlyValue.Component> components, Set<MultiSelectNameOnlyValue.Label> labels,
                           Set<MultiSelectNameOnlyValue.FixVersion> fixVersions,
                           String parentIssueKey, String epicKey, Integer epicIndex, List<LinkedIssue> linkedIssues,
                           Map<String, CustomFieldValue> customFieldValues,
-                          List<List<Integer>> parallelTaskFieldGroupValues) {
+                          byte[] parallelTaskFieldGroupValues) {
             super(project, key, state, stateIndex, issueTypeName, summary);
             this.issueTypeIndex = issueTypeIndex;
             this.priorityIndex = priorityIndex;
             this.assignee = assignee;
-            this.components = components;
-            this.labels = labels;
-            this.fixVersions = fixVersions;
+            this.components = ArraySet.copyOf(components);
+            this.labels = ArraySet.copyOf(labels);
+            this.fixVersions = ArraySet.copyOf(fixVersions);
             this.parentIssueKey = parentIssueKey;
             this.epicKey = epicKey;
-            this.epicIndex = epicIndex;
+            this.epicIndex = epicIndex == null ? NO_EPIC : epicIndex;
             this.linkedIssues = linkedIssues;
             this.customFieldValues = customFieldValues;
             this.parallelTaskFieldGroupValues = parallelTaskFieldGroupValues;
@@ -349,45 +497,247 @@ public abstract class Issue {
                 //This map will always be populated
                 issueNode.get(Constants.ASSIGNEE).set(boardProject.getAssigneeIndex(assignee));
             }
-            if (components != null) {
-                components.forEach(component -> issueNode.get(Constants.COMPONENTS).add(boardProject.getComponentIndex(component)));
-            }
-            if (labels != null) {
-                labels.forEach(label -> issueNode.get(Constants.LABELS).add(boardProject.getLabelIndex(label)));
-            }
-            if (fixVersions != null) {
-                fixVersions.forEach(fixVersion -> issueNode.get(Constants.FIX_VERSIONS).add(boardProject.getFixVersionIndex(fixVersion)));
-            }
+            components.forEach(component -> issueNode.get(Constants.COMPONENTS).add(boardProject.getComponentIndex(component)));
+            labels.forEach(label -> issueNode.get(Constants.LABELS).add(boardProject.getLabelIndex(label)));
+            fixVersions.forEach(fixVersion -> issueNode.get(Constants.FIX_VERSIONS).add(boardProject.getFixVersionIndex(fixVersion)));
             if (customFieldValues.size() > 0) {
                 final ModelNode custom = issueNode.get(Constants.CUSTOM);
                 customFieldValues.values().forEach(
                         customFieldValue -> custom.get(customFieldValue.getCustomFieldName()).set(boardProject.getCustomFieldValueIndex(customFieldValue)));
             }
             if (parallelTaskFieldGroupValues != null) {
-                final ModelNode parallel = issueNode.get(Constants.PARALLEL_TASKS).setEmptyList();
-                parallelTaskFieldGroupValues.forEach(group -> {
-                    ModelNode groupNode = new ModelNode().setEmptyList();
-                    group.forEach(value -> {
-                        groupNode.add(value);
-                    });
-                    parallel.add(groupNode);
-                });
+                issueNode.get(Constants.PARALLEL_TASKS).set(ParallelTaskValues.serialize(parallelTaskFieldGroupValues));
             }
 
             if (hasLinkedIssues()) {
-                final ModelNode linkedIssuesNode = issueNode.get(Constants.LINKED_ISSUES);
-                linkedIssues.forEach(linkedIssue -> linkedIssuesNode.add(linkedIssue.getModelNodeForFullRefresh(board)));
+                issueNode.get(Constants.LINKED_ISSUES).set(getLinkedIssuesModelNode(board));
             }
             if (parentIssueKey != null) {
                 issueNode.get(Constants.PARENT).set(parentIssueKey);
             }
-            if (epicIndex != null) {
+            if (epicIndex != NO_EPIC) {
                 issueNode.get(Constants.EPIC).set(epicIndex);
             }
 
             return issueNode;
         }
 
+        @Override
+        OverbaardIssueEvent createReconcileEvent(BoardConfig boardConfig, BoardProject project,
+                                                 com.atlassian.jira.issue.Issue jiraIssue, boolean reranked) {
+            //Like for the events from Jira, only the fields which changed are set
+            boolean changed = false;
+            String issueType = jiraIssue.getIssueTypeObject().getName();
+            final boolean issueTypeChanged = !issueType.equals(getIssueTypeName());
+            if (issueTypeChanged) {
+                changed = true;
+            } else {
+                issueType = null;
+            }
+            String priority = jiraIssue.getPriorityObject() == null ? null : jiraIssue.getPriorityObject().getName();
+            if (priority != null && !priority.equals(boardConfig.getPriorityName(priorityIndex))) {
+                changed = true;
+            } else {
+                priority = null;
+            }
+            String summary = jiraIssue.getSummary();
+            if (!Objects.equals(summary, getSummary())) {
+                changed = true;
+            } else {
+                summary = null;
+            }
+            ApplicationUser assignee = null;
+            final String assigneeKey = jiraIssue.getAssignee() == null ? null : jiraIssue.getAssignee().getKey();
+            if (!Objects.equals(assigneeKey, this.assignee == null ? null : this.assignee.getKey())) {
+                assignee = jiraIssue.getAssignee() == null ? OverbaardIssueEvent.UNASSIGNED : jiraIssue.getAssignee();
+                changed = true;
+            }
+            Collection<ProjectComponent> components = jiraIssue.getComponentObjects();
+            if (!getNames(this.components).equals(getNames(components, ProjectComponent::getName))) {
+                changed = true;
+            } else {
+                components = null;
+            }
+            Collection<Label> labels = jiraIssue.getLabels();
+            if (!getNames(this.labels).equals(getNames(labels, Label::getLabel))) {
+                changed = true;
+            } else {
+                labels = null;
+            }
+            Collection<Version> fixVersions = jiraIssue.getFixVersions();
+            if (!getNames(this.fixVersions).equals(getNames(fixVersions, Version::getName))) {
+                changed = true;
+            } else {
+                fixVersions = null;
+            }
+            String state = jiraIssue.getStatusObject().getName();
+            if (!state.equals(getState())) {
+                changed = true;
+            } else {
+                state = null;
+            }
+
+            final Map<Long, String> customFieldValues = new HashMap<>();
+            final BoardProjectConfig projectConfig = boardConfig.getBoardProject(getProjectCode());
+            for (String customFieldName : projectConfig.getCustomFieldNames()) {
+                final CustomFieldConfig customFieldConfig = boardConfig.getCustomFieldConfigForOverbaardName(customFieldName);
+                final Object value = jiraIssue.getCustomFieldValue(customFieldConfig.getJiraCustomField());
+                final String key = value == null ? null : CustomFieldUtil.getUtil(customFieldConfig).getCreateEventValue(value);
+                final CustomFieldValue existing = this.customFieldValues.get(customFieldName);
+                if (!Objects.equals(key, existing == null ? null : existing.getKey())) {
+                    //An empty value clears the field
+                    customFieldValues.put(customFieldConfig.getId(), key == null ? "" : key);
+                }
+            }
+
+            final String currentIssueType = jiraIssue.getIssueTypeObject().getName();
+            final ProjectParallelTaskGroupsConfig parallelTaskGroupsConfig = projectConfig.getParallelTaskGroupsConfig(currentIssueType);
+            if (parallelTaskGroupsConfig != null) {
+                for (ParallelTaskCustomFieldConfig config : parallelTaskGroupsConfig.getFieldConfigs()) {
+                    final String value = CustomFieldValue.getParallelTaskCustomFieldValue(
+                            jiraIssue, config.getJiraCustomField(), config.getId().toString());
+                    if (value == null) {
+                        continue;
+                    }
+                    if (issueTypeChanged) {
+                        //When the issue type changes, all the parallel task values are set again
+                        customFieldValues.put(config.getId(), value);
+                        continue;
+                    }
+                    final Integer optionIndex =
+                            project.getParallelTaskOptions().getOptions(currentIssueType).get(config.getName()).getIndex(value);
+                    final ParallelTaskGroupPosition position = parallelTaskGroupsConfig.getPosition(config.getName());
+                    final int existingIndex = parallelTaskFieldGroupValues == null ?
+                            -1 : ParallelTaskValues.get(parallelTaskFieldGroupValues, position.getGroupIndex(), position.getTaskIndex());
+                    if (optionIndex != null && optionIndex != existingIndex) {
+                        customFieldValues.put(config.getId(), value);
+                    }
+                }
+            }
+            if (customFieldValues.size() > 0) {
+                changed = true;
+            }
+
+            if (!changed && !reranked) {
+                return null;
+            }
+            return OverbaardIssueEvent.createUpdateEvent(getKey(), getProjectCode(), issueType, priority, summary,
+                    assignee, components, labels, fixVersions,
+                    //Always pass in the existing/old state of the issue
+                    getState(), state, reranked, customFieldValues);
+        }
+
+        @Override
+        boolean linkedIssuesDiffer(JiraInjectables jiraInjectables, BoardConfig boardConfig,
+                                   com.atlassian.jira.issue.Issue jiraIssue) {
+            final BoardProjectConfig projectConfig = boardConfig.getBoardProject(getProjectCode());
+            final IssueLinkManager issueLinkManager = jiraInjectables.getIssueLinkManager();
+            final Map<String, com.atlassian.jira.issue.Issue> jiraLinkedIssues = new HashMap<>();
+            addLinkedIssues(boardConfig, projectConfig, jiraIssue, issueLinkManager.getOutwardLinks(jiraIssue.getId()), true, jiraLinkedIssues);
+            addLinkedIssues(boardConfig, projectConfig, jiraIssue, issueLinkManager.getInwardLinks(jiraIssue.getId()), false, jiraLinkedIssues);
+            if (jiraLinkedIssues.size() != linkedIssues.size()) {
+                return true;
+            }
+            for (LinkedIssue linkedIssue : linkedIssues) {
+                final com.atlassian.jira.issue.Issue jiraLinkedIssue = jiraLinkedIssues.get(linkedIssue.getKey());
+                if (jiraLinkedIssue == null || linkedIssue.differsFrom(jiraLinkedIssue)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean fieldsDiffer(Issue other) {
+            if (super.fieldsDiffer(other)) {
+                return true;
+            }
+            final BoardIssue otherIssue = (BoardIssue) other;
+            return priorityIndex != otherIssue.priorityIndex ||
+                    !Objects.equals(assignee == null ? null : assignee.getKey(),
+                            otherIssue.assignee == null ? null : otherIssue.assignee.getKey()) ||
+                    !getNames(components).equals(getNames(otherIssue.components)) ||
+                    !getNames(labels).equals(getNames(otherIssue.labels)) ||
+                    !getNames(fixVersions).equals(getNames(otherIssue.fixVersions)) ||
+                    !getCustomFieldKeys(customFieldValues).equals(getCustomFieldKeys(otherIssue.customFieldValues)) ||
+                    !Arrays.equals(parallelTaskFieldGroupValues, otherIssue.parallelTaskFieldGroupValues);
+        }
+
+        @Override
+        boolean parentOrEpicDiffer(Issue other) {
+            final BoardIssue otherIssue = (BoardIssue) other;
+            return !Objects.equals(epicKey, otherIssue.epicKey) ||
+                    !Objects.equals(parentIssueKey, otherIssue.parentIssueKey);
+        }
+
+        @Override
+        boolean linkedIssuesDiffer(Issue other) {
+            final BoardIssue otherIssue = (BoardIssue) other;
+            if (linkedIssues.size() != otherIssue.linkedIssues.size()) {
+                return true;
+            }
+            for (int i = 0; i < linkedIssues.size(); i++) {
+                final LinkedIssue linkedIssue = linkedIssues.get(i);
+                final LinkedIssue otherLinkedIssue = otherIssue.linkedIssues.get(i);
+                if (!linkedIssue.getKey().equals(otherLinkedIssue.getKey()) || linkedIssue.fieldsDiffer(otherLinkedIssue)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static Map<String, String> getCustomFieldKeys(Map<String, CustomFieldValue> customFieldValues) {
+            final Map<String, String> keys = new HashMap<>();
+            for (Map.Entry<String, CustomFieldValue> entry : customFieldValues.entrySet()) {
+                keys.put(entry.getKey(), entry.getValue() == null ? null : entry.getValue().getKey());
+            }
+            return keys;
+        }
+
+        private static void addLinkedIssues(BoardConfig boardConfig, BoardProjectConfig projectConfig,
+                                            com.atlassian.jira.issue.Issue jiraIssue, List<IssueLink> links,
+                                            boolean outbound, Map<String, com.atlassian.jira.issue.Issue> linkedIssues) {
+            if (links == null) {
+                return;
+            }
+            //This uses the same filtering as Builder.addLinkedIssues()
+            for (IssueLink link : links) {
+                final com.atlassian.jira.issue.Issue linkedIssue = outbound ? link.getDestinationObject() : link.getSourceObject();
+                final String linkedProjectKey = linkedIssue.getProjectObject().getKey();
+                if (boardConfig.getLinkedProjectConfig(linkedProjectKey) == null) {
+                    continue;
+                }
+                final String linkName = outbound ? link.getIssueLinkType().getOutward() : link.getIssueLinkType().getInward();
+                final LinkedIssueFilterUtil filter = new LinkedIssueFilterUtil(
+                        projectConfig, jiraIssue.getIssueTypeObject().getName(), linkName, linkedIssue, linkedProjectKey);
+                if (filter.includeIssue()) {
+                    linkedIssues.put(linkedIssue.getKey(), linkedIssue);
+                }
+            }
+        }
+
+        private static Set<String> getNames(Set<? extends MultiSelectNameOnlyValue> values) {
+            if (values == null || values.size() == 0) {
+                return Collections.emptySet();
+            }
+            final Set<String> names = new TreeSet<>();
+            for (MultiSelectNameOnlyValue value : values) {
+                names.add(value.getName());
+            }
+            return names;
+        }
+
+        private static <T> Set<String> getNames(Collection<T> values, Function<T, String> nameFunction) {
+            if (values == null || values.size() == 0) {
+                return Collections.emptySet();
+            }
+            final Set<String> names = new TreeSet<>();
+            for (T value : values) {
+                names.add(nameFunction.apply(value));
+            }
+            return names;
+        }
+
         @Override
         BoardChangeRegistry.IssueChange convertToCreateIssueChange(BoardChangeRegistry registry, BoardConfig boardConfig) {
             String issueType = boardConfig.getIssueTypeName(issueTypeIndex);
@@ -399,7 +749,7 @@ public abstract class Issue {
     private static class LinkedIssue extends Issue {
         private final LinkedProjectConfig project;
 
-        public LinkedIssue(LinkedProjectConfig project, String key, String state, Integer stateIndex, String issueTypeName, String summary) {
+        public LinkedIssue(LinkedProjectConfig project, String key, String state, int stateIndex, String issueTypeName, String summary) {
             super(project, key, state, stateIndex, issueTypeName, summary);
             this.project = project;
         }
@@ -447,8 +797,9 @@ public abstract class Issue {
         private Map<String, CustomFieldValue> customFieldValues;
 
         //Will only be set for an update
-        private List<List<Integer>> originalParallelTaskGroupValues;
-        private Integer[][] parallelTaskGroupValues;
+        private byte[] originalParallelTaskGroupValues;
+        //Only created once a value is set. For an update this starts off as a copy of the original values
+        private byte[] parallelTaskGroupValues;
         private boolean clearParallelTaskGroupValues;
 
         private Builder(BoardProject.Accessor project, IssueLoadStrategy issueLoadStrategy) {
@@ -481,7 +832,7 @@ public abstract class Issue {
             this.stateIndex = existing.getStateIndex();
             this.parentIssueKey = existing.parentIssueKey;
             this.epicKey = existing.epicKey;
-            this.epicIndex = existing.epicIndex;
+            this.epicIndex = existing.epicIndex == BoardIssue.NO_EPIC ? null : existing.epicIndex;
             if (existing.linkedIssues.size() > 0) {
                 Set<LinkedIssue> linkedIssues = createLinkedIssueSet();
                 linkedIssues.addAll(existing.linkedIssues);
@@ -504,12 +855,27 @@ public abstract class Issue {
             setPriority(issue.getPriorityObject().getName());
             setState(this.issueTypeName, issue.getStatusObject().getName());
 
-            //Load the custom fields, epics and parents
+            //Load the custom fields, epics, parents and linked issues
             issueLoadStrategy.handle(issue, this);
+        }
 
-            final IssueLinkManager issueLinkManager = project.getIssueLinkManager();
-            addLinkedIssues(issueLinkManager.getOutwardLinks(issue.getId()), true);
-            addLinkedIssues(issueLinkManager.getInwardLinks(issue.getId()), false);
+        /**
+         * Loads the core fields of an issue whose data was read directly, rather than from a Jira issue. The
+         * {@link IssueLoadStrategy} creating the builder is responsible for loading the custom fields, epics, parents
+         * and linked issues.
+         */
+        void load(String issueKey, String summary, ApplicationUser assigneeUser,
+                  Collection<String> componentNames, Collection<String> labelNames, Collection<String> fixVersionNames,
+                  String issueTypeName, String priorityName, String stateName) {
+            this.issueKey = issueKey;
+            this.summary = summary;
+            assignee = project.getAssignee(assigneeUser);
+            components = project.getComponentsForNames(componentNames);
+            labels = project.getLabelsForNames(labelNames);
+            fixVersions = project.getFixVersionsForNames(fixVersionNames);
+            setIssueType(issueTypeName);
+            setPriority(priorityName);
+            setState(this.issueTypeName, stateName);
         }
 
         private Builder setIssueKey(String issueKey) {
@@ -563,11 +929,19 @@ public abstract class Issue {
         }
 
         private Builder setState(String issueType, String stateName) {
-            state = stateName;
-            stateIndex = project.getStateIndexRecordingMissing(issueKey, issueType, state);
+            stateIndex = project.getStateIndexRecordingMissing(issueKey, issueType, stateName);
+            //Use the name held by the config, rather than a copy for each issue
+            state = stateIndex == null ?
+                    stateName : project.getConfig().getProjectStatesLinks(issueType).getStateName(stateIndex);
             return this;
         }
 
+        private void loadLinkedIssues(com.atlassian.jira.issue.Issue issue) {
+            final IssueLinkManager issueLinkManager = project.getIssueLinkManager();
+            addLinkedIssues(issueLinkManager.getOutwardLinks(issue.getId()), true);
+            addLinkedIssues(issueLinkManager.getInwardLinks(issue.getId()), false);
+        }
+
         private void addLinkedIssues(List<IssueLink> links, boolean outbound) {
             if (links == null) {
                 return;
@@ -591,16 +965,51 @@ public abstract class Issue {
                     continue;
                 }
 
-                String stateName = linkedIssue.getStatusObject().getName();
-                Integer stateIndex = linkedProjectContext.getStateIndexRecordingMissing(linkedIssue.getKey(), linkedIssue.getIssueType().getName(), stateName);
+                addLinkedIssue(linkedProjectContext, linkedIssue.getKey(), linkedIssue.getStatusObject().getName(),
+                        linkedIssue.getIssueType().getName(), linkedIssue.getSummary());
+            }
+        }
 
-                if (stateIndex != null) {
-                    if (linkedIssues == null) {
-                        linkedIssues = createLinkedIssueSet();
-                    }
-                    linkedIssues.add(new LinkedIssue(linkedProjectContext.getConfig(), linkedIssue.getKey(),
-                            stateName, stateIndex, linkedIssue.getIssueType().getName(), linkedIssue.getSummary()));
+        /**
+         * Adds a linked issue whose data has been bulk loaded by the {@link IssueLoadStrategy}.
+         *
+         * @param linkedProjectKey the project key of the linked issue
+         * @param linkedIssueKey the key of the linked issue
+         * @param linkName the name of the link from this issue
+         * @param stateName the state of the linked issue
+         * @param issueTypeName the issue type of the linked issue
+         * @param priorityName the priority of the linked issue
+         * @param summary the summary of the linked issue
+         * @param labels supplies the labels of the linked issue, only called if a linked issue filter needs them
+         */
+        void addLinkedIssue(String linkedProjectKey, String linkedIssueKey, String linkName, String stateName,
+                            String issueTypeName, String priorityName, String summary, Supplier<Collection<String>> labels) {
+            BoardProject.LinkedProjectContext linkedProjectContext = project.getLinkedProjectContext(linkedProjectKey);
+            if (linkedProjectContext == null) {
+                //This was not set up as one of the linked projects we are interested in
+                return;
+            }
+            LinkedIssueFilterUtil filter = new LinkedIssueFilterUtil(
+                    project.getConfig(), this.issueTypeName, linkName, issueTypeName, priorityName, labels, linkedProjectKey);
+            if (!filter.includeIssue()) {
+                // We do not match the filter
+                return;
+            }
+            addLinkedIssue(linkedProjectContext, linkedIssueKey, stateName, issueTypeName, summary);
+        }
+
+        private void addLinkedIssue(BoardProject.LinkedProjectContext linkedProjectContext, String linkedIssueKey,
+                                    String stateName, String issueTypeName, String summary) {
+            Integer stateIndex = linkedProjectContext.getStateIndexRecordingMissing(linkedIssueKey, issueTypeName, stateName);
+
+            if (stateIndex != null) {
+                if (linkedIssues == null) {
+                    linkedIssues = createLinkedIssueSet();
                 }
+                //Use the state name held by the config, rather than a copy for each issue
+                linkedIssues.add(new LinkedIssue(linkedProjectContext.getConfig(), linkedIssueKey,
+                        linkedProjectContext.getConfig().getProjectStatesLinks(issueTypeName).getStateName(stateIndex),
+                        stateIndex, issueTypeName, summary));
             }
         }
 
@@ -654,27 +1063,11 @@ public abstract class Issue {
             }
         }
 
-        private List<List<Integer>> mergeParallelTaskFieldGroupValues() {
+        private byte[] mergeParallelTaskFieldGroupValues() {
             if (originalParallelTaskGroupValues == null) {
                 // We are creating a new issue
                 initialiseParallelTaskGroupValues();
-                if (parallelTaskGroupValues == null) {
-                    return null;
-                }
-                List<List<Integer>> values = new ArrayList<>();
-                for (int i = 0 ; i < parallelTaskGroupValues.length ; i++) {
-                    Integer[] group = parallelTaskGroupValues[i];
-                    List<Integer> groupValues = new ArrayList<>();
-                    for (int j = 0 ; j < group.length ; j++) {
-                        Integer val = group[j];
-                        if (val == null) {
-                            val = 0;
-                        }
-                        groupValues.add(val);
-                    }
-                    values.add(Collections.unmodifiableList(groupValues));
-                }
-                return Collections.unmodifiableList(values);
+                return parallelTaskGroupValues;
             } else {
                 if (parallelTaskGroupValues == null) {
                     if (clearParallelTaskGroupValues) {
@@ -683,21 +1076,8 @@ public abstract class Issue {
                         return originalParallelTaskGroupValues;
                     }
                 }
-                List<List<Integer>> merged = new ArrayList<>();
-                for (int i = 0; i < parallelTaskGroupValues.length; i++) {
-                    Integer[] newGroup = parallelTaskGroupValues[i];
-                    List<Integer> mergedGroupValues = new ArrayList<>();
-                    for (int j = 0 ; j < newGroup.length ; j++) {
-                        Integer newVal = newGroup[j];
-                        if (newVal != null) {
-                            mergedGroupValues.add(newVal);
-                        } else {
-                            mergedGroupValues.add(originalParallelTaskGroupValues.get(i).get(j));
-                        }
-                    }
-                    merged.add(Collections.unmodifiableList(mergedGroupValues));
-                }
-                return Collections.unmodifiableList(merged);
+                // The values set were written straight into the copy of the original values
+                return parallelTaskGroupValues;
             }
         }
 
@@ -713,7 +1093,7 @@ public abstract class Issue {
             if (customFieldValues == null) {
                 customFieldValues = new HashMap<>();
             }
-            customFieldValues.put(value.getKey(), value);
+            customFieldValues.put(value.getCustomFieldName(), value);
             return this;
         }
 
@@ -725,7 +1105,7 @@ public abstract class Issue {
             initialiseParallelTaskGroupValues();
             if (parallelTaskGroupValues != null) {
                 // This will be null if it is an override where the issue did not exist
-                parallelTaskGroupValues[position.getGroupIndex()][position.getTaskIndex()] = optionIndex;
+                ParallelTaskValues.set(parallelTaskGroupValues, position.getGroupIndex(), position.getTaskIndex(), optionIndex);
             }
             return this;
         }
@@ -739,10 +1119,12 @@ public abstract class Issue {
             if (parallelTaskGroupValues == null) {
                 ProjectParallelTaskGroupsConfig parallelTaskGroupsConfig = project.getConfig().getParallelTaskGroupsConfig(issueTypeName);
                 if (parallelTaskGroupsConfig != null) {
-                    List<ProjectParallelTaskConfig> groups = parallelTaskGroupsConfig.getConfigGroups();
-                    parallelTaskGroupValues = new Integer[groups.size()][];
-                    for (int i = 0 ; i < groups.size() ; i++) {
-                        parallelTaskGroupValues[i] = new Integer[groups.get(i).getConfigs().size()];
+                    if (originalParallelTaskGroupValues != null &&
+                            ParallelTaskValues.hasLayout(originalParallelTaskGroupValues, parallelTaskGroupsConfig)) {
+                        // Values not set in this update keep their original value
+                        parallelTaskGroupValues = originalParallelTaskGroupValues.clone();
+                    } else {
+                        parallelTaskGroupValues = ParallelTaskValues.create(parallelTaskGroupsConfig);
                     }
                 }
             }
@@ -800,6 +1182,8 @@ public abstract class Issue {
 
             }
 
+            builder.loadLinkedIssues(issue);
+
             // TODO get from configuration
             final long epicLinkCustomField = project.getBoard().getConfig().getEpicLinkCustomFieldId();
             final long epicSummaryCustomField = project.getBoard().getConfig().getEpicSummaryCustomFieldId();
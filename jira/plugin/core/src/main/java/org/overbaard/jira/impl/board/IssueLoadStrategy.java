@@ -19,6 +19,7 @@ package org.overbaard.jira.impl.board;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -26,9 +27,12 @@ import java.util.Map;
 
 import org.overbaard.jira.api.adapter.spi.JiraApiAdapter;
 import org.overbaard.jira.api.adapter.spi.SearchResultsAdapter;
+import org.overbaard.jira.impl.config.LoadStrategy;
 import org.overbaard.jira.impl.util.IndexedMap;
 
 import com.atlassian.jira.bc.issue.search.SearchService;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.issue.IssueManager;
 import com.atlassian.jira.issue.search.SearchException;
 import com.atlassian.jira.issue.search.SearchResults;
 import com.atlassian.jira.jql.builder.JqlClauseBuilder;
@@ -45,6 +49,83 @@ import com.atlassian.query.order.SortOrder;
  */
 interface IssueLoadStrategy {
 
+    /**
+     * The number of Jira issues to load at a time when loading a project
+     */
+    int PAGE_SIZE = Integer.getInteger("overbaard.issue.load.page.size", 500);
+
+    /**
+     * Runs the query for a project's issues, and creates a builder for each issue found, loaded with the core fields
+     * of the issue. By default the query is only used to read the ids of the matching issues from the index, and the
+     * Jira issues are then loaded a page of ids at a time, so that only one page of Jira issues is held in memory.
+     * Paging through the ids of a single query, rather than running the query again for each page with an offset,
+     * means that an issue which is re-ranked, created or deleted while the project is loading cannot make other
+     * issues be skipped or loaded twice. Each Jira issue is passed in to
+     * {@link Issue.Builder#load(com.atlassian.jira.issue.Issue)}, which calls
+     * {@link #handle(com.atlassian.jira.issue.Issue, Issue.Builder)}, and {@link #pageLoaded()} is called once the
+     * whole page has been handled.
+     *
+     * @param project the project being loaded
+     * @param query the query for the project's issues
+     * @return the builders, in the order of the query
+     * @throws SearchException if the search failed
+     */
+    default List<Issue.Builder> loadIssues(BoardProject.Builder project, Query query) throws SearchException {
+        final SearchResultsAdapter searchResultsAdapter = JiraApiAdapter.Factory.get().getSearchResultsAdapter();
+        final LoadProgress loadProgress = project.getLoadProgress();
+        final List<Issue.Builder> issueBuilders = new ArrayList<>();
+        if (!JiraApiAdapter.Factory.get().getJiraEnvironmentAdapter().isRunningInJira()) {
+            // For unit tests, the mocked search service returns all the issues and can't look up issues by id
+            final SearchService searchService = project.getJiraInjectables().getSearchService();
+            final SearchResults searchResults =
+                    searchService.search(project.getBoard().getBoardOwner(), query, PagerFilter.getUnlimitedFilter());
+            final List<com.atlassian.jira.issue.Issue> issues = searchResultsAdapter.getIssueResults(searchResults);
+            loadProgress.addEstimatedTotal(issues.size());
+            for (com.atlassian.jira.issue.Issue jiraIssue : issues) {
+                Issue.Builder issueBuilder = Issue.builder(project, this);
+                issueBuilder.load(jiraIssue);
+                issueBuilders.add(issueBuilder);
+            }
+            pageLoaded();
+            loadProgress.addLoaded(issues.size());
+            return issueBuilders;
+        }
+
+        final List<Long> ids = searchResultsAdapter.getIssueIds(project.getBoard().getBoardOwner(), query);
+        loadProgress.addEstimatedTotal(ids.size());
+        final IssueManager issueManager = ComponentAccessor.getIssueManager();
+        for (int i = 0; i < ids.size(); i += PAGE_SIZE) {
+            loadProgress.checkCancelled();
+            final List<Long> idPage = ids.subList(i, Math.min(i + PAGE_SIZE, ids.size()));
+            final Map<Long, com.atlassian.jira.issue.Issue> jiraIssues = new HashMap<>(idPage.size());
+            for (com.atlassian.jira.issue.Issue jiraIssue : issueManager.getIssueObjects(idPage)) {
+                jiraIssues.put(jiraIssue.getId(), jiraIssue);
+            }
+            //Create the builders in the order returned by the query
+            for (Long id : idPage) {
+                final com.atlassian.jira.issue.Issue jiraIssue = jiraIssues.get(id);
+                if (jiraIssue == null) {
+                    //The issue was deleted after the query was run
+                    continue;
+                }
+                Issue.Builder issueBuilder = Issue.builder(project, this);
+                issueBuilder.load(jiraIssue);
+                issueBuilders.add(issueBuilder);
+            }
+            pageLoaded();
+            loadProgress.addLoaded(idPage.size());
+        }
+        return issueBuilders;
+    }
+
+    /**
+     * Called by the default {@link #loadIssues(BoardProject.Builder, Query)} once a page of issues has been handled.
+     * Strategies which load data for the handled issues in bulk can use this to load the data for the page, rather than
+     * waiting for {@link #finish()}.
+     */
+    default void pageLoaded() {
+    }
+
     /**
      * Called for each issue. When called for an issue it will set
      * all custom fields and parallel task issues in the created issues.
@@ -124,10 +205,26 @@ interface IssueLoadStrategy {
 
     class Factory {
 
+        /**
+         * Set to the name of a {@link LoadStrategy} to choose the strategy used to load the boards in Jira which
+         * do not configure their own 'load-strategy'. If not set, the {@link BulkIssueLoadStrategy} is used.
+         */
+        static final String STRATEGY_PROPERTY = "overbaard.issue.load.strategy";
+
         static IssueLoadStrategy create(BoardProject.Builder project) {
             final boolean customFieldsOrParallelTasks =
                     project.getConfig().getCustomFieldNames().size() > 0 || project.getConfig().getInternalAdvanced().getParallelTaskGroupsConfig() != null;
             if (JiraApiAdapter.Factory.get().getJiraEnvironmentAdapter().isRunningInJira()) {
+                LoadStrategy loadStrategy = project.getBoard().getConfig().getLoadStrategy();
+                if (loadStrategy == null) {
+                    loadStrategy = LoadStrategy.parse(System.getProperty(STRATEGY_PROPERTY));
+                }
+                if (loadStrategy == LoadStrategy.STREAMING) {
+                    return new StreamingIssueLoadStrategy(project, customFieldsOrParallelTasks);
+                }
+                if (loadStrategy == LoadStrategy.INDEX) {
+                    return new IndexIssueLoadStrategy(project, customFieldsOrParallelTasks);
+                }
                 return new BulkIssueLoadStrategy(project, customFieldsOrParallelTasks);
             }
             //We are running in a unit test, so we don't use this strategy (see class javadoc)
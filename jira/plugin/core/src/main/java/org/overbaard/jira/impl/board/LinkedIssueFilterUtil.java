@@ -1,5 +1,10 @@
 package org.overbaard.jira.impl.board;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 import org.overbaard.jira.impl.config.BoardProjectConfig;
 import org.overbaard.jira.impl.config.LinkedIssueFilterConfig;
 
@@ -12,17 +17,51 @@ public class LinkedIssueFilterUtil {
     private final BoardProjectConfig projectConfig;
     private final String owningIssueType;
     private final String linkName;
-    private final Issue linkedIssue;
+    private final String linkedIssueType;
+    private final String linkedPriority;
+    private final Supplier<Collection<String>> linkedLabels;
     private final String linkedProjectKey;
 
     LinkedIssueFilterUtil(BoardProjectConfig projectConfig, String owningIssueType, String linkName, Issue linkedIssue, String linkedProjectKey) {
+        this(projectConfig, owningIssueType, linkName,
+                linkedIssue.getIssueType().getName(),
+                linkedIssue.getPriority() == null ? null : linkedIssue.getPriority().getName(),
+                () -> getLabelNames(linkedIssue),
+                linkedProjectKey);
+    }
+
+    /**
+     * Used when the linked issue data has been bulk loaded rather than being available as a Jira issue
+     *
+     * @param projectConfig the config of the project containing the owning issue
+     * @param owningIssueType the issue type of the owning issue
+     * @param linkName the name of the link from the owning issue
+     * @param linkedIssueType the issue type of the linked issue
+     * @param linkedPriority the priority of the linked issue
+     * @param linkedLabels supplies the labels of the linked issue. This is only called if the filter uses labels
+     * @param linkedProjectKey the project key of the linked issue
+     */
+    LinkedIssueFilterUtil(BoardProjectConfig projectConfig, String owningIssueType, String linkName,
+                          String linkedIssueType, String linkedPriority, Supplier<Collection<String>> linkedLabels,
+                          String linkedProjectKey) {
         this.projectConfig = projectConfig;
         this.owningIssueType = owningIssueType;
         this.linkName = linkName;
-        this.linkedIssue = linkedIssue;
+        this.linkedIssueType = linkedIssueType;
+        this.linkedPriority = linkedPriority;
+        this.linkedLabels = linkedLabels;
         this.linkedProjectKey = linkedProjectKey;
     }
 
+    private static Collection<String> getLabelNames(Issue linkedIssue) {
+        if (linkedIssue.getLabels() == null) {
+            return Collections.emptySet();
+        }
+        return linkedIssue.getLabels().stream()
+                .map(com.atlassian.jira.issue.label.Label::getLabel)
+                .collect(Collectors.toList());
+    }
+
     public boolean includeIssue() {
         LinkedIssueFilterConfig filterConfig =
                 projectConfig.getLinkedIssueFilterConfig(owningIssueType).get(linkedProjectKey);
@@ -36,12 +75,12 @@ public class LinkedIssueFilterUtil {
         }
 
         if (filterConfig.getIssueTypes().size() > 0) {
-            if (!filterConfig.getIssueTypes().contains(linkedIssue.getIssueType().getName())) {
+            if (!filterConfig.getIssueTypes().contains(linkedIssueType)) {
                 return false;
             }
         }
         if (filterConfig.getPriorities().size() > 0) {
-            if (!filterConfig.getPriorities().contains(linkedIssue.getPriority().getName())) {
+            if (!filterConfig.getPriorities().contains(linkedPriority)) {
                 return false;
             }
         }
@@ -52,12 +91,10 @@ public class LinkedIssueFilterUtil {
         }
         if (filterConfig.getLabels().size() > 0) {
             boolean matchesOneLabel = false;
-            if (linkedIssue.getLabels() != null) {
-                for (com.atlassian.jira.issue.label.Label label : linkedIssue.getLabels()) {
-                    if (filterConfig.getLabels().contains(label.getLabel())) {
-                        matchesOneLabel = true;
-                        break;
-                    }
+            for (String label : linkedLabels.get()) {
+                if (filterConfig.getLabels().contains(label)) {
+                    matchesOneLabel = true;
+                    break;
                 }
             }
             if (!matchesOneLabel) {
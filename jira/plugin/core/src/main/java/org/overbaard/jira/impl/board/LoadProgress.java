@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.board;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks how far the full load of a board has got. It is updated by the threads loading the board's projects, and
+ * read by whoever wants to report the progress of the load.
+ *
+ * @author Kabir Khan
+ */
+public class LoadProgress {
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger estimatedTotal = new AtomicInteger();
+    private volatile String cancelledReason;
+
+    /**
+     * Called when the number of issues a project's query will return becomes known.
+     *
+     * @param count the number of issues
+     */
+    void addEstimatedTotal(int count) {
+        estimatedTotal.addAndGet(count);
+    }
+
+    /**
+     * Called when a page of issues has been loaded.
+     *
+     * @param count the number of issues loaded
+     */
+    void addLoaded(int count) {
+        loaded.addAndGet(count);
+    }
+
+    /**
+     * Cancels the load. The threads loading the board stop at the next page of issues.
+     *
+     * @param reason the reason, used as the message of the exception the load fails with
+     */
+    public void cancel(String reason) {
+        cancelledReason = reason;
+    }
+
+    /**
+     * Called by the threads loading the board before loading the next page or batch of issues.
+     *
+     * @throws RuntimeException if the load was cancelled
+     */
+    void checkCancelled() {
+        final String reason = cancelledReason;
+        if (reason != null) {
+            throw new RuntimeException(reason);
+        }
+    }
+
+    public int getLoaded() {
+        return loaded.get();
+    }
+
+    /**
+     * Gets the estimated total number of issues in the board. This only includes the projects whose loading
+     * has started, and the issues may change while the board is being loaded.
+     *
+     * @return the estimated total
+     */
+    public int getEstimatedTotal() {
+        return Math.max(estimatedTotal.get(), loaded.get());
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.overbaard.jira.impl.board;
+
+import java.util.List;
+
+import org.jboss.dmr.ModelNode;
+import org.overbaard.jira.impl.config.ProjectParallelTaskConfig;
+import org.overbaard.jira.impl.config.ProjectParallelTaskGroupsConfig;
+
+/**
+ * <p>Utilities for the packed representation of an issue's parallel task values. Rather than keeping a list of
+ * lists of boxed integers for each issue, all the values are kept in a single {@code byte[]} laid out as:</p>
+ * <pre>
+ *     [number of groups, group 0 size, group 0 values..., group 1 size, group 1 values..., ...]
+ * </pre>
+ * <p>Each value is the (unsigned) index of the selected option, so there may be up to 256 options for a parallel
+ * task field.</p>
+ *
+ * @author Kabir Khan
+ */
+final class ParallelTaskValues {
+
+    static final int MAX_VALUE = 0xFF;
+
+    private ParallelTaskValues() {
+    }
+
+    /**
+     * Creates the values for an issue with all the options initialised to zero.
+     *
+     * @param groupsConfig the parallel task groups config for the issue type
+     * @return the values
+     */
+    static byte[] create(ProjectParallelTaskGroupsConfig groupsConfig) {
+        List<ProjectParallelTaskConfig> groups = groupsConfig.getConfigGroups();
+        int length = 1 + groups.size();
+        for (ProjectParallelTaskConfig group : groups) {
+            length += group.getConfigs().size();
+        }
+        byte[] values = new byte[length];
+        values[0] = checkedByte(groups.size());
+        int index = 1;
+        for (ProjectParallelTaskConfig group : groups) {
+            values[index] = checkedByte(group.getConfigs().size());
+            index += 1 + group.getConfigs().size();
+        }
+        return values;
+    }
+
+    /**
+     * Checks whether the values are laid out for the groups config, so that they can be copied when updating an issue.
+     *
+     * @param values the values
+     * @param groupsConfig the parallel task groups config for the issue type
+     * @return whether the values match the groups config
+     */
+    static boolean hasLayout(byte[] values, ProjectParallelTaskGroupsConfig groupsConfig) {
+        List<ProjectParallelTaskConfig> groups = groupsConfig.getConfigGroups();
+        if (groupCount(values) != groups.size()) {
+            return false;
+        }
+        int index = 1;
+        for (ProjectParallelTaskConfig group : groups) {
+            int size = values[index] & 0xFF;
+            if (size != group.getConfigs().size()) {
+                return false;
+            }
+            index += 1 + size;
+        }
+        return true;
+    }
+
+    static int groupCount(byte[] values) {
+        return values[0] & 0xFF;
+    }
+
+    static int get(byte[] values, int groupIndex, int taskIndex) {
+        return values[valueIndex(values, groupIndex, taskIndex)] & 0xFF;
+    }
+
+    static void set(byte[] values, int groupIndex, int taskIndex, int optionIndex) {
+        values[valueIndex(values, groupIndex, taskIndex)] = checkedByte(optionIndex);
+    }
+
+    /**
+     * Serializes the values as a list of groups, each containing a list of option indices.
+     *
+     * @param values the values
+     * @return the model node
+     */
+    static ModelNode serialize(byte[] values) {
+        final ModelNode parallel = new ModelNode().setEmptyList();
+        int index = 1;
+        for (int group = groupCount(values); group > 0; group--) {
+            final ModelNode groupNode = new ModelNode().setEmptyList();
+            final int end = index + 1 + (values[index] & 0xFF);
+            for (index++; index < end; index++) {
+                groupNode.add(values[index] & 0xFF);
+            }
+            parallel.add(groupNode);
+        }
+        return parallel;
+    }
+
+    private static int valueIndex(byte[] values, int groupIndex, int taskIndex) {
+        if (groupIndex >= groupCount(values)) {
+            throw new IndexOutOfBoundsException("Group index " + groupIndex);
+        }
+        int index = 1;
+        for (int i = 0; i < groupIndex; i++) {
+            index += 1 + (values[index] & 0xFF);
+        }
+        if (taskIndex >= (values[index] & 0xFF)) {
+            throw new IndexOutOfBoundsException("Task index " + taskIndex + " in group " + groupIndex);
+        }
+        return index + 1 + taskIndex;
+    }
+
+    private static byte checkedByte(int value) {
+        if (value < 0 || value > MAX_VALUE) {
+            throw new IllegalArgumentException("Parallel task value out of range: " + value);
+        }
+        return (byte) value;
+    }
+}
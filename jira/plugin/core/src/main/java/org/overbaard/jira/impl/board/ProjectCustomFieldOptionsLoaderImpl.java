@@ -16,12 +16,16 @@
 
 package org.overbaard.jira.impl.board;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 
@@ -46,16 +50,28 @@ import com.atlassian.jira.project.Project;
 /**
  * Used to load up the options for parallel tasks and for
  * custom fields that have a type where the set of options are known in advance.
+ * <p/>
+ * Resolving the options means looking up the field config scheme for the project and issue type, and reading the
+ * options for it, for every field in every project of every board. Since the same fields are used by several boards,
+ * and the boards get reloaded, the options are cached per (custom field id, project id, issue type id). Changes to the
+ * custom fields clear the cache via {@link #clearCache()}. Jira does not send events when the options of a field are
+ * edited, so the entries also expire after {@code overbaard.field.options.cache.ttl.minutes} minutes.
  *
  * @author Kabir Khan
  */
 @Named("overbaardCustomFieldOptionsLoader")
 public class ProjectCustomFieldOptionsLoaderImpl implements ProjectCustomFieldOptionsLoader {
 
+    private static final long TTL_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("overbaard.field.options.cache.ttl.minutes", 10));
+
+    private final ConcurrentHashMap<OptionsKey, CachedOptions> optionsCache = new ConcurrentHashMap<>();
+
     public ParallelTaskOptions loadParallelTaskOptions(JiraInjectables jiraInjectables, BoardConfig boardConfig, BoardProjectConfig projectConfig) {
         ProjectParallelTaskGroupsConfig parallelTaskGroupsConfig = projectConfig.getInternalAdvanced().getParallelTaskGroupsConfig();
+        final Project jiraProject = jiraInjectables.getProjectManager().getProjectByCurrentKey(projectConfig.getCode());
         Map<String, SortedFieldOptions.ParallelTasks> projectParallelTaskOptions =
-                createOptions(jiraInjectables, parallelTaskGroupsConfig, projectConfig.getCode(), null);
+                createOptions(jiraInjectables, parallelTaskGroupsConfig, jiraProject, null);
 
         Map<String, Map<String, SortedFieldOptions.ParallelTasks>> issueTypeParallelTaskValues = new LinkedHashMap<>();
         Map<String, ProjectParallelTaskGroupsConfig> overrides = projectConfig.getInternalAdvanced().getIssueTypeParallelTaskGroupsOverrides();
@@ -68,43 +84,26 @@ public class ProjectCustomFieldOptionsLoaderImpl implements ProjectCustomFieldOp
                 issueTypeMap.put(type.getName(), type);
             }
 
-
             for (Map.Entry<String, ProjectParallelTaskGroupsConfig> overrideEntry : overrides.entrySet()) {
-                for (ParallelTaskCustomFieldConfig config : overrideEntry.getValue().getConfigs().values()) {
-                    Map<String, SortedFieldOptions.ParallelTasks> overrideOptions =
-                            createOptions(jiraInjectables, overrideEntry.getValue(), projectConfig.getCode(), issueTypeMap.get(overrideEntry.getKey()));
-                    issueTypeParallelTaskValues.put(overrideEntry.getKey(), overrideOptions);
-                }
+                Map<String, SortedFieldOptions.ParallelTasks> overrideOptions =
+                        createOptions(jiraInjectables, overrideEntry.getValue(), jiraProject, issueTypeMap.get(overrideEntry.getKey()));
+                issueTypeParallelTaskValues.put(overrideEntry.getKey(), overrideOptions);
             }
         }
         return ParallelTaskOptions.create(projectParallelTaskOptions, issueTypeParallelTaskValues);
     }
 
     private Map<String, SortedFieldOptions.ParallelTasks> createOptions(
-            JiraInjectables jiraInjectables, ProjectParallelTaskGroupsConfig parallelTaskGroupsConfig, String projectCode, IssueType issueType) {
+            JiraInjectables jiraInjectables, ProjectParallelTaskGroupsConfig parallelTaskGroupsConfig, Project jiraProject, IssueType issueType) {
 
         Map<String, SortedFieldOptions.ParallelTasks> parallelTaskOptions = new LinkedHashMap<>();
         if (parallelTaskGroupsConfig != null) {
             for (ParallelTaskCustomFieldConfig config : parallelTaskGroupsConfig.getConfigs().values()) {
-                CustomField customField = config.getJiraCustomField();
-                Project jiraProject = jiraInjectables.getProjectManager().getProjectByCurrentKey(projectCode);
-
-                final List<String> issueTypeIds;
-                if (issueType == null) {
-                    issueTypeIds = Collections.emptyList();
-                } else {
-                    issueTypeIds = Collections.singletonList(issueType.getId());
-                }
-
-                SearchContext searchContext =
-                        jiraInjectables.getSearchContextFactory().create(
-                                null, Collections.singletonList(jiraProject.getId()), issueTypeIds);
-                FieldConfig fieldConfig = customField.getReleventConfig(searchContext);
-                Options options = jiraInjectables.getOptionsManager().getOptions(fieldConfig);
+                List<FieldOption> options = getOptions(jiraInjectables, config.getJiraCustomField(), jiraProject, issueType);
 
                 SortedFieldOptions.ParallelTasks.Builder builder = new SortedFieldOptions.ParallelTasks.Builder(config);
-                for (Option option : options) {
-                    CustomFieldValue value = new ParallelTaskProgressOption(config.getName(), option.getOptionId().toString(), option.getValue());
+                for (FieldOption option : options) {
+                    CustomFieldValue value = new ParallelTaskProgressOption(config.getName(), option.id.toString(), option.value);
                     builder.addOption(value);
                 }
                 parallelTaskOptions.put(config.getName(), builder.build());
@@ -116,30 +115,24 @@ public class ProjectCustomFieldOptionsLoaderImpl implements ProjectCustomFieldOp
     public CustomFieldOptions loadCustomFieldOptions(JiraInjectables jiraInjectables, BoardConfig boardConfig, BoardProjectConfig projectConfig) {
 
         Map<String, SortedFieldOptions.CustomFields> customFieldOptions = new LinkedHashMap<>();
+        Project jiraProject = null;
 
         for (String fieldName : projectConfig.getCustomFieldNames()) {
             CustomFieldConfig customFieldConfig = boardConfig.getCustomFieldConfigForOverbaardName(fieldName);
 
             if (customFieldConfig.getType() == CustomFieldConfig.Type.SINGLE_SELECT_DROPDOWN) {
-
-                final CustomField customField = customFieldConfig.getJiraCustomField();
-                final Project jiraProject = jiraInjectables.getProjectManager().getProjectByCurrentKey(projectConfig.getCode());
+                if (jiraProject == null) {
+                    jiraProject = jiraInjectables.getProjectManager().getProjectByCurrentKey(projectConfig.getCode());
+                }
 
                 // For now assume that the options in for these do not have issue type overrides (how to configure that would require some more thought)
-                final List<String> issueTypeIds = Collections.emptyList();
-
-                SearchContext searchContext =
-                        jiraInjectables.getSearchContextFactory().create(
-                                null, Collections.singletonList(jiraProject.getId()), issueTypeIds);
-
-                FieldConfig fieldConfig = customField.getReleventConfig(searchContext);
-                Options options = jiraInjectables.getOptionsManager().getOptions(fieldConfig);
+                List<FieldOption> options = getOptions(jiraInjectables, customFieldConfig.getJiraCustomField(), jiraProject, null);
 
                 SortedFieldOptions.CustomFields.Builder builder = new SortedFieldOptions.CustomFields.Builder(customFieldConfig);
-                for (Option option : options) {
-                    //CustomFieldValue value = new SingleSelectDropDownCustomFieldValue(customFieldConfig.getName(), option.getOptionId().toString(), option.getValue());
-                    CustomFieldValue value = new SingleSelectDropDownCustomFieldValue(customFieldConfig.getName(), option.getValue(), option.getValue());
-                    builder.addOption(option.getOptionId(), value);
+                for (FieldOption option : options) {
+                    //CustomFieldValue value = new SingleSelectDropDownCustomFieldValue(customFieldConfig.getName(), option.id.toString(), option.value);
+                    CustomFieldValue value = new SingleSelectDropDownCustomFieldValue(customFieldConfig.getName(), option.value, option.value);
+                    builder.addOption(option.id, value);
                 }
                 customFieldOptions.put(customFieldConfig.getName(), builder.build());
             }
@@ -147,4 +140,86 @@ public class ProjectCustomFieldOptionsLoaderImpl implements ProjectCustomFieldOp
         return CustomFieldOptions.create(customFieldOptions);
     }
 
+    @Override
+    public void clearCache() {
+        optionsCache.clear();
+    }
+
+    private List<FieldOption> getOptions(JiraInjectables jiraInjectables, CustomField customField, Project jiraProject, IssueType issueType) {
+        final String issueTypeId = issueType == null ? null : issueType.getId();
+        final OptionsKey key = new OptionsKey(customField.getIdAsLong(), jiraProject.getId(), issueTypeId);
+        final long now = System.currentTimeMillis();
+        CachedOptions cached = optionsCache.get(key);
+        if (cached != null && cached.expiry > now) {
+            return cached.options;
+        }
+
+        final List<String> issueTypeIds;
+        if (issueTypeId == null) {
+            issueTypeIds = Collections.emptyList();
+        } else {
+            issueTypeIds = Collections.singletonList(issueTypeId);
+        }
+        SearchContext searchContext =
+                jiraInjectables.getSearchContextFactory().create(
+                        null, Collections.singletonList(jiraProject.getId()), issueTypeIds);
+        FieldConfig fieldConfig = customField.getReleventConfig(searchContext);
+        Options options = jiraInjectables.getOptionsManager().getOptions(fieldConfig);
+
+        List<FieldOption> fieldOptions = new ArrayList<>();
+        for (Option option : options) {
+            fieldOptions.add(new FieldOption(option.getOptionId(), option.getValue()));
+        }
+        fieldOptions = Collections.unmodifiableList(fieldOptions);
+        optionsCache.put(key, new CachedOptions(fieldOptions, now + TTL_MILLIS));
+        return fieldOptions;
+    }
+
+    private static class OptionsKey {
+        private final Long customFieldId;
+        private final Long projectId;
+        private final String issueTypeId;
+
+        OptionsKey(Long customFieldId, Long projectId, String issueTypeId) {
+            this.customFieldId = customFieldId;
+            this.projectId = projectId;
+            this.issueTypeId = issueTypeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            OptionsKey key = (OptionsKey) o;
+            return customFieldId.equals(key.customFieldId) &&
+                    projectId.equals(key.projectId) &&
+                    Objects.equals(issueTypeId, key.issueTypeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(customFieldId, projectId, issueTypeId);
+        }
+    }
+
+    //The option values are copied out of Jira's objects, since the values used on the board depend on the board config
+    private static class FieldOption {
+        private final Long id;
+        private final String value;
+
+        FieldOption(Long id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+    private static class CachedOptions {
+        private final List<FieldOption> options;
+        private final long expiry;
+
+        CachedOptions(List<FieldOption> options, long expiry) {
+            this.options = options;
+            this.expiry = expiry;
+        }
+    }
 }
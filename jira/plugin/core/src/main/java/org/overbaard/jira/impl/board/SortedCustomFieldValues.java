@@ -102,6 +102,10 @@ public class SortedCustomFieldValues {
             fields.put(customFieldValue.getKey(), customFieldValue);
         }
 
+        void merge(Builder other) {
+            other.fields.forEach(fields::putIfAbsent);
+        }
+
         SortedCustomFieldValues build() {
             final Map<String, CustomFieldValue> sortedFields;
             sortedFields = getUtil().sortFields(fields);
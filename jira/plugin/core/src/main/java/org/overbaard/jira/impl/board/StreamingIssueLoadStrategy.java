@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.board;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.ofbiz.core.entity.jdbc.SQLProcessor;
+import org.overbaard.jira.api.adapter.spi.JiraApiAdapter;
+import org.overbaard.jira.impl.util.LongObjectHashMap;
+
+import com.atlassian.jira.issue.search.SearchException;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.query.Query;
+
+/**
+ * <p>Loads the issues without creating the Jira issues. The query is only used to get the ids of the issues, in
+ * rank order, from the index. The core fields of the issues (summary, assignee, issue type, priority, state,
+ * components, labels and fix versions) are then read in batches straight from the database, and the rest of the data
+ * is bulk loaded as in {@link BulkIssueLoadStrategy}.</p>
+ * <p>This means that the memory used while loading is not dominated by the Jira issues, and reading an issue
+ * is a few row reads rather than creating a full domain object.</p>
+ *
+ * @author Kabir Khan
+ */
+class StreamingIssueLoadStrategy extends BulkIssueLoadStrategy {
+
+    private static final String CORE_FIELDS_SQL =
+            "SELECT J.ID, J.ISSUENUM, J.SUMMARY, J.ASSIGNEE, IT.PNAME AS TYPE, PR.PNAME AS PRIORITY, S.PNAME AS STATE " +
+            "FROM JIRAISSUE J " +
+            "JOIN ISSUETYPE IT ON IT.ID = J.ISSUETYPE " +
+            "JOIN ISSUESTATUS S ON S.ID = J.ISSUESTATUS " +
+            "LEFT OUTER JOIN PRIORITY PR ON PR.ID = J.PRIORITY " +
+            "WHERE J.ID";
+
+    private static final String COMPONENTS_SQL =
+            "SELECT NA.SOURCE_NODE_ID, C.CNAME " +
+            "FROM NODEASSOCIATION NA JOIN COMPONENT C ON C.ID = NA.SINK_NODE_ID " +
+            "WHERE NA.SOURCE_NODE_ENTITY = 'Issue' AND NA.SINK_NODE_ENTITY = 'Component' AND " +
+            "NA.ASSOCIATION_TYPE = 'IssueComponent' AND NA.SOURCE_NODE_ID";
+
+    private static final String FIX_VERSIONS_SQL =
+            "SELECT NA.SOURCE_NODE_ID, V.VNAME " +
+            "FROM NODEASSOCIATION NA JOIN PROJECTVERSION V ON V.ID = NA.SINK_NODE_ID " +
+            "WHERE NA.SOURCE_NODE_ENTITY = 'Issue' AND NA.SINK_NODE_ENTITY = 'Version' AND " +
+            "NA.ASSOCIATION_TYPE = 'IssueFixVersion' AND NA.SOURCE_NODE_ID";
+
+    //Labels set via custom fields have a FIELDID, we only want the system labels
+    private static final String LABELS_SQL =
+            "SELECT ISSUE, LABEL FROM LABEL WHERE FIELDID IS NULL AND ISSUE";
+
+    //Keyed by user key. The same few users are normally assigned to a lot of issues
+    private final Map<String, ApplicationUser> assigneeUsers = new HashMap<>();
+
+    StreamingIssueLoadStrategy(BoardProject.Builder project, boolean customFieldsOrParallelTasks) {
+        super(project, customFieldsOrParallelTasks);
+    }
+
+    @Override
+    public List<Issue.Builder> loadIssues(BoardProject.Builder project, Query query) throws SearchException {
+        final List<Long> ids = JiraApiAdapter.Factory.get().getSearchResultsAdapter()
+                .getIssueIds(project.getBoard().getBoardOwner(), query);
+        final List<Issue.Builder> issueBuilders = new ArrayList<>(ids.size());
+        project.getLoadProgress().addEstimatedTotal(ids.size());
+        if (ids.isEmpty()) {
+            return issueBuilders;
+        }
+
+        final SQLProcessor sqlProcessor = new SQLProcessor(dataSourceName);
+        try (CoreFieldsReader reader = new CoreFieldsReader(sqlProcessor.getConnection(), BATCH_SIZE)) {
+            for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+                project.getLoadProgress().checkCancelled();
+                final List<Long> idBatch = ids.subList(i, Math.min(i + BATCH_SIZE, ids.size()));
+                final LongObjectHashMap<IssueRow> rows = reader.read(idBatch);
+
+                //Create the builders in the order returned by the query
+                for (Long id : idBatch) {
+                    final IssueRow row = rows.get(id);
+                    if (row == null) {
+                        //The issue was deleted after the query was run
+                        continue;
+                    }
+                    final String issueKey = project.getCode() + "-" + row.issueNumber;
+                    final Issue.Builder issueBuilder = Issue.builder(project, this);
+                    issueBuilder.load(issueKey, row.summary, getAssigneeUser(row.assigneeKey),
+                            row.components, row.labels, row.fixVersions,
+                            row.issueType, row.priority, row.state);
+                    handle(id, issueKey, issueBuilder);
+                    issueBuilders.add(issueBuilder);
+                }
+                project.getLoadProgress().addLoaded(idBatch.size());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            try {
+                sqlProcessor.close();
+            } catch (Exception ignore) {
+
+            }
+        }
+        return issueBuilders;
+    }
+
+    private ApplicationUser getAssigneeUser(String assigneeKey) {
+        if (assigneeKey == null) {
+            return null;
+        }
+        if (assigneeUsers.containsKey(assigneeKey)) {
+            return assigneeUsers.get(assigneeKey);
+        }
+        ApplicationUser user = project.getJiraInjectables().getJiraUserManager().getUserByKey(assigneeKey);
+        assigneeUsers.put(assigneeKey, user);
+        return user;
+    }
+
+    private static void addValue(LongObjectHashMap<IssueRow> rows, ResultSet rs, Function<IssueRow, List<String>> values) throws SQLException {
+        final IssueRow row = rows.get(rs.getLong(1));
+        if (row != null) {
+            values.apply(row).add(rs.getString(2));
+        }
+    }
+
+    /**
+     * Reads the core fields of batches of issues from the database, using the same prepared statements for each batch.
+     */
+    static class CoreFieldsReader implements AutoCloseable {
+        private final List<BatchedIssueQuery> queries = new ArrayList<>();
+        private final BatchedIssueQuery coreFieldsQuery;
+        private final BatchedIssueQuery componentsQuery;
+        private final BatchedIssueQuery fixVersionsQuery;
+        private final BatchedIssueQuery labelsQuery;
+
+        CoreFieldsReader(Connection connection, int batchSize) throws SQLException {
+            try {
+                coreFieldsQuery = prepare(connection, CORE_FIELDS_SQL, batchSize);
+                componentsQuery = prepare(connection, COMPONENTS_SQL, batchSize);
+                fixVersionsQuery = prepare(connection, FIX_VERSIONS_SQL, batchSize);
+                labelsQuery = prepare(connection, LABELS_SQL, batchSize);
+            } catch (SQLException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private BatchedIssueQuery prepare(Connection connection, String sql, int batchSize) throws SQLException {
+            final BatchedIssueQuery query = new BatchedIssueQuery(connection, sql, batchSize);
+            queries.add(query);
+            return query;
+        }
+
+        /**
+         * Reads a batch of issues.
+         *
+         * @param idBatch the ids of the issues
+         * @return the rows of the issues, keyed by issue id. Issues which no longer exist are not included
+         * @throws SQLException if there was an error reading the issues
+         */
+        LongObjectHashMap<IssueRow> read(List<Long> idBatch) throws SQLException {
+            final LongObjectHashMap<IssueRow> rows = new LongObjectHashMap<>();
+            coreFieldsQuery.execute(idBatch, rs -> rows.put(rs.getLong(1), new IssueRow(rs)));
+            componentsQuery.execute(idBatch, rs -> addValue(rows, rs, row -> row.components));
+            fixVersionsQuery.execute(idBatch, rs -> addValue(rows, rs, row -> row.fixVersions));
+            labelsQuery.execute(idBatch, rs -> addValue(rows, rs, row -> row.labels));
+            return rows;
+        }
+
+        @Override
+        public void close() {
+            queries.forEach(BatchedIssueQuery::close);
+        }
+    }
+
+    static class IssueRow {
+        final long issueNumber;
+        final String summary;
+        final String assigneeKey;
+        final String issueType;
+        final String priority;
+        final String state;
+        final List<String> components = new ArrayList<>(1);
+        final List<String> labels = new ArrayList<>(1);
+        final List<String> fixVersions = new ArrayList<>(1);
+
+        IssueRow(ResultSet rs) throws SQLException {
+            this.issueNumber = rs.getLong(2);
+            this.summary = rs.getString(3);
+            this.assigneeKey = rs.getString(4);
+            this.issueType = rs.getString(5);
+            this.priority = rs.getString(6);
+            this.state = rs.getString(7);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import static org.overbaard.jira.impl.Constants.FIELDS;
 import static org.overbaard.jira.impl.Constants.ISSUE_TYPES;
 import static org.overbaard.jira.impl.Constants.LINKED;
 import static org.overbaard.jira.impl.Constants.LINKED_PROJECTS;
+import static org.overbaard.jira.impl.Constants.LOAD_STRATEGY;
 import static org.overbaard.jira.impl.Constants.MAIN;
 import static org.overbaard.jira.impl.Constants.MANUAL_SWIMLANES;
 import static org.overbaard.jira.impl.Constants.NAME;
@@ -84,6 +85,7 @@ public class BoardConfig {
 
     private final CustomFieldRegistry<CustomFieldConfig> customFields;
     private final BoardParallelTaskConfig parallelTaskConfig;
+    private final LoadStrategy loadStrategy;
 
     private BoardConfig(int id, String code, String name, String owningUserKey,
                         long rankCustomFieldId,
@@ -94,7 +96,8 @@ public class BoardConfig {
                         Map<String, NameAndColour> priorities, Map<String, NameAndColour> issueTypes,
                         CustomFieldRegistry<CustomFieldConfig> customFields,
                         ManualSwimlanesConfig manualSwimlanesConfig,
-                        BoardParallelTaskConfig parallelTaskConfig) {
+                        BoardParallelTaskConfig parallelTaskConfig,
+                        LoadStrategy loadStrategy) {
 
         this.id = id;
         this.code = code;
@@ -124,6 +127,7 @@ public class BoardConfig {
 
         this.customFields = customFields;
         this.parallelTaskConfig = parallelTaskConfig;
+        this.loadStrategy = loadStrategy;
     }
 
     public static BoardConfig loadAndValidate(JiraInjectables jiraInjectables, int id,
@@ -149,6 +153,8 @@ public class BoardConfig {
         final ManualSwimlanesConfig manualSwimlanesConfig =
                 ManualSwimlanesConfig.loadAndValidate(boardNode.get(MANUAL_SWIMLANES), customFields);
 
+        final LoadStrategy loadStrategy = LoadStrategy.loadAndValidate(boardNode.get(LOAD_STRATEGY));
+
         final ModelNode projects = Util.getRequiredChild(boardNode, "Group", boardName, PROJECTS);
         if (projects.getType() != ModelType.LIST) {
             throw new IllegalStateException("'projects' must be an array");
@@ -184,7 +190,8 @@ public class BoardConfig {
                 issueTypes,
                 customFields,
                 manualSwimlanesConfig,
-                parallelTaskConfig);
+                parallelTaskConfig,
+                loadStrategy);
         return boardConfig;
     }
 
@@ -279,6 +286,10 @@ public class BoardConfig {
         return name;
     }
 
+    public long getRankCustomFieldId() {
+        return rankCustomFieldId;
+    }
+
     public long getEpicSummaryCustomFieldId() {
         return epicSummaryCustomFieldId;
     }
@@ -299,6 +310,10 @@ public class BoardConfig {
         return linkedProjects.get(linkedProjectCode);
     }
 
+    public Collection<LinkedProjectConfig> getLinkedProjects() {
+        return linkedProjects.values();
+    }
+
     public CustomFieldConfig getCustomFieldObjectForJiraName(String jiraCustomFieldName) {
         return customFields.getForJiraName(jiraCustomFieldName);
     }
@@ -388,6 +403,9 @@ public class BoardConfig {
             boardNode.get(MANUAL_SWIMLANES).set(manualSwimlanesConfig.serialize());
         }
 
+        if (loadStrategy != null) {
+            boardNode.get(LOAD_STRATEGY).set(loadStrategy.getName());
+        }
 
         final ModelNode projectsNode = boardNode.get(PROJECTS);
         projectsNode.setEmptyList();
@@ -403,6 +421,15 @@ public class BoardConfig {
         return boardNode;
     }
 
+    /**
+     * Gets the strategy configured for loading the board's issues.
+     *
+     * @return the strategy, or {@code null} if none was configured, in which case the default is used
+     */
+    public LoadStrategy getLoadStrategy() {
+        return loadStrategy;
+    }
+
     public Integer getIssueTypeIndex(String name) {
         return issueTypeIndex.get(name);
     }
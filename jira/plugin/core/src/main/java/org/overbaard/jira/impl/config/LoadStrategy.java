@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.config;
+
+import static org.overbaard.jira.impl.Constants.LOAD_STRATEGY;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.dmr.ModelNode;
+import org.overbaard.jira.OverbaardValidationException;
+
+/**
+ * The optional 'load-strategy' of a board, used to choose how the board's issues are loaded from Jira.
+ *
+ * @author Kabir Khan
+ */
+public enum LoadStrategy {
+    //Search for the Jira issues, and bulk load the custom fields, parents, epics and linked issues from the database
+    BULK("bulk"),
+    //Read the issue ids from the index, and read the core fields of the issues from the database
+    STREAMING("streaming"),
+    //Read the core fields of the issues from the index
+    INDEX("index");
+
+    private static final Map<String, LoadStrategy> STRATEGIES_BY_NAME;
+    static {
+        Map<String, LoadStrategy> map = new HashMap<>();
+        for (LoadStrategy strategy : values()) {
+            map.put(strategy.getName(), strategy);
+        }
+        STRATEGIES_BY_NAME = Collections.unmodifiableMap(map);
+    }
+
+    private final String name;
+
+    LoadStrategy(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the strategy with the given name.
+     *
+     * @param name the name
+     * @return the strategy, or {@code null} if there is no strategy with that name
+     */
+    public static LoadStrategy parse(String name) {
+        return STRATEGIES_BY_NAME.get(name);
+    }
+
+    static LoadStrategy loadAndValidate(ModelNode modelNode) {
+        if (!modelNode.isDefined()) {
+            return null;
+        }
+        final LoadStrategy strategy = parse(modelNode.asString());
+        if (strategy == null) {
+            throw new OverbaardValidationException("Unknown '" + LOAD_STRATEGY + "': " + modelNode.asString() +
+                    ". Valid values are " + STRATEGIES_BY_NAME.keySet());
+        }
+        return strategy;
+    }
+}
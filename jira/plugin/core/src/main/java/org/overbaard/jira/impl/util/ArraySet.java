@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A small immutable set backed by an array, keeping the iteration order of the collection it was created from.
+ * Lookups are linear, so this is only intended for the handful of values typically held per issue, where it
+ * takes up a fraction of the memory of a {@code LinkedHashSet}.
+ *
+ * @author Kabir Khan
+ */
+public final class ArraySet<E> extends AbstractSet<E> {
+
+    private static final ArraySet<Object> EMPTY = new ArraySet<>(new Object[0]);
+
+    private final Object[] elements;
+
+    private ArraySet(Object[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Creates a set from a collection.
+     *
+     * @param collection the collection. Duplicate elements are dropped
+     * @return the set. If {@code collection} was {@code null} or empty, this is a shared empty set
+     */
+    public static <E> ArraySet<E> copyOf(Collection<? extends E> collection) {
+        if (collection == null || collection.isEmpty()) {
+            return empty();
+        }
+        if (collection instanceof ArraySet) {
+            @SuppressWarnings("unchecked")
+            ArraySet<E> set = (ArraySet<E>) collection;
+            return set;
+        }
+        Object[] elements = new Object[collection.size()];
+        int size = 0;
+        for (E element : collection) {
+            if (!contains(elements, size, element)) {
+                elements[size++] = element;
+            }
+        }
+        return new ArraySet<>(size == elements.length ? elements : Arrays.copyOf(elements, size));
+    }
+
+    /**
+     * Gets the shared empty set.
+     *
+     * @return the empty set
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> ArraySet<E> empty() {
+        return (ArraySet<E>) EMPTY;
+    }
+
+    private static boolean contains(Object[] elements, int size, Object o) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i].equals(o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return contains(elements, elements.length, o);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < elements.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (index >= elements.length) {
+                    throw new NoSuchElementException();
+                }
+                return (E) elements[index++];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+}
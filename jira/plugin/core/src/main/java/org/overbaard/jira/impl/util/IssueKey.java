@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Packs an issue key such as {@code PROJ-1234} into a {@code long}. The project code is interned, and its index
+ * is kept in the upper bits, while the issue number is kept in the lower {@link #ISSUE_NUMBER_BITS} bits.</p>
+ * <p>This is used for internal lookups where we have the issue number from the database anyway, so we don't need to
+ * build and hash a string key for each issue. The string form should only be needed for the json output.</p>
+ *
+ * @author Kabir Khan
+ */
+public final class IssueKey {
+
+    static final int ISSUE_NUMBER_BITS = 40;
+    private static final long ISSUE_NUMBER_MASK = (1L << ISSUE_NUMBER_BITS) - 1;
+    private static final int MAX_PROJECTS = 1 << (63 - ISSUE_NUMBER_BITS);
+
+    private static final ConcurrentMap<String, Integer> PROJECT_INDICES = new ConcurrentHashMap<>();
+    private static final List<String> PROJECT_CODES = new ArrayList<>();
+
+    private IssueKey() {
+    }
+
+    /**
+     * Packs an issue key.
+     *
+     * @param projectCode the project code
+     * @param issueNumber the issue number
+     * @return the packed key
+     */
+    public static long pack(String projectCode, long issueNumber) {
+        if (issueNumber < 0 || issueNumber > ISSUE_NUMBER_MASK) {
+            throw new IllegalArgumentException("Bad issue number " + issueNumber + " for " + projectCode);
+        }
+        return ((long) projectIndex(projectCode) << ISSUE_NUMBER_BITS) | issueNumber;
+    }
+
+    /**
+     * Packs an issue key.
+     *
+     * @param issueKey the issue key, e.g. {@code PROJ-1234}
+     * @return the packed key
+     */
+    public static long pack(String issueKey) {
+        int index = issueKey.lastIndexOf('-');
+        if (index <= 0) {
+            throw new IllegalArgumentException("Bad issue key " + issueKey);
+        }
+        return pack(issueKey.substring(0, index), Long.parseLong(issueKey.substring(index + 1)));
+    }
+
+    public static String getProjectCode(long key) {
+        int index = (int) (key >>> ISSUE_NUMBER_BITS);
+        synchronized (PROJECT_CODES) {
+            return PROJECT_CODES.get(index);
+        }
+    }
+
+    public static long getIssueNumber(long key) {
+        return key & ISSUE_NUMBER_MASK;
+    }
+
+    /**
+     * Gets the string form of a packed issue key.
+     *
+     * @param key the packed key
+     * @return the issue key, e.g. {@code PROJ-1234}
+     */
+    public static String toString(long key) {
+        return getProjectCode(key) + "-" + getIssueNumber(key);
+    }
+
+    private static int projectIndex(String projectCode) {
+        Integer index = PROJECT_INDICES.get(projectCode);
+        if (index != null) {
+            return index;
+        }
+        synchronized (PROJECT_CODES) {
+            index = PROJECT_INDICES.get(projectCode);
+            if (index == null) {
+                if (PROJECT_CODES.size() == MAX_PROJECTS) {
+                    throw new IllegalStateException("Too many projects");
+                }
+                index = PROJECT_CODES.size();
+                PROJECT_CODES.add(projectCode);
+                PROJECT_INDICES.put(projectCode, index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,579 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>An immutable hash map implemented as a hash array mapped trie. {@link #plus(Object, Object)} and
+ * {@link #minus(Object)} return a new map which shares all the untouched nodes with this one, so an update only
+ * allocates the O(log32 n) nodes on the path to the changed entry. This means that old board snapshots can be
+ * kept around for readers without having to copy the whole map for every event.</p>
+ * <p>The mutating methods inherited from {@link Map} throw {@link UnsupportedOperationException}. To populate a large
+ * map in one go, use a {@link Builder} which edits the nodes it owns in place.</p>
+ *
+ * @author Kabir Khan
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(0, null);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    //32 bit hashes consumed 5 bits at a time, plus a possible collision node at the bottom
+    private static final int MAX_DEPTH = 8;
+
+    private final int size;
+    private final Node root;
+    private Set<Entry<K, V>> entrySet;
+
+    private PersistentHashMap(int size, Node root) {
+        this.size = size;
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap) {
+            @SuppressWarnings("unchecked")
+            PersistentHashMap<K, V> persistent = (PersistentHashMap<K, V>) map;
+            return persistent;
+        }
+        Builder<K, V> builder = builder();
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>(PersistentHashMap.<K, V>empty());
+    }
+
+    /**
+     * Gets a builder which will start off with the contents of this map. This map is not affected by changes
+     * made in the builder.
+     *
+     * @return the builder
+     */
+    public Builder<K, V> toBuilder() {
+        return new Builder<>(this);
+    }
+
+    /**
+     * Returns a map containing the entries of this map, with {@code key} mapped to {@code value}.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the new map, or this map if {@code key} was already mapped to {@code value}
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        checkKey(key);
+        Box addedLeaf = new Box();
+        Node start = root == null ? BitmapIndexedNode.EMPTY : root;
+        Node newRoot = start.assoc(null, 0, hash(key), key, value, addedLeaf);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(addedLeaf.val ? size + 1 : size, newRoot);
+    }
+
+    /**
+     * Returns a map containing the entries of this map, without {@code key}.
+     *
+     * @param key the key
+     * @return the new map, or this map if {@code key} was not present
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        if (key == null || root == null) {
+            return this;
+        }
+        Node newRoot = root.without(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        if (newRoot == null) {
+            return empty();
+        }
+        return new PersistentHashMap<>(size - 1, newRoot);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null || root == null) {
+            return null;
+        }
+        return (V) root.find(0, hash(key), key, null);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key == null || root == null) {
+            return false;
+        }
+        return root.find(0, hash(key), key, NOT_FOUND) != NOT_FOUND;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> entrySet = this.entrySet;
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+            this.entrySet = entrySet;
+        }
+        return entrySet;
+    }
+
+    private static void checkKey(Object key) {
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int mask(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << mask(hash, shift);
+    }
+
+    private static Object[] cloneAndSet(Object[] array, int i, Object a) {
+        Object[] clone = array.clone();
+        clone[i] = a;
+        return clone;
+    }
+
+    private static Object[] cloneAndSet(Object[] array, int i, Object a, int j, Object b) {
+        Object[] clone = array.clone();
+        clone[i] = a;
+        clone[j] = b;
+        return clone;
+    }
+
+    private static Object[] removePair(Object[] array, int pairs, int i) {
+        Object[] newArray = new Object[2 * (pairs - 1)];
+        System.arraycopy(array, 0, newArray, 0, 2 * i);
+        System.arraycopy(array, 2 * (i + 1), newArray, 2 * i, newArray.length - 2 * i);
+        return newArray;
+    }
+
+    private static Node createNode(Object edit, int shift, Object key1, Object val1, int key2hash, Object key2, Object val2) {
+        int key1hash = hash(key1);
+        if (key1hash == key2hash) {
+            return new HashCollisionNode(key1hash, 2, new Object[]{key1, val1, key2, val2});
+        }
+        Box addedLeaf = new Box();
+        return BitmapIndexedNode.EMPTY
+                .assoc(edit, shift, key1hash, key1, val1, addedLeaf)
+                .assoc(edit, shift, key2hash, key2, val2, addedLeaf);
+    }
+
+    private static final Object NOT_FOUND = new Object();
+
+    private static final class Box {
+        boolean val;
+    }
+
+    private abstract static class Node {
+        abstract Object find(int shift, int hash, Object key, Object notFound);
+
+        /**
+         * Adds or replaces an entry. If {@code edit} is non-null and the same as the one this node was created with,
+         * the node may be changed in place.
+         */
+        abstract Node assoc(Object edit, int shift, int hash, Object key, Object value, Box addedLeaf);
+
+        /**
+         * Removes an entry, returning this node if the key was not found, and {@code null} if the node became empty.
+         */
+        abstract Node without(int shift, int hash, Object key);
+
+        abstract Object[] array();
+
+        abstract int arrayLength();
+    }
+
+    /**
+     * Stores up to 32 slots. Each slot takes up two entries in {@code array}. For a leaf the entries are the key and
+     * the value. For a sub-node the key entry is {@code null} and the value entry is the sub-node.
+     */
+    private static final class BitmapIndexedNode extends Node {
+        static final BitmapIndexedNode EMPTY = new BitmapIndexedNode(null, 0, new Object[0]);
+
+        final Object edit;
+        int bitmap;
+        Object[] array;
+
+        BitmapIndexedNode(Object edit, int bitmap, Object[] array) {
+            this.edit = edit;
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private boolean isEditable(Object edit) {
+            return edit != null && this.edit == edit;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key, Object notFound) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return notFound;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                return ((Node) valOrNode).find(shift + BITS, hash, key, notFound);
+            }
+            if (key.equals(keyOrNull)) {
+                return valOrNode;
+            }
+            return notFound;
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object value, Box addedLeaf) {
+            int bit = bitpos(hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object keyOrNull = array[2 * idx];
+                Object valOrNode = array[2 * idx + 1];
+                if (keyOrNull == null) {
+                    Node n = ((Node) valOrNode).assoc(edit, shift + BITS, hash, key, value, addedLeaf);
+                    if (n == valOrNode) {
+                        return this;
+                    }
+                    return editAndSet(edit, 2 * idx + 1, n);
+                }
+                if (key.equals(keyOrNull)) {
+                    if (value == valOrNode) {
+                        return this;
+                    }
+                    return editAndSet(edit, 2 * idx + 1, value);
+                }
+                addedLeaf.val = true;
+                Node subNode = createNode(edit, shift + BITS, keyOrNull, valOrNode, hash, key, value);
+                return editAndSet(edit, 2 * idx, null, 2 * idx + 1, subNode);
+            }
+
+            addedLeaf.val = true;
+            int n = Integer.bitCount(bitmap);
+            if (isEditable(edit) && array.length >= 2 * (n + 1)) {
+                System.arraycopy(array, 2 * idx, array, 2 * (idx + 1), 2 * (n - idx));
+                array[2 * idx] = key;
+                array[2 * idx + 1] = value;
+                bitmap |= bit;
+                return this;
+            }
+            //When editing leave some room to avoid copying the array for every addition
+            Object[] newArray = new Object[2 * (edit != null ? Math.min(n + 4, 32) : n + 1)];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            newArray[2 * idx] = key;
+            newArray[2 * idx + 1] = value;
+            System.arraycopy(array, 2 * idx, newArray, 2 * (idx + 1), 2 * (n - idx));
+            return new BitmapIndexedNode(edit, bitmap | bit, newArray);
+        }
+
+        private Node editAndSet(Object edit, int i, Object a) {
+            if (isEditable(edit)) {
+                array[i] = a;
+                return this;
+            }
+            return new BitmapIndexedNode(edit, bitmap, cloneAndSet(array, i, a));
+        }
+
+        private Node editAndSet(Object edit, int i, Object a, int j, Object b) {
+            if (isEditable(edit)) {
+                array[i] = a;
+                array[j] = b;
+                return this;
+            }
+            return new BitmapIndexedNode(edit, bitmap, cloneAndSet(array, i, a, j, b));
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                Node n = ((Node) valOrNode).without(shift + BITS, hash, key);
+                if (n == valOrNode) {
+                    return this;
+                }
+                if (n != null) {
+                    return new BitmapIndexedNode(null, bitmap, cloneAndSet(array, 2 * idx + 1, n));
+                }
+            } else if (!key.equals(keyOrNull)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            return new BitmapIndexedNode(null, bitmap ^ bit, removePair(array, Integer.bitCount(bitmap), idx));
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        @Override
+        int arrayLength() {
+            return 2 * Integer.bitCount(bitmap);
+        }
+    }
+
+    /**
+     * Used for keys whose full 32 bit hashes are the same. This should be rare, so this is never edited in place.
+     */
+    private static final class HashCollisionNode extends Node {
+        final int hash;
+        final int count;
+        final Object[] array;
+
+        HashCollisionNode(int hash, int count, Object[] array) {
+            this.hash = hash;
+            this.count = count;
+            this.array = array;
+        }
+
+        private int findIndex(Object key) {
+            for (int i = 0; i < 2 * count; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key, Object notFound) {
+            if (hash != this.hash) {
+                return notFound;
+            }
+            int idx = findIndex(key);
+            return idx < 0 ? notFound : array[idx + 1];
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object value, Box addedLeaf) {
+            if (hash == this.hash) {
+                int idx = findIndex(key);
+                if (idx >= 0) {
+                    if (array[idx + 1] == value) {
+                        return this;
+                    }
+                    return new HashCollisionNode(hash, count, cloneAndSet(array, idx + 1, value));
+                }
+                Object[] newArray = new Object[2 * (count + 1)];
+                System.arraycopy(array, 0, newArray, 0, 2 * count);
+                newArray[2 * count] = key;
+                newArray[2 * count + 1] = value;
+                addedLeaf.val = true;
+                return new HashCollisionNode(hash, count + 1, newArray);
+            }
+            //Nest this node in a bitmap node, and add the new entry to that
+            return new BitmapIndexedNode(null, bitpos(this.hash, shift), new Object[]{null, this})
+                    .assoc(edit, shift, hash, key, value, addedLeaf);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int idx = findIndex(key);
+            if (idx < 0) {
+                return this;
+            }
+            if (count == 1) {
+                return null;
+            }
+            return new HashCollisionNode(hash, count - 1, removePair(array, count, idx / 2));
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        @Override
+        int arrayLength() {
+            return 2 * count;
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] lengths = new int[MAX_DEPTH];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth = -1;
+        private Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                push(root);
+                advance();
+            }
+        }
+
+        private void push(Node node) {
+            depth++;
+            arrays[depth] = node.array();
+            lengths[depth] = node.arrayLength();
+            positions[depth] = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                int pos = positions[depth];
+                if (pos >= lengths[depth]) {
+                    arrays[depth] = null;
+                    depth--;
+                    continue;
+                }
+                positions[depth] = pos + 2;
+                Object[] array = arrays[depth];
+                Object keyOrNull = array[pos];
+                Object valOrNode = array[pos + 1];
+                if (keyOrNull == null) {
+                    push((Node) valOrNode);
+                } else {
+                    next = new SimpleImmutableEntry<>((K) keyOrNull, (V) valOrNode);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> current = next;
+            advance();
+            return current;
+        }
+    }
+
+    /**
+     * Used to efficiently populate a map. Nodes created by the builder are changed in place until {@link #build()}
+     * is called, after which they are treated as immutable again.
+     */
+    public static final class Builder<K, V> {
+        private Object edit = new Object();
+        private Node root;
+        private int size;
+
+        private Builder(PersistentHashMap<K, V> map) {
+            this.root = map.root;
+            this.size = map.size;
+        }
+
+        public Builder<K, V> put(K key, V value) {
+            checkKey(key);
+            Box addedLeaf = new Box();
+            Node start = root == null ? BitmapIndexedNode.EMPTY : root;
+            root = start.assoc(edit, 0, hash(key), key, value, addedLeaf);
+            if (addedLeaf.val) {
+                size++;
+            }
+            return this;
+        }
+
+        public Builder<K, V> remove(Object key) {
+            if (key == null || root == null) {
+                return this;
+            }
+            Node newRoot = root.without(0, hash(key), key);
+            if (newRoot != root) {
+                root = newRoot;
+                size--;
+            }
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            if (key == null || root == null) {
+                return null;
+            }
+            return (V) root.find(0, hash(key), key, null);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public PersistentHashMap<K, V> build() {
+            //Make sure that further changes in this builder do not modify the nodes of the returned map
+            edit = new Object();
+            if (root == null) {
+                return empty();
+            }
+            return new PersistentHashMap<>(size, root);
+        }
+    }
+}
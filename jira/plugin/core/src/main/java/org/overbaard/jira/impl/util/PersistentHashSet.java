@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.util;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * An immutable set backed by a {@link PersistentHashMap}, so that {@link #plus(Object)} and {@link #minus(Object)}
+ * share structure with the original set.
+ *
+ * @author Kabir Khan
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E> {
+
+    private static final PersistentHashSet<?> EMPTY = new PersistentHashSet<>(PersistentHashMap.empty());
+
+    private final PersistentHashMap<E, E> map;
+
+    private PersistentHashSet(PersistentHashMap<E, E> map) {
+        this.map = map;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentHashSet<E> empty() {
+        return (PersistentHashSet<E>) EMPTY;
+    }
+
+    public PersistentHashSet<E> plus(E element) {
+        PersistentHashMap<E, E> newMap = map.plus(element, element);
+        return newMap == map ? this : new PersistentHashSet<>(newMap);
+    }
+
+    public PersistentHashSet<E> minus(Object element) {
+        PersistentHashMap<E, E> newMap = map.minus(element);
+        if (newMap == map) {
+            return this;
+        }
+        return newMap.isEmpty() ? empty() : new PersistentHashSet<>(newMap);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return map.keySet().iterator();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.util;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * <p>An immutable list of unique keys, implemented as a persistent order statistic tree. Both {@link #get(int)} and
+ * {@link #indexOf(Object)} are O(log n), as are inserting, moving and removing keys. The changed lists share all
+ * untouched nodes with the original one.</p>
+ * <p>Internally each key is given a numeric label, and the tree is sorted by label. A key can then be located in the
+ * tree via its label, which is stored in a {@link PersistentHashMap}. When inserting a key between two keys whose
+ * labels are adjacent, all the keys are relabelled. Since the labels start off widely spaced, this is rare.</p>
+ *
+ * @author Kabir Khan
+ */
+public final class PersistentRankedList<K> extends AbstractList<K> implements RandomAccess {
+
+    private static final PersistentRankedList<?> EMPTY = new PersistentRankedList<>(null, PersistentHashMap.empty());
+
+    private static final long SPACING = 1L << 32;
+
+    private final Node<K> root;
+    private final PersistentHashMap<K, Long> labels;
+
+    private PersistentRankedList(Node<K> root, PersistentHashMap<K, Long> labels) {
+        this.root = root;
+        this.labels = labels;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K> PersistentRankedList<K> empty() {
+        return (PersistentRankedList<K>) EMPTY;
+    }
+
+    /**
+     * Creates a list containing the keys in the iteration order of {@code keys}.
+     *
+     * @param keys the keys. These must be unique
+     * @return the list
+     */
+    public static <K> PersistentRankedList<K> copyOf(Collection<? extends K> keys) {
+        if (keys instanceof PersistentRankedList) {
+            @SuppressWarnings("unchecked")
+            PersistentRankedList<K> list = (PersistentRankedList<K>) keys;
+            return list;
+        }
+        if (keys.isEmpty()) {
+            return empty();
+        }
+        Object[] array = keys.toArray();
+        PersistentHashMap.Builder<K, Long> labels = PersistentHashMap.builder();
+        Node<K> root = build(array, 0, array.length, labels);
+        if (labels.size() != array.length) {
+            throw new IllegalArgumentException("Duplicate keys");
+        }
+        return new PersistentRankedList<>(root, labels.build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Node<K> build(Object[] keys, int from, int to, PersistentHashMap.Builder<K, Long> labels) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node<K> left = build(keys, from, mid, labels);
+        Node<K> right = build(keys, mid + 1, to, labels);
+        long label = SPACING * (mid + 1);
+        K key = (K) keys[mid];
+        labels.put(key, label);
+        return new Node<>(label, key, left, right);
+    }
+
+    @Override
+    public K get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return select(root, index).key;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public int indexOf(Object key) {
+        Long label = labels.get(key);
+        if (label == null) {
+            return -1;
+        }
+        return rank(root, label);
+    }
+
+    @Override
+    public int lastIndexOf(Object key) {
+        return indexOf(key);
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return labels.containsKey(key);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KeyIterator<>(root);
+    }
+
+    /**
+     * Returns a list with {@code key} added at the end. If {@code key} was already in the list it is moved.
+     *
+     * @param key the key
+     * @return the new list
+     */
+    public PersistentRankedList<K> append(K key) {
+        return insertBefore(key, null);
+    }
+
+    /**
+     * Returns a list with {@code key} inserted before {@code beforeKey}. If {@code key} was already in the list it
+     * is moved.
+     *
+     * @param key the key to insert
+     * @param beforeKey the key to insert before. If {@code null}, {@code key} is added at the end.
+     * @return the new list
+     * @throws IllegalArgumentException if {@code beforeKey} is not in the list
+     */
+    public PersistentRankedList<K> insertBefore(K key, K beforeKey) {
+        if (key.equals(beforeKey)) {
+            return this;
+        }
+        PersistentRankedList<K> list = minus(key);
+        long label = list.labelBefore(beforeKey);
+        if (label < 0) {
+            list = list.relabel();
+            label = list.labelBefore(beforeKey);
+        }
+        return new PersistentRankedList<>(insert(list.root, label, key), list.labels.plus(key, label));
+    }
+
+    /**
+     * Returns a list without {@code key}.
+     *
+     * @param key the key
+     * @return the new list, or this list if {@code key} was not present
+     */
+    public PersistentRankedList<K> minus(Object key) {
+        Long label = labels.get(key);
+        if (label == null) {
+            return this;
+        }
+        Node<K> newRoot = delete(root, label);
+        if (newRoot == null) {
+            return empty();
+        }
+        return new PersistentRankedList<>(newRoot, labels.minus(key));
+    }
+
+    /**
+     * Works out a free label for inserting before {@code beforeKey}.
+     *
+     * @return the label, or {@code -1} if there is no room
+     */
+    private long labelBefore(K beforeKey) {
+        if (beforeKey == null) {
+            long last = root == null ? 0 : select(root, root.size - 1).label;
+            return last <= Long.MAX_VALUE - SPACING ? last + SPACING : -1;
+        }
+        Long next = labels.get(beforeKey);
+        if (next == null) {
+            throw new IllegalArgumentException("Could not find " + beforeKey);
+        }
+        int index = rank(root, next);
+        long previous = index == 0 ? 0 : select(root, index - 1).label;
+        long label = previous + (next - previous) / 2;
+        return label == previous ? -1 : label;
+    }
+
+    private PersistentRankedList<K> relabel() {
+        Object[] array = toArray();
+        PersistentHashMap.Builder<K, Long> labels = PersistentHashMap.builder();
+        return new PersistentRankedList<>(build(array, 0, array.length, labels), labels.build());
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <K> Node<K> select(Node<K> node, int index) {
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private static int rank(Node<?> node, long label) {
+        int rank = 0;
+        while (node != null) {
+            if (label < node.label) {
+                node = node.left;
+            } else if (label == node.label) {
+                return rank + size(node.left);
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        throw new IllegalStateException("Could not find label " + label);
+    }
+
+    private static <K> Node<K> insert(Node<K> node, long label, K key) {
+        if (node == null) {
+            return new Node<>(label, key, null, null);
+        }
+        if (label < node.label) {
+            return balance(node.label, node.key, insert(node.left, label, key), node.right);
+        }
+        return balance(node.label, node.key, node.left, insert(node.right, label, key));
+    }
+
+    private static <K> Node<K> delete(Node<K> node, long label) {
+        if (label < node.label) {
+            return balance(node.label, node.key, delete(node.left, label), node.right);
+        }
+        if (label > node.label) {
+            return balance(node.label, node.key, node.left, delete(node.right, label));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<K> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.label, successor.key, node.left, delete(node.right, successor.label));
+    }
+
+    private static <K> Node<K> balance(long label, K key, Node<K> left, Node<K> right) {
+        int diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.label, left.key, left.left, new Node<>(label, key, left.right, right));
+            }
+            Node<K> lr = left.right;
+            return new Node<>(lr.label, lr.key,
+                    new Node<>(left.label, left.key, left.left, lr.left),
+                    new Node<>(label, key, lr.right, right));
+        }
+        if (diff < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.label, right.key, new Node<>(label, key, left, right.left), right.right);
+            }
+            Node<K> rl = right.left;
+            return new Node<>(rl.label, rl.key,
+                    new Node<>(label, key, left, rl.left),
+                    new Node<>(right.label, right.key, rl.right, right.right));
+        }
+        return new Node<>(label, key, left, right);
+    }
+
+    private static final class Node<K> {
+        final long label;
+        final K key;
+        final Node<K> left;
+        final Node<K> right;
+        final int size;
+        final int height;
+
+        Node(long label, K key, Node<K> left, Node<K> right) {
+            this.label = label;
+            this.key = key;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private static final class KeyIterator<K> implements Iterator<K> {
+        private final Deque<Node<K>> stack = new ArrayDeque<>();
+
+        KeyIterator(Node<K> root) {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node<K> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public K next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<K> node = stack.pop();
+            pushLeft(node.right);
+            return node.key;
+        }
+    }
+}
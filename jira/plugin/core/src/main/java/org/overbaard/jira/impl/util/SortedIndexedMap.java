@@ -0,0 +1,288 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.overbaard.jira.impl.util;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>An immutable map whose values are kept sorted, and where the index of each entry in the sort order can be looked
+ * up. It serves the same purpose as {@link IndexedMap}, but is backed by a persistent order statistic tree so that
+ * {@link #plus(Object, Object)} is O(log n) and shares structure with the original map, rather than needing the
+ * whole map to be sorted and indexed again.</p>
+ * <p>When an entry is added, all entries from its index onwards have their index shifted up by one. The index of the
+ * new entry can be found by calling {@link #getIndex(Object)} on the returned map.</p>
+ *
+ * @author Kabir Khan
+ */
+public final class SortedIndexedMap<K, V> {
+
+    private final Comparator<? super V> comparator;
+    private final PersistentHashMap<K, V> map;
+    private final Node<V> root;
+    //The indices looked up so far. The map is immutable so they never change, and serializing a board looks up the
+    //same few entries once per issue. Created on first use, since most of the maps created by plus() are never queried
+    private volatile Map<K, Integer> indices;
+
+    private SortedIndexedMap(Comparator<? super V> comparator, PersistentHashMap<K, V> map, Node<V> root) {
+        this.comparator = comparator;
+        this.map = map;
+        this.root = root;
+    }
+
+    /**
+     * Creates a sorted map.
+     *
+     * @param comparator the comparator for the values. It must not consider any two of the values in the map as equal.
+     * @param map the entries
+     * @return the sorted map
+     */
+    public static <K, V> SortedIndexedMap<K, V> copyOf(Comparator<? super V> comparator, Map<K, V> map) {
+        List<V> values = new ArrayList<>(map.values());
+        values.sort(comparator);
+        return new SortedIndexedMap<>(comparator, PersistentHashMap.copyOf(map), build(values, 0, values.size()));
+    }
+
+    private static <V> Node<V> build(List<V> values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return new Node<>(values.get(mid), build(values, from, mid), build(values, mid + 1, to));
+    }
+
+    /**
+     * Gets the values in sort order.
+     *
+     * @return the values
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return SortedIndexedMap.this.size();
+            }
+        };
+    }
+
+    public Integer getIndex(K key) {
+        V value = map.get(key);
+        if (value == null) {
+            return null;
+        }
+        Map<K, Integer> indices = this.indices;
+        if (indices == null) {
+            //If two threads race here one of the caches is lost, which does no harm
+            indices = new ConcurrentHashMap<>();
+            this.indices = indices;
+        }
+        Integer index = indices.get(key);
+        if (index == null) {
+            index = rank(value);
+            indices.put(key, index);
+        }
+        return index;
+    }
+
+    public V get(K key) {
+        return map.get(key);
+    }
+
+    /**
+     * Gets the entries as an (unordered) map.
+     *
+     * @return the map
+     */
+    public PersistentHashMap<K, V> map() {
+        return map;
+    }
+
+    public V forIndex(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+        }
+        Node<V> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (i < leftSize) {
+                node = node.left;
+            } else if (i == leftSize) {
+                return node.value;
+            } else {
+                i -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns a map containing the new entry in its sorted position. If there was already an entry for {@code key},
+     * it is replaced.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the new map
+     */
+    public SortedIndexedMap<K, V> plus(K key, V value) {
+        V existing = map.get(key);
+        if (existing == value) {
+            return this;
+        }
+        Node<V> newRoot = existing == null ? root : delete(root, existing);
+        newRoot = insert(newRoot, value);
+        return new SortedIndexedMap<>(comparator, map.plus(key, value), newRoot);
+    }
+
+    private int rank(V value) {
+        int rank = 0;
+        Node<V> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp == 0) {
+                return rank + size(node.left);
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        throw new IllegalStateException("Could not find " + value);
+    }
+
+    private Node<V> insert(Node<V> node, V value) {
+        if (node == null) {
+            return new Node<>(value, null, null);
+        }
+        if (comparator.compare(value, node.value) < 0) {
+            return balance(node.value, insert(node.left, value), node.right);
+        }
+        return balance(node.value, node.left, insert(node.right, value));
+    }
+
+    private Node<V> delete(Node<V> node, V value) {
+        int cmp = comparator.compare(value, node.value);
+        if (cmp < 0) {
+            return balance(node.value, delete(node.left, value), node.right);
+        }
+        if (cmp > 0) {
+            return balance(node.value, node.left, delete(node.right, value));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.value, node.left, delete(node.right, successor.value));
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <V> Node<V> balance(V value, Node<V> left, Node<V> right) {
+        int diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+            Node<V> lr = left.right;
+            return new Node<>(lr.value, new Node<>(left.value, left.left, lr.left), new Node<>(value, lr.right, right));
+        }
+        if (diff < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+            Node<V> rl = right.left;
+            return new Node<>(rl.value, new Node<>(value, left, rl.left), new Node<>(right.value, rl.right, right.right));
+        }
+        return new Node<>(value, left, right);
+    }
+
+    private static final class Node<V> {
+        final V value;
+        final Node<V> left;
+        final Node<V> right;
+        final int size;
+        final int height;
+
+        Node(V value, Node<V> left, Node<V> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private static final class ValueIterator<V> implements Iterator<V> {
+        private final Deque<Node<V>> stack = new ArrayDeque<>();
+
+        ValueIterator(Node<V> root) {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node<V> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public V next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<V> node = stack.pop();
+            pushLeft(node.right);
+            return node.value;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.overbaard.jira.servlet;
 import static org.overbaard.jira.impl.Constants.BOARD_ID;
 import static org.overbaard.jira.impl.Constants.FROM;
 
+import java.net.URI;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
@@ -128,6 +129,27 @@ public class RestEndpoint {
                         boardCode));
     }
 
+    /**
+     * Starts loading a board in the background. While the board is being loaded, this returns a 202 with the url
+     * to get the progress of the load from, so that the client does not need to keep a request open for the whole
+     * load of a large board.
+     */
+    @POST
+    @Path(Constants.ISSUES + "/{boardCode}/" + Constants.LOAD)
+    public Response startBoardLoad(
+            @Context HttpServletRequest req,
+            @PathParam("boardCode") String boardCode) {
+        return createLoadStatusResponse(req, boardCode, jiraFacade.startBoardLoad(getUser(), boardCode));
+    }
+
+    @GET
+    @Path(Constants.ISSUES + "/{boardCode}/" + Constants.LOAD)
+    public Response getBoardLoadStatus(
+            @Context HttpServletRequest req,
+            @PathParam("boardCode") String boardCode) {
+        return createLoadStatusResponse(req, boardCode, jiraFacade.getBoardLoadStatus(getUser(), boardCode));
+    }
+
     @GET
     @Path(Constants.ISSUES + "/{boardCode}/" + Constants.NAME)
     public Response getBoardName(@PathParam("boardCode") String boardCode) throws SearchException {
@@ -263,6 +285,13 @@ public class RestEndpoint {
         return createResponse(jiraFacade.getUserAccessJson(user));
     }
 
+    @GET
+    @Path("load-metrics")
+    public Response getLoadMetrics() {
+        ApplicationUser user = getUser();
+        return createResponse(jiraFacade.getLoadMetricsJson(user));
+    }
+
     @GET
     @Path("board-config-history")
     public Response getBoardConfigHistory(@Context HttpServletRequest req, @QueryParam(FROM) Integer fromId, @QueryParam(BOARD_ID) Integer boardCfgId){
@@ -278,6 +307,16 @@ public class RestEndpoint {
         return createResponse(jiraFacade.getBoardConfigurationHistoryEntry(user, historyEntryId));
     }
 
+    private Response createLoadStatusResponse(HttpServletRequest req, String boardCode, String json) {
+        final String status = ModelNode.fromJSONString(json).get(Constants.STATUS).asString();
+        if (!status.equals(Constants.LOADING)) {
+            return createResponse(json);
+        }
+        final URI progressUri = URI.create(Util.getDeployedUrl(req) + "/rest/overbaard/1.0/" +
+                Constants.ISSUES + "/" + boardCode + "/" + Constants.LOAD);
+        return Response.status(Response.Status.ACCEPTED).location(progressUri).entity(json).build();
+    }
+
     private Response createResponse(ModelNode modelNode) {
         return createResponse(modelNode.toJSONString(true));
     }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.overbaard.jira.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.impl.BoardLoadExecutor.Priority;
+import org.overbaard.jira.impl.board.LoadProgress;
+import org.overbaard.jira.impl.board.LoadProgressChecker;
+
+/**
+ * Tests the order in which the queued board loads are run, and the cancelling of loads which take too long. The
+ * executor only runs one load at a time, and a blocking load keeps the others queued until the test releases it.
+ *
+ * @author Kabir Khan
+ */
+public class BoardLoadExecutorTestCase {
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+    private BoardLoadExecutor executor;
+
+    @After
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPriorityOrder() throws Exception {
+        executor = new BoardLoadExecutor(1, TIMEOUT_MILLIS);
+        final CountDownLatch release = block(Priority.WARMUP);
+
+        List<FutureTask<Void>> loads = new ArrayList<>();
+        loads.add(execute(Priority.WARMUP, "W1"));
+        loads.add(execute(Priority.REFRESH, "R1"));
+        loads.add(execute(Priority.INTERACTIVE, "I1"));
+        loads.add(execute(Priority.WARMUP, "W2"));
+        loads.add(execute(Priority.INTERACTIVE, "I2"));
+        loads.add(execute(Priority.REFRESH, "R2"));
+
+        release.countDown();
+        waitForLoads(loads);
+        //Loads with the same priority run in the order they were queued
+        Assert.assertEquals(Arrays.asList("I1", "I2", "R1", "R2", "W1", "W2"), started);
+    }
+
+    @Test
+    public void testPrioritize() throws Exception {
+        executor = new BoardLoadExecutor(1, TIMEOUT_MILLIS);
+        final CountDownLatch release = block(Priority.INTERACTIVE);
+
+        List<FutureTask<Void>> loads = new ArrayList<>();
+        FutureTask<Void> w1 = createLoad("W1");
+        BoardLoadExecutor.Task w1Task = executor.execute(Priority.WARMUP, "W1", new LoadProgress(), w1);
+        loads.add(w1);
+        FutureTask<Void> w2 = createLoad("W2");
+        BoardLoadExecutor.Task w2Task = executor.execute(Priority.WARMUP, "W2", new LoadProgress(), w2);
+        loads.add(w2);
+        FutureTask<Void> r1 = createLoad("R1");
+        BoardLoadExecutor.Task r1Task = executor.execute(Priority.REFRESH, "R1", new LoadProgress(), r1);
+        loads.add(r1);
+        loads.add(execute(Priority.INTERACTIVE, "I1"));
+
+        //A user is now waiting for W2. It keeps its place by the time it was queued, so it goes ahead of I1
+        executor.prioritize(w2Task, Priority.INTERACTIVE);
+        //Lowering the priority does nothing
+        executor.prioritize(r1Task, Priority.WARMUP);
+        //Neither does keeping the same priority, W1 keeps its place ahead of the loads queued after it
+        executor.prioritize(w1Task, Priority.WARMUP);
+
+        ModelNode metrics = executor.getMetrics();
+        checkQueued(metrics, Priority.INTERACTIVE, 2);
+        checkQueued(metrics, Priority.REFRESH, 1);
+        checkQueued(metrics, Priority.WARMUP, 1);
+
+        release.countDown();
+        waitForLoads(loads);
+        Assert.assertEquals(Arrays.asList("W2", "I1", "R1", "W1"), started);
+
+        //Prioritizing a load which has already run does nothing
+        executor.prioritize(w1Task, Priority.INTERACTIVE);
+        metrics = executor.getMetrics();
+        for (Priority priority : Priority.values()) {
+            checkQueued(metrics, priority, 0);
+        }
+        Assert.assertEquals(3, metrics.get("priorities", "interactive", "started").asInt());
+        Assert.assertEquals(1, metrics.get("priorities", "refresh", "started").asInt());
+        Assert.assertEquals(1, metrics.get("priorities", "warmup", "started").asInt());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        executor = new BoardLoadExecutor(1, TIMEOUT_MILLIS);
+        ModelNode metrics = executor.getMetrics();
+        Assert.assertEquals(1, metrics.get("max-concurrent").asInt());
+        Assert.assertEquals(30, metrics.get("timeout-minutes").asLong());
+        Assert.assertEquals(0, metrics.get("running").asInt());
+        Assert.assertEquals(0, metrics.get("timed-out").asLong());
+        for (Priority priority : Priority.values()) {
+            ModelNode priorityMetrics = metrics.get("priorities", priority.name().toLowerCase());
+            Assert.assertEquals(0, priorityMetrics.get("queued").asInt());
+            Assert.assertEquals(0, priorityMetrics.get("started").asLong());
+            Assert.assertEquals(0, priorityMetrics.get("average-wait-ms").asLong());
+            Assert.assertEquals(0, priorityMetrics.get("max-wait-ms").asLong());
+        }
+
+        final CountDownLatch release = block(Priority.REFRESH);
+        List<FutureTask<Void>> loads = new ArrayList<>();
+        loads.add(execute(Priority.WARMUP, "W1"));
+        loads.add(execute(Priority.WARMUP, "W2"));
+
+        metrics = executor.getMetrics();
+        Assert.assertEquals(1, metrics.get("running").asInt());
+        Assert.assertEquals(1, metrics.get("priorities", "refresh", "started").asLong());
+        checkQueued(metrics, Priority.REFRESH, 0);
+        checkQueued(metrics, Priority.WARMUP, 2);
+
+        Thread.sleep(50);
+        release.countDown();
+        waitForLoads(loads);
+
+        metrics = executor.getMetrics();
+        ModelNode warmup = metrics.get("priorities", "warmup");
+        Assert.assertEquals(0, warmup.get("queued").asInt());
+        Assert.assertEquals(2, warmup.get("started").asLong());
+        //Both waited for the blocking load
+        Assert.assertTrue(warmup.toString(), warmup.get("average-wait-ms").asLong() >= 50);
+        Assert.assertTrue(warmup.toString(), warmup.get("max-wait-ms").asLong() >= warmup.get("average-wait-ms").asLong());
+        Assert.assertEquals(0, metrics.get("priorities", "interactive", "started").asLong());
+        Assert.assertEquals(0, metrics.get("timed-out").asLong());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        executor = new BoardLoadExecutor(1, 100);
+        final LoadProgress progress = new LoadProgress();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final FutureTask<Void> stuck = new FutureTask<>(() -> {
+            //Checks the progress between pages of issues, like the issue load strategies
+            final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (System.currentTimeMillis() < end) {
+                LoadProgressChecker.checkCancelled(progress);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    throw e;
+                }
+            }
+            return null;
+        });
+        executor.execute(Priority.INTERACTIVE, "STUCK", progress, stuck);
+        //Queued behind the stuck load
+        final FutureTask<Void> next = execute(Priority.INTERACTIVE, "NEXT");
+
+        try {
+            stuck.get(5, TimeUnit.SECONDS);
+            Assert.fail("The load should have been cancelled");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("took longer than"));
+        }
+        //The load is cancelled by checking the progress, rather than by interrupting the thread
+        Assert.assertFalse(interrupted.get());
+
+        //The slot was freed for the next load
+        next.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(Collections.singletonList("NEXT"), started);
+        Assert.assertEquals(1, executor.getMetrics().get("timed-out").asLong());
+    }
+
+    private CountDownLatch block(Priority priority) throws InterruptedException {
+        final CountDownLatch blocking = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(priority, "BLOCK", new LoadProgress(), new FutureTask<Void>(() -> {
+            blocking.countDown();
+            release.await();
+            return null;
+        }));
+        Assert.assertTrue(blocking.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private FutureTask<Void> execute(Priority priority, String boardCode) {
+        final FutureTask<Void> load = createLoad(boardCode);
+        executor.execute(priority, boardCode, new LoadProgress(), load);
+        return load;
+    }
+
+    private FutureTask<Void> createLoad(String boardCode) {
+        return new FutureTask<>(() -> started.add(boardCode), null);
+    }
+
+    private static void waitForLoads(List<FutureTask<Void>> loads) throws Exception {
+        for (FutureTask<Void> load : loads) {
+            load.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void checkQueued(ModelNode metrics, Priority priority, int expected) {
+        Assert.assertEquals(priority.name(), expected,
+                metrics.get("priorities", priority.name().toLowerCase(), "queued").asInt());
+    }
+}
@@ -45,10 +45,12 @@ public class BoardManagerBuilder {
     private SearchService searchService;
     private AvatarService avatarService = AvatarServiceBuilder.getUserNameUrlMock();
     private IssueLinkManager issueLinkManager;
+    private IssueService issueService;
     private UserManager userManager;
     private PermissionManager permissionManager;
     private NextRankedIssueUtil nextRankedIssueUtil;
     private ProjectCustomFieldOptionsLoader projectCustomFieldOptionsLoader = new ProjectParallelTaskOptionsLoaderBuilder().build();
+    private JiraInjectables jiraInjectables;
 
     public BoardManagerBuilder(BoardConfigurationManager boardConfigurationManager, ConfigurationManagerInjectables configurationManagerInjectables) {
         this.boardConfigurationManager = boardConfigurationManager;
@@ -71,6 +73,11 @@ public class BoardManagerBuilder {
         return this;
     }
 
+    public BoardManagerBuilder setIssueService(IssueService issueService) {
+        this.issueService = issueService;
+        return this;
+    }
+
     public BoardManagerBuilder setUserManager(UserManager userManager) {
         this.userManager = userManager;
         return this;
@@ -92,15 +99,26 @@ public class BoardManagerBuilder {
     }
 
     public BoardManager build() {
+        return new BoardManagerImpl(getJiraInjectables(), boardConfigurationManager, projectCustomFieldOptionsLoader);
+    }
+
+    /**
+     * Gets the injectables used by the board manager, for tests which work with the boards directly
+     *
+     * @return the injectables
+     */
+    public JiraInjectables getJiraInjectables() {
+        if (jiraInjectables != null) {
+            return jiraInjectables;
+        }
         //These are not needed for this code path at the moment
         final ApplicationProperties applicationProperties = null;
-        final IssueService issueService = null;
         final OptionsManager optionsManager = null;
         final SearchContextFactory searchContextFactory = null;
         final UserService userService = null;
         final VersionManager versionManager = null;
 
-        JiraInjectables jiraInjectables = new JiraInjectables(
+        jiraInjectables = new JiraInjectables(
                 configurationManagerInjectables.getActiveObjects(),
                 applicationProperties,
                 avatarService,
@@ -118,7 +136,6 @@ public class BoardManagerBuilder {
                 searchService,
                 userService,
                 versionManager);
-
-        return new BoardManagerImpl(jiraInjectables, boardConfigurationManager, projectCustomFieldOptionsLoader);
+        return jiraInjectables;
     }
 }
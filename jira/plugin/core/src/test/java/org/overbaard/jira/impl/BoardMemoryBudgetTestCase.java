@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.overbaard.jira.impl;
+
+import static org.overbaard.jira.impl.Constants.ISSUES;
+import static org.overbaard.jira.impl.Constants.SUMMARY;
+import static org.overbaard.jira.impl.Constants.VIEW;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import ut.org.overbaard.jira.AbstractBoardTest;
+
+/**
+ * Tests unloading the least recently used boards when the loaded boards use more than the memory budget. The
+ * TST2 and TST3 boards are copies of the TST board.
+ *
+ * @author Kabir Khan
+ */
+public class BoardMemoryBudgetTestCase extends AbstractBoardTest {
+
+    @Before
+    public void initializeMocks() throws Exception {
+        initializeMocksWithBoardCopies("config/board-tdp.json", "TST2", "TST3");
+        issueRegistry.issueBuilder("TDP", "task", "high", "One", "TDP-A").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "bug", "low", "Two", "TDP-B").buildAndRegister();
+        issueRegistry.issueBuilder("TBG", "task", "high", "One", "TBG-X").buildAndRegister();
+    }
+
+    @Test
+    public void testUnloadOldestFirst() {
+        Map<String, Long> sizes = new HashMap<>();
+        Map<String, Long> polledTimes = new HashMap<>();
+        addBoard(sizes, polledTimes, "A", 100, 3000);
+        addBoard(sizes, polledTimes, "B", 100, 1000);
+        addBoard(sizes, polledTimes, "C", 100, 2000);
+        addBoard(sizes, polledTimes, "D", 100, 4000);
+
+        Assert.assertEquals(Collections.singletonList("B"), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 400, 350));
+        Assert.assertEquals(Arrays.asList("B", "C"), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 400, 250));
+        Assert.assertEquals(Arrays.asList("B", "C", "A"), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 400, 150));
+    }
+
+    @Test
+    public void testBudgetThreshold() {
+        Map<String, Long> sizes = new HashMap<>();
+        Map<String, Long> polledTimes = new HashMap<>();
+        addBoard(sizes, polledTimes, "A", 100, 1000);
+        addBoard(sizes, polledTimes, "B", 300, 2000);
+        addBoard(sizes, polledTimes, "C", 200, 3000);
+
+        //Exactly at the budget is fine
+        Assert.assertEquals(Collections.emptyList(), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 600, 600));
+        //Unloading the oldest board is enough, even though it is the smallest
+        Assert.assertEquals(Collections.singletonList("A"), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 600, 599));
+        Assert.assertEquals(Collections.singletonList("A"), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 600, 500));
+        Assert.assertEquals(Arrays.asList("A", "B"), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 600, 499));
+        //The total might include more than the boards, e.g. the snapshots read into memory
+        Assert.assertEquals(Arrays.asList("A", "B"), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 700, 500));
+    }
+
+    @Test
+    public void testKeepMostRecentlyUsed() {
+        Map<String, Long> sizes = new HashMap<>();
+        Map<String, Long> polledTimes = new HashMap<>();
+        addBoard(sizes, polledTimes, "A", 100, 1000);
+        addBoard(sizes, polledTimes, "B", 1000, 2000);
+
+        //B is over the budget on its own, but it is the one in use
+        Assert.assertEquals(Collections.singletonList("A"), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 1100, 500));
+        sizes.remove("A");
+        polledTimes.remove("A");
+        Assert.assertEquals(Collections.emptyList(), BoardManagerImpl.getBoardsToUnload(sizes, polledTimes, 1000, 500));
+    }
+
+    @Test
+    public void testWithinBudget() throws Exception {
+        loadBoards("TST", "TST2", "TST3");
+        getBoardManager().checkMemoryBudget(Long.MAX_VALUE);
+        //No budget
+        getBoardManager().checkMemoryBudget(0);
+        checkLoaded("TST", "TST2", "TST3");
+    }
+
+    @Test
+    public void testUnloadLeastRecentlyUsed() throws Exception {
+        loadBoards("TST", "TST2", "TST3");
+        //Reading a board counts as using it
+        loadBoards("TST");
+        getBoardManager().checkMemoryBudget(1);
+        checkLoaded("TST");
+        checkUnloaded("TST2", "TST3");
+    }
+
+    @Test
+    public void testUnloadedBoardLoadedOnAccess() throws Exception {
+        loadBoards("TST", "TST2", "TST3");
+        getBoardManager().checkMemoryBudget(1);
+        checkLoaded("TST3");
+
+        //The unloaded board is loaded again, with the current issues
+        issueRegistry.issueBuilder("TDP", "feature", "low", "Three", "TDP-A").buildAndRegister();
+        searchCallback.searched = false;
+        ModelNode boardNode = getJson("TST");
+        Assert.assertTrue(searchCallback.searched);
+        Assert.assertEquals(0, boardNode.get(VIEW).asInt());
+        Assert.assertTrue(boardNode.get(ISSUES).hasDefined("TDP-3"));
+        checkLoaded("TST");
+
+        //Events are applied to the board which was loaded again
+        issueRegistry.updateIssue("TDP-1", null, null, "One - updated", null, null, null, null, null);
+        boardManager.handleEvent(OverbaardIssueEvent.createUpdateEvent("TDP-1", "TDP", null, null, "One - updated",
+                null, null, null, null, "TDP-A", null, false, null), nextRankedIssueUtil);
+        boardNode = getJson("TST");
+        Assert.assertEquals(1, boardNode.get(VIEW).asInt());
+        Assert.assertEquals("One - updated", boardNode.get(ISSUES, "TDP-1", SUMMARY).asString());
+    }
+
+    private BoardManagerImpl getBoardManager() {
+        return (BoardManagerImpl) boardManager;
+    }
+
+    private void loadBoards(String... codes) throws Exception {
+        for (String code : codes) {
+            getJson(code);
+            //Make sure the boards have different poll times
+            Thread.sleep(5);
+        }
+    }
+
+    private void checkLoaded(String... codes) throws Exception {
+        for (String code : codes) {
+            searchCallback.searched = false;
+            getJson(code);
+            Assert.assertFalse(code + " should be loaded", searchCallback.searched);
+        }
+    }
+
+    private void checkUnloaded(String... codes) throws Exception {
+        //Loading a board again runs the searches for its issues
+        for (String code : codes) {
+            searchCallback.searched = false;
+            getJson(code);
+            Assert.assertTrue(code + " should have been unloaded", searchCallback.searched);
+        }
+    }
+
+    private ModelNode getJson(String code) throws Exception {
+        String json = boardManager.getBoardJson(userManager.getUserByKey("kabir"), false, code);
+        Assert.assertNotNull(json);
+        return ModelNode.fromJSONString(json);
+    }
+
+    private static void addBoard(Map<String, Long> sizes, Map<String, Long> polledTimes, String code, long size, long polledTime) {
+        sizes.put(code, size);
+        polledTimes.put(code, polledTime);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.overbaard.jira.impl;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.api.UserAccessManager;
+
+import com.atlassian.jira.user.ApplicationUser;
+
+/**
+ * Tests working out which boards to pre-warm from the history of the boards opened by the users. The default
+ * settings are used, so the history covers 14 days, and a board must have been opened on at least 3 of them within the
+ * next 15 minutes of the day to be used soon.
+ *
+ * @author Kabir Khan
+ */
+public class BoardPreWarmerTestCase {
+
+    private final HistoryUserAccessManager userAccessManager = new HistoryUserAccessManager();
+
+    private final BoardPreWarmer preWarmer = new BoardPreWarmer(null, userAccessManager);
+
+    @After
+    public void destroy() throws Exception {
+        preWarmer.destroy();
+    }
+
+    @Test
+    public void testMostUsedBoards() {
+        final ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.DAYS).plusHours(12);
+        //Opened on three days
+        userAccessManager.access("A", now.minusDays(1));
+        userAccessManager.access("A", now.minusDays(1).minusHours(1));
+        userAccessManager.access("A", now.minusDays(2));
+        userAccessManager.access("A", now.minusDays(3));
+        //Opened on three days, more recently than A
+        userAccessManager.access("B", now.minusHours(1));
+        userAccessManager.access("B", now.minusDays(4));
+        userAccessManager.access("B", now.minusDays(5));
+        //Opened on one day
+        userAccessManager.access("C", now.minusMinutes(30));
+        //Opened several times on one day, less recently than C
+        userAccessManager.access("D", now.minusDays(6));
+        userAccessManager.access("D", now.minusDays(6).plusMinutes(10));
+        userAccessManager.access("D", now.minusDays(6).plusMinutes(20));
+        //Opened before the history
+        userAccessManager.access("E", now.minusDays(20));
+        userAccessManager.access("E", now.minusDays(21));
+        userAccessManager.access("E", now.minusDays(22));
+        userAccessManager.access("E", now.minusDays(23));
+
+        final long millis = now.toInstant().toEpochMilli();
+        Assert.assertEquals(Arrays.asList("B", "A", "C", "D"), preWarmer.getMostUsedBoards(5, millis));
+        Assert.assertEquals(Arrays.asList("B", "A"), preWarmer.getMostUsedBoards(2, millis));
+    }
+
+    @Test
+    public void testBoardsUsedSoon() {
+        final ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.DAYS).plusHours(9);
+        for (int day = 1; day <= 5; day++) {
+            //Opened a few minutes into the window on five days
+            userAccessManager.access("A", now.minusDays(day).plusMinutes(10));
+            //Opened after the window
+            userAccessManager.access("B", now.minusDays(day).plusMinutes(30));
+        }
+        for (int day = 2; day <= 4; day++) {
+            //Opened on three days
+            userAccessManager.access("C", now.minusDays(day).plusMinutes(5));
+        }
+        for (int day = 1; day <= 2; day++) {
+            //Only opened on two days
+            userAccessManager.access("D", now.minusDays(day).plusMinutes(5));
+        }
+        //Opened on two days before the history, not enough with the day in it
+        userAccessManager.access("E", now.minusDays(1).plusMinutes(5));
+        userAccessManager.access("E", now.minusDays(15).plusMinutes(5));
+        userAccessManager.access("E", now.minusDays(16).plusMinutes(5));
+        //Opened today, which does not count
+        userAccessManager.access("F", now.plusMinutes(5));
+        userAccessManager.access("F", now.minusDays(1).plusMinutes(5));
+        userAccessManager.access("F", now.minusDays(2).plusMinutes(5));
+
+        Assert.assertEquals(Arrays.asList("A", "C"), preWarmer.getBoardsUsedSoon(now.toInstant().toEpochMilli()));
+    }
+
+    @Test
+    public void testNoHistory() {
+        final long now = System.currentTimeMillis();
+        Assert.assertEquals(Collections.emptyList(), preWarmer.getMostUsedBoards(5, now));
+        Assert.assertEquals(Collections.emptyList(), preWarmer.getBoardsUsedSoon(now));
+    }
+
+    private static class HistoryUserAccessManager implements UserAccessManager {
+        private final List<String> codes = new ArrayList<>();
+        private final List<Long> times = new ArrayList<>();
+
+        void access(String code, ZonedDateTime time) {
+            codes.add(code);
+            times.add(time.toInstant().toEpochMilli());
+        }
+
+        @Override
+        public void logUserAccess(ApplicationUser user, String boardCode, String userAgent) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getUserAccessJson(ApplicationUser user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, Date> getLastBoardAccessTimes(long fromMillis, long toMillis) {
+            final Map<String, Date> accessTimes = new HashMap<>();
+            for (int i = 0; i < codes.size(); i++) {
+                final long time = times.get(i);
+                if (time >= fromMillis && time < toMillis) {
+                    final Date last = accessTimes.get(codes.get(i));
+                    if (last == null || last.getTime() < time) {
+                        accessTimes.put(codes.get(i), new Date(time));
+                    }
+                }
+            }
+            return accessTimes;
+        }
+    }
+}
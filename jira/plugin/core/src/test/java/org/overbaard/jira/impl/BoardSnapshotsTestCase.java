@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.overbaard.jira.impl;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the names of the files the board snapshots are written to.
+ *
+ * @author Kabir Khan
+ */
+public class BoardSnapshotsTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testShortCode() throws Exception {
+        final File dir = folder.getRoot();
+        final File tmp = BoardSnapshots.createTempFile(dir);
+        Assert.assertEquals(dir, tmp.getParentFile());
+
+        final File file = BoardSnapshots.getFile(dir, "A");
+        Assert.assertEquals(dir, file.getParentFile());
+        Assert.assertEquals("41.snapshot", file.getName());
+        Assert.assertNotEquals(file, BoardSnapshots.getFile(dir, "a"));
+    }
+
+    @Test
+    public void testPathSeparator() throws Exception {
+        final File dir = folder.getRoot();
+        for (String code : new String[]{"../TST", "TST/../..", "TST" + File.separator + "X", ".."}) {
+            final File file = BoardSnapshots.getFile(dir, code);
+            Assert.assertEquals(code, dir, file.getParentFile());
+            Assert.assertEquals(code, dir.getCanonicalFile(), file.getCanonicalFile().getParentFile());
+        }
+        Assert.assertNotEquals(BoardSnapshots.getFile(dir, "TST/X"), BoardSnapshots.getFile(dir, "TST_X"));
+    }
+}
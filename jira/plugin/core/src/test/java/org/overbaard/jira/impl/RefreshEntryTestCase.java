@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.overbaard.jira.impl;
+
+import static org.overbaard.jira.impl.BoardManagerImpl.FULL_REFRESH_INTERVAL_MILLIS;
+import static org.overbaard.jira.impl.BoardManagerImpl.IDLE_BOARD_MILLIS;
+import static org.overbaard.jira.impl.BoardManagerImpl.MAX_RECONCILE_INTERVAL_MILLIS;
+import static org.overbaard.jira.impl.BoardManagerImpl.MIN_RECONCILE_INTERVAL_MILLIS;
+import static org.overbaard.jira.impl.BoardManagerImpl.RECONCILE_INTERVAL_MILLIS;
+import static org.overbaard.jira.impl.BoardManagerImpl.REFRESH_JITTER_PERCENT;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests how the interval between the reconciliations of a loaded board adapts to the changes found, and when the
+ * next reconciliation is scheduled. Lives in the same package as {@link BoardManagerImpl} since the refresh policy
+ * is an implementation detail of the board manager.
+ *
+ * @author Kabir Khan
+ */
+public class RefreshEntryTestCase {
+
+    @Test
+    public void testQuietBoardBacksOff() {
+        BoardManagerImpl.RefreshEntry entry = new BoardManagerImpl.RefreshEntry("TST", System.currentTimeMillis());
+        long now = System.currentTimeMillis();
+        checkDelay(entry, now, RECONCILE_INTERVAL_MILLIS);
+
+        long interval = RECONCILE_INTERVAL_MILLIS;
+        for (int i = 0; i < 10; i++) {
+            entry.reconciled(now, false);
+            interval = Math.min(interval * 2, MAX_RECONCILE_INTERVAL_MILLIS);
+            checkDelay(entry, now, interval);
+        }
+        Assert.assertEquals(MAX_RECONCILE_INTERVAL_MILLIS, interval);
+    }
+
+    @Test
+    public void testMissedChanges() {
+        BoardManagerImpl.RefreshEntry entry = new BoardManagerImpl.RefreshEntry("TST", System.currentTimeMillis());
+        long now = System.currentTimeMillis();
+        entry.reconciled(now, false);
+        entry.reconciled(now, false);
+        checkDelay(entry, now, Math.min(RECONCILE_INTERVAL_MILLIS * 4, MAX_RECONCILE_INTERVAL_MILLIS));
+
+        //The events missed some changes, so look again soon
+        entry.reconciled(now, true);
+        checkDelay(entry, now, MIN_RECONCILE_INTERVAL_MILLIS);
+
+        //Missing changes again keeps the shortest interval, even if events were received
+        entry.eventApplied();
+        entry.reconciled(now, true);
+        checkDelay(entry, now, MIN_RECONCILE_INTERVAL_MILLIS);
+
+        //Once nothing more is found, it backs off from the shortest interval
+        entry.reconciled(now, false);
+        checkDelay(entry, now, Math.min(MIN_RECONCILE_INTERVAL_MILLIS * 2, MAX_RECONCILE_INTERVAL_MILLIS));
+    }
+
+    @Test
+    public void testEventsResetInterval() {
+        BoardManagerImpl.RefreshEntry entry = new BoardManagerImpl.RefreshEntry("TST", System.currentTimeMillis());
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            entry.reconciled(now, false);
+        }
+        checkDelay(entry, now, MAX_RECONCILE_INTERVAL_MILLIS);
+
+        //The board is in use, so it goes back to the normal interval
+        entry.eventApplied();
+        entry.reconciled(now, false);
+        checkDelay(entry, now, RECONCILE_INTERVAL_MILLIS);
+
+        //The events were only counted for one reconciliation
+        entry.reconciled(now, false);
+        checkDelay(entry, now, Math.min(RECONCILE_INTERVAL_MILLIS * 2, MAX_RECONCILE_INTERVAL_MILLIS));
+    }
+
+    @Test
+    public void testIdleBoard() {
+        Assert.assertTrue(IDLE_BOARD_MILLIS > 0);
+        BoardManagerImpl.RefreshEntry entry = new BoardManagerImpl.RefreshEntry("TST", System.currentTimeMillis());
+        long now = System.currentTimeMillis();
+        Assert.assertFalse(entry.isIdle(now));
+        Assert.assertTrue(entry.isIdle(now + IDLE_BOARD_MILLIS));
+
+        //The next task runs when the board becomes idle, rather than at the end of the reconcile interval
+        long delay = entry.nextDelay(now + IDLE_BOARD_MILLIS - 1000);
+        Assert.assertTrue(delay <= 1000);
+        Assert.assertEquals(0, entry.nextDelay(now + IDLE_BOARD_MILLIS + 1000));
+
+        //Polling the board keeps it loaded
+        entry.polled();
+        long later = System.currentTimeMillis();
+        Assert.assertFalse(entry.isIdle(later + IDLE_BOARD_MILLIS - 1000));
+    }
+
+    @Test
+    public void testFullRefreshDue() {
+        long now = System.currentTimeMillis();
+        //The board was loaded so long ago that its full refresh is overdue
+        BoardManagerImpl.RefreshEntry entry = new BoardManagerImpl.RefreshEntry("TST", now - FULL_REFRESH_INTERVAL_MILLIS * 2);
+        Assert.assertEquals(0, entry.nextDelay(now));
+        entry.reconciled(now, false);
+        Assert.assertEquals(0, entry.nextDelay(now));
+    }
+
+    @Test
+    public void testJitter() {
+        Set<Long> delays = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            BoardManagerImpl.RefreshEntry entry = new BoardManagerImpl.RefreshEntry("TST" + i, System.currentTimeMillis());
+            long now = System.currentTimeMillis();
+            delays.add(checkDelay(entry, now, RECONCILE_INTERVAL_MILLIS));
+        }
+        if (REFRESH_JITTER_PERCENT > 0) {
+            //The boards loaded at the same time should not all be reconciled at the same time
+            Assert.assertTrue(delays.size() > 1);
+        }
+    }
+
+    @Test
+    public void testInvalidate() {
+        BoardManagerImpl.RefreshEntry entry = new BoardManagerImpl.RefreshEntry("TST", System.currentTimeMillis());
+        Assert.assertTrue(entry.isValid());
+        //Nothing was scheduled yet
+        entry.invalidate();
+        Assert.assertFalse(entry.isValid());
+    }
+
+    private static long checkDelay(BoardManagerImpl.RefreshEntry entry, long now, long interval) {
+        long jitter = interval * REFRESH_JITTER_PERCENT / 100;
+        long delay = entry.nextDelay(now);
+        Assert.assertTrue("Delay " + delay + " for interval " + interval, delay >= interval - jitter);
+        Assert.assertTrue("Delay " + delay + " for interval " + interval, delay <= interval + jitter);
+        return delay;
+    }
+}
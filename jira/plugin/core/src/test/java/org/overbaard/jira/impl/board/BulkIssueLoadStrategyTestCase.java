@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.overbaard.jira.impl.board;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.impl.util.IndexedMap;
+
+/**
+ * Tests sorting the epics by the rank values read from the database. A search ordered by 'Rank' sorts on the
+ * indexed rank values, which the index compares as unsigned UTF-8 bytes, so that is what the order is compared with.
+ *
+ * @author Kabir Khan
+ */
+public class BulkIssueLoadStrategyTestCase {
+
+    @Test
+    public void testNoEpics() {
+        IndexedMap<String, Epic> sorted = BulkIssueLoadStrategy.sortEpicsByRank(new HashMap<>(), new HashMap<>());
+        Assert.assertNotNull(sorted);
+        Assert.assertEquals(0, sorted.size());
+    }
+
+    @Test
+    public void testSortLikeSearch() {
+        Map<String, String> ranks = new LinkedHashMap<>();
+        //Lexorank values, including different buckets, values of different lengths and values sharing a prefix
+        ranks.put("TDP-1", "0|i0000f:");
+        ranks.put("TDP-2", "0|hzzzzz:");
+        ranks.put("TDP-3", "0|i0000f:i");
+        ranks.put("TDP-4", "1|000000:");
+        ranks.put("TDP-10", "0|i00007:");
+        ranks.put("TDP-11", "0|i0000f:0001");
+        ranks.put("TDP-12", "0|I0000f:");
+        checkSortedLikeSearch(ranks);
+        Assert.assertEquals(
+                list("TDP-12", "TDP-2", "TDP-10", "TDP-1", "TDP-11", "TDP-3", "TDP-4"),
+                new ArrayList<>(BulkIssueLoadStrategy.sortEpicsByRank(createEpics(ranks), ranks).map().keySet()));
+    }
+
+    @Test
+    public void testRandomRanks() {
+        Random random = new Random(1234);
+        Map<String, String> ranks = new HashMap<>();
+        String chars = "0123456789abcdefghijklmnopqrstuvwxyz";
+        while (ranks.size() < 500) {
+            StringBuilder sb = new StringBuilder(random.nextInt(3) + "|");
+            int length = 1 + random.nextInt(8);
+            for (int i = 0; i < length; i++) {
+                sb.append(chars.charAt(random.nextInt(chars.length())));
+            }
+            sb.append(':');
+            if (!ranks.containsValue(sb.toString())) {
+                ranks.put("TDP-" + (ranks.size() + 1), sb.toString());
+            }
+        }
+        checkSortedLikeSearch(ranks);
+    }
+
+    @Test
+    public void testMissingRank() {
+        Map<String, String> ranks = new LinkedHashMap<>();
+        ranks.put("TDP-1", "0|i0000f:");
+        ranks.put("TDP-2", "0|hzzzzz:");
+        Map<String, Epic> epics = createEpics(ranks);
+        //TDP-3 has no rank value in the database, so where the search puts it is not known
+        epics.put("TDP-3", new Epic("TDP-3", "Epic TDP-3"));
+        Assert.assertNull(BulkIssueLoadStrategy.sortEpicsByRank(epics, ranks));
+
+        ranks.put("TDP-3", null);
+        Assert.assertNull(BulkIssueLoadStrategy.sortEpicsByRank(epics, ranks));
+    }
+
+    @Test
+    public void testTiedRanks() {
+        Map<String, String> ranks = new LinkedHashMap<>();
+        ranks.put("TDP-1", "0|i0000f:");
+        ranks.put("TDP-2", "0|hzzzzz:");
+        ranks.put("TDP-3", "0|i0000f:");
+        //The search decides the order of the tied epics, so it must be used
+        Assert.assertNull(BulkIssueLoadStrategy.sortEpicsByRank(createEpics(ranks), ranks));
+    }
+
+    @Test
+    public void testRanksOfOtherIssuesIgnored() {
+        Map<String, String> ranks = new LinkedHashMap<>();
+        ranks.put("TDP-1", "0|i0000f:");
+        ranks.put("TDP-2", "0|hzzzzz:");
+        Map<String, Epic> epics = createEpics(ranks);
+        ranks.put("TDP-3", "0|i0000f:");
+        Assert.assertEquals(list("TDP-2", "TDP-1"),
+                new ArrayList<>(BulkIssueLoadStrategy.sortEpicsByRank(epics, ranks).map().keySet()));
+    }
+
+    private static void checkSortedLikeSearch(Map<String, String> ranks) {
+        List<String> expected = new ArrayList<>(ranks.keySet());
+        Collections.sort(expected, (key1, key2) -> compareAsIndexed(ranks.get(key1), ranks.get(key2)));
+
+        IndexedMap<String, Epic> sorted = BulkIssueLoadStrategy.sortEpicsByRank(createEpics(ranks), ranks);
+        Assert.assertNotNull(sorted);
+        Assert.assertEquals(expected, new ArrayList<>(sorted.map().keySet()));
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(Integer.valueOf(i), sorted.getIndex(expected.get(i)));
+            Assert.assertEquals(expected.get(i), sorted.forIndex(i).getKey());
+        }
+    }
+
+    private static int compareAsIndexed(String rank1, String rank2) {
+        byte[] bytes1 = rank1.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes2 = rank2.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < Math.min(bytes1.length, bytes2.length); i++) {
+            int result = Integer.compare(bytes1[i] & 0xFF, bytes2[i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(bytes1.length, bytes2.length);
+    }
+
+    private static Map<String, Epic> createEpics(Map<String, String> ranks) {
+        Map<String, Epic> epics = new HashMap<>();
+        for (String key : ranks.keySet()) {
+            epics.put(key, new Epic(key, "Epic " + key));
+        }
+        return epics;
+    }
+
+    private static List<String> list(String... values) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, values);
+        return list;
+    }
+}
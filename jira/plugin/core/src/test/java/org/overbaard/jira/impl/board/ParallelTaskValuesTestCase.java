@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.overbaard.jira.impl.board;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.impl.config.ProjectParallelTaskGroupsConfig;
+
+/**
+ * Lives in the same package as {@link ParallelTaskValues} since the packed values are an implementation detail of
+ * the board.
+ *
+ * @author Kabir Khan
+ */
+public class ParallelTaskValuesTestCase {
+
+    @Test
+    public void testNoGroups() {
+        byte[] values = ParallelTaskValues.create(ProjectParallelTaskGroupsConfig.EMPTY_OVERRIDE);
+        Assert.assertArrayEquals(new byte[]{0}, values);
+        Assert.assertEquals(0, ParallelTaskValues.groupCount(values));
+        Assert.assertTrue(ParallelTaskValues.hasLayout(values, ProjectParallelTaskGroupsConfig.EMPTY_OVERRIDE));
+        Assert.assertTrue(ParallelTaskValues.serialize(values).asList().isEmpty());
+        Assert.assertFalse(ParallelTaskValues.hasLayout(createTwoGroups(), ProjectParallelTaskGroupsConfig.EMPTY_OVERRIDE));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        byte[] values = createTwoGroups();
+        Assert.assertEquals(2, ParallelTaskValues.groupCount(values));
+        for (int task = 0; task < 3; task++) {
+            Assert.assertEquals(0, ParallelTaskValues.get(values, 0, task));
+        }
+        Assert.assertEquals(0, ParallelTaskValues.get(values, 1, 0));
+
+        ParallelTaskValues.set(values, 0, 0, 1);
+        ParallelTaskValues.set(values, 0, 2, 127);
+        ParallelTaskValues.set(values, 1, 0, 5);
+        Assert.assertEquals(1, ParallelTaskValues.get(values, 0, 0));
+        Assert.assertEquals(0, ParallelTaskValues.get(values, 0, 1));
+        Assert.assertEquals(127, ParallelTaskValues.get(values, 0, 2));
+        Assert.assertEquals(5, ParallelTaskValues.get(values, 1, 0));
+
+        //Setting the values must not have touched the layout
+        Assert.assertEquals(2, ParallelTaskValues.groupCount(values));
+        checkSerialized(values, new int[]{1, 0, 127}, new int[]{5});
+    }
+
+    @Test
+    public void testEdgeValues() {
+        byte[] values = createTwoGroups();
+        //The values are unsigned, so the ones which do not fit in a signed byte must come back unchanged
+        for (int value : new int[]{0, 127, 128, 254, ParallelTaskValues.MAX_VALUE}) {
+            ParallelTaskValues.set(values, 0, 1, value);
+            Assert.assertEquals(value, ParallelTaskValues.get(values, 0, 1));
+        }
+        ParallelTaskValues.set(values, 1, 0, 128);
+        checkSerialized(values, new int[]{0, 255, 0}, new int[]{128});
+
+        for (int value : new int[]{-1, ParallelTaskValues.MAX_VALUE + 1}) {
+            try {
+                ParallelTaskValues.set(values, 0, 0, value);
+                Assert.fail("Should not be able to set " + value);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        Assert.assertEquals(0, ParallelTaskValues.get(values, 0, 0));
+    }
+
+    @Test
+    public void testLargeGroup() {
+        //A group size of more than 127 must be read back as unsigned when stepping over the group
+        byte[] values = new byte[1 + 1 + 200 + 1 + 1];
+        values[0] = 2;
+        values[1] = (byte) 200;
+        values[202] = 1;
+        ParallelTaskValues.set(values, 0, 199, 200);
+        ParallelTaskValues.set(values, 1, 0, 3);
+        Assert.assertEquals(200, ParallelTaskValues.get(values, 0, 199));
+        Assert.assertEquals(3, ParallelTaskValues.get(values, 1, 0));
+        ModelNode serialized = ParallelTaskValues.serialize(values);
+        Assert.assertEquals(2, serialized.asList().size());
+        Assert.assertEquals(200, serialized.get(0).asList().size());
+        Assert.assertEquals(200, serialized.get(0).get(199).asInt());
+        Assert.assertEquals(3, serialized.get(1).get(0).asInt());
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        byte[] values = createTwoGroups();
+        checkOutOfBounds(values, 2, 0);
+        checkOutOfBounds(values, 0, 3);
+        checkOutOfBounds(values, 1, 1);
+    }
+
+    private static byte[] createTwoGroups() {
+        //Two groups, the first with three tasks and the second with one
+        return new byte[]{2, 3, 0, 0, 0, 1, 0};
+    }
+
+    private static void checkOutOfBounds(byte[] values, int groupIndex, int taskIndex) {
+        try {
+            ParallelTaskValues.get(values, groupIndex, taskIndex);
+            Assert.fail("Should not be able to get group " + groupIndex + " task " + taskIndex);
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            ParallelTaskValues.set(values, groupIndex, taskIndex, 0);
+            Assert.fail("Should not be able to set group " + groupIndex + " task " + taskIndex);
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    private static void checkSerialized(byte[] values, int[]... expected) {
+        ModelNode serialized = ParallelTaskValues.serialize(values);
+        Assert.assertEquals(expected.length, serialized.asList().size());
+        for (int group = 0; group < expected.length; group++) {
+            ModelNode groupNode = serialized.get(group);
+            Assert.assertEquals(expected[group].length, groupNode.asList().size());
+            for (int task = 0; task < expected[group].length; task++) {
+                Assert.assertEquals(expected[group][task], groupNode.get(task).asInt());
+            }
+        }
+    }
+}
@@ -118,6 +118,10 @@ public class ProjectParallelTaskOptionsLoaderBuilder {
                 }
                 return CustomFieldOptions.create(customFieldOptions);
             }
+
+            @Override
+            public void clearCache() {
+            }
         };
     }
 
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.overbaard.jira.impl.board;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.impl.util.LongObjectHashMap;
+
+/**
+ * Tests reading the core fields of the issues in batches, as done by the {@link StreamingIssueLoadStrategy}.
+ * The database is mocked, with each query returning the rows whose first column is one of the bound issue ids.
+ *
+ * @author Kabir Khan
+ */
+public class StreamingIssueLoadStrategyTestCase {
+
+    private final MockDatabase database = new MockDatabase();
+
+    @Test
+    public void testReadBatches() throws Exception {
+        database.addIssue(10, 1, "One", "kabir", "task", "high", "TODO");
+        database.addIssue(11, 2, "Two", null, "bug", null, "Done");
+        database.addIssue(12, 3, "Three", "brian", "task", "low", "TODO");
+        database.addComponent(10, "C1");
+        database.addComponent(10, "C2");
+        database.addComponent(12, "C1");
+        database.addFixVersion(11, "F1");
+        database.addLabel(10, "L1");
+        database.addLabel(12, "L2");
+
+        try (StreamingIssueLoadStrategy.CoreFieldsReader reader =
+                     new StreamingIssueLoadStrategy.CoreFieldsReader(database.connection, 2)) {
+            LongObjectHashMap<StreamingIssueLoadStrategy.IssueRow> rows = reader.read(Arrays.asList(10L, 11L));
+            Assert.assertEquals(2, rows.size());
+            checkRow(rows.get(10), 1, "One", "kabir", "task", "high", "TODO",
+                    list("C1", "C2"), list(), list("L1"));
+            checkRow(rows.get(11), 2, "Two", null, "bug", null, "Done",
+                    list(), list("F1"), list());
+
+            //The last batch is not full, the rows must not be duplicated by the padding of the statement parameters
+            rows = reader.read(Arrays.asList(12L));
+            Assert.assertEquals(1, rows.size());
+            checkRow(rows.get(12), 3, "Three", "brian", "task", "low", "TODO",
+                    list("C1"), list(), list("L2"));
+        }
+
+        //The statements are prepared once, and reused for each batch
+        verify(database.connection, times(4)).prepareStatement(anyString());
+        for (PreparedStatement statement : database.statements) {
+            verify(statement, times(2)).executeQuery();
+            verify(statement).close();
+        }
+    }
+
+    @Test
+    public void testDeletedIssue() throws Exception {
+        database.addIssue(10, 1, "One", "kabir", "task", "high", "TODO");
+        //Issue 11 was deleted after the query for the ids was run, but some of its other rows are still found
+        database.addComponent(11, "C1");
+        database.addLabel(11, "L1");
+        database.addLabel(10, "L2");
+
+        try (StreamingIssueLoadStrategy.CoreFieldsReader reader =
+                     new StreamingIssueLoadStrategy.CoreFieldsReader(database.connection, 5)) {
+            LongObjectHashMap<StreamingIssueLoadStrategy.IssueRow> rows = reader.read(Arrays.asList(10L, 11L));
+            Assert.assertEquals(1, rows.size());
+            Assert.assertNull(rows.get(11));
+            checkRow(rows.get(10), 1, "One", "kabir", "task", "high", "TODO",
+                    list(), list(), list("L2"));
+        }
+    }
+
+    @Test
+    public void testPrepareFailureClosesStatements() throws Exception {
+        database.failOn = "SELECT ISSUE, LABEL";
+        try {
+            new StreamingIssueLoadStrategy.CoreFieldsReader(database.connection, 5);
+            Assert.fail("Should have failed");
+        } catch (SQLException expected) {
+        }
+        Assert.assertEquals(3, database.statements.size());
+        for (PreparedStatement statement : database.statements) {
+            verify(statement).close();
+        }
+    }
+
+    private static void checkRow(StreamingIssueLoadStrategy.IssueRow row, long issueNumber, String summary,
+                                 String assigneeKey, String issueType, String priority, String state,
+                                 List<String> components, List<String> fixVersions, List<String> labels) {
+        Assert.assertNotNull(row);
+        Assert.assertEquals(issueNumber, row.issueNumber);
+        Assert.assertEquals(summary, row.summary);
+        Assert.assertEquals(assigneeKey, row.assigneeKey);
+        Assert.assertEquals(issueType, row.issueType);
+        Assert.assertEquals(priority, row.priority);
+        Assert.assertEquals(state, row.state);
+        Assert.assertEquals(components, row.components);
+        Assert.assertEquals(fixVersions, row.fixVersions);
+        Assert.assertEquals(labels, row.labels);
+    }
+
+    private static List<String> list(String... values) {
+        return Arrays.asList(values);
+    }
+
+    private static class MockDatabase {
+        private final Connection connection = mock(Connection.class);
+        private final List<PreparedStatement> statements = new ArrayList<>();
+        //The rows for each query, keyed by the start of its sql. The first column is the issue id
+        private final Map<String, List<Object[]>> tables = new LinkedHashMap<>();
+        private String failOn;
+
+        MockDatabase() {
+            tables.put("SELECT J.ID", new ArrayList<>());
+            tables.put("SELECT NA.SOURCE_NODE_ID, C.CNAME", new ArrayList<>());
+            tables.put("SELECT NA.SOURCE_NODE_ID, V.VNAME", new ArrayList<>());
+            tables.put("SELECT ISSUE, LABEL", new ArrayList<>());
+            try {
+                when(connection.prepareStatement(anyString())).then(invocation -> {
+                    String sql = (String) invocation.getArguments()[0];
+                    if (failOn != null && sql.startsWith(failOn)) {
+                        throw new SQLException("Failed preparing " + sql);
+                    }
+                    return createStatement(getRows(sql));
+                });
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        void addIssue(long id, long issueNumber, String summary, String assigneeKey, String issueType,
+                      String priority, String state) {
+            tables.get("SELECT J.ID").add(new Object[]{id, issueNumber, summary, assigneeKey, issueType, priority, state});
+        }
+
+        void addComponent(long id, String name) {
+            tables.get("SELECT NA.SOURCE_NODE_ID, C.CNAME").add(new Object[]{id, name});
+        }
+
+        void addFixVersion(long id, String name) {
+            tables.get("SELECT NA.SOURCE_NODE_ID, V.VNAME").add(new Object[]{id, name});
+        }
+
+        void addLabel(long id, String label) {
+            tables.get("SELECT ISSUE, LABEL").add(new Object[]{id, label});
+        }
+
+        private List<Object[]> getRows(String sql) {
+            for (Map.Entry<String, List<Object[]>> entry : tables.entrySet()) {
+                if (sql.startsWith(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+            throw new IllegalArgumentException("Unknown query " + sql);
+        }
+
+        private PreparedStatement createStatement(List<Object[]> table) throws SQLException {
+            final PreparedStatement statement = mock(PreparedStatement.class);
+            final Set<Long> boundIds = new HashSet<>();
+            when(statement.executeQuery()).then(invocation -> {
+                List<Object[]> rows = new ArrayList<>();
+                for (Object[] row : table) {
+                    if (boundIds.contains(row[0])) {
+                        rows.add(row);
+                    }
+                }
+                boundIds.clear();
+                return createResultSet(rows);
+            });
+            //The statements only have the issue ids as parameters
+            doAnswer(invocation -> {
+                boundIds.add((Long) invocation.getArguments()[1]);
+                return null;
+            }).when(statement).setLong(anyInt(), anyLong());
+            statements.add(statement);
+            return statement;
+        }
+
+        private static ResultSet createResultSet(List<Object[]> rows) throws SQLException {
+            final ResultSet rs = mock(ResultSet.class);
+            final int[] current = new int[]{-1};
+            when(rs.next()).then(invocation -> ++current[0] < rows.size());
+            when(rs.getLong(anyInt())).then(invocation ->
+                    ((Number) rows.get(current[0])[(Integer) invocation.getArguments()[0] - 1]).longValue());
+            when(rs.getString(anyInt())).then(invocation ->
+                    (String) rows.get(current[0])[(Integer) invocation.getArguments()[0] - 1]);
+            return rs;
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package ut.org.overbaard.jira;
 
+import static org.overbaard.jira.impl.Constants.CODE;
 import static org.overbaard.jira.impl.Constants.EPIC_LINK_CUSTOM_FIELD_ID;
 import static org.overbaard.jira.impl.Constants.EPIC_NAME_CUSTOM_FIELD_ID;
 import static org.overbaard.jira.impl.Constants.RANK_CUSTOM_FIELD_ID;
@@ -32,8 +33,10 @@ import org.overbaard.jira.api.NextRankedIssueUtil;
 import org.overbaard.jira.impl.BoardConfigurationManagerBuilder;
 import org.overbaard.jira.impl.BoardManagerBuilder;
 import org.overbaard.jira.impl.ConfigurationManagerInjectables;
+import org.overbaard.jira.impl.JiraInjectables;
 import org.overbaard.jira.impl.OverbaardIssueEvent;
 
+import com.atlassian.jira.bc.issue.IssueService;
 import com.atlassian.jira.bc.issue.search.SearchService;
 import com.atlassian.jira.bc.project.component.ProjectComponent;
 import com.atlassian.jira.issue.Issue;
@@ -49,6 +52,7 @@ import com.atlassian.jira.user.util.UserManager;
 import ut.org.overbaard.jira.mock.CustomFieldManagerBuilder;
 import ut.org.overbaard.jira.mock.IssueLinkManagerBuilder;
 import ut.org.overbaard.jira.mock.IssueRegistry;
+import ut.org.overbaard.jira.mock.IssueServiceBuilder;
 import ut.org.overbaard.jira.mock.MockLabel;
 import ut.org.overbaard.jira.mock.MockProjectComponent;
 import ut.org.overbaard.jira.mock.MockVersion;
@@ -68,6 +72,7 @@ public abstract class AbstractBoardTest {
     protected UserManager userManager;
     protected IssueRegistry issueRegistry;
     protected NextRankedIssueUtil nextRankedIssueUtil;
+    protected JiraInjectables jiraInjectables;
     protected SearchCallback searchCallback = new SearchCallback();
 
     public void initializeMocks() throws Exception {
@@ -90,6 +95,29 @@ public abstract class AbstractBoardTest {
         initializeMocks(this.boardConfigurationManager, builder, init);
     }
 
+    /**
+     * Sets up copies of the board under other codes as well, for tests which need several boards loaded.
+     *
+     * @param cfgResource the board config resource
+     * @param otherBoardCodes the codes of the copies
+     */
+    protected void initializeMocksWithBoardCopies(String cfgResource, String... otherBoardCodes) throws Exception {
+        BoardConfigurationManagerBuilder builder = new BoardConfigurationManagerBuilder();
+        builder.addConfigActiveObjectsFromFile(cfgResource);
+        for (String code : otherBoardCodes) {
+            ModelNode copy = BoardConfigurationManagerBuilder.loadConfig(cfgResource);
+            copy.get(CODE).set(code);
+            builder.addConfigActiveObjectsFromModel(copy);
+        }
+        this.boardConfigurationManager = builder
+                .addSettingActiveObject(RANK_CUSTOM_FIELD_ID, TestConstants.RANK_CUSTOM_FIELD_ID.toString())
+                .addSettingActiveObject(EPIC_LINK_CUSTOM_FIELD_ID, TestConstants.EPIC_LINK_CUSTOM_FIELD_ID.toString())
+                .addSettingActiveObject(EPIC_NAME_CUSTOM_FIELD_ID, TestConstants.EPIC_NAME_CUSTOM_FIELD_ID.toString())
+                .setCustomFieldManager(CustomFieldManagerBuilder.loadFromResource(cfgResource))
+                .build();
+        initializeMocks(this.boardConfigurationManager, builder, null);
+    }
+
     protected void initializeMocks(ModelNode config, AdditionalBuilderInit init) throws Exception {
         BoardConfigurationManagerBuilder builder = new BoardConfigurationManagerBuilder();
         this.boardConfigurationManager = builder
@@ -116,19 +144,26 @@ public abstract class AbstractBoardTest {
                 .setIssueRegistry(issueRegistry)
                 .setSearchCallback(searchCallback)
                 .build();
-        IssueLinkManager issueLinkManager = new IssueLinkManagerBuilder().build();
+        IssueLinkManager issueLinkManager = new IssueLinkManagerBuilder()
+                .setIssueRegistry(issueRegistry)
+                .build();
+        IssueService issueService = new IssueServiceBuilder()
+                .setIssueRegistry(issueRegistry)
+                .build();
         worker.init();
 
         BoardManagerBuilder boardManagerBuilder = new BoardManagerBuilder(cfgManager, configurationManagerInjectables)
                 .setUserManager(userManager)
                 .setSearchService(searchService)
                 .setIssueLinkManager(issueLinkManager)
+                .setIssueService(issueService)
                 .setNextRankedIssueUtil(nextRankedIssueUtil);
 
         if (init != null) {
             init.initialise(boardManagerBuilder);
         }
         boardManager = boardManagerBuilder.build();
+        jiraInjectables = boardManagerBuilder.getJiraInjectables();
     }
 
 
@@ -251,6 +251,16 @@ public class BoardConfigurationManagerTest {
         checkConfig("config/board-enable-epics.json");
     }
 
+    @Test
+    public void testLoadConfigurationWithLoadStrategy() throws IOException {
+        checkConfig("config/board-load-strategy.json");
+    }
+
+    @Test(expected = OverbaardValidationException.class)
+    public void testBadLoadStrategy() throws IOException {
+        checkConfig("config/board-bad-load-strategy.json");
+    }
+
     @Test(expected = OverbaardValidationException.class)
     public void testBadBoardStateFromProject() throws IOException {
         checkConfig("config/board-tdp-bad-state-link.json");
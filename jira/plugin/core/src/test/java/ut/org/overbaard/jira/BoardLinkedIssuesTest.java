@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira;
+
+import static org.overbaard.jira.impl.Constants.CHANGES;
+import static org.overbaard.jira.impl.Constants.ISSUES;
+import static org.overbaard.jira.impl.Constants.KEY;
+import static org.overbaard.jira.impl.Constants.LINKED_ISSUES;
+import static org.overbaard.jira.impl.Constants.STATE;
+import static org.overbaard.jira.impl.Constants.SUMMARY;
+import static org.overbaard.jira.impl.Constants.VIEW;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.overbaard.jira.impl.OverbaardIssueEvent;
+
+import com.atlassian.jira.issue.search.SearchException;
+
+/**
+ * Tests the links events, which reload the linked issues of a board issue, and the events for the issues in the
+ * linked projects, which are routed to the board issues linking to them. The TDP project links to issues in the TUP
+ * project.
+ *
+ * @author Kabir Khan
+ */
+public class BoardLinkedIssuesTest extends AbstractBoardTest {
+
+    @Before
+    public void initializeMocks() throws Exception {
+        initializeMocks("config/board-linked-projects-done.json");
+        issueRegistry.issueBuilder("TDP", "task", "high", "One", "TDP-A").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "bug", "low", "Two", "TDP-B").buildAndRegister();
+        issueRegistry.issueBuilder("TUP", "task", "high", "Linked One", "TUP-A").buildAndRegister();
+        issueRegistry.issueBuilder("TUP", "task", "high", "Linked Two", "TUP-A").buildAndRegister();
+        issueRegistry.linkIssues("TDP-1", "blocks", "is blocked by", "TUP-1");
+    }
+
+    @Test
+    public void testLoadLinkedIssues() throws Exception {
+        ModelNode boardNode = getJson(0);
+        ModelNode allIssues = boardNode.get(ISSUES);
+        checkLinkedIssues(allIssues.get("TDP-1"), new LinkedIssueData("TUP-1", 0, "Linked One"));
+        checkLinkedIssues(allIssues.get("TDP-2"));
+    }
+
+    @Test
+    public void testLinkAdded() throws Exception {
+        getJson(0);
+
+        //An inward link also counts
+        issueRegistry.linkIssues("TUP-2", "blocks", "is blocked by", "TDP-2");
+        boardManager.handleEvent(OverbaardIssueEvent.createLinksEvent("TDP-2", "TDP"), nextRankedIssueUtil);
+        ModelNode changes = getChangesJson(0, 1);
+        checkLinkedIssuesChange(changes, "TDP-2", new LinkedIssueData("TUP-2", 0, "Linked Two"));
+
+        ModelNode allIssues = getJson(1).get(ISSUES);
+        checkLinkedIssues(allIssues.get("TDP-1"), new LinkedIssueData("TUP-1", 0, "Linked One"));
+        checkLinkedIssues(allIssues.get("TDP-2"), new LinkedIssueData("TUP-2", 0, "Linked Two"));
+
+        //A change to the newly linked issue now reaches TDP-2
+        issueRegistry.updateIssue("TUP-2", null, null, null, null, null, null, null, "TUP-B");
+        boardManager.handleLinkedIssueEvent("TUP-2", "TUP");
+        changes = getChangesJson(1, 2);
+        checkLinkedIssuesChange(changes, "TDP-2", new LinkedIssueData("TUP-2", 1, "Linked Two"));
+    }
+
+    @Test
+    public void testLinksUnchanged() throws Exception {
+        getJson(0);
+
+        //The links of TDP-1 were reported as changed, but it still links to the same issues
+        boardManager.handleEvent(OverbaardIssueEvent.createLinksEvent("TDP-1", "TDP"), nextRankedIssueUtil);
+        getJson(0);
+
+        //Links to issues in projects which are not linked projects of the board are ignored
+        issueRegistry.issueBuilder("TBG", "task", "high", "Other", "TBG-X").buildAndRegister();
+        issueRegistry.linkIssues("TDP-2", "blocks", "is blocked by", "TBG-1");
+        boardManager.handleEvent(OverbaardIssueEvent.createLinksEvent("TDP-2", "TDP"), nextRankedIssueUtil);
+        getJson(0);
+    }
+
+    @Test
+    public void testLinkRemoved() throws Exception {
+        issueRegistry.linkIssues("TDP-2", "relates to", "relates to", "TUP-1");
+        ModelNode allIssues = getJson(0).get(ISSUES);
+        checkLinkedIssues(allIssues.get("TDP-1"), new LinkedIssueData("TUP-1", 0, "Linked One"));
+        checkLinkedIssues(allIssues.get("TDP-2"), new LinkedIssueData("TUP-1", 0, "Linked One"));
+
+        issueRegistry.unlinkIssues("TDP-1", "TUP-1");
+        boardManager.handleEvent(OverbaardIssueEvent.createLinksEvent("TDP-1", "TDP"), nextRankedIssueUtil);
+        ModelNode changes = getChangesJson(0, 1);
+        //The clients get an empty list, so that they clear the linked issues
+        checkLinkedIssuesChange(changes, "TDP-1");
+
+        allIssues = getJson(1).get(ISSUES);
+        checkLinkedIssues(allIssues.get("TDP-1"));
+        checkLinkedIssues(allIssues.get("TDP-2"), new LinkedIssueData("TUP-1", 0, "Linked One"));
+
+        //TDP-1 was removed from the issues linking to TUP-1, so only TDP-2 is updated
+        issueRegistry.updateIssue("TUP-1", null, null, "Linked One - updated", null, null, null, null, null);
+        boardManager.handleLinkedIssueEvent("TUP-1", "TUP");
+        changes = getChangesJson(1, 2);
+        checkLinkedIssuesChange(changes, "TDP-2", new LinkedIssueData("TUP-1", 0, "Linked One - updated"));
+
+        //Once nothing links to TUP-1 any more, changes to it do not affect the board
+        issueRegistry.unlinkIssues("TDP-2", "TUP-1");
+        boardManager.handleEvent(OverbaardIssueEvent.createLinksEvent("TDP-2", "TDP"), nextRankedIssueUtil);
+        getChangesJson(2, 3);
+        issueRegistry.updateIssue("TUP-1", null, null, null, null, null, null, null, "TUP-C");
+        boardManager.handleLinkedIssueEvent("TUP-1", "TUP");
+        allIssues = getJson(3).get(ISSUES);
+        checkLinkedIssues(allIssues.get("TDP-1"));
+        checkLinkedIssues(allIssues.get("TDP-2"));
+    }
+
+    @Test
+    public void testLinkedIssueChanged() throws Exception {
+        issueRegistry.linkIssues("TUP-1", "blocks", "is blocked by", "TDP-2");
+        getJson(0);
+
+        issueRegistry.updateIssue("TUP-1", null, null, "Linked One - updated", null, null, null, null, "TUP-B");
+        boardManager.handleLinkedIssueEvent("TUP-1", "TUP");
+        //Both issues linking to TUP-1 get a links event
+        ModelNode changes = getChangesJson(0, 2);
+        checkLinkedIssuesChange(changes, "TDP-1", new LinkedIssueData("TUP-1", 1, "Linked One - updated"));
+        checkLinkedIssuesChange(changes, "TDP-2", new LinkedIssueData("TUP-1", 1, "Linked One - updated"));
+
+        ModelNode allIssues = getJson(2).get(ISSUES);
+        checkLinkedIssues(allIssues.get("TDP-1"), new LinkedIssueData("TUP-1", 1, "Linked One - updated"));
+        checkLinkedIssues(allIssues.get("TDP-2"), new LinkedIssueData("TUP-1", 1, "Linked One - updated"));
+    }
+
+    @Test
+    public void testLinkedIssueUnchanged() throws Exception {
+        getJson(0);
+
+        //Only the state, summary and issue type are held for the linked issues
+        issueRegistry.updateIssue("TUP-1", null, "low", null, null, null, null, null, null);
+        boardManager.handleLinkedIssueEvent("TUP-1", "TUP");
+        //Nothing links to TUP-2
+        issueRegistry.updateIssue("TUP-2", null, null, "Linked Two - updated", null, null, null, null, null);
+        boardManager.handleLinkedIssueEvent("TUP-2", "TUP");
+        getJson(0);
+    }
+
+    @Test
+    public void testLinkingIssueDeleted() throws Exception {
+        getJson(0);
+
+        //Moving TDP-1 to a done state removes it from the board, and from the issues linking to TUP-1
+        OverbaardIssueEvent update = updateEventBuilder("TDP-1").state("TDP-C").buildAndRegister();
+        boardManager.handleEvent(update, nextRankedIssueUtil);
+        ModelNode allIssues = getJson(1).get(ISSUES);
+        Assert.assertFalse(allIssues.hasDefined("TDP-1"));
+
+        issueRegistry.updateIssue("TUP-1", null, null, "Linked One - updated", null, null, null, null, null);
+        boardManager.handleLinkedIssueEvent("TUP-1", "TUP");
+        getJson(1);
+    }
+
+    private ModelNode getJson(int expectedViewId) throws SearchException {
+        String json = boardManager.getBoardJson(userManager.getUserByKey("kabir"), false, "TST");
+        Assert.assertNotNull(json);
+        ModelNode boardNode = ModelNode.fromJSONString(json);
+        Assert.assertEquals(expectedViewId, boardNode.get(VIEW).asInt());
+        return boardNode;
+    }
+
+    private ModelNode getChangesJson(int fromView, int expectedView) throws SearchException {
+        String json = boardManager.getChangesJson(userManager.getUserByKey("kabir"), false, "TST", fromView);
+        ModelNode changesNode = ModelNode.fromJSONString(json);
+        Assert.assertEquals(expectedView, changesNode.get(CHANGES, VIEW).asInt());
+        return changesNode;
+    }
+
+    private void checkLinkedIssuesChange(ModelNode changesNode, String issueKey, LinkedIssueData... expected) {
+        List<ModelNode> updates = changesNode.get(CHANGES, ISSUES, "update").asList();
+        for (ModelNode update : updates) {
+            if (update.get(KEY).asString().equals(issueKey)) {
+                //Only the linked issues are sent
+                Assert.assertFalse(update.hasDefined(SUMMARY));
+                Assert.assertTrue(update.hasDefined(LINKED_ISSUES));
+                checkLinkedIssueList(update.get(LINKED_ISSUES), expected);
+                return;
+            }
+        }
+        Assert.fail("No update for " + issueKey + " in " + changesNode);
+    }
+
+    private void checkLinkedIssues(ModelNode issue, LinkedIssueData... expected) {
+        Assert.assertTrue(issue.isDefined());
+        if (expected.length == 0) {
+            Assert.assertFalse(issue.hasDefined(LINKED_ISSUES));
+            return;
+        }
+        checkLinkedIssueList(issue.get(LINKED_ISSUES), expected);
+    }
+
+    private void checkLinkedIssueList(ModelNode linkedIssues, LinkedIssueData... expected) {
+        Map<String, ModelNode> linkedIssuesByKey = new HashMap<>();
+        for (ModelNode linkedIssue : linkedIssues.asList()) {
+            linkedIssuesByKey.put(linkedIssue.get(KEY).asString(), linkedIssue);
+        }
+        Assert.assertEquals(expected.length, linkedIssuesByKey.size());
+        for (LinkedIssueData data : expected) {
+            ModelNode linkedIssue = linkedIssuesByKey.get(data.key);
+            Assert.assertNotNull(data.key, linkedIssue);
+            Assert.assertEquals(data.state, linkedIssue.get(STATE).asInt());
+            Assert.assertEquals(data.summary, linkedIssue.get(SUMMARY).asString());
+        }
+    }
+
+    private static class LinkedIssueData {
+        private final String key;
+        private final int state;
+        private final String summary;
+
+        LinkedIssueData(String key, int state, String summary) {
+            this.key = key;
+            this.state = state;
+            this.summary = summary;
+        }
+    }
+}
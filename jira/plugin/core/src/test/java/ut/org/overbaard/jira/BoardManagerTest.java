@@ -35,8 +35,11 @@ import static org.overbaard.jira.impl.Constants.ISSUE_TYPES;
 import static org.overbaard.jira.impl.Constants.KEY;
 import static org.overbaard.jira.impl.Constants.LABELS;
 import static org.overbaard.jira.impl.Constants.LINKED;
+import static org.overbaard.jira.impl.Constants.LOADED;
+import static org.overbaard.jira.impl.Constants.LOADING;
 import static org.overbaard.jira.impl.Constants.MAIN;
 import static org.overbaard.jira.impl.Constants.NAME;
+import static org.overbaard.jira.impl.Constants.NOT_LOADED;
 import static org.overbaard.jira.impl.Constants.OPTIONS;
 import static org.overbaard.jira.impl.Constants.OVERRIDE;
 import static org.overbaard.jira.impl.Constants.OVERRIDES;
@@ -50,6 +53,7 @@ import static org.overbaard.jira.impl.Constants.RANKED;
 import static org.overbaard.jira.impl.Constants.STATE;
 import static org.overbaard.jira.impl.Constants.STATES;
 import static org.overbaard.jira.impl.Constants.STATE_LINKS;
+import static org.overbaard.jira.impl.Constants.STATUS;
 import static org.overbaard.jira.impl.Constants.SUMMARY;
 import static org.overbaard.jira.impl.Constants.TYPE;
 import static org.overbaard.jira.impl.Constants.TYPE_STATES;
@@ -81,6 +85,7 @@ import org.overbaard.jira.impl.config.CustomFieldConfig;
 
 import com.atlassian.jira.issue.search.SearchException;
 
+import ut.org.overbaard.jira.mock.AvatarServiceBuilder;
 import ut.org.overbaard.jira.mock.PermissionManagerBuilder;
 
 /**
@@ -396,6 +401,74 @@ public class BoardManagerTest extends AbstractBoardTest {
         }
         Assert.assertArrayEquals(expected, states.toArray(new String[states.size()]));
     }
+
+    @Test
+    public void testBackgroundLoad() throws Exception {
+        issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
+                .assignee("kabir").buildAndRegister();
+        issueRegistry.issueBuilder("TBG", "task", "high", "Two", "TBG-X")
+                .assignee("brian").buildAndRegister();
+
+        ModelNode status = ModelNode.fromJSONString(boardManager.getBoardLoadStatus(userManager.getUserByKey("kabir"), "TST"));
+        Assert.assertEquals(NOT_LOADED, status.get(STATUS).asString());
+
+        status = ModelNode.fromJSONString(boardManager.startBoardLoad(userManager.getUserByKey("kabir"), "TST"));
+        final long end = System.currentTimeMillis() + 10000;
+        while (status.get(STATUS).asString().equals(LOADING) && System.currentTimeMillis() < end) {
+            Assert.assertTrue(status.get(LOADED).asInt() <= 2);
+            Thread.sleep(10);
+            status = ModelNode.fromJSONString(boardManager.getBoardLoadStatus(userManager.getUserByKey("kabir"), "TST"));
+        }
+        Assert.assertEquals(LOADED, status.get(STATUS).asString());
+
+        //The board should now be there without doing another load
+        ModelNode boardNode = getJson(0,
+                new BoardAssigneeChecker("brian", "kabir"));
+        Assert.assertEquals(2, boardNode.get(ISSUES).keys().size());
+    }
+
+    @Test
+    public void testAssigneeCache() throws Exception {
+        final Map<String, Integer> avatarLookups = new HashMap<>();
+        initializeMocks("config/board-tdp.json",
+                boardManagerBuilder -> boardManagerBuilder.setAvatarService(AvatarServiceBuilder.getUserNameUrlMock(avatarLookups)));
+        issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
+                .assignee("kabir").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "task", "high", "Two", "TDP-B")
+                .assignee("kabir").buildAndRegister();
+        issueRegistry.issueBuilder("TBG", "task", "high", "Three", "TBG-X")
+                .assignee("brian").buildAndRegister();
+        getJson(0, new BoardAssigneeChecker("brian", "kabir"));
+        checkAvatarLookups(avatarLookups, "brian", 1, "kabir", 1);
+
+        //A new assignee coming in via an event is looked up once
+        OverbaardIssueEvent update = updateEventBuilder("TDP-2").assignee("jason").buildAndRegister();
+        boardManager.handleEvent(update, nextRankedIssueUtil);
+        getJson(1, new BoardAssigneeChecker("brian", "jason", "kabir"));
+        checkAvatarLookups(avatarLookups, "brian", 1, "jason", 1, "kabir", 1);
+
+        //Reloading the board uses the cached assignees
+        boardManager.deleteBoard(userManager.getUserByKey("kabir"), "TST");
+        getJson(0, new BoardAssigneeChecker("brian", "jason", "kabir"));
+        checkAvatarLookups(avatarLookups, "brian", 1, "jason", 1, "kabir", 1);
+
+        //A changed user is looked up again the next time it is needed
+        boardManager.onUserChanged("kabir");
+        boardManager.deleteBoard(userManager.getUserByKey("kabir"), "TST");
+        getJson(0, new BoardAssigneeChecker("brian", "jason", "kabir"));
+        checkAvatarLookups(avatarLookups, "brian", 1, "jason", 1, "kabir", 2);
+    }
+
+    private void checkAvatarLookups(Map<String, Integer> avatarLookups, Object... expected) {
+        Map<String, Integer> expectedLookups = new HashMap<>();
+        for (int i = 0; i < expected.length; i += 2) {
+            expectedLookups.put((String) expected[i], (Integer) expected[i + 1]);
+        }
+        synchronized (avatarLookups) {
+            Assert.assertEquals(expectedLookups, avatarLookups);
+        }
+    }
+
     @Test
     public void testLoadBoardOnlyOwnerProjectIssues() throws Exception {
         issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira.impl.board;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.overbaard.jira.api.NextRankedIssueUtil;
+import org.overbaard.jira.impl.OverbaardIssueEvent;
+import org.overbaard.jira.impl.board.AssigneeCache;
+import org.overbaard.jira.impl.board.Board;
+import org.overbaard.jira.impl.board.BoardDiff;
+import org.overbaard.jira.impl.board.ProjectParallelTaskOptionsLoaderBuilder;
+import org.overbaard.jira.impl.config.BoardConfig;
+
+import com.atlassian.jira.user.ApplicationUser;
+
+import ut.org.overbaard.jira.AbstractBoardTest;
+
+/**
+ * Tests working out the events which bring a loaded board up to date with a new instance of it, loaded in the
+ * background. The rank of the issues is the order they have in the issue registry.
+ *
+ * @author Kabir Khan
+ */
+public class BoardDiffTestCase extends AbstractBoardTest {
+
+    private BoardConfig boardConfig;
+    private ApplicationUser boardOwner;
+    private Board current;
+
+    @Before
+    public void initializeMocks() throws Exception {
+        initializeMocks("config/board-linked-projects-done.json");
+        for (int i = 1; i <= 6; i++) {
+            issueRegistry.issueBuilder("TDP", "task", "high", "Issue " + i, "TDP-A").buildAndRegister();
+        }
+        issueRegistry.issueBuilder("TUP", "task", "high", "Linked", "TUP-A").buildAndRegister();
+        boardConfig = boardConfigurationManager.getBoardConfigForBoardDisplay(userManager.getUserByKey("kabir"), "TST");
+        boardOwner = userManager.getUserByKey(boardConfig.getOwningUserKey());
+        current = loadBoard();
+    }
+
+    @Test
+    public void testNoChanges() throws Exception {
+        BoardDiff diff = diff(loadBoard());
+        Assert.assertFalse(diff.isFullRefreshNeeded());
+        Assert.assertTrue(diff.getEvents().isEmpty());
+    }
+
+    @Test
+    public void testRerank() throws Exception {
+        //Moving two issues only reranks those two, the others are still in the same order relative to each other
+        issueRegistry.rerankIssue("TDP-1", null);
+        issueRegistry.rerankIssue("TDP-5", "TDP-2");
+        BoardDiff diff = diff(loadBoard());
+        Assert.assertFalse(diff.isFullRefreshNeeded());
+
+        //The issues are handled backwards through the new rank, so the following issue is in place when one is moved
+        checkEvents(diff.getEvents(), "TDP-1", OverbaardIssueEvent.Type.UPDATE, "TDP-5", OverbaardIssueEvent.Type.UPDATE);
+        for (OverbaardIssueEvent event : diff.getEvents()) {
+            Assert.assertTrue(event.getDetails().isReranked());
+            Assert.assertTrue(event.isRerankOnly());
+        }
+        checkNextRanked(diff.getNextRankedIssueUtil(), "TDP-5", "TDP-2", "TDP-3", "TDP-4", "TDP-6", "TDP-1");
+    }
+
+    @Test
+    public void testRerankReversed() throws Exception {
+        for (String issueKey : new String[]{"TDP-5", "TDP-4", "TDP-3", "TDP-2", "TDP-1"}) {
+            issueRegistry.rerankIssue(issueKey, null);
+        }
+        BoardDiff diff = diff(loadBoard());
+        //Only one issue can stay where it is
+        Set<String> reranked = new HashSet<>();
+        for (OverbaardIssueEvent event : diff.getEvents()) {
+            Assert.assertTrue(event.getDetails().isReranked());
+            reranked.add(event.getIssueKey());
+        }
+        Assert.assertEquals(5, reranked.size());
+        Assert.assertEquals(5, diff.getEvents().size());
+        checkNextRanked(diff.getNextRankedIssueUtil(), "TDP-6", "TDP-5", "TDP-4", "TDP-3", "TDP-2", "TDP-1");
+    }
+
+    @Test
+    public void testRerankAndUpdate() throws Exception {
+        issueRegistry.rerankIssue("TDP-3", "TDP-1");
+        issueRegistry.updateIssue("TDP-3", null, null, "Issue 3 - updated", null, null, null, null, null);
+        BoardDiff diff = diff(loadBoard());
+        checkEvents(diff.getEvents(), "TDP-3", OverbaardIssueEvent.Type.UPDATE);
+        OverbaardIssueEvent.Detail detail = diff.getEvents().get(0).getDetails();
+        Assert.assertTrue(detail.isReranked());
+        Assert.assertEquals("Issue 3 - updated", detail.getSummary());
+    }
+
+    @Test
+    public void testCreate() throws Exception {
+        issueRegistry.issueBuilder("TDP", "bug", "low", "Issue 7", "TDP-B").buildAndRegister();
+        issueRegistry.rerankIssue("TDP-7", "TDP-2");
+        BoardDiff diff = diff(loadBoard());
+        checkEvents(diff.getEvents(), "TDP-7", OverbaardIssueEvent.Type.CREATE);
+        Assert.assertEquals("Issue 7", diff.getEvents().get(0).getDetails().getSummary());
+        checkNextRanked(diff.getNextRankedIssueUtil(), "TDP-1", "TDP-7", "TDP-2", "TDP-3", "TDP-4", "TDP-5", "TDP-6");
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        issueRegistry.deleteIssue("TDP-2");
+        //Moved to a done state
+        issueRegistry.updateIssue("TDP-4", null, null, null, null, null, null, null, "TDP-C");
+        BoardDiff diff = diff(loadBoard());
+        checkEvents(diff.getEvents(), "TDP-2", OverbaardIssueEvent.Type.DELETE, "TDP-4", OverbaardIssueEvent.Type.DELETE);
+        checkNextRanked(diff.getNextRankedIssueUtil(), "TDP-1", "TDP-3", "TDP-5", "TDP-6");
+    }
+
+    @Test
+    public void testLinks() throws Exception {
+        issueRegistry.linkIssues("TDP-2", "blocks", "is blocked by", "TUP-1");
+        BoardDiff diff = diff(loadBoard());
+        checkEvents(diff.getEvents(), "TDP-2", OverbaardIssueEvent.Type.LINKS);
+    }
+
+    @Test
+    public void testChangedByEvents() throws Exception {
+        //The loaded board has a more recent state of the issues changed by events while the new instance was loading
+        issueRegistry.updateIssue("TDP-2", null, null, "Issue 2 - updated", null, null, null, null, null);
+        issueRegistry.deleteIssue("TDP-3");
+        issueRegistry.rerankIssue("TDP-4", "TDP-1");
+        Set<String> changedIssueKeys = new HashSet<>();
+        changedIssueKeys.add("TDP-2");
+        changedIssueKeys.add("TDP-3");
+        changedIssueKeys.add("TDP-4");
+        BoardDiff diff = BoardDiff.create(jiraInjectables, current, loadBoard(), boardOwner, changedIssueKeys);
+        Assert.assertFalse(diff.isFullRefreshNeeded());
+        Assert.assertTrue(diff.getEvents().isEmpty());
+    }
+
+    @Test
+    public void testBlacklistChanged() throws Exception {
+        //The new issue has a state which is not in the config, so it is blacklisted
+        issueRegistry.issueBuilder("TDP", "task", "high", "Issue 7", "TDP-X").buildAndRegister();
+        BoardDiff diff = diff(loadBoard());
+        Assert.assertTrue(diff.isFullRefreshNeeded());
+        Assert.assertTrue(diff.getEvents().isEmpty());
+    }
+
+    @Test
+    public void testTooManyChanges() throws Exception {
+        for (int i = 0; i < 501; i++) {
+            issueRegistry.issueBuilder("TDP", "task", "high", "New " + i, "TDP-A").buildAndRegister();
+        }
+        Assert.assertTrue(diff(loadBoard()).isFullRefreshNeeded());
+    }
+
+    private Board loadBoard() throws Exception {
+        return Board.builder(jiraInjectables, new ProjectParallelTaskOptionsLoaderBuilder().build(), boardConfig,
+                new AssigneeCache(), boardOwner).load().build();
+    }
+
+    private BoardDiff diff(Board rebuilt) throws Exception {
+        return BoardDiff.create(jiraInjectables, current, rebuilt, boardOwner, Collections.emptySet());
+    }
+
+    private void checkEvents(List<OverbaardIssueEvent> events, Object... expected) {
+        Assert.assertEquals(events.toString(), expected.length / 2, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Assert.assertEquals(expected[i * 2], events.get(i).getIssueKey());
+            Assert.assertEquals(expected[i * 2 + 1], events.get(i).getType());
+        }
+    }
+
+    private void checkNextRanked(NextRankedIssueUtil nextRankedIssueUtil, String... rankedIssueKeys) {
+        for (int i = 0; i < rankedIssueKeys.length; i++) {
+            String next = i < rankedIssueKeys.length - 1 ? rankedIssueKeys[i + 1] : null;
+            Assert.assertEquals(next, nextRankedIssueUtil.findNextRankedIssue(
+                    boardConfig.getBoardProject("TDP"), boardOwner, rankedIssueKeys[i]));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira.impl.board;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.overbaard.jira.impl.OverbaardIssueEvent;
+import org.overbaard.jira.impl.board.AssigneeCache;
+import org.overbaard.jira.impl.board.Board;
+import org.overbaard.jira.impl.board.BoardReconciler;
+import org.overbaard.jira.impl.board.ProjectParallelTaskOptionsLoaderBuilder;
+import org.overbaard.jira.impl.config.BoardConfig;
+
+import com.atlassian.jira.user.ApplicationUser;
+
+import ut.org.overbaard.jira.AbstractBoardTest;
+
+/**
+ * Tests the events created to bring a loaded board up to date with Jira. The TDP project links to issues in the TUP
+ * project, and its TDP-C and TDP-D states are done states.
+ *
+ * @author Kabir Khan
+ */
+public class BoardReconcilerTestCase extends AbstractBoardTest {
+
+    private long loadTime;
+    private ApplicationUser boardOwner;
+    private Board board;
+
+    @Before
+    public void initializeMocks() throws Exception {
+        initializeMocks("config/board-linked-projects-done.json");
+        issueRegistry.issueBuilder("TDP", "task", "high", "One", "TDP-A").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "bug", "low", "Two", "TDP-B").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "task", "low", "Three", "TDP-A").buildAndRegister();
+        issueRegistry.issueBuilder("TUP", "task", "high", "Linked One", "TUP-A").buildAndRegister();
+        issueRegistry.issueBuilder("TUP", "task", "high", "Linked Two", "TUP-A").buildAndRegister();
+        issueRegistry.linkIssues("TDP-1", "blocks", "is blocked by", "TUP-1");
+        issueRegistry.linkIssues("TUP-2", "blocks", "is blocked by", "TDP-3");
+
+        loadTime = System.currentTimeMillis();
+        //The issues were last changed well before the board was loaded
+        for (String issueKey : new String[]{"TDP-1", "TDP-2", "TDP-3", "TUP-1", "TUP-2"}) {
+            issueRegistry.setUpdated(issueKey, loadTime - TimeUnit.HOURS.toMillis(1));
+        }
+        BoardConfig boardConfig = boardConfigurationManager.getBoardConfigForBoardDisplay(userManager.getUserByKey("kabir"), "TST");
+        boardOwner = userManager.getUserByKey(boardConfig.getOwningUserKey());
+        board = Board.builder(jiraInjectables, new ProjectParallelTaskOptionsLoaderBuilder().build(), boardConfig,
+                new AssigneeCache(), boardOwner).load().build();
+
+        Assert.assertEquals(Collections.singletonList("TDP-1"), new ArrayList<>(board.getLinkingIssueKeys("TUP-1")));
+        Assert.assertEquals(Collections.singletonList("TDP-3"), new ArrayList<>(board.getLinkingIssueKeys("TUP-2")));
+    }
+
+    @Test
+    public void testNoChanges() throws Exception {
+        checkEvents(reconcile());
+
+        //The issues changed just before the load are searched for again, but have not changed since
+        for (String issueKey : new String[]{"TDP-1", "TDP-2", "TDP-3", "TUP-1", "TUP-2"}) {
+            issueRegistry.setUpdated(issueKey, loadTime - TimeUnit.SECONDS.toMillis(30));
+        }
+        checkEvents(reconcile());
+    }
+
+    @Test
+    public void testCreate() throws Exception {
+        issueRegistry.issueBuilder("TDP", "feature", "highest", "Four", "TDP-B").assignee("kabir").buildAndRegister();
+        //Issues created in a done state are not on the board
+        issueRegistry.issueBuilder("TDP", "task", "high", "Five", "TDP-C").buildAndRegister();
+
+        List<OverbaardIssueEvent> events = reconcile();
+        checkEvents(events, "TDP-4", OverbaardIssueEvent.Type.CREATE);
+        OverbaardIssueEvent.Detail detail = events.get(0).getDetails();
+        Assert.assertEquals("feature", detail.getIssueType());
+        Assert.assertEquals("highest", detail.getPriority());
+        Assert.assertEquals("Four", detail.getSummary());
+        Assert.assertEquals("TDP-B", detail.getState());
+        Assert.assertEquals("kabir", detail.getAssignee().getKey());
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        issueRegistry.updateIssue("TDP-2", null, "high", "Two - updated", "brian", null, null, null, null);
+        //Updating a field to the value the board already has gives no event
+        issueRegistry.updateIssue("TDP-3", null, "low", null, null, null, null, null, null);
+
+        List<OverbaardIssueEvent> events = reconcile();
+        checkEvents(events, "TDP-2", OverbaardIssueEvent.Type.UPDATE);
+        OverbaardIssueEvent.Detail detail = events.get(0).getDetails();
+        //Only the changed fields are set
+        Assert.assertNull(detail.getIssueType());
+        Assert.assertEquals("high", detail.getPriority());
+        Assert.assertEquals("Two - updated", detail.getSummary());
+        Assert.assertEquals("brian", detail.getAssignee().getKey());
+        Assert.assertEquals("TDP-B", detail.getOldState());
+        Assert.assertNull(detail.getState());
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        //Moving an issue to a done state removes it from the board
+        issueRegistry.updateIssue("TDP-2", null, null, null, null, null, null, null, "TDP-C");
+        checkEvents(reconcile(), "TDP-2", OverbaardIssueEvent.Type.DELETE);
+    }
+
+    @Test
+    public void testSinceOverlap() throws Exception {
+        //The 'updated' clause only has minute precision, so changes made up to two minutes before the last
+        //reconcile are picked up again
+        issueRegistry.updateIssue("TDP-1", null, null, "One - updated", null, null, null, null, null);
+        issueRegistry.setUpdated("TDP-1", loadTime - TimeUnit.SECONDS.toMillis(90));
+        issueRegistry.updateIssue("TDP-2", null, null, "Two - updated", null, null, null, null, null);
+        issueRegistry.setUpdated("TDP-2", loadTime - TimeUnit.MINUTES.toMillis(3));
+        checkEvents(reconcile(), "TDP-1", OverbaardIssueEvent.Type.UPDATE);
+    }
+
+    @Test
+    public void testLinkAdded() throws Exception {
+        issueRegistry.linkIssues("TDP-2", "relates to", "relates to", "TUP-2");
+        issueRegistry.setUpdated("TDP-2", System.currentTimeMillis());
+        checkEvents(reconcile(), "TDP-2", OverbaardIssueEvent.Type.LINKS);
+    }
+
+    @Test
+    public void testLinkRemoved() throws Exception {
+        issueRegistry.unlinkIssues("TUP-2", "TDP-3");
+        issueRegistry.setUpdated("TDP-3", System.currentTimeMillis());
+        checkEvents(reconcile(), "TDP-3", OverbaardIssueEvent.Type.LINKS);
+    }
+
+    @Test
+    public void testFieldsAndLinksChanged() throws Exception {
+        issueRegistry.updateIssue("TDP-2", null, null, "Two - updated", null, null, null, null, null);
+        issueRegistry.linkIssues("TDP-2", "relates to", "relates to", "TUP-2");
+        checkEvents(reconcile(), "TDP-2", OverbaardIssueEvent.Type.UPDATE, "TDP-2", OverbaardIssueEvent.Type.LINKS);
+    }
+
+    @Test
+    public void testLinkedIssueChanged() throws Exception {
+        //Both an outward and an inward link are found from the linked issue
+        issueRegistry.updateIssue("TUP-1", null, null, "Linked One - updated", null, null, null, null, null);
+        issueRegistry.updateIssue("TUP-2", null, null, null, null, null, null, null, "TUP-B");
+        //A linked issue which no board issue links to gives no event
+        issueRegistry.issueBuilder("TUP", "task", "high", "Linked Three", "TUP-A").buildAndRegister();
+        checkEvents(reconcile(), "TDP-1", OverbaardIssueEvent.Type.LINKS, "TDP-3", OverbaardIssueEvent.Type.LINKS);
+    }
+
+    @Test
+    public void testLinkedIssueUnchanged() throws Exception {
+        //The linked issue was updated, but not in any of the fields held for it
+        issueRegistry.updateIssue("TUP-1", null, "low", null, null, null, null, null, null);
+        checkEvents(reconcile());
+    }
+
+    @Test
+    public void testLinksEventNotDuplicated() throws Exception {
+        //The links of TDP-1 changed, and so did the issue it links to. A single links event reloads all of them
+        issueRegistry.linkIssues("TDP-1", "relates to", "relates to", "TUP-2");
+        issueRegistry.setUpdated("TDP-1", System.currentTimeMillis());
+        issueRegistry.updateIssue("TUP-1", null, null, "Linked One - updated", null, null, null, null, null);
+        checkEvents(reconcile(), "TDP-1", OverbaardIssueEvent.Type.LINKS);
+    }
+
+    @Test
+    public void testTooManyChanges() throws Exception {
+        for (int i = 0; i < 501; i++) {
+            issueRegistry.issueBuilder("TDP", "task", "high", "New " + i, "TDP-A").buildAndRegister();
+        }
+        BoardReconciler.Result result = BoardReconciler.reconcile(jiraInjectables, board, boardOwner, loadTime);
+        Assert.assertTrue(result.isFullRefreshNeeded());
+        Assert.assertTrue(result.getEvents().isEmpty());
+    }
+
+    private List<OverbaardIssueEvent> reconcile() throws Exception {
+        BoardReconciler.Result result = BoardReconciler.reconcile(jiraInjectables, board, boardOwner, loadTime);
+        Assert.assertFalse(result.isFullRefreshNeeded());
+        return result.getEvents();
+    }
+
+    private void checkEvents(List<OverbaardIssueEvent> events, Object... expected) {
+        Assert.assertEquals(events.toString(), expected.length / 2, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Assert.assertEquals(expected[i * 2], events.get(i).getIssueKey());
+            Assert.assertEquals(expected[i * 2 + 1], events.get(i).getType());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira.impl.board;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.overbaard.jira.api.CustomFieldOptions;
+import org.overbaard.jira.impl.JiraInjectables;
+import org.overbaard.jira.impl.board.ProjectCustomFieldOptionsLoaderImpl;
+import org.overbaard.jira.impl.board.SortedFieldOptions;
+import org.overbaard.jira.impl.config.BoardConfig;
+
+import com.atlassian.jira.issue.customfields.manager.OptionsManager;
+import com.atlassian.jira.issue.customfields.option.Option;
+import com.atlassian.jira.issue.customfields.option.Options;
+import com.atlassian.jira.issue.fields.config.FieldConfig;
+import com.atlassian.jira.issue.search.SearchContextFactory;
+import com.atlassian.jira.project.Project;
+import com.atlassian.jira.project.ProjectManager;
+
+import ut.org.overbaard.jira.AbstractBoardTest;
+
+/**
+ * Tests the caching of the options of the custom fields. The 'Tested By' field in board-custom.json is a single-select
+ * field used by the TDP project.
+ *
+ * @author Kabir Khan
+ */
+public class ProjectCustomFieldOptionsLoaderTestCase extends AbstractBoardTest {
+
+    private final OptionsManager optionsManager = mock(OptionsManager.class);
+    private final ProjectManager projectManager = mock(ProjectManager.class);
+    private final JiraInjectables jiraInjectables = mock(JiraInjectables.class);
+    private final List<String> optionValues = new ArrayList<>();
+
+    private BoardConfig boardConfig;
+
+    @Before
+    public void initializeMocks() throws Exception {
+        initializeMocks("config/board-custom.json");
+        boardConfig = boardConfigurationManager.getBoardConfig("TST");
+
+        addProject("TDP", 10L);
+        addProject("TBG", 11L);
+        when(jiraInjectables.getProjectManager()).thenReturn(projectManager);
+        when(jiraInjectables.getOptionsManager()).thenReturn(optionsManager);
+        when(jiraInjectables.getSearchContextFactory()).thenReturn(mock(SearchContextFactory.class));
+        when(optionsManager.getOptions(any(FieldConfig.class))).then(invocation -> createOptions());
+
+        optionValues.add("Alice");
+        optionValues.add("Bob");
+    }
+
+    @Test
+    public void testOptionsCached() throws Exception {
+        ProjectCustomFieldOptionsLoaderImpl loader = new ProjectCustomFieldOptionsLoaderImpl();
+        checkTestedByOptions(loader.loadCustomFieldOptions(jiraInjectables, boardConfig, boardConfig.getBoardProject("TDP")),
+                "Alice", "Bob");
+        verify(optionsManager, times(1)).getOptions(any(FieldConfig.class));
+
+        //A reload of the board, or another board using the same field in the same project, uses the cached options
+        optionValues.add("Carl");
+        checkTestedByOptions(loader.loadCustomFieldOptions(jiraInjectables, boardConfig, boardConfig.getBoardProject("TDP")),
+                "Alice", "Bob");
+        verify(optionsManager, times(1)).getOptions(any(FieldConfig.class));
+    }
+
+    @Test
+    public void testNoSingleSelectFields() throws Exception {
+        ProjectCustomFieldOptionsLoaderImpl loader = new ProjectCustomFieldOptionsLoaderImpl();
+        CustomFieldOptions options = loader.loadCustomFieldOptions(jiraInjectables, boardConfig, boardConfig.getBoardProject("TBG"));
+        Assert.assertTrue(options.getCustomFieldsOptions().isEmpty());
+        verify(optionsManager, never()).getOptions(any(FieldConfig.class));
+    }
+
+    @Test
+    public void testClearCache() throws Exception {
+        ProjectCustomFieldOptionsLoaderImpl loader = new ProjectCustomFieldOptionsLoaderImpl();
+        checkTestedByOptions(loader.loadCustomFieldOptions(jiraInjectables, boardConfig, boardConfig.getBoardProject("TDP")),
+                "Alice", "Bob");
+
+        //The options were changed, and a custom field changed event was received
+        optionValues.add("Carl");
+        loader.clearCache();
+        checkTestedByOptions(loader.loadCustomFieldOptions(jiraInjectables, boardConfig, boardConfig.getBoardProject("TDP")),
+                "Alice", "Bob", "Carl");
+        verify(optionsManager, times(2)).getOptions(any(FieldConfig.class));
+    }
+
+    @Test
+    public void testCachedPerLoaderInstance() throws Exception {
+        checkTestedByOptions(new ProjectCustomFieldOptionsLoaderImpl()
+                        .loadCustomFieldOptions(jiraInjectables, boardConfig, boardConfig.getBoardProject("TDP")),
+                "Alice", "Bob");
+        optionValues.add("Carl");
+        checkTestedByOptions(new ProjectCustomFieldOptionsLoaderImpl()
+                        .loadCustomFieldOptions(jiraInjectables, boardConfig, boardConfig.getBoardProject("TDP")),
+                "Alice", "Bob", "Carl");
+        verify(optionsManager, times(2)).getOptions(any(FieldConfig.class));
+    }
+
+    private void addProject(String code, Long id) {
+        Project project = mock(Project.class);
+        when(project.getKey()).thenReturn(code);
+        when(project.getId()).thenReturn(id);
+        when(projectManager.getProjectByCurrentKey(code)).thenReturn(project);
+    }
+
+    private Options createOptions() {
+        final List<Option> list = new ArrayList<>();
+        long id = 1;
+        for (String value : optionValues) {
+            Option option = mock(Option.class);
+            when(option.getOptionId()).thenReturn(id++);
+            when(option.getValue()).thenReturn(value);
+            list.add(option);
+        }
+        Options options = mock(Options.class);
+        when(options.iterator()).then(invocation -> list.iterator());
+        return options;
+    }
+
+    private void checkTestedByOptions(CustomFieldOptions options, String... expected) {
+        SortedFieldOptions.CustomFields testedBy = options.getCustomFieldsOptions().get("Tested By");
+        Assert.assertNotNull(testedBy);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], testedBy.forIndex(i).getValue());
+        }
+        try {
+            testedBy.forIndex(expected.length);
+            Assert.fail("Expected " + expected.length + " options");
+        } catch (IndexOutOfBoundsException expectedException) {
+        }
+    }
+}
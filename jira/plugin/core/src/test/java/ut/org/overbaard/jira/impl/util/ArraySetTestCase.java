@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira.impl.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.impl.util.ArraySet;
+
+/**
+ * @author Kabir Khan
+ */
+public class ArraySetTestCase {
+
+    @Test
+    public void testEmpty() {
+        ArraySet<String> empty = ArraySet.copyOf(Collections.emptyList());
+        Assert.assertNotNull(empty);
+        Assert.assertTrue(empty.isEmpty());
+        Assert.assertFalse(empty.contains("A"));
+        Assert.assertFalse(empty.iterator().hasNext());
+        Assert.assertEquals(Collections.emptySet(), empty);
+        //The empty sets are shared
+        Assert.assertSame(empty, ArraySet.copyOf(new HashSet<Integer>()));
+        Assert.assertSame(empty, ArraySet.copyOf(null));
+        Assert.assertSame(empty, ArraySet.empty());
+    }
+
+    @Test
+    public void testCopyKeepsOrder() {
+        List<String> values = Arrays.asList("C", "A", "B");
+        ArraySet<String> set = ArraySet.copyOf(values);
+        Assert.assertEquals(3, set.size());
+        Assert.assertEquals(values, new ArrayList<>(set));
+        Assert.assertTrue(set.contains("A"));
+        Assert.assertTrue(set.contains("B"));
+        Assert.assertTrue(set.contains("C"));
+        Assert.assertFalse(set.contains("D"));
+        Assert.assertFalse(set.contains(null));
+        Assert.assertEquals(new LinkedHashSet<>(values), set);
+        Assert.assertEquals(new HashSet<>(values).hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void testCopyDropsDuplicates() {
+        ArraySet<String> set = ArraySet.copyOf(Arrays.asList("B", "A", "B", "C", "A"));
+        Assert.assertEquals(Arrays.asList("B", "A", "C"), new ArrayList<>(set));
+    }
+
+    @Test
+    public void testCopyOfArraySet() {
+        ArraySet<String> set = ArraySet.copyOf(Arrays.asList("A", "B"));
+        Assert.assertSame(set, ArraySet.copyOf(set));
+    }
+
+    @Test
+    public void testImmutable() {
+        ArraySet<String> set = ArraySet.copyOf(Arrays.asList("A", "B"));
+        try {
+            set.add("C");
+            Assert.fail("Should not be able to add");
+        } catch (UnsupportedOperationException expected) {
+        }
+        Iterator<String> it = set.iterator();
+        it.next();
+        try {
+            it.remove();
+            Assert.fail("Should not be able to remove");
+        } catch (UnsupportedOperationException expected) {
+        }
+        Assert.assertEquals(Arrays.asList("A", "B"), new ArrayList<>(set));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorPastEnd() {
+        Iterator<String> it = ArraySet.copyOf(Collections.singleton("A")).iterator();
+        Assert.assertEquals("A", it.next());
+        Assert.assertFalse(it.hasNext());
+        it.next();
+    }
+}
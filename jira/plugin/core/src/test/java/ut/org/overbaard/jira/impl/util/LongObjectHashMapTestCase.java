@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira.impl.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.impl.util.IssueKey;
+import org.overbaard.jira.impl.util.LongObjectHashMap;
+
+/**
+ * @author Kabir Khan
+ */
+public class LongObjectHashMapTestCase {
+
+    @Test
+    public void testRandomOperationsAgainstHashMap() {
+        Random random = new Random(1234);
+        Map<Long, Integer> expected = new HashMap<>();
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            long key = IssueKey.pack(random.nextBoolean() ? "TDP" : "TBG", random.nextInt(3000));
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Assert.assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getValue(), map.get(entry.getKey()));
+            Assert.assertTrue(map.containsKey(entry.getKey()));
+        }
+        Map<Long, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        Assert.assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void testIssueKey() {
+        long key = IssueKey.pack("TDP-1234");
+        Assert.assertEquals(key, IssueKey.pack("TDP", 1234));
+        Assert.assertEquals("TDP", IssueKey.getProjectCode(key));
+        Assert.assertEquals(1234, IssueKey.getIssueNumber(key));
+        Assert.assertEquals("TDP-1234", IssueKey.toString(key));
+
+        long other = IssueKey.pack("MY-PROJ-1");
+        Assert.assertEquals("MY-PROJ", IssueKey.getProjectCode(other));
+        Assert.assertFalse(key == IssueKey.pack("TBG-1234"));
+    }
+}
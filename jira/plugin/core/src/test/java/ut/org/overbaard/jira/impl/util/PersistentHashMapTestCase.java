@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira.impl.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.impl.util.PersistentHashMap;
+import org.overbaard.jira.impl.util.PersistentHashSet;
+
+/**
+ * @author Kabir Khan
+ */
+public class PersistentHashMapTestCase {
+
+    @Test
+    public void testPlusAndMinusDoNotAffectOriginal() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> one = empty.plus("TDP-1", 1);
+        PersistentHashMap<String, Integer> two = one.plus("TDP-2", 2);
+        PersistentHashMap<String, Integer> replaced = two.plus("TDP-1", 10);
+        PersistentHashMap<String, Integer> removed = replaced.minus("TDP-2");
+
+        Assert.assertEquals(0, empty.size());
+        Assert.assertEquals(1, one.size());
+        Assert.assertEquals(Integer.valueOf(1), one.get("TDP-1"));
+        Assert.assertNull(one.get("TDP-2"));
+        Assert.assertEquals(2, two.size());
+        Assert.assertEquals(Integer.valueOf(1), two.get("TDP-1"));
+        Assert.assertEquals(Integer.valueOf(10), replaced.get("TDP-1"));
+        Assert.assertEquals(1, removed.size());
+        Assert.assertFalse(removed.containsKey("TDP-2"));
+        Assert.assertTrue(replaced.containsKey("TDP-2"));
+
+        Assert.assertSame(two, two.plus("TDP-2", two.get("TDP-2")));
+        Assert.assertSame(two, two.minus("TDP-3"));
+    }
+
+    @Test
+    public void testCollidingHashes() {
+        PersistentHashMap<Colliding, String> map = PersistentHashMap.empty();
+        for (int i = 0; i < 10; i++) {
+            map = map.plus(new Colliding(i), String.valueOf(i));
+        }
+        Assert.assertEquals(10, map.size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(String.valueOf(i), map.get(new Colliding(i)));
+        }
+        for (int i = 0; i < 10; i += 2) {
+            map = map.minus(new Colliding(i));
+        }
+        Assert.assertEquals(5, map.size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i % 2 == 0 ? null : String.valueOf(i), map.get(new Colliding(i)));
+        }
+    }
+
+    @Test
+    public void testRandomOperationsAgainstHashMap() {
+        Random random = new Random(1234);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+        }
+        Assert.assertEquals(expected, map);
+        Assert.assertEquals(expected.size(), map.entrySet().size());
+
+        PersistentHashMap.Builder<Integer, Integer> builder = map.toBuilder();
+        for (int i = 0; i < 5000; i++) {
+            builder.put(i, -i);
+        }
+        PersistentHashMap<Integer, Integer> built = builder.build();
+        //Further changes to the builder should not affect the built map
+        builder.put(-1, -1);
+        Assert.assertEquals(5000, built.size());
+        Assert.assertFalse(built.containsKey(-1));
+        //And the original should not have been touched
+        Assert.assertEquals(expected, map);
+    }
+
+    @Test
+    public void testSet() {
+        PersistentHashSet<String> empty = PersistentHashSet.empty();
+        PersistentHashSet<String> set = empty.plus("a").plus("b");
+        Assert.assertTrue(empty.isEmpty());
+        Assert.assertEquals(2, set.size());
+        Assert.assertTrue(set.contains("a"));
+        PersistentHashSet<String> removed = set.minus("a");
+        Assert.assertFalse(removed.contains("a"));
+        Assert.assertTrue(set.contains("a"));
+        Assert.assertSame(set, set.plus("b"));
+    }
+
+    private static class Colliding {
+        private final int value;
+
+        Colliding(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Colliding && ((Colliding) obj).value == value;
+        }
+    }
+}
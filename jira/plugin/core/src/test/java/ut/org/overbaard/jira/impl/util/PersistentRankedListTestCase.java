@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira.impl.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.impl.util.PersistentRankedList;
+
+/**
+ * @author Kabir Khan
+ */
+public class PersistentRankedListTestCase {
+
+    @Test
+    public void testCopyOf() {
+        PersistentRankedList<String> list = PersistentRankedList.copyOf(Arrays.asList("A", "B", "C", "D", "E"));
+        Assert.assertEquals(Arrays.asList("A", "B", "C", "D", "E"), list);
+        for (int i = 0; i < list.size(); i++) {
+            Assert.assertEquals(i, list.indexOf(list.get(i)));
+        }
+        Assert.assertEquals(-1, list.indexOf("F"));
+        Assert.assertTrue(list.contains("C"));
+        Assert.assertFalse(list.contains("F"));
+        Assert.assertEquals(0, PersistentRankedList.copyOf(new ArrayList<String>()).size());
+    }
+
+    @Test
+    public void testInsertMoveAndRemoveDoNotAffectOriginal() {
+        PersistentRankedList<String> original = PersistentRankedList.copyOf(Arrays.asList("A", "B", "C", "D"));
+
+        PersistentRankedList<String> appended = original.append("E");
+        Assert.assertEquals(Arrays.asList("A", "B", "C", "D", "E"), appended);
+
+        PersistentRankedList<String> inserted = original.insertBefore("E", "B");
+        Assert.assertEquals(Arrays.asList("A", "E", "B", "C", "D"), inserted);
+        Assert.assertEquals(1, inserted.indexOf("E"));
+        Assert.assertEquals(4, inserted.indexOf("D"));
+
+        PersistentRankedList<String> moved = original.insertBefore("D", "A");
+        Assert.assertEquals(Arrays.asList("D", "A", "B", "C"), moved);
+
+        PersistentRankedList<String> movedToEnd = original.append("A");
+        Assert.assertEquals(Arrays.asList("B", "C", "D", "A"), movedToEnd);
+
+        PersistentRankedList<String> removed = original.minus("B");
+        Assert.assertEquals(Arrays.asList("A", "C", "D"), removed);
+        Assert.assertSame(original, original.minus("X"));
+
+        Assert.assertEquals(Arrays.asList("A", "B", "C", "D"), original);
+    }
+
+    @Test
+    public void testRepeatedInsertsAtSamePositionRelabel() {
+        //Keep inserting in front of the same key so the gap between the labels runs out
+        PersistentRankedList<Integer> list = PersistentRankedList.copyOf(Arrays.asList(0, 1));
+        List<Integer> expected = new ArrayList<>(Arrays.asList(0, 1));
+        for (int i = 2; i < 200; i++) {
+            list = list.insertBefore(i, 1);
+            expected.add(expected.size() - 1, i);
+        }
+        Assert.assertEquals(expected, list);
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(i, list.indexOf(expected.get(i)));
+        }
+    }
+
+    @Test
+    public void testRandomOperationsAgainstArrayList() {
+        Random random = new Random(1234);
+        List<Integer> expected = new ArrayList<>();
+        PersistentRankedList<Integer> list = PersistentRankedList.empty();
+        for (int i = 0; i < 10000; i++) {
+            Integer key = random.nextInt(500);
+            int op = random.nextInt(3);
+            if (op == 0 && expected.size() > 0) {
+                list = list.minus(key);
+                expected.remove(key);
+            } else if (op == 1 || expected.size() == 0) {
+                list = list.append(key);
+                expected.remove(key);
+                expected.add(key);
+            } else {
+                Integer before = expected.get(random.nextInt(expected.size()));
+                list = list.insertBefore(key, before);
+                if (!key.equals(before)) {
+                    expected.remove(key);
+                    expected.add(expected.indexOf(before), key);
+                }
+            }
+            Assert.assertEquals(expected.size(), list.size());
+        }
+        Assert.assertEquals(expected, list);
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i), list.get(i));
+            Assert.assertEquals(i, list.indexOf(expected.get(i)));
+        }
+    }
+}
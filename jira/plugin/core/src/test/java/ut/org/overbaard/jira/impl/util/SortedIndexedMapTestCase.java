@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira.impl.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.overbaard.jira.impl.util.SortedIndexedMap;
+
+/**
+ * @author Kabir Khan
+ */
+public class SortedIndexedMapTestCase {
+
+    private static final Comparator<String> COMPARATOR =
+            Comparator.<String, String>comparing(s -> s, String.CASE_INSENSITIVE_ORDER).thenComparing(s -> s);
+
+    @Test
+    public void testCopyOf() {
+        Map<String, String> map = new HashMap<>();
+        for (String s : new String[]{"kabir", "Brian", "andrew", "Stuart", "Andrew"}) {
+            map.put(s, s);
+        }
+        SortedIndexedMap<String, String> sorted = SortedIndexedMap.copyOf(COMPARATOR, map);
+        checkOrder(sorted, "Andrew", "andrew", "Brian", "kabir", "Stuart");
+        Assert.assertNull(sorted.getIndex("james"));
+        Assert.assertNull(sorted.get("james"));
+    }
+
+    @Test
+    public void testPlusDoesNotAffectOriginal() {
+        Map<String, String> map = new HashMap<>();
+        map.put("b", "b");
+        map.put("d", "d");
+        SortedIndexedMap<String, String> original = SortedIndexedMap.copyOf(COMPARATOR, map);
+
+        SortedIndexedMap<String, String> added = original.plus("c", "c");
+        checkOrder(added, "b", "c", "d");
+        Assert.assertEquals(Integer.valueOf(1), added.getIndex("c"));
+
+        added = added.plus("a", "a");
+        checkOrder(added, "a", "b", "c", "d");
+
+        checkOrder(original, "b", "d");
+        Assert.assertSame(original, original.plus("b", original.get("b")));
+    }
+
+    @Test
+    public void testReplace() {
+        Map<Integer, String> map = new HashMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(3, "c");
+        SortedIndexedMap<Integer, String> sorted = SortedIndexedMap.copyOf(COMPARATOR, map);
+        sorted = sorted.plus(1, "z");
+        Assert.assertEquals(3, sorted.size());
+        Assert.assertEquals(Integer.valueOf(2), sorted.getIndex(1));
+        Assert.assertEquals(Integer.valueOf(0), sorted.getIndex(2));
+        Assert.assertEquals("z", sorted.forIndex(2));
+    }
+
+    @Test
+    public void testRandomAdditions() {
+        Random random = new Random(1234);
+        SortedIndexedMap<String, String> sorted = SortedIndexedMap.copyOf(COMPARATOR, new HashMap<>());
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String value = "user" + random.nextInt(5000);
+            if (sorted.get(value) == null) {
+                expected.add(value);
+            }
+            sorted = sorted.plus(value, value);
+        }
+        expected.sort(COMPARATOR);
+        Assert.assertEquals(expected.size(), sorted.size());
+        Assert.assertEquals(expected, new ArrayList<>(sorted.values()));
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(Integer.valueOf(i), sorted.getIndex(expected.get(i)));
+            Assert.assertEquals(expected.get(i), sorted.forIndex(i));
+        }
+    }
+
+    @Test
+    public void testIndexNotStaleAfterPlus() {
+        Map<String, String> map = new HashMap<>();
+        map.put("b", "b");
+        map.put("d", "d");
+        SortedIndexedMap<String, String> original = SortedIndexedMap.copyOf(COMPARATOR, map);
+        //Look up the indices so they are remembered by the original map
+        Assert.assertEquals(Integer.valueOf(0), original.getIndex("b"));
+        Assert.assertEquals(Integer.valueOf(1), original.getIndex("d"));
+
+        SortedIndexedMap<String, String> added = original.plus("a", "a");
+        Assert.assertEquals(Integer.valueOf(0), added.getIndex("a"));
+        Assert.assertEquals(Integer.valueOf(1), added.getIndex("b"));
+        Assert.assertEquals(Integer.valueOf(2), added.getIndex("d"));
+
+        //Looking up the same entries again gives the same answers
+        Assert.assertEquals(Integer.valueOf(0), original.getIndex("b"));
+        Assert.assertEquals(Integer.valueOf(1), original.getIndex("d"));
+        Assert.assertNull(original.getIndex("a"));
+        Assert.assertEquals(Integer.valueOf(1), added.getIndex("b"));
+        Assert.assertEquals(Integer.valueOf(2), added.getIndex("d"));
+    }
+
+    private void checkOrder(SortedIndexedMap<String, String> sorted, String... expected) {
+        Assert.assertEquals(expected.length, sorted.size());
+        int i = 0;
+        for (String value : sorted.values()) {
+            Assert.assertEquals(expected[i], value);
+            Assert.assertEquals(Integer.valueOf(i), sorted.getIndex(value));
+            Assert.assertEquals(value, sorted.forIndex(i));
+            i++;
+        }
+        Assert.assertEquals(expected.length, i);
+    }
+}
@@ -20,6 +20,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
+import java.util.Map;
 
 import com.atlassian.jira.avatar.Avatar;
 import com.atlassian.jira.avatar.AvatarService;
@@ -30,6 +31,7 @@ import com.atlassian.jira.user.ApplicationUser;
  */
 public class AvatarServiceBuilder {
     private final AvatarService avatarService = mock(AvatarService.class);
+    private Map<String, Integer> lookups;
 
     private AvatarServiceBuilder() {
     }
@@ -39,11 +41,28 @@ public class AvatarServiceBuilder {
         return builder.build();
     }
 
+    /**
+     * Gets a mock which also counts the number of times the avatar of each user is looked up.
+     *
+     * @param lookups the number of lookups keyed by user name, updated as the avatars are looked up
+     * @return the mock
+     */
+    public static AvatarService getUserNameUrlMock(Map<String, Integer> lookups) {
+        AvatarServiceBuilder builder = new AvatarServiceBuilder();
+        builder.lookups = lookups;
+        return builder.build();
+    }
+
     AvatarService build() {
         when(avatarService.getAvatarURL(any(ApplicationUser.class), any(ApplicationUser.class), any(Avatar.Size.class)))
                 .then(invocation -> {
                     ApplicationUser user = (ApplicationUser)invocation.getArguments()[1];
                     String name = user.getName();
+                    if (lookups != null) {
+                        synchronized (lookups) {
+                            lookups.merge(name, 1, Integer::sum);
+                        }
+                    }
                     return new URI("/avatars/" + name + ".png");
                 });
         return avatarService;
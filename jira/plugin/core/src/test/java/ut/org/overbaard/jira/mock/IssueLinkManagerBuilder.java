@@ -23,7 +23,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import com.atlassian.jira.issue.link.IssueLink;
 import com.atlassian.jira.issue.link.IssueLinkManager;
+import com.atlassian.jira.issue.link.IssueLinkType;
 
 /**
  * @author Kabir Khan
@@ -31,13 +33,40 @@ import com.atlassian.jira.issue.link.IssueLinkManager;
 public class IssueLinkManagerBuilder {
     private final IssueLinkManager issueLinkManager = mock(IssueLinkManager.class);
 
-    private List<String> outwardLinks = new ArrayList<>();
-    private List<String> inwardLinks = new ArrayList<>();
+    private IssueRegistry issueRegistry;
+
+    public IssueLinkManagerBuilder setIssueRegistry(IssueRegistry issueRegistry) {
+        this.issueRegistry = issueRegistry;
+        return this;
+    }
 
     public IssueLinkManager build() {
-        //TODO configure some links
-        when(issueLinkManager.getInwardLinks(anyLong())).thenReturn(Collections.emptyList());
-        when(issueLinkManager.getOutwardLinks(anyLong())).thenReturn(Collections.emptyList());
+        if (issueRegistry == null) {
+            when(issueLinkManager.getInwardLinks(anyLong())).thenReturn(Collections.emptyList());
+            when(issueLinkManager.getOutwardLinks(anyLong())).thenReturn(Collections.emptyList());
+            return issueLinkManager;
+        }
+        when(issueLinkManager.getInwardLinks(anyLong())).then(
+                invocation -> createIssueLinks(issueRegistry.getInwardLinks((Long) invocation.getArguments()[0])));
+        when(issueLinkManager.getOutwardLinks(anyLong())).then(
+                invocation -> createIssueLinks(issueRegistry.getOutwardLinks((Long) invocation.getArguments()[0])));
         return issueLinkManager;
     }
+
+    private List<IssueLink> createIssueLinks(List<IssueRegistry.Link> links) {
+        List<IssueLink> issueLinks = new ArrayList<>();
+        for (IssueRegistry.Link link : links) {
+            IssueLinkType issueLinkType = mock(IssueLinkType.class);
+            when(issueLinkType.getOutward()).thenReturn(link.outward);
+            when(issueLinkType.getInward()).thenReturn(link.inward);
+
+            IssueLink issueLink = mock(IssueLink.class);
+            when(issueLink.getIssueLinkType()).thenReturn(issueLinkType);
+            //Look up the issues when the link is used, so the current state of the linked issues is returned
+            when(issueLink.getSourceObject()).then(invocation -> issueRegistry.getIssue(link.sourceKey));
+            when(issueLink.getDestinationObject()).then(invocation -> issueRegistry.getIssue(link.destinationKey));
+            issueLinks.add(issueLink);
+        }
+        return issueLinks;
+    }
 }
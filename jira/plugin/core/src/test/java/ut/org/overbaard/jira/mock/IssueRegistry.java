@@ -15,9 +15,11 @@
  */
 package ut.org.overbaard.jira.mock;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -47,6 +49,8 @@ public class IssueRegistry implements NextRankedIssueUtil {
     private final UserManager userManager;
     private final Map<String, Map<String, Epic>> epicsByProject = new HashMap<>();
     private final Map<String, Map<String, MockIssue>> issuesByProject = new HashMap<>();
+    private final List<Link> links = new ArrayList<>();
+    private long nextIssueId = 1;
 
     public IssueRegistry(UserManager userManager) {
         this.userManager = userManager;
@@ -108,6 +112,8 @@ public class IssueRegistry implements NextRankedIssueUtil {
 
         MockIssue newIssue = new MockIssue(issueKey, issueType, priority, summ,
                 assigneeUser, comps, labelz, fixVersionz, status);
+        newIssue.setId(issue.getId());
+        newIssue.setUpdated(new Timestamp(System.currentTimeMillis()));
         issues.put(issueKey, newIssue);
     }
 
@@ -131,7 +137,58 @@ public class IssueRegistry implements NextRankedIssueUtil {
         issue.setParent(parentKey);
     }
 
-    List<Issue> getIssueList(String searchIssueKey, String project, String searchStatus, Collection<String> doneStatesFilter) {
+    /**
+     * Sets the time an issue was last updated, which is otherwise the time it was created or last updated in the registry
+     *
+     * @param issueKey the issue key
+     * @param updated the time the issue was updated
+     */
+    public void setUpdated(String issueKey, long updated) {
+        MockIssue issue = getIssue(issueKey);
+        issue.setUpdated(new Timestamp(updated));
+    }
+
+    /**
+     * Links two issues. The links are looked up by the mock {@code IssueLinkManager}, and always return the current
+     * state of the linked issues.
+     *
+     * @param sourceKey the key of the issue the link is from
+     * @param outward the name of the link as seen from the source issue
+     * @param inward the name of the link as seen from the destination issue
+     * @param destinationKey the key of the issue the link is to
+     */
+    public void linkIssues(String sourceKey, String outward, String inward, String destinationKey) {
+        getIssue(sourceKey);
+        getIssue(destinationKey);
+        links.add(new Link(sourceKey, outward, inward, destinationKey));
+    }
+
+    public void unlinkIssues(String sourceKey, String destinationKey) {
+        links.removeIf(link -> link.sourceKey.equals(sourceKey) && link.destinationKey.equals(destinationKey));
+    }
+
+    List<Link> getOutwardLinks(Long issueId) {
+        List<Link> ret = new ArrayList<>();
+        for (Link link : links) {
+            if (issueId.equals(getIssue(link.sourceKey).getId())) {
+                ret.add(link);
+            }
+        }
+        return ret;
+    }
+
+    List<Link> getInwardLinks(Long issueId) {
+        List<Link> ret = new ArrayList<>();
+        for (Link link : links) {
+            if (issueId.equals(getIssue(link.destinationKey).getId())) {
+                ret.add(link);
+            }
+        }
+        return ret;
+    }
+
+    List<Issue> getIssueList(String searchIssueKey, String project, String searchStatus, Collection<String> doneStatesFilter,
+                             Date updatedAfter) {
         if (searchIssueKey != null) {
             return Collections.singletonList(getIssue(searchIssueKey));
         }
@@ -148,11 +205,25 @@ public class IssueRegistry implements NextRankedIssueUtil {
             if (doneStatesFilter != null && doneStatesFilter.contains(issue.getStatusId())) {
                 continue;
             }
+            if (updatedAfter != null && issue.getUpdated().before(updatedAfter)) {
+                continue;
+            }
             ret.add(issue);
         }
         return ret;
     }
 
+    /**
+     * Finds an issue, like {@link #getIssue(String)} but returns {@code null} rather than failing if it does not exist
+     *
+     * @param issueKey the issue key
+     * @return the issue or {@code null}
+     */
+    public MockIssue findIssue(String issueKey) {
+        Map<String, MockIssue> issues = issuesByProject.get(getProjectCode(issueKey));
+        return issues == null ? null : issues.get(issueKey);
+    }
+
     public MockIssue getIssue(String issueKey) {
         Map<String, MockIssue> issues = issuesByProject.get(getProjectCode(issueKey));
         Assert.assertNotNull(issues);
@@ -202,6 +273,7 @@ public class IssueRegistry implements NextRankedIssueUtil {
     public void deleteIssue(String issueKey) {
         Map<String, MockIssue> issues = issuesByProject.get(getProjectCode(issueKey));
         issues.remove(issueKey);
+        links.removeIf(link -> link.sourceKey.equals(issueKey) || link.destinationKey.equals(issueKey));
     }
 
     private String getProjectCode(String issueKey) {
@@ -285,9 +357,25 @@ public class IssueRegistry implements NextRankedIssueUtil {
             String issueKey = projectCode + "-" + (issues.size() + 1);
             MockIssue issue =
                     new MockIssue(issueKey, issueType, priority, summary, assignee, components, labels, fixVersions, state);
+            issue.setId(nextIssueId++);
+            issue.setUpdated(new Timestamp(System.currentTimeMillis()));
             issues.put(issueKey, issue);
             return issue;
         }
 
     }
+
+    static class Link {
+        final String sourceKey;
+        final String outward;
+        final String inward;
+        final String destinationKey;
+
+        private Link(String sourceKey, String outward, String inward, String destinationKey) {
+            this.sourceKey = sourceKey;
+            this.outward = outward;
+            this.inward = inward;
+            this.destinationKey = destinationKey;
+        }
+    }
 }
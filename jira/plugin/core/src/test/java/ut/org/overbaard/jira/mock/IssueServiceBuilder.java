@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.overbaard.jira.mock;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationTargetException;
+
+import com.atlassian.jira.bc.issue.IssueService;
+import com.atlassian.jira.issue.MutableIssue;
+import com.atlassian.jira.user.ApplicationUser;
+
+/**
+ * Only supports looking up the issues.
+ *
+ * @author Kabir Khan
+ */
+public class IssueServiceBuilder {
+    private final IssueService issueService = mock(IssueService.class);
+
+    private IssueRegistry issueRegistry;
+
+    public IssueServiceBuilder setIssueRegistry(IssueRegistry issueRegistry) {
+        this.issueRegistry = issueRegistry;
+        return this;
+    }
+
+    public IssueService build() {
+        when(issueService.getIssue(any(ApplicationUser.class), anyString())).then(invocation -> {
+            MockIssue issue = issueRegistry == null ? null : issueRegistry.findIssue((String) invocation.getArguments()[1]);
+            IssueService.IssueResult result = mock(IssueService.IssueResult.class);
+            when(result.getIssue()).thenReturn(issue == null ? null : createMutableIssue(issue));
+            return result;
+        });
+        return issueService;
+    }
+
+    private static MutableIssue createMutableIssue(MockIssue issue) {
+        //The board only reads the issue, so delegate the methods of Issue to the registered issue
+        return mock(MutableIssue.class, invocation -> {
+            try {
+                return invocation.getMethod().invoke(issue, invocation.getArguments());
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+}
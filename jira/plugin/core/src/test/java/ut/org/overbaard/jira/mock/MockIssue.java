@@ -60,6 +60,8 @@ public class MockIssue implements Issue {
     private final Set<Version> fixVersions;
     private final Status state;
 
+    private Long id;
+    private Timestamp updated;
     private String parentKey;
     private MockIssue epic;
 
@@ -80,7 +82,7 @@ public class MockIssue implements Issue {
 
     @Override
     public Long getId() {
-        return null;
+        return id;
     }
 
     @Override
@@ -90,7 +92,7 @@ public class MockIssue implements Issue {
 
     @Override
     public Project getProjectObject() {
-        return null;
+        return new MockProject(key.substring(0, key.indexOf("-")));
     }
 
     @Override
@@ -236,7 +238,7 @@ public class MockIssue implements Issue {
 
     @Override
     public Timestamp getUpdated() {
-        return null;
+        return updated;
     }
 
     @Override
@@ -420,6 +422,14 @@ public class MockIssue implements Issue {
 
 
 
+    void setId(Long id) {
+        this.id = id;
+    }
+
+    void setUpdated(Timestamp updated) {
+        this.updated = updated;
+    }
+
     void setCustomField(Long customFieldId, Object value) {
         if (value == null) {
             customFields.remove(customFieldId);
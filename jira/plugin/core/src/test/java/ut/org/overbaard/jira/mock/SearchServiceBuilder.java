@@ -22,6 +22,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -56,6 +57,7 @@ public class SearchServiceBuilder {
     private String searchProject;
     private String searchStatus;
     private Collection<String> doneStatesFilter;
+    private Date searchUpdatedAfter;
     private SearchCallback searchCallback;
 
     public SearchServiceBuilder(MockComponentWorker mockComponentWorker) {
@@ -85,13 +87,15 @@ public class SearchServiceBuilder {
                 searchCallback.searching();
             }
             try {
-                List<Issue> issues = issueRegistry.getIssueList(searchIssueKey, searchProject, searchStatus, doneStatesFilter);
+                List<Issue> issues = issueRegistry.getIssueList(searchIssueKey, searchProject, searchStatus, doneStatesFilter,
+                        searchUpdatedAfter);
                 return issues;
             } finally {
                 searchIssueKey = null;
                 searchProject = null;
                 searchStatus = null;
                 doneStatesFilter = null;
+                searchUpdatedAfter = null;
             }
         });
 
@@ -134,6 +138,10 @@ public class SearchServiceBuilder {
                 searchStatus = (String) invocation.getArguments()[0];
                 return jqlClauseBuilder;
             });
+            when(jqlClauseBuilder.updatedAfter(any(Date.class))).then(invocation -> {
+                searchUpdatedAfter = (Date) invocation.getArguments()[0];
+                return jqlClauseBuilder;
+            });
             when(jqlClauseBuilder.addStringCondition(anyString(), any(Set.class))).then(invocation -> {
                 String clauseName = (String) invocation.getArguments()[0];
                 if (clauseName.equals("status")) {
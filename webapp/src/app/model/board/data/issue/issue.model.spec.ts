@@ -610,6 +610,47 @@ describe('Issue unit tests', () => {
           .check();
 
       });
+
+      it ('Linked issues', () => {
+        const updated = createAndUpdateIssue(input, {key: 'P2-1', 'linked-issues': [
+            {
+              key : 'L1-1',
+              summary : 'Linked 1',
+              state: 3
+            },
+            {
+              key : 'L2-2',
+              summary : 'Linked 2',
+              state: 0
+            }]
+        });
+        new IssueChecker(updated,
+          lookupParams.issueTypes.get('task'),
+          lookupParams.priorities.get('Blocker'),
+          lookupParams.assignees.get('bob'),
+          'Issue summary', 4)
+          .key('P2-1')
+          .addLinkedIssue('L1-1', 'Linked 1', 3, 'L1-4')
+          .addLinkedIssue('L2-2', 'Linked 2', 0, 'L2-1')
+          .check();
+      });
+
+      it ('Remove linked issues', () => {
+        input['linked-issues'] = [
+          {
+            key : 'L1-1',
+            summary : 'Linked 1',
+            state: 3
+          }];
+        const updated = createAndUpdateIssue(input, {key: 'P2-1', 'linked-issues': []});
+        new IssueChecker(updated,
+          lookupParams.issueTypes.get('task'),
+          lookupParams.priorities.get('Blocker'),
+          lookupParams.assignees.get('bob'),
+          'Issue summary', 4)
+          .key('P2-1')
+          .check();
+      });
     });
 
     describe('New issue', () => {
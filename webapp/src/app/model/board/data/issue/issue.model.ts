@@ -392,24 +392,7 @@ export class IssueUtil {
         const tmp: List<any> = value.toList();
         return tmp.withMutations(mutable => {
           tmp.forEach((li, i) => {
-            const data: LinkedIssue = cloneObject(li);
-            const projCode: string = IssueUtil.productCodeFromKey(data['key']);
-            const project: LinkedProject = params.linkedProjects.get(projCode);
-            const stateIndex: number = data['state'];
-
-            let linkedStates: List<string> = project.states;
-            const linkedIssueType: string = data['type'];
-            if (linkedIssueType) {
-              // This type will only be set in the data from the server if it is for a linked issue type override
-              linkedStates = project.typeStates.get(linkedIssueType);
-            }
-            if (!linkedStates) {
-              console.warn(`Linked issue ${data['key']} has a 'type' which does not appear in the 'type-states' for the linked project`);
-            } else {
-              data.colour = ColourTable.INSTANCE.getColourTable(linkedStates.size)[stateIndex];
-              data.stateName = linkedStates.get(stateIndex);
-            }
-            mutable.set(i, LINKED_ISSUE_FACTORY(<any>data));
+            mutable.set(i, IssueUtil.linkedIssueFromJs(li, params));
           });
         });
       }
@@ -418,6 +401,27 @@ export class IssueUtil {
     return ISSUE_FACTORY(temp);
   }
 
+  private static linkedIssueFromJs(input: any, params: DeserializeIssueLookupParams): LinkedIssue {
+    const data: LinkedIssue = cloneObject(input);
+    const projCode: string = IssueUtil.productCodeFromKey(data['key']);
+    const project: LinkedProject = params.linkedProjects.get(projCode);
+    const stateIndex: number = data['state'];
+
+    let linkedStates: List<string> = project.states;
+    const linkedIssueType: string = data['type'];
+    if (linkedIssueType) {
+      // This type will only be set in the data from the server if it is for a linked issue type override
+      linkedStates = project.typeStates.get(linkedIssueType);
+    }
+    if (!linkedStates) {
+      console.warn(`Linked issue ${data['key']} has a 'type' which does not appear in the 'type-states' for the linked project`);
+    } else {
+      data.colour = ColourTable.INSTANCE.getColourTable(linkedStates.size)[stateIndex];
+      data.stateName = linkedStates.get(stateIndex);
+    }
+    return LINKED_ISSUE_FACTORY(<any>data);
+  }
+
   static issueChangeFromJs(input: any, currentIssues: Map<string, BoardIssue>, params: DeserializeIssueLookupParams): BoardIssue {
     let customFields: Map<string, CustomFieldValue>;
     const key: string = input['key'];
@@ -492,7 +496,9 @@ export class IssueUtil {
       customFields: customFields,
       parallelTasks: params.getParallelTasks(projectCode, overrideType),
       selectedParallelTasks: selectedParallelTasks,
-      linkedIssues: null // This isn't settable from the events at the moment, and only happens on full board refresh
+      // The server sends the full list of linked issues when they change
+      linkedIssues: input['linked-issues'] ?
+        List<LinkedIssue>((<any[]>input['linked-issues']).map(li => IssueUtil.linkedIssueFromJs(li, params))) : null
     };
   }
 
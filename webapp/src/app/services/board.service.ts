@@ -1,4 +1,4 @@
-import {HttpClient, HttpErrorResponse, HttpHeaders} from '@angular/common/http';
+import {HttpClient, HttpErrorResponse, HttpHeaders, HttpResponse} from '@angular/common/http';
 import {UrlService} from './url.service';
 import {Injectable} from '@angular/core';
 import {Observable,  timer ,  throwError as _throw , Subscription, combineLatest} from 'rxjs';
@@ -16,8 +16,10 @@ import {environment} from '../../environments/environment';
 export class BoardService {
   static readonly _bigTimeout: number = 60000;
   static readonly _smallTimeout: number = 20000;
+  static readonly _loadStatusPollTime: number = 2000;
 
   private _changePoller: ChangePoller;
+  private _boardLoadSubscription: Subscription;
 
   constructor(private readonly _restUrlService: UrlService,
               private readonly _http: HttpClient,
@@ -32,16 +34,68 @@ export class BoardService {
   }
 
   loadBoardData(boardCode: string, backlog: boolean, firstLoad: boolean) {
-    // Cancel any background polling
+    // Cancel any background polling, and any load of the board we are still waiting for
     this.stopPolling();
+    this.stopBoardLoad();
 
     const progress: Progress = this._progressLog.startUserAction();
+    if (this._restUrlService.staticRestFiles) {
+      // There is nothing to load, just get the board
+      this.getBoardData(progress, boardCode, backlog, firstLoad);
+      return;
+    }
+
+    // Start loading the board in the background, and poll the status of the load until it is done. This way we don't
+    // keep a request open for the whole load of a large board, which could take longer than the proxy timeouts
+    const path: string = this._restUrlService.caclulateRestUrl(
+      UrlService.OVERBAARD_REST_PREFIX + '/issues/' + boardCode + '/load');
+    console.log('Loading board ' + path);
+    this.checkBoardLoadStatus(
+      progress, boardCode, backlog, firstLoad, path,
+      this._http.post(path, null, {headers: this.createHeaders(), observe: 'response'}));
+  }
+
+  private checkBoardLoadStatus(progress: Progress, boardCode: string, backlog: boolean, firstLoad: boolean,
+                               loadPath: string, request: Observable<HttpResponse<Object>>) {
+    // Don't use executeRequest here to keep the progress open until we have the board
+    this._boardLoadSubscription = request
+      .pipe(
+        take(1),
+        timeout(BoardService._smallTimeout),
+        catchError((err: HttpErrorResponse) => {
+          progress.errorResponse(err);
+          return _throw(err);
+        })
+      )
+      .subscribe(
+        response => {
+          const status: any = response.body;
+          if (status['status'] === 'loading') {
+            console.log(`Loaded ${status['loaded']} of about ${status['total']} issues of board ${boardCode}`);
+            // The Location header points to the status of the load, which is also what a GET of the load path returns
+            const statusPath: string = response.headers.get('Location') || loadPath;
+            this._boardLoadSubscription = timer(BoardService._loadStatusPollTime)
+              .subscribe(
+                done => this.checkBoardLoadStatus(progress, boardCode, backlog, firstLoad, loadPath,
+                  this._http.get(statusPath, {observe: 'response'})));
+          } else if (status['status'] === 'failed') {
+            progress.logError(`Loading board ${boardCode} failed: ${status['error']}`);
+          } else {
+            // The board is loaded, or can be served from its snapshot while it is loaded. If the board was unloaded
+            // again in the meantime, getting it loads it again
+            this.getBoardData(progress, boardCode, backlog, firstLoad);
+          }
+        }
+      );
+  }
+
+  private getBoardData(progress: Progress, boardCode: string, backlog: boolean, firstLoad: boolean) {
     let url = UrlService.OVERBAARD_REST_PREFIX + '/issues/' + boardCode;
     if (backlog) {
       url += '?backlog=' + true;
     }
     const path: string = this._restUrlService.caclulateRestUrl(url);
-    return executeRequest(
+    this._boardLoadSubscription = executeRequest(
       progress,
       BoardService._bigTimeout,
       () => {},
@@ -282,11 +336,19 @@ export class BoardService {
   }
 
   destroy() {
+    this.stopBoardLoad();
     if (this._changePoller) {
       this._changePoller.destroy();
     }
   }
 
+  private stopBoardLoad() {
+    if (this._boardLoadSubscription) {
+      this._boardLoadSubscription.unsubscribe();
+      this._boardLoadSubscription = null;
+    }
+  }
+
   private stopPolling() {
     if (this._changePoller) {
       this._changePoller.destroy();
@@ -51,6 +51,14 @@ export class UrlService {
     return this._urlServiceState.jiraUrl;
   }
 
+  /**
+   * Whether the rest calls are answered by the json files bundled with the webapp rather than by Jira, i.e. for the
+   * demo and when debugging the UI locally. Only GET requests work then.
+   */
+  get staticRestFiles(): boolean {
+    return this._urlServiceState.localDebug || this._urlServiceState.demo;
+  }
+
 
   /**
    * We need to do a little trick here since angular-cli's version of webpack does not seem to do proper replacements
@@ -77,7 +85,7 @@ export class UrlService {
   }
 
   caclulateRestUrl(path: string): string {
-    if (this._urlServiceState.localDebug || this._urlServiceState.demo) {
+    if (this.staticRestFiles) {
       if (this._urlServiceState.demo) {
         path = path.replace('rest/', 'demo/');
       }